@@ -60,4 +60,18 @@ public class ConfigDaggerModule {
         return Boolean.parseBoolean(config.getProperty("enable_deep_water_rendering"));
     }
 
+    @Provides
+    @Singleton
+    @BotScoringThreadCountProperty
+    static Integer provideBotScoringThreadCountProperty(Properties config) {
+        return Integer.parseInt(config.getProperty("bot_scoring_thread_count"));
+    }
+
+    @Provides
+    @Singleton
+    @BotParallelScoringThresholdProperty
+    static Integer provideBotParallelScoringThresholdProperty(Properties config) {
+        return Integer.parseInt(config.getProperty("bot_parallel_scoring_threshold"));
+    }
+
 }
@@ -0,0 +1,44 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.events;
+
+import de.sesu8642.feudaltactics.ingame.GameParameters;
+
+/**
+ * Event: Map preview needs to be re-generated because the parameters on the parameter input screen changed. The map
+ * is generated in the background and only the latest of several quick changes is shown.
+ */
+public class RegeneratePreviewMapEvent {
+
+    private GameParameters gameParams;
+    private boolean centerMap;
+
+    /**
+     * Constructor.
+     *
+     * @param gameParams parameters of the map to generate
+     * @param centerMap  whether the map needs to be centered once it is shown, because its shape changed
+     */
+    public RegeneratePreviewMapEvent(GameParameters gameParams, boolean centerMap) {
+        super();
+        this.gameParams = gameParams;
+        this.centerMap = centerMap;
+    }
+
+    public GameParameters getGameParams() {
+        return gameParams;
+    }
+
+    public void setGameParams(GameParameters gameParams) {
+        this.gameParams = gameParams;
+    }
+
+    public boolean isCenterMap() {
+        return centerMap;
+    }
+
+    public void setCenterMap(boolean centerMap) {
+        this.centerMap = centerMap;
+    }
+
+}
@@ -2,6 +2,7 @@
 
 package de.sesu8642.feudaltactics.ingame;
 
+import de.sesu8642.feudaltactics.lib.gamestate.MapGeneratorVersion;
 import de.sesu8642.feudaltactics.lib.gamestate.Player;
 import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
 import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
@@ -18,6 +19,7 @@ public class GameParameters {
     private final int landMass;
     private final float density;
     private final Intelligence botIntelligence;
+    private final MapGeneratorVersion mapGeneratorVersion;
 
     /**
      * Constructor. Assumes one human player.
@@ -25,10 +27,11 @@ public class GameParameters {
      * @param humanPlayerIndex index of the human player
      * @param seed             map seed to use for generating the map
      * @param landMass         number of tiles to generate
-     * @param density          map density to use for generation
+     * @param density             map density to use for generation
+     * @param mapGeneratorVersion version of the map generation to use
      */
     public GameParameters(int humanPlayerIndex, long seed, int landMass, float density, Intelligence botIntelligence,
-                          int numberOfBotPlayers) {
+                          int numberOfBotPlayers, MapGeneratorVersion mapGeneratorVersion) {
         this.botIntelligence = botIntelligence;
         this.players = new ArrayList<>();
         for (int i = 0; i < numberOfBotPlayers + 1; i++) {
@@ -41,6 +44,28 @@ public class GameParameters {
         this.seed = seed;
         this.landMass = landMass;
         this.density = density;
+        this.mapGeneratorVersion = mapGeneratorVersion;
+    }
+
+    private GameParameters(List<Player> players, long seed, int landMass, float density,
+                           Intelligence botIntelligence, MapGeneratorVersion mapGeneratorVersion) {
+        this.players = players;
+        this.seed = seed;
+        this.landMass = landMass;
+        this.density = density;
+        this.botIntelligence = botIntelligence;
+        this.mapGeneratorVersion = mapGeneratorVersion;
+    }
+
+    /**
+     * Returns parameters that only differ in the map seed and the generator version.
+     *
+     * @param seed                map seed to use for generating the map
+     * @param mapGeneratorVersion version of the map generation to use
+     * @return new parameters
+     */
+    public GameParameters withSeed(long seed, MapGeneratorVersion mapGeneratorVersion) {
+        return new GameParameters(players, seed, landMass, density, botIntelligence, mapGeneratorVersion);
     }
 
     public List<Player> getPlayers() {
@@ -63,6 +88,10 @@ public class GameParameters {
         return botIntelligence;
     }
 
+    public MapGeneratorVersion getMapGeneratorVersion() {
+        return mapGeneratorVersion;
+    }
+
     @Override
     public String toString() {
         return "GameParameters{" +
@@ -71,6 +100,7 @@ public class GameParameters {
                 ", landMass=" + landMass +
                 ", density=" + density +
                 ", botIntelligence=" + botIntelligence +
+                ", mapGeneratorVersion=" + mapGeneratorVersion +
                 '}';
     }
 }
@@ -3,10 +3,11 @@
 package de.sesu8642.feudaltactics.ingame;
 
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.utils.reflect.ClassReflection;
 import com.google.common.eventbus.Subscribe;
+import de.sesu8642.feudaltactics.events.GameExitedEvent;
 import de.sesu8642.feudaltactics.events.InitializeScenarioEvent;
 import de.sesu8642.feudaltactics.events.RegenerateMapEvent;
+import de.sesu8642.feudaltactics.events.RegeneratePreviewMapEvent;
 import de.sesu8642.feudaltactics.events.TapInputEvent;
 import de.sesu8642.feudaltactics.events.input.BackInputEvent;
 import de.sesu8642.feudaltactics.events.moves.*;
@@ -27,16 +28,20 @@ public class LocalIngameInputHandler {
 
     private final GameController gameController;
     private final InputValidationHelper inputValidationHelper;
+    private final MapPreviewGenerator mapPreviewGenerator;
 
     /**
      * Constructor.
      *
-     * @param gameController game controller
+     * @param gameController      game controller
+     * @param mapPreviewGenerator generator for map previews
      */
     @Inject
-    public LocalIngameInputHandler(GameController gameController, InputValidationHelper inputValidationHelper) {
+    public LocalIngameInputHandler(GameController gameController, InputValidationHelper inputValidationHelper,
+                                   MapPreviewGenerator mapPreviewGenerator) {
         this.gameController = gameController;
         this.inputValidationHelper = inputValidationHelper;
+        this.mapPreviewGenerator = mapPreviewGenerator;
     }
 
     private void carryOutPlayerMoveIfLegal(PlayerMove move) {
@@ -80,7 +85,29 @@ public class LocalIngameInputHandler {
      */
     @Subscribe
     public void handleRegenerateMap(RegenerateMapEvent event) {
+        mapPreviewGenerator.cancelPendingPreview();
         gameController.generateGameState(event.getGameParams());
+        mapPreviewGenerator.prefetchRandomMap(event.getGameParams());
+    }
+
+    /**
+     * Event handler for map preview re-generation events.
+     *
+     * @param event event to handle
+     */
+    @Subscribe
+    public void handleRegeneratePreviewMap(RegeneratePreviewMapEvent event) {
+        mapPreviewGenerator.requestPreview(event.getGameParams(), event.isCenterMap());
+    }
+
+    /**
+     * Event handler for game exited events.
+     *
+     * @param event event to handle
+     */
+    @Subscribe
+    public void handleGameExited(GameExitedEvent event) {
+        mapPreviewGenerator.cancelPendingPreview();
     }
 
     /**
@@ -90,6 +117,7 @@ public class LocalIngameInputHandler {
      */
     @Subscribe
     public void handleInitializeScenario(InitializeScenarioEvent event) {
+        mapPreviewGenerator.cancelPendingPreview();
         gameController.initializeScenario(event.getBotIntelligence(), event.getScenarioMap());
     }
 
@@ -171,6 +199,8 @@ public class LocalIngameInputHandler {
      */
     @Subscribe
     public void handleGameStart(GameStartEvent event) {
+        // the game must start with the map of the latest parameters
+        mapPreviewGenerator.finishPendingPreview();
         gameController.startGame();
     }
 
@@ -186,7 +216,7 @@ public class LocalIngameInputHandler {
         } else {
             if (tile.getPlayer() != null && tile.getPlayer() == player) {
                 if (tile.getContent() == null
-                        || ClassReflection.isAssignableFrom(Blocking.class, tile.getContent().getClass())) {
+                        || tile.getContent().getKind().isBlocking()) {
                     return Optional.of(PlayerMove.placeOwn(tile.getPosition()));
                 } else {
                     return Optional.of(PlayerMove.combineUnits(tile.getPosition()));
@@ -0,0 +1,189 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.ingame;
+
+import com.badlogic.gdx.Gdx;
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.sesu8642.feudaltactics.events.CenterMapUIEvent;
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.MapGeneratorVersion;
+import de.sesu8642.feudaltactics.lib.ingame.GameController;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the map previews of the parameter input screen in the background, so the UI doesn't freeze while the
+ * parameters are changed. A request waits a moment for further changes and is dropped if it is replaced before its
+ * map is shown. Only the map of the latest request is shown, on the render thread.
+ *
+ * <p>It also picks the seeds for the random button. The map of the next random seed with the current parameters is
+ * generated in advance on a separate thread with a low priority, so pressing the button shows it right away without
+ * delaying the previews. Maps of seeds that were entered are generated like before, so they don't depend on this.
+ */
+@Singleton
+public class MapPreviewGenerator {
+
+    // time to wait for further changes, e.g. while going through the options of a select box
+    private static final long DEBOUNCE_DELAY_MS = 100;
+
+    private final GameController gameController;
+    private final EventBus eventBus;
+    private final ScheduledExecutorService mapPreviewExecutorService = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("map-preview-%d").setDaemon(true).build());
+    // a prefetch that has started can't be stopped, so it must not hold up the previews
+    private final ExecutorService mapPrefetchExecutorService = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("map-prefetch-%d").setDaemon(true)
+                    .setPriority(Thread.MIN_PRIORITY).build());
+
+    // number of the latest request; maps of earlier ones are not shown
+    private long latestRequest = 0;
+    // latest request that has not been shown yet
+    private GameParameters pendingGameParams;
+    private boolean pendingCenterMap = false;
+    private ScheduledFuture<?> pendingFuture;
+    // seed the random button uses next, taken once it is needed, and number of the latest request to generate its
+    // map in advance
+    private Long upcomingRandomSeed;
+    private long latestPrefetch = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param gameController game controller
+     * @param eventBus       event bus
+     */
+    @Inject
+    public MapPreviewGenerator(GameController gameController, EventBus eventBus) {
+        this.gameController = gameController;
+        this.eventBus = eventBus;
+    }
+
+    /**
+     * Requests a new preview. Replaces any request that has not been shown yet.
+     *
+     * @param gameParams parameters to generate the map with
+     * @param centerMap  whether to center the map once it is shown
+     */
+    public synchronized void requestPreview(GameParameters gameParams, boolean centerMap) {
+        long request = ++latestRequest;
+        pendingGameParams = gameParams;
+        // the map must still be centered if a request that needs it is replaced by one that doesn't
+        pendingCenterMap |= centerMap;
+        if (pendingFuture != null) {
+            pendingFuture.cancel(false);
+        }
+        // cached maps, e.g. the ones of random seeds, are cheap enough to be shown without waiting
+        long delay = gameController.isGameStateCached(gameParams) ? 0 : DEBOUNCE_DELAY_MS;
+        pendingFuture = mapPreviewExecutorService.schedule(() -> generatePreview(gameParams, request), delay,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Shows the map of a request that has not been shown yet right away, e.g. because the game is about to start with
+     * it. Generates the map on the calling thread, which should be the render thread.
+     */
+    public void finishPendingPreview() {
+        GameParameters gameParams;
+        boolean centerMap;
+        synchronized (this) {
+            if (pendingGameParams == null) {
+                return;
+            }
+            gameParams = pendingGameParams;
+            centerMap = pendingCenterMap;
+            cancelPendingPreview();
+        }
+        showPreview(gameController.createGameState(gameParams), centerMap);
+    }
+
+    /**
+     * Drops a request that has not been shown yet, e.g. because a different map is loaded.
+     */
+    public synchronized void cancelPendingPreview() {
+        latestRequest++;
+        pendingGameParams = null;
+        pendingCenterMap = false;
+        if (pendingFuture != null) {
+            pendingFuture.cancel(false);
+            pendingFuture = null;
+        }
+    }
+
+    /**
+     * Returns a new seed for a random map. Its map with the current parameters has usually been generated in advance.
+     *
+     * @return map seed
+     */
+    public synchronized long takeRandomSeed() {
+        long seed = getUpcomingRandomSeed();
+        // based on the time like before, but never the same seed twice
+        upcomingRandomSeed = Math.max(System.currentTimeMillis(), seed + 1);
+        return seed;
+    }
+
+    /**
+     * Generates the map of the next random seed in the background. Replaces any earlier request that has not started
+     * yet.
+     *
+     * @param gameParams current parameters; the seed and the generator version are the ones the random button uses
+     */
+    public synchronized void prefetchRandomMap(GameParameters gameParams) {
+        long prefetch = ++latestPrefetch;
+        mapPrefetchExecutorService.execute(() -> {
+            GameParameters randomGameParams;
+            synchronized (this) {
+                if (prefetch != latestPrefetch) {
+                    return;
+                }
+                randomGameParams = gameParams.withSeed(getUpcomingRandomSeed(), MapGeneratorVersion.LATEST);
+            }
+            gameController.prefetchGameState(randomGameParams);
+        });
+    }
+
+    private synchronized long getUpcomingRandomSeed() {
+        if (upcomingRandomSeed == null) {
+            // based on the time like before
+            upcomingRandomSeed = System.currentTimeMillis();
+        }
+        return upcomingRandomSeed;
+    }
+
+    private synchronized boolean isLatestRequest(long request) {
+        return request == latestRequest;
+    }
+
+    private void generatePreview(GameParameters gameParams, long request) {
+        if (!isLatestRequest(request)) {
+            return;
+        }
+        GameState gameState = gameController.createGameState(gameParams);
+        Gdx.app.postRunnable(() -> {
+            boolean centerMap;
+            synchronized (this) {
+                if (!isLatestRequest(request)) {
+                    return;
+                }
+                centerMap = pendingCenterMap;
+                cancelPendingPreview();
+            }
+            showPreview(gameState, centerMap);
+        });
+        prefetchRandomMap(gameParams);
+    }
+
+    private void showPreview(GameState gameState, boolean centerMap) {
+        gameController.showGeneratedGameState(gameState);
+        if (centerMap) {
+            eventBus.post(new CenterMapUIEvent());
+        }
+    }
+
+}
@@ -3,6 +3,7 @@
 package de.sesu8642.feudaltactics.ingame;
 
 import de.sesu8642.feudaltactics.ingame.ui.EnumDisplayNameConverter;
+import de.sesu8642.feudaltactics.lib.gamestate.MapGeneratorVersion;
 import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,6 +24,7 @@ public class NewGamePreferences {
     private static final String DENSITY_DISPLAY_NAME = "Map Density";
     private static final String STARTING_POSITION_DISPLAY_NAME = "Starting Position";
     private static final String NUMBER_OF_BOT_PLAYERS_DISPLAY_NAME = "Number of Bots";
+    private static final String MAP_GENERATOR_VERSION_DISPLAY_NAME = "Map Generator";
     private static final Logger LOGGER = LoggerFactory.getLogger(NewGamePreferences.class);
     private long seed;
     private Intelligence botIntelligence;
@@ -30,6 +32,8 @@ public class NewGamePreferences {
     private Densities density;
     private int startingPosition;
     private int numberOfBotPlayers;
+    // seeds from before there were versions need the first one to generate the same map
+    private MapGeneratorVersion mapGeneratorVersion = MapGeneratorVersion.LATEST;
 
     /**
      * Constructor.
@@ -67,6 +71,8 @@ public class NewGamePreferences {
     public static NewGamePreferences fromSharableString(String sharedString) {
         NewGamePreferences preferences = new NewGamePreferences(0, Intelligence.LEVEL_1, MapSizes.SMALL,
                 Densities.DENSE, 0);
+        // strings shared before there were versions don't contain one
+        preferences.setMapGeneratorVersion(MapGeneratorVersion.V1);
         try {
             fillPreferences(sharedString, preferences);
         } catch (IOException e) {
@@ -121,6 +127,11 @@ public class NewGamePreferences {
                         numberOfBotPlayers = Math.min(5, Math.abs(numberOfBotPlayers));
                         preferences.setNumberOfBotPlayers(numberOfBotPlayers);
                         break;
+                    case MAP_GENERATOR_VERSION_DISPLAY_NAME:
+                        // displayed versions start at 1
+                        int mapGeneratorVersionIndex = Integer.parseInt(secondStringPart) - 1;
+                        preferences.setMapGeneratorVersion(MapGeneratorVersion.values()[mapGeneratorVersionIndex]);
+                        break;
                     default:
                         // ignore non recognized lines
                         break;
@@ -141,7 +152,7 @@ public class NewGamePreferences {
         // of bot players is reduced from default
         int correctedStartingPosition = Math.min(startingPosition, numberOfBotPlayers);
         return new GameParameters(correctedStartingPosition, seed, mapSize.amountOfTiles, density.densityFloat,
-                botIntelligence, numberOfBotPlayers);
+                botIntelligence, numberOfBotPlayers, mapGeneratorVersion);
     }
 
     /**
@@ -156,7 +167,9 @@ public class NewGamePreferences {
                 + String.format("\n" + PARAMETER_DISPLAY_FORMAT, MAP_SIZE_DISPLAY_NAME,
                 EnumDisplayNameConverter.getDisplayName(mapSize))
                 + String.format("\n" + PARAMETER_DISPLAY_FORMAT, DENSITY_DISPLAY_NAME,
-                EnumDisplayNameConverter.getDisplayName(density));
+                EnumDisplayNameConverter.getDisplayName(density))
+                + String.format("\n" + PARAMETER_DISPLAY_FORMAT, MAP_GENERATOR_VERSION_DISPLAY_NAME,
+                mapGeneratorVersion.ordinal() + 1);
     }
 
     public long getSeed() {
@@ -207,6 +220,14 @@ public class NewGamePreferences {
         this.numberOfBotPlayers = numberOfBotPlayers;
     }
 
+    public MapGeneratorVersion getMapGeneratorVersion() {
+        return mapGeneratorVersion;
+    }
+
+    public void setMapGeneratorVersion(MapGeneratorVersion mapGeneratorVersion) {
+        this.mapGeneratorVersion = mapGeneratorVersion;
+    }
+
     /**
      * Map sizes that can be generated.
      */
@@ -6,6 +6,7 @@ import com.badlogic.gdx.Preferences;
 import de.sesu8642.feudaltactics.ingame.NewGamePreferences.Densities;
 import de.sesu8642.feudaltactics.ingame.NewGamePreferences.MapSizes;
 import de.sesu8642.feudaltactics.ingame.dagger.NewGamePrefsPrefStore;
+import de.sesu8642.feudaltactics.lib.gamestate.MapGeneratorVersion;
 import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
 
 import javax.inject.Inject;
@@ -24,6 +25,7 @@ public class NewGamePreferencesDao {
     private static final String NEW_GAME_PREFERENCES_MAP_SIZE_NAME = "mapSize";
     private static final String NEW_GAME_PREFERENCES_BOT_INTELLIGENCE_NAME = "botIntelligence";
     private static final String NEW_GAME_PREFERENCES_STARTING_POSITION_NAME = "startingPosition";
+    private static final String NEW_GAME_PREFERENCES_MAP_GENERATOR_VERSION_NAME = "mapGeneratorVersion";
 
     private final Preferences prefStore;
 
@@ -43,6 +45,7 @@ public class NewGamePreferencesDao {
         prefStore.putInteger(NEW_GAME_PREFERENCES_MAP_SIZE_NAME, prefs.getMapSize().ordinal());
         prefStore.putInteger(NEW_GAME_PREFERENCES_DENSITY_NAME, prefs.getDensity().ordinal());
         prefStore.putInteger(NEW_GAME_PREFERENCES_STARTING_POSITION_NAME, prefs.getStartingPosition());
+        prefStore.putInteger(NEW_GAME_PREFERENCES_MAP_GENERATOR_VERSION_NAME, prefs.getMapGeneratorVersion().ordinal());
         prefStore.flush();
     }
 
@@ -58,7 +61,14 @@ public class NewGamePreferencesDao {
         MapSizes mapSize = MapSizes.values()[prefStore.getInteger(NEW_GAME_PREFERENCES_MAP_SIZE_NAME, 0)];
         Densities density = Densities.values()[prefStore.getInteger(NEW_GAME_PREFERENCES_DENSITY_NAME, 0)];
         int startingPosition = prefStore.getInteger(NEW_GAME_PREFERENCES_STARTING_POSITION_NAME, 0);
-        return new NewGamePreferences(seed, botIntelligence, mapSize, density, startingPosition);
+        // a seed saved before there were versions needs the first one to generate the same map
+        MapGeneratorVersion defaultMapGeneratorVersion = prefStore.contains(NEW_GAME_PREFERENCES_SEED_NAME)
+                ? MapGeneratorVersion.V1 : MapGeneratorVersion.LATEST;
+        MapGeneratorVersion mapGeneratorVersion = MapGeneratorVersion.values()[prefStore.getInteger(
+                NEW_GAME_PREFERENCES_MAP_GENERATOR_VERSION_NAME, defaultMapGeneratorVersion.ordinal())];
+        NewGamePreferences prefs = new NewGamePreferences(seed, botIntelligence, mapSize, density, startingPosition);
+        prefs.setMapGeneratorVersion(mapGeneratorVersion);
+        return prefs;
     }
 
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import com.badlogic.gdx.utils.JsonReader;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.JsonWriter.OutputType;
 import de.sesu8642.feudaltactics.ingame.dagger.SeedHistoryPrefStore;
+import de.sesu8642.feudaltactics.lib.gamestate.MapGeneratorVersion;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,6 +17,7 @@ import javax.inject.Singleton;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -120,6 +122,16 @@ public class SeedHistoryDao {
         }
     }
 
+    /**
+     * Get the map generator version of the most recent entry with this seed, if there is one.
+     */
+    public Optional<MapGeneratorVersion> findMapGeneratorVersion(long seed) {
+        return getSeedHistory().stream()
+                .filter(entry -> entry.getSeed() == seed)
+                .map(SeedHistoryEntry::getMapGeneratorVersion)
+                .findFirst();
+    }
+
     /**
      * Get only completed games from history.
      */
@@ -5,6 +5,7 @@ package de.sesu8642.feudaltactics.ingame;
 import de.sesu8642.feudaltactics.ingame.NewGamePreferences.Densities;
 import de.sesu8642.feudaltactics.ingame.NewGamePreferences.MapSizes;
 import de.sesu8642.feudaltactics.ingame.ui.EnumDisplayNameConverter;
+import de.sesu8642.feudaltactics.lib.gamestate.MapGeneratorVersion;
 import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
 
 import java.util.Objects;
@@ -19,18 +20,22 @@ public class SeedHistoryEntry {
     private Intelligence botIntelligence;
     private int startingPosition;
     private GameResult result;
+    // entries from before there were versions were generated with the first one
+    private MapGeneratorVersion mapGeneratorVersion = MapGeneratorVersion.V1;
 
     public SeedHistoryEntry() {
         // Default constructor for JSON deserialization
     }
 
-    public SeedHistoryEntry(long seed, MapSizes mapSize, Densities density, Intelligence botIntelligence, int startingPosition) {
+    public SeedHistoryEntry(long seed, MapSizes mapSize, Densities density, Intelligence botIntelligence, int startingPosition,
+                            MapGeneratorVersion mapGeneratorVersion) {
         this.seed = seed;
         this.mapSize = mapSize;
         this.density = density;
         this.botIntelligence = botIntelligence;
         this.startingPosition = startingPosition;
         this.result = GameResult.INCOMPLETE;
+        this.mapGeneratorVersion = mapGeneratorVersion;
     }
 
     // Getters and Setters
@@ -52,6 +57,9 @@ public class SeedHistoryEntry {
     public GameResult getResult() { return result; }
     public void setResult(GameResult result) { this.result = result; }
 
+    public MapGeneratorVersion getMapGeneratorVersion() { return mapGeneratorVersion; }
+    public void setMapGeneratorVersion(MapGeneratorVersion mapGeneratorVersion) { this.mapGeneratorVersion = mapGeneratorVersion; }
+
     @Override
     public String toString() {
         String resultText;
@@ -87,12 +95,13 @@ public class SeedHistoryEntry {
                 mapSize == that.mapSize &&
                 density == that.density &&
                 botIntelligence == that.botIntelligence &&
-                result == that.result;
+                result == that.result &&
+                mapGeneratorVersion == that.mapGeneratorVersion;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(seed, mapSize, density, botIntelligence, startingPosition, result);
+        return Objects.hash(seed, mapSize, density, botIntelligence, startingPosition, result, mapGeneratorVersion);
     }
 
     public enum GameResult {
@@ -12,6 +12,8 @@ import com.google.common.eventbus.EventBus;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import dagger.Module;
 import dagger.Provides;
+import de.sesu8642.feudaltactics.dagger.BotParallelScoringThresholdProperty;
+import de.sesu8642.feudaltactics.dagger.BotScoringThreadCountProperty;
 import de.sesu8642.feudaltactics.dagger.EnableDeepWaterRenderingProperty;
 import de.sesu8642.feudaltactics.dagger.PreferencesPrefixProperty;
 import de.sesu8642.feudaltactics.ingame.AutoSaveRepository;
@@ -19,6 +21,7 @@ import de.sesu8642.feudaltactics.ingame.NewGamePreferencesDao;
 import de.sesu8642.feudaltactics.lib.gamestate.ScenarioGameStateLoader;
 import de.sesu8642.feudaltactics.lib.ingame.GameController;
 import de.sesu8642.feudaltactics.lib.ingame.botai.BotAi;
+import de.sesu8642.feudaltactics.lib.ingame.botai.ScoringScheduler;
 import de.sesu8642.feudaltactics.menu.preferences.MainPreferencesDao;
 import de.sesu8642.feudaltactics.renderer.MapRenderer;
 import de.sesu8642.feudaltactics.ingame.dagger.SeedHistoryPrefStore;
@@ -26,7 +29,11 @@ import de.sesu8642.feudaltactics.ingame.SeedHistoryDao;
 
 import javax.inject.Singleton;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Dagger module for ingame things.
@@ -41,8 +48,9 @@ public class IngameDaggerModule {
 
     @Provides
     @Singleton
-    static BotAi provideBoaAi(EventBus eventBus, MainPreferencesDao mainPrefsDao) {
-        return new BotAi(eventBus, mainPrefsDao);
+    static BotAi provideBoaAi(EventBus eventBus, MainPreferencesDao mainPrefsDao,
+                              ScoringScheduler scoringScheduler) {
+        return new BotAi(eventBus, mainPrefsDao, scoringScheduler);
     }
 
     @Provides
@@ -101,10 +109,38 @@ public class IngameDaggerModule {
 
     @Provides
     @Singleton
-    static ExecutorService provideBotAiExecutor() {
-        return Executors
-                .newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("botai-%d").setDaemon(true).build());
+    static ExecutorService provideBotAiExecutor(ScoringScheduler scoringScheduler) {
+        // single thread like Executors.newSingleThreadExecutor(); the bots score the tiles on the scheduler's pool from
+        // this thread, so the pool is shut down together with it
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("botai-%d").setDaemon(true).build()) {
+            @Override
+            protected void terminated() {
+                super.terminated();
+                scoringScheduler.shutdown();
+            }
+        };
     }
+
+    @Provides
+    @Singleton
+    static ScoringScheduler provideBotAiScoringScheduler(@BotScoringThreadCountProperty int threadCount,
+                                                         @BotParallelScoringThresholdProperty int parallelThreshold) {
+        if (threadCount <= 1) {
+            return ScoringScheduler.sequential();
+        }
+        // scores the tiles for the botai executor, which shuts it down when terminating; a lower priority leaves the
+        // cpu to the render thread when needed
+        ForkJoinPool pool = new ForkJoinPool(threadCount, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("botai-scoring-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }, null, false);
+        return new ScoringScheduler(pool, parallelThreshold);
+    }
+
     @Provides
     @Singleton
     @SeedHistoryPrefStore
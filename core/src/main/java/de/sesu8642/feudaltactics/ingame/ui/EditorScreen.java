@@ -43,9 +43,9 @@ public class EditorScreen extends GameScreen {
     private final EventBus eventBus;
     private final EditorHudStage editorHudStage;
 
-    List<TileContent> possibleTileContents = ImmutableList.of(new Unit(Unit.UnitTypes.PEASANT),
-            new Unit(Unit.UnitTypes.SPEARMAN), new Unit(Unit.UnitTypes.KNIGHT), new Unit(Unit.UnitTypes.BARON),
-            new Tree(), new Castle());
+    List<TileContent> possibleTileContents = ImmutableList.of(Unit.of(Unit.UnitTypes.PEASANT),
+            Unit.of(Unit.UnitTypes.SPEARMAN), Unit.of(Unit.UnitTypes.KNIGHT), Unit.of(Unit.UnitTypes.BARON),
+            Tree.INSTANCE, Castle.INSTANCE);
 
     /**
      * Tile content for the hand, if a tile content is to be placed.
@@ -60,7 +60,7 @@ public class EditorScreen extends GameScreen {
     /**
      * Cached version of the game state from the editor controller.
      */
-    private GameState cachedGameState;
+    private GameStateSnapshot cachedGameState;
 
     @Inject
     public EditorScreen(@IngameCamera OrthographicCamera ingameCamera, @MenuViewport Viewport viewport,
@@ -100,7 +100,7 @@ public class EditorScreen extends GameScreen {
      */
     public void handleGameStateChange(GameState newGameState) {
 
-        cachedGameState = GameStateHelper.getCopy(newGameState);
+        cachedGameState = GameStateHelper.getSnapshot(newGameState);
         // update the UI
 
         String hudStageInfoText = "Map Size: " + newGameState.getMap().size();
@@ -113,8 +113,8 @@ public class EditorScreen extends GameScreen {
      */
     void centerMap() {
         Margin centeringMargin = calculateMapScreenArea();
-        eventBus.post(new CenterMapEvent(cachedGameState, centeringMargin.marginBottom, centeringMargin.marginLeft,
-                centeringMargin.marginTop, centeringMargin.marginRight));
+        eventBus.post(new CenterMapEvent(cachedGameState.getGameState(), centeringMargin.marginBottom,
+                centeringMargin.marginLeft, centeringMargin.marginTop, centeringMargin.marginRight));
     }
 
     /**
@@ -6,6 +6,7 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.InputMultiplexer;
 import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.ui.Dialog;
 import com.badlogic.gdx.scenes.scene2d.ui.ImageButton.ImageButtonStyle;
 import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
@@ -14,6 +15,7 @@ import com.google.common.eventbus.EventBus;
 import de.sesu8642.feudaltactics.events.*;
 import de.sesu8642.feudaltactics.events.ScreenTransitionTriggerEvent.ScreenTransitionTarget;
 import de.sesu8642.feudaltactics.events.moves.*;
+import de.sesu8642.feudaltactics.ingame.MapPreviewGenerator;
 import de.sesu8642.feudaltactics.ingame.NewGamePreferences;
 import de.sesu8642.feudaltactics.ingame.NewGamePreferencesDao;
 import de.sesu8642.feudaltactics.ingame.dagger.IngameCamera;
@@ -33,6 +35,7 @@ import de.sesu8642.feudaltactics.ingame.SeedHistoryEntry;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
@@ -44,6 +47,7 @@ import java.util.stream.Stream;
 public class IngameScreen extends GameScreen {
     private final SeedHistoryDao seedHistoryDao;
     private final SeedHistoryStage seedHistoryStage;
+    private final MapPreviewGenerator mapPreviewGenerator;
     private final MainPreferencesDao mainPrefsDao;
 
     private final OrthographicCamera ingameCamera;
@@ -67,7 +71,7 @@ public class IngameScreen extends GameScreen {
     /**
      * Cached version of the game state from the game controller.
      */
-    private GameState cachedGameState;
+    private GameStateSnapshot cachedGameState;
     /**
      * Winner of the game before the bot players acted. Used to determine whether
      * the winner changed in order to display a message.
@@ -103,6 +107,7 @@ public class IngameScreen extends GameScreen {
      * @param ingameHudStage      stage for heads up display UI
      * @param menuStage           stage for the pause menu UI
      * @param parameterInputStage stage for the new game parameter input UI
+     * @param mapPreviewGenerator generator for map previews and random seeds
      */
     @Inject
     public IngameScreen(MainPreferencesDao mainPrefsDao, NewGamePreferencesDao newGamePrefDao,
@@ -113,7 +118,7 @@ public class IngameScreen extends GameScreen {
                         InputValidationHelper inputValidationHelper, InputMultiplexer inputMultiplexer,
                         IngameHudStage ingameHudStage, IngameMenuStage menuStage,
                         ParameterInputStage parameterInputStage, SeedHistoryDao seedHistoryDao,
-                        SeedHistoryStage seedHistoryStage) {
+                        SeedHistoryStage seedHistoryStage, MapPreviewGenerator mapPreviewGenerator) {
         super(ingameCamera, viewport, ingameHudStage);
         this.mainPrefsDao = mainPrefsDao;
         this.newGamePrefDao = newGamePrefDao;
@@ -131,6 +136,7 @@ public class IngameScreen extends GameScreen {
         this.parameterInputStage = parameterInputStage;
         this.seedHistoryDao = seedHistoryDao;
         this.seedHistoryStage = seedHistoryStage;
+        this.mapPreviewGenerator = mapPreviewGenerator;
         // load before adding the listeners because they will trigger persisting the preferences on each update
         loadNewGameParameterValues();
         addIngameMenuListeners();
@@ -145,14 +151,15 @@ public class IngameScreen extends GameScreen {
      */
     public void handleEndTurnAttempt() {
         if (mainPrefsDao.getMainPreferences().isWarnAboutForgottenKingdoms()) {
-            Optional<Kingdom> forgottenKingdom = GameStateHelper.getFirstForgottenKingdom(cachedGameState);
+            Optional<Kingdom> forgottenKingdom =
+                    GameStateHelper.getFirstForgottenKingdom(cachedGameState.getGameState());
             if (forgottenKingdom.isPresent()) {
                 Dialog confirmDialog = dialogFactory.createConfirmDialog(
                         "You might have forgotten to do your moves for a kingdom.\n\nAre you sure you want to" +
                                 " end your turn?\n",
                         this::endHumanPlayerTurn, () -> {
                             Kingdom kingdom = forgottenKingdom.get();
-                            eventBus.post(new FocusKingdomEvent(cachedGameState,
+                            eventBus.post(new FocusKingdomEvent(cachedGameState.getGameState(),
                                     kingdom));
                             eventBus.post(new ActivateKingdomEvent(kingdom));
                         });
@@ -175,7 +182,7 @@ public class IngameScreen extends GameScreen {
 
     private void resetGame() {
         eventBus.post(new GameExitedEvent());
-        GameState previousCachedGameState = cachedGameState;
+        GameStateSnapshot previousCachedGameState = cachedGameState;
         clearCache();
         if (previousCachedGameState.getScenarioMap() == ScenarioMap.NONE) {
             eventBus.post(new RegenerateMapEvent(cachedNewGamePreferences.toGameParameters()));
@@ -221,7 +228,7 @@ public class IngameScreen extends GameScreen {
         boolean objectiveProgressed = cachedGameState != null
                 && gameState.getObjectiveProgress() > cachedGameState.getObjectiveProgress();
 
-        cachedGameState = GameStateHelper.getCopy(gameState);
+        cachedGameState = GameStateHelper.getSnapshot(gameState);
         // update the UI
         GameState newGameState = gameState;
 
@@ -234,7 +241,8 @@ public class IngameScreen extends GameScreen {
                     prefs.getMapSize(),
                     prefs.getDensity(),
                     prefs.getBotIntelligence(),
-                    prefs.getStartingPosition()
+                    prefs.getStartingPosition(),
+                    prefs.getMapGeneratorVersion()
             );
             seedHistoryDao.addSeedEntry(entry);
         }
@@ -338,8 +346,8 @@ public class IngameScreen extends GameScreen {
      */
     void centerMap() {
         Margin centeringMargin = calculateMapScreenArea();
-        eventBus.post(new CenterMapEvent(cachedGameState, centeringMargin.marginBottom, centeringMargin.marginLeft,
-                centeringMargin.marginTop, centeringMargin.marginRight));
+        eventBus.post(new CenterMapEvent(cachedGameState.getGameState(), centeringMargin.marginBottom,
+                centeringMargin.marginLeft, centeringMargin.marginTop, centeringMargin.marginRight));
     }
 
     /**
@@ -556,12 +564,21 @@ public class IngameScreen extends GameScreen {
     private void addParameterInputListeners() {
         parameterInputStage.randomButton.addListener(new ExceptionLoggingChangeListener(
                 () -> {
-                    long newSeed = System.currentTimeMillis();
+                    // the map of this seed was usually generated in advance
+                    long newSeed = mapPreviewGenerator.takeRandomSeed();
                     parameterInputStage.seedTextField.setText(String.valueOf(newSeed));
                     cachedNewGamePreferences.setSeed(newSeed);
+                    cachedNewGamePreferences.setMapGeneratorVersion(MapGeneratorVersion.LATEST);
                     newGamePrefDao.saveNewGamePreferences(cachedNewGamePreferences);
                 }));
 
+        // only typing fires this, not setting the text; a seed that was played before keeps the version of that time,
+        // so it generates the same map again, and any other seed is a new one like a random one
+        parameterInputStage.seedTextField.addListener(new ExceptionLoggingChangeListener(
+                () -> cachedNewGamePreferences.setMapGeneratorVersion(seedHistoryDao
+                        .findMapGeneratorVersion(parameterInputStage.getSeedParam())
+                        .orElse(MapGeneratorVersion.LATEST))));
+
         parameterInputStage.pasteButton.addListener(new ExceptionLoggingChangeListener(() -> {
             NewGamePreferences pastedPreferences =
                     NewGamePreferences.fromSharableString(Gdx.app.getClipboard().getContents());
@@ -571,6 +588,10 @@ public class IngameScreen extends GameScreen {
         parameterInputStage.copyButton.addListener(new ExceptionLoggingChangeListener(
                 () -> Gdx.app.getClipboard().setContents(cachedNewGamePreferences.toSharableString())));
 
+        // only the settings that visually change the map need to cause centering
+        List<Actor> mapShapeActors = Arrays.asList(parameterInputStage.seedTextField,
+                parameterInputStage.randomButton, parameterInputStage.sizeSelect, parameterInputStage.densitySelect,
+                parameterInputStage.pasteButton);
         Stream.of(parameterInputStage.seedTextField, parameterInputStage.randomButton, parameterInputStage.sizeSelect,
                         parameterInputStage.densitySelect, parameterInputStage.startingPositionSelect,
                         parameterInputStage.pasteButton, parameterInputStage.difficultySelect)
@@ -581,12 +602,10 @@ public class IngameScreen extends GameScreen {
                     cachedNewGamePreferences.setBotIntelligence(parameterInputStage.getBotIntelligence());
                     cachedNewGamePreferences.setStartingPosition(parameterInputStage.getStartingPosition());
                     newGamePrefDao.saveNewGamePreferences(cachedNewGamePreferences);
-                    eventBus.post(new RegenerateMapEvent(cachedNewGamePreferences.toGameParameters()));
+                    // generated in the background; the map is centered once it is shown
+                    eventBus.post(new RegeneratePreviewMapEvent(cachedNewGamePreferences.toGameParameters(),
+                            mapShapeActors.contains(actor)));
                 })));
-        // only the settings that visually change the map need to cause centering
-        Stream.of(parameterInputStage.seedTextField, parameterInputStage.randomButton, parameterInputStage.sizeSelect,
-                        parameterInputStage.densitySelect, parameterInputStage.pasteButton)
-                .forEach(actor -> actor.addListener(new ExceptionLoggingChangeListener(this::centerMap)));
         parameterInputStage.playButton
                 .addListener(new ExceptionLoggingChangeListener(() -> eventBus.post(new GameStartEvent())));
         parameterInputStage.historyButton.addListener(new ExceptionLoggingChangeListener(() ->
@@ -650,6 +669,7 @@ public class IngameScreen extends GameScreen {
         // per call
         // TODO: starting position needs to be limited when there are less than 5 players
         cachedNewGamePreferences.setNumberOfBotPlayers(newGamePreferences.getNumberOfBotPlayers());
+        cachedNewGamePreferences.setMapGeneratorVersion(newGamePreferences.getMapGeneratorVersion());
         parameterInputStage.seedTextField.setText(String.valueOf(newGamePreferences.getSeed()));
         parameterInputStage.difficultySelect.setSelectedIndex(newGamePreferences.getBotIntelligence().ordinal());
         parameterInputStage.sizeSelect.setSelectedIndex(newGamePreferences.getMapSize().ordinal());
@@ -686,6 +706,7 @@ public class IngameScreen extends GameScreen {
         cachedNewGamePreferences.setDensity(entry.getDensity());
         cachedNewGamePreferences.setBotIntelligence(entry.getBotIntelligence());
         cachedNewGamePreferences.setStartingPosition(entry.getStartingPosition());
+        cachedNewGamePreferences.setMapGeneratorVersion(entry.getMapGeneratorVersion());
 
         // Update all the UI elements with the loaded preferences
         updateParameterInputsFromNewGamePrefs(cachedNewGamePreferences);
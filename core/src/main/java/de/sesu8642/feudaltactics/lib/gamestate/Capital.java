@@ -11,6 +11,11 @@ public class Capital implements TileContent {
     public static final String SPRITE_NAME = "capital";
     public static final int STRENGTH = 1;
 
+    /**
+     * Shared instance. Capitals have no state, so there is no need for more than one.
+     */
+    public static final Capital INSTANCE = new Capital();
+
     @Override
     public String getSpriteName() {
         return SPRITE_NAME;
@@ -23,7 +28,13 @@ public class Capital implements TileContent {
 
     @Override
     public Capital getCopy() {
-        return new Capital();
+        // nothing that could change
+        return this;
+    }
+
+    @Override
+    public Kind getKind() {
+        return Kind.CAPITAL;
     }
 
     @Override
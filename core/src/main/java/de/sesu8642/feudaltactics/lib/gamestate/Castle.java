@@ -11,6 +11,11 @@ public class Castle implements TileContent {
     public static final String SPRITE_NAME = "castle";
     public static final int STRENGTH = 2;
 
+    /**
+     * Shared instance. Castles have no state, so there is no need for more than one.
+     */
+    public static final Castle INSTANCE = new Castle();
+
     @Override
     public String getSpriteName() {
         return SPRITE_NAME;
@@ -23,7 +28,13 @@ public class Castle implements TileContent {
 
     @Override
     public Castle getCopy() {
-        return new Castle();
+        // nothing that could change
+        return this;
+    }
+
+    @Override
+    public Kind getKind() {
+        return Kind.CASTLE;
     }
 
     @Override
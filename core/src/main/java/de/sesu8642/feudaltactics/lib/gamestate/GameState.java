@@ -2,11 +2,9 @@
 
 package de.sesu8642.feudaltactics.lib.gamestate;
 
-import com.badlogic.gdx.math.Vector2;
 import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Objects;
 
@@ -19,7 +17,7 @@ public class GameState {
     private Player winner = null;
     private int playerTurn = 0;
     // need a map with fix iteration order to avoid randomness
-    private LinkedHashMap<Vector2, HexTile> map = new LinkedHashMap<>();
+    private HexGrid map = new HexGrid();
     private List<Kingdom> kingdoms;
     private Kingdom activeKingdom = null;
     private TileContent heldObject = null;
@@ -27,6 +25,7 @@ public class GameState {
     private Long seed;
     private int objectiveProgress = 0;
     private ScenarioMap scenarioMap = ScenarioMap.NONE;
+    private RandomVersion randomVersion = RandomVersion.V1;
 
     /**
      * A round consists of one turn per player.
@@ -61,11 +60,11 @@ public class GameState {
         this.playerTurn = playerTurn;
     }
 
-    public LinkedHashMap<Vector2, HexTile> getMap() {
+    public HexGrid getMap() {
         return map;
     }
 
-    public void setMap(LinkedHashMap<Vector2, HexTile> map) {
+    public void setMap(HexGrid map) {
         this.map = map;
     }
 
@@ -97,6 +96,18 @@ public class GameState {
         return players.get(playerTurn);
     }
 
+    /**
+     * Returns the number of kingdoms of a player.
+     */
+    public int getKingdomCount(Player player) {
+        if (map.getKingdomCount() != kingdoms.size()) {
+            // the map counts the kingdoms with tiles on it, which should be exactly the ones in the list; if not (e.g.
+            // while the game state is being put together), count instead
+            return (int) kingdoms.stream().filter(kingdom -> kingdom.getPlayer() == player).count();
+        }
+        return map.getKingdomCount(player);
+    }
+
     public Intelligence getBotIntelligence() {
         return botIntelligence;
     }
@@ -137,10 +148,46 @@ public class GameState {
         this.scenarioMap = scenarioMap;
     }
 
+    public RandomVersion getRandomVersion() {
+        return randomVersion;
+    }
+
+    public void setRandomVersion(RandomVersion randomVersion) {
+        this.randomVersion = randomVersion;
+    }
+
+    /**
+     * Returns a 64 bit fingerprint of this game state. Unlike {@link #hashCode()}, it is updated incrementally while
+     * the map and the kingdoms change, so getting it is cheap even for big maps. Equal game states have the same
+     * fingerprint on any JVM, so it can be used as a seed, as a cache key or to check whether two game states are in
+     * sync. Kingdoms without tiles on the map and the order of the tiles within a kingdom are not considered.
+     *
+     * @return fingerprint
+     */
+    public long getFingerprint() {
+        long result = map.getFingerprint();
+        for (Player player : players) {
+            result = StateFingerprint.combine(result, player.getPlayerIndex());
+            result = StateFingerprint.combine(result, player.getType().toString().hashCode());
+            result = StateFingerprint.combine(result, player.isDefeated() ? 1 : 0);
+        }
+        result = StateFingerprint.combine(result, winner == null ? -1 : winner.getPlayerIndex());
+        result = StateFingerprint.combine(result, playerTurn);
+        result = StateFingerprint.combine(result, activeKingdom == null ? 0 : activeKingdom.getFingerprint());
+        result = StateFingerprint.combine(result, StateFingerprint.ofContent(heldObject));
+        result = StateFingerprint.combine(result, botIntelligence.toString().hashCode());
+        result = StateFingerprint.combine(result, seed == null ? 0 : seed);
+        result = StateFingerprint.combine(result, objectiveProgress);
+        result = StateFingerprint.combine(result, scenarioMap.toString().hashCode());
+        result = StateFingerprint.combine(result, randomVersion.toString().hashCode());
+        return StateFingerprint.combine(result, round);
+    }
+
     @Override
     public int hashCode() {
         // calculating with enum strings because the hashcode must be consistent across
-        // runs
+        // runs; the random version is left out because the hashcode of games with
+        // RandomVersion.V1 must stay the same
         return Objects.hash(activeKingdom, botIntelligence.toString(), heldObject, kingdoms, map, objectiveProgress,
                 playerTurn, players, round, scenarioMap.toString(), seed, winner);
     }
@@ -162,7 +209,7 @@ public class GameState {
                 && Objects.equals(map, other.map) && objectiveProgress == other.objectiveProgress
                 && playerTurn == other.playerTurn && Objects.equals(players, other.players) && round == other.round
                 && scenarioMap == other.scenarioMap && Objects.equals(seed, other.seed)
-                && Objects.equals(winner, other.winner);
+                && Objects.equals(winner, other.winner) && randomVersion == other.randomVersion;
     }
 
 }
@@ -3,8 +3,8 @@
 package de.sesu8642.feudaltactics.lib.gamestate;
 
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.utils.reflect.ClassReflection;
 import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.gamestate.TileContent.Kind;
 import de.sesu8642.feudaltactics.lib.gamestate.Unit.UnitTypes;
 import de.sesu8642.feudaltactics.lib.ingame.PlayerMove;
 import org.slf4j.Logger;
@@ -38,69 +38,217 @@ public class GameStateHelper {
      */
     public static GameState getCopy(GameState original) {
         GameState result = new GameState();
+        result.setMap(new HexGrid(original.getMap().size()));
+        return copyInto(original, result);
+    }
 
-        List<Player> copiedPlayers = new ArrayList<>();
-        for (Player originalPlayer : original.getPlayers()) {
-            Player newPlayer = Player.copyOf(originalPlayer);
-            copiedPlayers.add(newPlayer);
-        }
-        result.setPlayers(copiedPlayers);
-        if (original.getWinner() != null) {
-            result.setWinner(copiedPlayers.get(original.getPlayers().indexOf(original.getWinner())));
+    /**
+     * Overwrites a game state with a copy of the original, like {@link #getCopy(GameState)}, but reuses the players,
+     * kingdoms, tiles and tile contents that are already in the target where possible instead of creating new ones.
+     * Copying into the same target repeatedly therefore allocates very little.
+     *
+     * @param original game state to copy
+     * @param target   game state to overwrite; must not share any objects with the original
+     * @return the target
+     */
+    public static GameState copyInto(GameState original, GameState target) {
+        // the original's objects are resolved via identity maps to keep the copying linear; comparing them with
+        // equals would be slow for kingdoms and could mix up equal objects
+        Map<Player, Player> copiedPlayers = new IdentityHashMap<>();
+        List<Player> targetPlayers = target.getPlayers() != null ? target.getPlayers() : new ArrayList<>();
+        List<Player> originalPlayers = original.getPlayers();
+        truncate(targetPlayers, originalPlayers.size());
+        for (int i = 0; i < originalPlayers.size(); i++) {
+            Player originalPlayer = originalPlayers.get(i);
+            Player newPlayer;
+            if (i < targetPlayers.size()) {
+                newPlayer = targetPlayers.get(i);
+                newPlayer.setPlayerIndex(originalPlayer.getPlayerIndex());
+                newPlayer.setType(originalPlayer.getType());
+                newPlayer.setDefeated(originalPlayer.isDefeated());
+            } else {
+                newPlayer = Player.copyOf(originalPlayer);
+                targetPlayers.add(newPlayer);
+            }
+            copiedPlayers.put(originalPlayer, newPlayer);
         }
-
-        List<Kingdom> copiedKingdoms = new ArrayList<>();
-        for (Kingdom originalKingdom : original.getKingdoms()) {
-            Kingdom newKingdom = new Kingdom(
-                    copiedPlayers.get(original.getPlayers().indexOf(originalKingdom.getPlayer())));
+        target.setPlayers(targetPlayers);
+        target.setWinner(copiedPlayers.get(original.getWinner()));
+
+        Map<Kingdom, Kingdom> copiedKingdoms = new IdentityHashMap<>();
+        List<Kingdom> targetKingdoms = target.getKingdoms() != null ? target.getKingdoms() : new ArrayList<>();
+        List<Kingdom> originalKingdoms = original.getKingdoms();
+        truncate(targetKingdoms, originalKingdoms.size());
+        for (int i = 0; i < originalKingdoms.size(); i++) {
+            Kingdom originalKingdom = originalKingdoms.get(i);
+            Kingdom newKingdom;
+            if (i < targetKingdoms.size()) {
+                newKingdom = targetKingdoms.get(i);
+                newKingdom.setPlayer(copiedPlayers.get(originalKingdom.getPlayer()));
+                newKingdom.getTiles().clear();
+            } else {
+                newKingdom = new Kingdom(copiedPlayers.get(originalKingdom.getPlayer()));
+                targetKingdoms.add(newKingdom);
+            }
             newKingdom.setSavings(originalKingdom.getSavings());
             newKingdom.setDoneMoving(originalKingdom.isDoneMoving());
             newKingdom.setWasActiveInCurrentTurn(originalKingdom.isWasActiveInCurrentTurn());
-            copiedKingdoms.add(newKingdom);
+            copiedKingdoms.put(originalKingdom, newKingdom);
         }
-        result.setKingdoms(copiedKingdoms);
-
-        LinkedHashMap<Vector2, HexTile> copiedMap = new LinkedHashMap<>();
+        target.setKingdoms(targetKingdoms);
+
+        HexGrid originalMap = original.getMap();
+        HexGrid copiedMap = target.getMap() != null ? target.getMap() : new HexGrid(originalMap.size());
+        // find the tiles that can be reused before clearing the map; re-adding them in the original's order keeps the
+        // iteration order the same
+        HexTile[] reusableTiles = new HexTile[originalMap.getSlotCount()];
+        for (int slot = 0; slot < originalMap.getSlotCount(); slot++) {
+            if (originalMap.getTileInSlot(slot) != null) {
+                reusableTiles[slot] = copiedMap.getTile(originalMap.getCoordsInSlot(slot));
+            }
+        }
+        copiedMap.clear();
         // note: this potentially results in a different tile order in the new kingdom
         // vs the other
-        for (Entry<Vector2, HexTile> originalTileEntry : original.getMap().entrySet()) {
-            HexTile originalTile = originalTileEntry.getValue();
-            HexTile newTile = new HexTile(copiedPlayers.get(original.getPlayers().indexOf(originalTile.getPlayer())),
-                    new Vector2(originalTileEntry.getKey()));
-            if (originalTile.getKingdom() != null) {
-                newTile.setKingdom(copiedKingdoms.get(original.getKingdoms().indexOf(originalTile.getKingdom())));
-                newTile.getKingdom().getTiles().add(newTile);
+        for (int slot = 0; slot < originalMap.getSlotCount(); slot++) {
+            HexTile originalTile = originalMap.getTileInSlot(slot);
+            if (originalTile == null) {
+                continue;
             }
-            if (originalTile.getContent() != null) {
-                newTile.setContent(originalTile.getContent().getCopy());
+            HexTile newTile = reusableTiles[slot];
+            if (newTile == null) {
+                newTile = new HexTile(copiedPlayers.get(originalTile.getPlayer()),
+                        new Vector2(originalTile.getPosition()));
+            } else {
+                newTile.setPlayer(copiedPlayers.get(originalTile.getPlayer()));
             }
+            newTile.setKingdom(copiedKingdoms.get(originalTile.getKingdom()));
+            if (newTile.getKingdom() != null) {
+                newTile.getKingdom().getTiles().add(newTile);
+            }
+            newTile.setContent(getContentCopy(originalTile.getContent(), newTile.getContent()));
             copiedMap.put(newTile.getPosition(), newTile);
         }
-        result.setMap(copiedMap);
+        target.setMap(copiedMap);
+
+        target.setActiveKingdom(copiedKingdoms.get(original.getActiveKingdom()));
+        target.setHeldObject(getContentCopy(original.getHeldObject(), target.getHeldObject()));
+        target.setBotIntelligence(original.getBotIntelligence());
+        target.setSeed(original.getSeed());
+        target.setPlayerTurn(original.getPlayerTurn());
+        target.setRound(original.getRound());
+        target.setObjectiveProgress(original.getObjectiveProgress());
+        target.setScenarioMap(original.getScenarioMap());
+        target.setRandomVersion(original.getRandomVersion());
+
+        return target;
+    }
 
-        if (original.getActiveKingdom() != null) {
-            result.setActiveKingdom(copiedKingdoms.get(original.getKingdoms().indexOf(original.getActiveKingdom())));
+    private static TileContent getContentCopy(TileContent originalContent, TileContent reusableContent) {
+        if (originalContent == null) {
+            return null;
         }
+        // contents are not changed while they are in a game state (see GameStateSnapshot), so equal ones can be reused
+        if (originalContent.equals(reusableContent)) {
+            return reusableContent;
+        }
+        return originalContent.getCopy();
+    }
 
-        if (original.getHeldObject() != null) {
-            result.setHeldObject(original.getHeldObject().getCopy());
+    private static void truncate(List<?> list, int size) {
+        while (list.size() > size) {
+            list.remove(list.size() - 1);
         }
+    }
+
+    /**
+     * Takes a snapshot of the game state. This is much cheaper than {@link #getCopy(GameState)} for big maps, because
+     * the map is only copied when the snapshot's game state is actually needed.
+     *
+     * @param original game state to take the snapshot of
+     * @return snapshot
+     */
+    public static GameStateSnapshot getSnapshot(GameState original) {
+        return new GameStateSnapshot(original);
+    }
 
-        if (original.getSeed() != null) {
-            result.setSeed(original.getSeed());
+    /**
+     * Creates a deep copy of a game state that is identical to the original, unlike {@link #getCopy(GameState)} also
+     * in the order of the kingdoms' tiles. The copy therefore has the same {@link GameState#hashCode()} and a game
+     * continues the same way on it. It is also faster to create, because the map's hash table and neighbor index are
+     * taken over instead of being built tile by tile.
+     *
+     * @param original game state to copy
+     * @return copy
+     */
+    public static GameState getExactCopy(GameState original) {
+        GameState result = new GameState();
+        Map<Player, Player> copiedPlayers = new IdentityHashMap<>();
+        List<Player> players = new ArrayList<>(original.getPlayers().size());
+        for (Player originalPlayer : original.getPlayers()) {
+            Player newPlayer = Player.copyOf(originalPlayer);
+            players.add(newPlayer);
+            copiedPlayers.put(originalPlayer, newPlayer);
         }
+        result.setPlayers(players);
+        result.setWinner(copiedPlayers.get(original.getWinner()));
 
-        result.setPlayerTurn(original.getPlayerTurn());
+        Map<Kingdom, Kingdom> copiedKingdoms = new IdentityHashMap<>();
+        List<Kingdom> kingdoms = new ArrayList<>(original.getKingdoms().size());
+        for (Kingdom originalKingdom : original.getKingdoms()) {
+            Kingdom newKingdom = new Kingdom(copiedPlayers.get(originalKingdom.getPlayer()));
+            newKingdom.setSavings(originalKingdom.getSavings());
+            newKingdom.setDoneMoving(originalKingdom.isDoneMoving());
+            newKingdom.setWasActiveInCurrentTurn(originalKingdom.isWasActiveInCurrentTurn());
+            kingdoms.add(newKingdom);
+            copiedKingdoms.put(originalKingdom, newKingdom);
+        }
+        result.setKingdoms(kingdoms);
 
-        result.setRound(original.getRound());
+        HexGrid originalMap = original.getMap();
+        HexTile[] copiedTiles = new HexTile[originalMap.getSlotCount()];
+        for (int slot = 0; slot < originalMap.getSlotCount(); slot++) {
+            HexTile originalTile = originalMap.getTileInSlot(slot);
+            if (originalTile == null) {
+                continue;
+            }
+            HexTile newTile = new HexTile(copiedPlayers.get(originalTile.getPlayer()),
+                    new Vector2(originalTile.getPosition()));
+            newTile.setKingdom(copiedKingdoms.get(originalTile.getKingdom()));
+            if (originalTile.getContent() != null) {
+                newTile.setContent(originalTile.getContent().getCopy());
+            }
+            copiedTiles[slot] = newTile;
+        }
+        result.setMap(originalMap.copyWithTiles(copiedTiles));
+        for (int i = 0; i < kingdoms.size(); i++) {
+            List<HexTile> tiles = kingdoms.get(i).getTiles();
+            for (HexTile originalTile : original.getKingdoms().get(i).getTiles()) {
+                tiles.add(copiedTiles[originalTile.getGridSlot()]);
+            }
+        }
 
+        result.setActiveKingdom(copiedKingdoms.get(original.getActiveKingdom()));
+        result.setHeldObject(original.getHeldObject() == null ? null : original.getHeldObject().getCopy());
+        result.setBotIntelligence(original.getBotIntelligence());
+        result.setSeed(original.getSeed());
+        result.setPlayerTurn(original.getPlayerTurn());
+        result.setRound(original.getRound());
         result.setObjectiveProgress(original.getObjectiveProgress());
-
         result.setScenarioMap(original.getScenarioMap());
-
+        result.setRandomVersion(original.getRandomVersion());
         return result;
     }
 
+    /**
+     * Generates a map on a {@link GameState} using {@link MapGeneratorVersion#V1}. See
+     * {@link #initializeMap(GameState, List, float, float, Float, Long, MapGeneratorVersion)}.
+     */
+    public static void initializeMap(GameState gameState, List<Player> players, float landMass, float density,
+                                     Float vegetationDensity, Long mapSeed) {
+        initializeMap(gameState, players, landMass, density, vegetationDensity, mapSeed, MapGeneratorVersion.V1);
+    }
+
     /**
      * Generates a map on a {@link GameState}.
      *
@@ -113,9 +261,19 @@ public class GameStateHelper {
      * @param vegetationDensity determines how many trees will be generated. 0.5 =
      *                          50% of empty tiles will have trees
      * @param mapSeed           map seed to use for generating the map
+     * @param generatorVersion  version of the map generation; the same seed generates different maps with different
+     *                          versions
+     * @throws IllegalArgumentException if there are tiles to generate but not two for every player; only checked
+     *                                  from {@link MapGeneratorVersion#V2} on, {@link MapGeneratorVersion#V1} never
+     *                                  finishes in that case
      */
     public static void initializeMap(GameState gameState, List<Player> players, float landMass, float density,
-                                     Float vegetationDensity, Long mapSeed) {
+                                     Float vegetationDensity, Long mapSeed, MapGeneratorVersion generatorVersion) {
+        if (generatorVersion != MapGeneratorVersion.V1 && landMass > 0 && landMass < players.size() * 2) {
+            throw new IllegalArgumentException(String.format(
+                    "land mass of %s is not enough for every one of the %s players to have a kingdom", landMass,
+                    players.size()));
+        }
         if (mapSeed == null) {
             mapSeed = System.currentTimeMillis();
         }
@@ -124,36 +282,44 @@ public class GameStateHelper {
         }
         gameState.setSeed(mapSeed);
         gameState.setPlayers(players);
-        gameState.setMap(new LinkedHashMap<>());
+        gameState.setMap(new HexGrid((int) landMass));
         gameState.setKingdoms(new ArrayList<>());
+        gameState.setRandomVersion(generatorVersion.getRandomVersion());
         if (landMass == 0) {
             return;
         }
-        Random random = new Random(mapSeed);
-        generateMap(gameState, players, landMass, density, vegetationDensity, random);
+        generateMap(gameState, players, landMass, density, vegetationDensity, mapSeed, generatorVersion);
     }
 
     private static void generateMap(GameState gameState, List<Player> players, float landMass, float density,
-                                    float vegetationDensity, Random random) {
-        // if not every player has at least one kingdom, try again
-        do {
-            generateTiles(gameState, players, landMass, density, random);
+                                    float vegetationDensity, long mapSeed, MapGeneratorVersion generatorVersion) {
+        TileGenerator tileGenerator = new TileGenerator(landMass, density);
+        if (generatorVersion == MapGeneratorVersion.V1) {
+            Random random = new Random(mapSeed);
+            // if not every player has at least one kingdom, try again; only positions and owners are generated until
+            // then
+            while (!tileGenerator.generate(players, random, random)) {
+                LOGGER.debug("not every player has a kingdom, generating the tiles again");
+            }
+            tileGenerator.addTilesTo(gameState.getMap());
             createInitialKingdoms(gameState);
-        } while (!doesEveryPlayerHaveKingdom(gameState));
-        createTrees(gameState, vegetationDensity, random);
+            createTrees(gameState, vegetationDensity, random);
+        } else if (generatorVersion == MapGeneratorVersion.V2) {
+            Random random = new Random(mapSeed);
+            generateTiles(gameState, tileGenerator, players, random, random);
+            createTrees(gameState, vegetationDensity, random);
+        } else {
+            RandomStream randomStream = RandomStream.of(mapSeed);
+            generateTiles(gameState, tileGenerator, players,
+                    randomStream.split(RandomStream.Purpose.MAP_PLAYER_ORDER).toRandom(),
+                    randomStream.split(RandomStream.Purpose.MAP_TILES).toRandom());
+            createTrees(gameState, vegetationDensity, randomStream.split(RandomStream.Purpose.MAP_TREES));
+        }
         createCapitals(gameState);
         sortPlayersByIncome(gameState);
         createMoney(gameState);
     }
 
-    private static boolean doesEveryPlayerHaveKingdom(GameState gameState) {
-        List<Player> playersWithoutKingdoms = new ArrayList<>(gameState.getPlayers());
-        for (Kingdom kingdom : gameState.getKingdoms()) {
-            playersWithoutKingdoms.remove(kingdom.getPlayer());
-        }
-        return playersWithoutKingdoms.isEmpty();
-    }
-
     private static void sortPlayersByIncome(GameState gameState) {
         gameState.getPlayers().sort((a, b) -> {
             // if they are the same, it doesn't matter
@@ -166,115 +332,100 @@ public class GameStateHelper {
         });
     }
 
-    private static void generateTiles(GameState gameState, List<Player> players, float landMass, float density,
-                                      Random random) {
-        // distribute the land mass evenly to all players
-        Map<Player, Integer> tileAmountsToGenerate = new HashMap<>();
-        // if there are tiles left, distribute them to random players
-        Collections.shuffle(players, random);
-        int remainingLandMass = (int) (landMass % players.size());
-        for (Player player : players) {
-            int additionalTiles = 0;
-            if (remainingLandMass > 0) {
-                additionalTiles = 1;
-                remainingLandMass--;
-            }
-            tileAmountsToGenerate.put(player, (int) (landMass / players.size() + additionalTiles));
-        }
-        // keep track of the players that still have tiles left to generate in a list
-        // (because a random one can be selected)
-        ArrayList<Player> remainingPlayers = new ArrayList<>(players);
-        gameState.getMap().clear();
-        // could be done recursively but stack size is uncertain
-        Vector2 nextTilePos = new Vector2(0, 0);
-        ArrayList<Vector2> positionHistory = new ArrayList<>(); // for backtracking
-        while (!remainingPlayers.isEmpty()) {
-            Vector2 currentTilePos = nextTilePos;
-            // place tile
-            Player player = remainingPlayers.get(random.nextInt(remainingPlayers.size()));
-            HexTile tile = new HexTile(player, currentTilePos);
-            gameState.getMap().put(currentTilePos, tile);
-            // remove player if no tiles are left
-            if (tileAmountsToGenerate.get(player) == 1) {
-                remainingPlayers.remove(player);
-            } else {
-                tileAmountsToGenerate.put(player, tileAmountsToGenerate.get(player) - 1);
-            }
-            // add to history
-            positionHistory.add(currentTilePos);
-            // get next tile position with empty neighboring tiles
-            List<Vector2> usableCoords = HexMapHelper.getUnusedNeighborCoords(gameState.getMap(), currentTilePos);
-            while (usableCoords.isEmpty()) {
-                // backtrack until able to place a tile again
-                positionHistory.remove(positionHistory.size() - 1);
-                currentTilePos = positionHistory.get(positionHistory.size() - 1);
-                usableCoords = new ArrayList<>(
-                        HexMapHelper.getUnusedNeighborCoords(gameState.getMap(), currentTilePos));
-            }
-            // calculate a score for each neighboring tile for choosing the next one
-            ArrayList<Float> scores = new ArrayList<>();
-            float scoreSum = 0;
-            for (Vector2 candidate : usableCoords) {
-                // factor in density
-                int usableCoordsCountFromCandidate = HexMapHelper.getUnusedNeighborCoords(gameState.getMap(), candidate)
-                        .size();
-                float score = (float) Math.pow(usableCoordsCountFromCandidate, density);
-                scores.add(score);
-                scoreSum += score;
-            }
-            // select tile based on score and random
-            float randomScore = random.nextFloat() * scoreSum;
-            int index = 0;
-            float countedScore = scores.get(0);
-            while (countedScore < randomScore) {
-                index++;
-                countedScore += scores.get(index);
-            }
-            nextTilePos = usableCoords.get(index);
-        }
-    }
-
     private static void createInitialKingdoms(GameState gameState) {
         gameState.getKingdoms().clear();
-        for (Entry<Vector2, HexTile> tileEntry : gameState.getMap().entrySet()) {
-            HexTile tile = tileEntry.getValue();
-            for (HexTile neighborTile : HexMapHelper.getNeighborTiles(gameState.getMap(), tile)) {
-                if (neighborTile == null || neighborTile.getPlayer() != tile.getPlayer()) {
+        HexGrid map = gameState.getMap();
+        int slotCount = map.getSlotCount();
+        // two neighboring tiles of the same player belong to the same kingdom; going through the tiles and their
+        // neighbors in order, kingdoms are created, extended and merged; this is done on slots first so merging
+        // doesn't need to touch every tile: kingdoms are numbered in the order they are created, the tiles of a
+        // kingdom are a linked list and a kingdom that was merged into another one points to it
+        int[] slotKingdoms = new int[slotCount];
+        Arrays.fill(slotKingdoms, -1);
+        int[] nextSlots = new int[slotCount];
+        // every new kingdom takes two tiles that had no kingdom before
+        int[] mergedInto = new int[slotCount / 2 + 1];
+        int[] firstSlots = new int[mergedInto.length];
+        int[] lastSlots = new int[mergedInto.length];
+        int kingdomCount = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (map.getTileInSlot(slot) == null) {
+                continue;
+            }
+            for (int direction = 0; direction < HexGrid.NEIGHBOR_COUNT; direction++) {
+                int neighborSlot = map.getNeighborSlot(slot, direction);
+                if (neighborSlot == HexGrid.NO_SLOT || map.getOwnerInSlot(neighborSlot) != map.getOwnerInSlot(slot)) {
                     // water or tile of a different player
                     continue;
                 }
                 // two neighboring tiles belong to the same player
-                if (tile.getKingdom() == null && neighborTile.getKingdom() == null) {
+                int kingdom = findKingdom(mergedInto, slotKingdoms[slot]);
+                int neighborKingdom = findKingdom(mergedInto, slotKingdoms[neighborSlot]);
+                if (kingdom == -1 && neighborKingdom == -1) {
                     // none of the tiles already belong to a kingdom --> create a new one
-                    Kingdom newKingdom = new Kingdom(tile.getPlayer());
-                    gameState.getKingdoms().add(newKingdom);
-                    newKingdom.getTiles().add(tile);
-                    newKingdom.getTiles().add(neighborTile);
-                    tile.setKingdom(newKingdom);
-                    neighborTile.setKingdom(newKingdom);
-                } else if (tile.getKingdom() != null && neighborTile.getKingdom() == null) {
+                    mergedInto[kingdomCount] = kingdomCount;
+                    firstSlots[kingdomCount] = slot;
+                    nextSlots[slot] = neighborSlot;
+                    lastSlots[kingdomCount] = neighborSlot;
+                    slotKingdoms[slot] = kingdomCount;
+                    slotKingdoms[neighborSlot] = kingdomCount;
+                    kingdomCount++;
+                } else if (kingdom != -1 && neighborKingdom == -1) {
                     // tile belongs to a kingdom but neighbor does not -> add neighbor to existing
                     // kingdom
-                    tile.getKingdom().getTiles().add(neighborTile);
-                    neighborTile.setKingdom(tile.getKingdom());
-                } else if (tile.getKingdom() == null && neighborTile.getKingdom() != null) {
+                    nextSlots[lastSlots[kingdom]] = neighborSlot;
+                    lastSlots[kingdom] = neighborSlot;
+                    slotKingdoms[neighborSlot] = kingdom;
+                } else if (kingdom == -1) {
                     // neighbor belongs to a kingdom but tile does not -> add tile to existing
                     // kingdom
-                    neighborTile.getKingdom().getTiles().add(tile);
-                    tile.setKingdom(neighborTile.getKingdom());
-                } else if (tile.getKingdom() != null && neighborTile.getKingdom() != null
-                        && tile.getKingdom() != neighborTile.getKingdom()) {
+                    nextSlots[lastSlots[neighborKingdom]] = slot;
+                    lastSlots[neighborKingdom] = slot;
+                    slotKingdoms[slot] = neighborKingdom;
+                } else if (kingdom != neighborKingdom) {
                     // tile and neighbor belong to different kingdoms --> merge kingdoms
-                    gameState.getKingdoms().remove(neighborTile.getKingdom());
-                    for (HexTile neighborKingdomTile : neighborTile.getKingdom().getTiles()) {
-                        neighborKingdomTile.setKingdom(tile.getKingdom());
-                        tile.getKingdom().getTiles().add(neighborKingdomTile);
-                    }
+                    nextSlots[lastSlots[kingdom]] = firstSlots[neighborKingdom];
+                    lastSlots[kingdom] = lastSlots[neighborKingdom];
+                    mergedInto[neighborKingdom] = kingdom;
+                }
+            }
+        }
+        // create the kingdoms that were not merged into others
+        for (int kingdomNumber = 0; kingdomNumber < kingdomCount; kingdomNumber++) {
+            if (mergedInto[kingdomNumber] != kingdomNumber) {
+                continue;
+            }
+            Kingdom kingdom = new Kingdom(map.getOwnerInSlot(firstSlots[kingdomNumber]));
+            gameState.getKingdoms().add(kingdom);
+            for (int slot = firstSlots[kingdomNumber]; ; slot = nextSlots[slot]) {
+                HexTile tile = map.getTileInSlot(slot);
+                kingdom.getTiles().add(tile);
+                tile.setKingdom(kingdom);
+                if (slot == lastSlots[kingdomNumber]) {
+                    break;
                 }
             }
         }
     }
 
+    // returns the kingdom that the given one was merged into, if any
+    private static int findKingdom(int[] mergedInto, int kingdom) {
+        if (kingdom == -1) {
+            return -1;
+        }
+        int result = kingdom;
+        while (mergedInto[result] != result) {
+            result = mergedInto[result];
+        }
+        // shorten the way for the next time
+        while (mergedInto[kingdom] != result) {
+            int next = mergedInto[kingdom];
+            mergedInto[kingdom] = result;
+            kingdom = next;
+        }
+        return result;
+    }
+
     private static void createCapitals(GameState gameState) {
         for (Kingdom kingdom : gameState.getKingdoms()) {
             createCapital(kingdom);
@@ -292,6 +443,16 @@ public class GameStateHelper {
         }
     }
 
+    private static void generateTiles(GameState gameState, TileGenerator tileGenerator, List<Player> players,
+                                      Random playerOrderRandom, Random tileRandom) {
+        if (!tileGenerator.generate(players, playerOrderRandom, tileRandom)) {
+            LOGGER.debug("not every player has a kingdom, repairing the tiles");
+            tileGenerator.repair(players);
+        }
+        tileGenerator.addTilesTo(gameState.getMap());
+        createInitialKingdoms(gameState);
+    }
+
     private static void createTrees(GameState gameState, float vegetationDensity, Random random) {
         for (HexTile tile : gameState.getMap().values()) {
             if (random.nextFloat() <= vegetationDensity) {
@@ -300,6 +461,20 @@ public class GameStateHelper {
         }
     }
 
+    /**
+     * Creates the trees with an own random stream for every tile, so whether a tile gets a tree doesn't depend on the
+     * other tiles.
+     */
+    private static void createTrees(GameState gameState, float vegetationDensity, RandomStream randomStream) {
+        HexGrid map = gameState.getMap();
+        for (int slot = 0; slot < map.getSlotCount(); slot++) {
+            HexTile tile = map.getTileInSlot(slot);
+            if (tile != null && randomStream.split(map.getCoordsInSlot(slot)).nextFloat() <= vegetationDensity) {
+                spawnTree(gameState, tile);
+            }
+        }
+    }
+
     /**
      * Creates a new capital in a kingdom after the old one was destroyed.
      *
@@ -357,7 +532,7 @@ public class GameStateHelper {
                 }
             }
         }
-        newCapitalTile.setContent(new Capital());
+        newCapitalTile.setContent(Capital.INSTANCE);
     }
 
     /**
@@ -383,7 +558,7 @@ public class GameStateHelper {
                         String.format("The kingdom %s has no tiles which a capital could be placed on.", kingdom));
             }
         }
-        newCapitalTile.setContent(new Capital());
+        newCapitalTile.setContent(Capital.INSTANCE);
     }
 
     /**
@@ -428,12 +603,17 @@ public class GameStateHelper {
     public static void placeOwn(GameState gameState, HexTile tile) {
         // units can't act after removing blocking stuff
         if (tile.getContent() != null
-                && ClassReflection.isAssignableFrom(Blocking.class, tile.getContent().getClass())) {
-            ((Unit) gameState.getHeldObject()).setCanAct(false);
+                && tile.getContent().getKind().isBlocking()) {
+            preventHeldUnitFromActing(gameState);
         }
         placeObject(gameState, tile);
     }
 
+    private static void preventHeldUnitFromActing(GameState gameState) {
+        // replace instead of changing the unit because units are shared
+        gameState.setHeldObject(Unit.of(((Unit) gameState.getHeldObject()).getUnitType(), false));
+    }
+
     /**
      * Combines the held unit with a unit on the map.
      *
@@ -448,9 +628,7 @@ public class GameStateHelper {
         int newStrength = heldUnit.getStrength() + tileUnit.getStrength();
         UnitTypes newUnitType = UnitTypes.ofStrength(newStrength);
 
-        Unit newUnit = new Unit(newUnitType);
-        newUnit.setCanAct(tileUnit.isCanAct());
-        gameState.setHeldObject(newUnit);
+        gameState.setHeldObject(Unit.of(newUnitType, tileUnit.isCanAct()));
         placeObject(gameState, tile);
     }
 
@@ -462,7 +640,7 @@ public class GameStateHelper {
      */
     public static void conquer(GameState gameState, HexTile tile) {
         // units can't act after conquering
-        ((Unit) gameState.getHeldObject()).setCanAct(false);
+        preventHeldUnitFromActing(gameState);
 
         removeTileFromItsKingdom(gameState, tile);
         tile.setKingdom(gameState.getActiveKingdom());
@@ -487,7 +665,7 @@ public class GameStateHelper {
 
         // place new capital if old one is going to be destroyed
         if (tile.getContent() != null
-                && ClassReflection.isAssignableFrom(Capital.class, tile.getContent().getClass())
+                && tile.getContent().getKind() == Kind.CAPITAL
                 && kingdom.getTiles().size() >= 2) {
             kingdom.setSavings(0);
             createCapital(gameState, tile, kingdom);
@@ -582,89 +760,97 @@ public class GameStateHelper {
         if (!slaveKingdom.isDoneMoving()) {
             masterKingdom.setDoneMoving(false);
         }
+        // add all the absent tiles of the slave kingdom to the master one
+        gameState.getMap().getKingdomConnectivity().addMissingTiles(slaveKingdom, masterKingdom);
         for (HexTile slaveKingdomTile : slaveKingdom.getTiles()) {
-            // add all the absent tiles of the slave kingdom to the master one
-            if (!masterKingdom.getTiles().contains(slaveKingdomTile)) {
-                masterKingdom.getTiles().add(slaveKingdomTile);
-            }
             slaveKingdomTile.setKingdom(masterKingdom);
             TileContent content = slaveKingdomTile.getContent();
-            if (content != null && ClassReflection.isAssignableFrom(Capital.class, content.getClass())) {
+            if (content != null && content.getKind() == Kind.CAPITAL) {
                 // delete slave capital
                 slaveKingdomTile.setContent(null);
             }
         }
-        gameState.getKingdoms().remove(slaveKingdom);
+        removeKingdom(gameState, slaveKingdom);
     }
 
     private static void updateSplitKingdom(GameState gameState, List<HexTile> tiles) {
-        if (tiles.isEmpty()) {
-            return;
-        }
-        Kingdom oldKingdom = tiles.get(0).getKingdom();
-        // try to find a capital
-        HexTile capitalTile = null;
-        for (HexTile kingdomTile : tiles) {
-            if (kingdomTile.getContent() != null
-                    && ClassReflection.isAssignableFrom(Capital.class, kingdomTile.getContent().getClass())) {
-                capitalTile = kingdomTile;
-                break;
-            }
-        }
-        HexTile startTile;
-        Kingdom newKingdom = null;
-        if (capitalTile != null) {
-            // capital exists --> keep it's kingdom
-            startTile = capitalTile;
-            newKingdom = startTile.getKingdom();
-            newKingdom.setTiles(new ArrayList<>());
-        } else {
-            // no capital exists --> create new kingdom
-            // start from some other tile
-            startTile = tiles.get(0);
-            newKingdom = new Kingdom(startTile.getPlayer());
-            gameState.getKingdoms().add(newKingdom);
-        }
-        // expand outwards from startTile to find connected tiles
-        LinkedList<HexTile> todoTiles = new LinkedList<>();
-        HashSet<HexTile> doneTiles = new HashSet<>();
-        todoTiles.add(startTile);
-        while (!todoTiles.isEmpty()) {
-            HexTile currentTile = todoTiles.removeFirst();
-            newKingdom.getTiles().add(currentTile);
-            currentTile.setKingdom(newKingdom);
-            doneTiles.add(currentTile);
-            for (HexTile expandTile : HexMapHelper.getNeighborTiles(gameState.getMap(), currentTile)) {
-                if (expandTile != null && !doneTiles.contains(expandTile) && !todoTiles.contains(expandTile)
-                        && expandTile.getKingdom() == oldKingdom) {
-                    todoTiles.add(expandTile);
+        KingdomConnectivity connectivity = gameState.getMap().getKingdomConnectivity();
+        // the old kingdoms can only be removed once all the parts are split off
+        List<Kingdom> oldKingdoms = new ArrayList<>();
+        // split off the tiles connected to the first remaining one until there are none left
+        while (!tiles.isEmpty()) {
+            Kingdom oldKingdom = tiles.get(0).getKingdom();
+            oldKingdoms.add(oldKingdom);
+            // try to find a capital
+            HexTile capitalTile = null;
+            for (HexTile kingdomTile : tiles) {
+                if (kingdomTile.getContent() != null
+                        && kingdomTile.getContent().getKind() == Kind.CAPITAL) {
+                    capitalTile = kingdomTile;
+                    break;
                 }
             }
-        }
-        tiles.removeAll(newKingdom.getTiles());
-
-        if (newKingdom.getTiles().size() < 2) {
-            // remove contents if kingdom is a single tile
-            for (HexTile tile : newKingdom.getTiles()) {
-                if (tile.getContent() != null) {
-                    if (Capital.class.isAssignableFrom(tile.getContent().getClass())) {
-                        spawnTree(gameState, tile);
-                    } else if (Castle.class.isAssignableFrom(tile.getContent().getClass())) {
-                        tile.setContent(null);
+            HexTile startTile;
+            Kingdom newKingdom = null;
+            if (capitalTile != null) {
+                // capital exists --> keep it's kingdom
+                startTile = capitalTile;
+                newKingdom = startTile.getKingdom();
+                newKingdom.setTiles(new IndexedTileList());
+            } else {
+                // no capital exists --> create new kingdom
+                // start from some other tile
+                startTile = tiles.get(0);
+                newKingdom = new Kingdom(startTile.getPlayer());
+                addKingdom(gameState, newKingdom);
+            }
+            // expand outwards from startTile to find connected tiles
+            connectivity.collectConnectedTiles(startTile, oldKingdom, newKingdom.getTiles());
+            for (HexTile connectedTile : newKingdom.getTiles()) {
+                connectedTile.setKingdom(newKingdom);
+            }
+            tiles.removeIf(connectivity::isMarked);
+
+            if (newKingdom.getTiles().size() < 2) {
+                // remove contents if kingdom is a single tile
+                for (HexTile tile : newKingdom.getTiles()) {
+                    if (tile.getContent() != null) {
+                        if (tile.getContent().getKind() == Kind.CAPITAL) {
+                            spawnTree(gameState, tile);
+                        } else if (tile.getContent().getKind() == Kind.CASTLE) {
+                            tile.setContent(null);
+                        }
                     }
                 }
+                startTile.setKingdom(null);
+                removeKingdom(gameState, newKingdom);
+            } else if (capitalTile == null) {
+                // create capital if necessary
+                createCapital(newKingdom);
             }
-            startTile.setKingdom(null);
-            gameState.getKingdoms().remove(newKingdom);
-        } else if (capitalTile == null) {
-            // create capital if necessary
-            createCapital(newKingdom);
-        }
-        // recursive call with the tiles that are not connected
-        updateSplitKingdom(gameState, tiles);
-        // remove old empty kingdom
-        if (oldKingdom.getTiles().isEmpty()) {
-            gameState.getKingdoms().remove(oldKingdom);
+        }
+        // remove old empty kingdoms, last split first
+        for (int i = oldKingdoms.size() - 1; i >= 0; i--) {
+            if (oldKingdoms.get(i).getTiles().isEmpty()) {
+                removeKingdom(gameState, oldKingdoms.get(i));
+            }
+        }
+    }
+
+    // adds a kingdom in a way a journal recording the move can undo
+    private static void addKingdom(GameState gameState, Kingdom kingdom) {
+        List<Kingdom> kingdoms = gameState.getKingdoms();
+        kingdoms.add(kingdom);
+        gameState.getMap().kingdomAdded(kingdoms, kingdoms.size() - 1);
+    }
+
+    // removes a kingdom in a way a journal recording the move can undo
+    private static void removeKingdom(GameState gameState, Kingdom kingdom) {
+        List<Kingdom> kingdoms = gameState.getKingdoms();
+        int index = kingdoms.indexOf(kingdom);
+        if (index >= 0) {
+            kingdoms.remove(index);
+            gameState.getMap().kingdomRemoved(kingdoms, index, kingdom);
         }
     }
 
@@ -695,18 +881,11 @@ public class GameStateHelper {
         }
         progressBlockingObjects(gameState, gameState.getActivePlayer());
         // check defeat condition
-        playerLoop:
         for (Player player : gameState.getPlayers()) {
-            if (player.isDefeated()) {
-                continue;
-            }
-            for (Kingdom kingdom : gameState.getKingdoms()) {
-                if (kingdom.getPlayer() == player) {
-                    continue playerLoop;
-                }
+            if (!player.isDefeated() && gameState.getKingdomCount(player) == 0) {
+                // player has no kingdoms --> is defeated
+                player.setDefeated(true);
             }
-            // player has no kingdoms --> is defeated
-            player.setDefeated(true);
         }
         // reset active kingdom
         gameState.setActiveKingdom(null);
@@ -714,22 +893,27 @@ public class GameStateHelper {
             // update savings
             if (kingdom.getPlayer() == gameState.getActivePlayer()) {
                 kingdom.setSavings(kingdom.getSavings() + getKingdomIncome(kingdom));
-                if (kingdom.getSavings() < getKingdomSalaries(gameState, kingdom)) {
+                int salaries = getKingdomSalaries(gameState, kingdom);
+                if (kingdom.getSavings() < salaries) {
                     // kill all units if they cannot get paid
                     for (HexTile tile : kingdom.getTiles()) {
                         if (tile.getContent() != null
-                                && ClassReflection.isAssignableFrom(Unit.class, tile.getContent().getClass())) {
+                                && tile.getContent().getKind() == Kind.UNIT) {
                             // spawn a gravestone
-                            tile.setContent(new Gravestone());
+                            tile.setContent(Gravestone.INSTANCE);
                         }
                     }
                 } else {
-                    kingdom.setSavings(kingdom.getSavings() - getKingdomSalaries(gameState, kingdom));
-                    // reset canAct and hasActed state
-                    for (HexTile tile : kingdom.getTiles()) {
-                        if (tile.getContent() != null
-                                && ClassReflection.isAssignableFrom(Unit.class, tile.getContent().getClass())) {
-                            ((Unit) tile.getContent()).setCanAct(true);
+                    kingdom.setSavings(kingdom.getSavings() - salaries);
+                    // reset canAct and hasActed state; there can only be units if there are salaries
+                    if (salaries > 0) {
+                        for (HexTile tile : kingdom.getTiles()) {
+                            if (tile.getContent() != null
+                                    && tile.getContent().getKind() == Kind.UNIT
+                                    && !((Unit) tile.getContent()).isCanAct()) {
+                                // replace instead of changing the unit because units are shared
+                                tile.setContent(Unit.of(((Unit) tile.getContent()).getUnitType()));
+                            }
                         }
                     }
                 }
@@ -741,64 +925,89 @@ public class GameStateHelper {
         return gameState;
     }
 
-    private static void spreadTrees(GameState gameState) {
-        Random random = new Random(gameState.hashCode());
+    /**
+     * Lets the trees spread like they do at the start of every round. Regular trees spread to a random empty tile
+     * that is not at the coast if there is another regular tree next to them. Palm trees spread to the first empty
+     * coast tile next to them. The random numbers are derived from the game state, so the result only depends on the
+     * game state. See {@link RandomVersion} for how.
+     *
+     * @param gameState GameState to act on
+     */
+    public static void spreadTrees(GameState gameState) {
+        Random random = null;
+        RandomStream randomStream = null;
+        if (gameState.getRandomVersion() == RandomVersion.V1) {
+            random = new Random(gameState.hashCode());
+        } else {
+            randomStream = RandomStream.of(gameState.getFingerprint()).split(RandomStream.Purpose.TREE_SPREADING);
+        }
+        HexGrid map = gameState.getMap();
         // keep track of the tiles with trees that are new or have already participated
         // in spreading; those shouldn't spread again in that turn
-        HashSet<HexTile> tileBlackList = new HashSet<>();
-        for (HexTile tile : gameState.getMap().values()) {
-            if (tileBlackList.contains(tile)) {
+        BitSet spreadSlots = new BitSet();
+        int[] candidateSlots = new int[HexGrid.NEIGHBOR_COUNT];
+        // new trees are marked right away, so only the trees that were there before are visited
+        for (int slot = map.getNextVegetationSlot(0); slot != HexGrid.NO_SLOT;
+             slot = map.getNextVegetationSlot(slot + 1)) {
+            if (spreadSlots.get(slot)) {
                 continue;
             }
-            if (tile.getContent() != null
-                    && ClassReflection.isAssignableFrom(Tree.class, tile.getContent().getClass())) {
+            if (map.getContentInSlot(slot).getKind() == Kind.TREE) {
                 // regular trees spread if they have another regular tree next to them
-                ArrayList<HexTile> candidates = new ArrayList<>();
-                HexTile neighborTreeTile = null;
-                for (HexTile neighbor : HexMapHelper.getNeighborTiles(gameState.getMap(), tile)) {
-                    if (neighbor == null) {
+                int candidateCount = 0;
+                int neighborTreeSlot = HexGrid.NO_SLOT;
+                for (int direction = 0; direction < HexGrid.NEIGHBOR_COUNT; direction++) {
+                    int neighborSlot = map.getNeighborSlot(slot, direction);
+                    if (neighborSlot == HexGrid.NO_SLOT) {
                         continue;
                     }
-                    if (neighbor.getContent() == null && !isCoastTile(gameState, neighbor)) {
-                        candidates.add(neighbor);
-                    } else if (neighbor.getContent() != null
-                            && ClassReflection.isAssignableFrom(Tree.class, neighbor.getContent().getClass())
-                            && !tileBlackList.contains(neighbor)) {
-                        neighborTreeTile = neighbor;
+                    TileContent neighborContent = map.getContentInSlot(neighborSlot);
+                    if (neighborContent == null && map.getWaterMaskInSlot(neighborSlot) == 0) {
+                        candidateSlots[candidateCount++] = neighborSlot;
+                    } else if (neighborContent != null && neighborContent.getKind() == Kind.TREE
+                            && !spreadSlots.get(neighborSlot)) {
+                        neighborTreeSlot = neighborSlot;
                     }
                 }
-                if (neighborTreeTile != null && !candidates.isEmpty()) {
-                    HexTile newTreeTile = candidates.get(random.nextInt(candidates.size()));
-                    spawnTree(gameState, newTreeTile);
-                    tileBlackList.add(tile);
-                    tileBlackList.add(newTreeTile);
-                    tileBlackList.add(neighborTreeTile);
-                    candidates.clear();
+                if (neighborTreeSlot != HexGrid.NO_SLOT && candidateCount > 0) {
+                    int candidateIndex = random != null ? random.nextInt(candidateCount)
+                            : randomStream.split(map.getCoordsInSlot(slot)).nextInt(candidateCount);
+                    int newTreeSlot = candidateSlots[candidateIndex];
+                    spawnTree(gameState, map.getTileInSlot(newTreeSlot));
+                    spreadSlots.set(slot);
+                    spreadSlots.set(newTreeSlot);
+                    spreadSlots.set(neighborTreeSlot);
                 }
-            } else if (tile.getContent() != null
-                    && ClassReflection.isAssignableFrom(PalmTree.class, tile.getContent().getClass())) {
+            } else if (map.getContentInSlot(slot).getKind() == Kind.PALM_TREE) {
                 // palm trees always spread to a neighboring coast tile, if any
-                HexMapHelper
-                        .getNeighborTiles(gameState.getMap(), tile).stream().filter(neighbor -> neighbor != null
-                                && neighbor.getContent() == null && isCoastTile(gameState, neighbor))
-                        .limit(1).forEach(newTreeTile -> {
-                            spawnTree(gameState, newTreeTile);
-                            tileBlackList.add(newTreeTile);
-                        });
+                for (int direction = 0; direction < HexGrid.NEIGHBOR_COUNT; direction++) {
+                    int neighborSlot = map.getNeighborSlot(slot, direction);
+                    if (neighborSlot != HexGrid.NO_SLOT && map.getContentInSlot(neighborSlot) == null
+                            && map.getWaterMaskInSlot(neighborSlot) != 0) {
+                        spawnTree(gameState, map.getTileInSlot(neighborSlot));
+                        spreadSlots.set(neighborSlot);
+                        break;
+                    }
+                }
             }
         }
     }
 
     private static void progressBlockingObjects(GameState gameState, Player player) {
-        for (HexTile tile : gameState.getMap().values()) {
+        HexGrid map = gameState.getMap();
+        // the map knows the slots with gravestones and cut off units; every slot is visited once, so units that
+        // become gravestones here stay gravestones until the next turn
+        for (int slot = map.getNextProgressingSlot(0); slot != HexGrid.NO_SLOT;
+             slot = map.getNextProgressingSlot(slot + 1)) {
             // gravestones become trees/palms at the start of the player turn
-            if (tile.getPlayer() == player && tile.getContent() != null) {
-                if (ClassReflection.isAssignableFrom(Gravestone.class, tile.getContent().getClass())) {
+            if (map.getOwnerInSlot(slot) == player) {
+                HexTile tile = map.getTileInSlot(slot);
+                if (tile.getContent().getKind() == Kind.GRAVESTONE) {
                     spawnTree(gameState, tile);
                 } else if (tile.getKingdom() == null
-                        && ClassReflection.isAssignableFrom(Unit.class, tile.getContent().getClass())) {
+                        && tile.getContent().getKind() == Kind.UNIT) {
                     // cut off units become gravestones at the start of the player turn
-                    tile.setContent(new Gravestone());
+                    tile.setContent(Gravestone.INSTANCE);
                 }
             }
         }
@@ -809,9 +1018,9 @@ public class GameStateHelper {
      */
     private static void spawnTree(GameState gameState, HexTile tile) {
         if (isCoastTile(gameState, tile)) {
-            tile.setContent(new PalmTree());
+            tile.setContent(PalmTree.INSTANCE);
         } else {
-            tile.setContent(new Tree());
+            tile.setContent(Tree.INSTANCE);
         }
     }
 
@@ -819,7 +1028,7 @@ public class GameStateHelper {
      * Returns whether a tile is a coast tile (= next to water).
      */
     private static boolean isCoastTile(GameState gameState, HexTile tile) {
-        return HexMapHelper.getNeighborTiles(gameState.getMap(), tile).contains(null);
+        return HexMapHelper.isCoastTile(gameState.getMap(), tile);
     }
 
     /**
@@ -830,11 +1039,10 @@ public class GameStateHelper {
     public static void buyPeasant(GameState gameState) {
         gameState.getActiveKingdom().setSavings(gameState.getActiveKingdom().getSavings() - Unit.COST);
         if (gameState.getHeldObject() == null) {
-            gameState.setHeldObject(new Unit(UnitTypes.PEASANT));
+            gameState.setHeldObject(Unit.of(UnitTypes.PEASANT));
         } else {
             // held object is guaranteed to be a non-baron unit by the validation
-            gameState.setHeldObject(
-                    new Unit(UnitTypes.ofStrength(gameState.getHeldObject().getStrength() + 1)));
+            gameState.setHeldObject(Unit.of(UnitTypes.ofStrength(gameState.getHeldObject().getStrength() + 1)));
         }
 
     }
@@ -846,7 +1054,7 @@ public class GameStateHelper {
      */
     public static void buyCastle(GameState gameState) {
         gameState.getActiveKingdom().setSavings(gameState.getActiveKingdom().getSavings() - Castle.COST);
-        gameState.setHeldObject(new Castle());
+        gameState.setHeldObject(Castle.INSTANCE);
     }
 
     /**
@@ -863,7 +1071,6 @@ public class GameStateHelper {
         if (existingTile != null) {
             removeTileFromItsKingdom(gameState, existingTile);
         }
-        HexMapHelper.clearNeighborTileCache(gameState.getMap());
         for (HexTile neighborTile : HexMapHelper.getNeighborTiles(gameState.getMap(), newTile)) {
             if (neighborTile == null) {
                 // water
@@ -900,8 +1107,6 @@ public class GameStateHelper {
     public static void deleteTile(GameState gameState, HexTile tile) {
         removeTileFromItsKingdom(gameState, tile);
         gameState.getMap().remove(tile.getPosition());
-        // the old tile might still be cached by the neighbors and must be removed
-        HexMapHelper.clearNeighborTileCache(gameState.getMap());
     }
 
     /**
@@ -913,6 +1118,11 @@ public class GameStateHelper {
      * @return protection level
      */
     public static int getProtectionLevel(GameState gameState, HexTile tile) {
+        HexGrid map = gameState.getMap();
+        if (tile.getGrid() == map) {
+            // kept up to date by the map
+            return map.getProtectionLevelInSlot(tile.getGridSlot());
+        }
         int protectionLevel = 0;
         if (tile.getContent() != null) {
             protectionLevel = tile.getContent().getStrength();
@@ -934,11 +1144,7 @@ public class GameStateHelper {
      */
     public static int getKingdomIncome(Kingdom kingdom) {
         // number of tiles - trees & palms
-        return kingdom.getTiles().size() - (int) kingdom.getTiles().stream()
-                .filter(tile -> tile.getContent() != null
-                        && (ClassReflection.isAssignableFrom(Tree.class, tile.getContent().getClass())
-                        || ClassReflection.isAssignableFrom(PalmTree.class, tile.getContent().getClass())))
-                .count();
+        return kingdom.getTiles().size() - kingdom.getTreeCount();
     }
 
     /**
@@ -949,13 +1155,10 @@ public class GameStateHelper {
      */
     public static int getKingdomSalaries(GameState gameState, Kingdom kingdom) {
         // sum of the salaries of all the units
-        int result = kingdom.getTiles().stream()
-                .filter(tile -> tile.getContent() != null
-                        && ClassReflection.isAssignableFrom(Unit.class, tile.getContent().getClass()))
-                .mapToInt(tile -> ((Unit) tile.getContent()).getUnitType().salary()).sum();
+        int result = kingdom.getUnitSalaries();
         // if there is a held unit, subtract their salary
         if (gameState.getHeldObject() != null
-                && ClassReflection.isAssignableFrom(Unit.class, gameState.getHeldObject().getClass())) {
+                && gameState.getHeldObject().getKind() == Kind.UNIT) {
             result += ((Unit) gameState.getHeldObject()).getUnitType().salary();
         }
         return result;
@@ -975,22 +1178,12 @@ public class GameStateHelper {
                     return Optional.of(kingdom);
                 }
                 // has unit stronger than peasant
-                boolean hasPeasant = false;
-                boolean hasTree = false;
-                for (HexTile tile : kingdom.getTiles()) {
-                    if (tile.getContent() != null
-                            && ClassReflection.isAssignableFrom(Unit.class, tile.getContent().getClass())) {
-                        if (tile.getContent().getStrength() > 1) {
-                            return Optional.of(kingdom);
-                        } else if (((Unit) tile.getContent()).getUnitType() == UnitTypes.PEASANT) {
-                            hasPeasant = true;
-                        }
-                    } else if (tile.getContent() != null
-                            && (ClassReflection.isAssignableFrom(Tree.class, tile.getContent().getClass())
-                            || ClassReflection.isAssignableFrom(PalmTree.class, tile.getContent().getClass()))) {
-                        hasTree = true;
-                    }
+                if (kingdom.getUnitCount(UnitTypes.SPEARMAN) > 0 || kingdom.getUnitCount(UnitTypes.KNIGHT) > 0
+                        || kingdom.getUnitCount(UnitTypes.BARON) > 0) {
+                    return Optional.of(kingdom);
                 }
+                boolean hasPeasant = kingdom.getUnitCount(UnitTypes.PEASANT) > 0;
+                boolean hasTree = kingdom.getTreeCount() > 0;
                 boolean canBuyPeasant = kingdom.getSavings() >= Unit.COST;
                 // has or can get peasant that can conquer something or destroy tree
                 if (hasPeasant || canBuyPeasant) {
@@ -1036,10 +1229,9 @@ public class GameStateHelper {
      */
     public static void placeTileContent(GameState gameState, HexTile tile, TileContent contentToPlace) {
         TileContent oldTileContent = tile.getContent();
-        boolean needsNewCapital = oldTileContent != null && ClassReflection.isAssignableFrom(Capital.class,
-                oldTileContent.getClass());
-        if (ClassReflection.isAssignableFrom(Tree.class, contentToPlace.getClass()) && isCoastTile(gameState, tile)) {
-            tile.setContent(new PalmTree());
+        boolean needsNewCapital = oldTileContent != null && oldTileContent.getKind() == Kind.CAPITAL;
+        if (contentToPlace.getKind() == Kind.TREE && isCoastTile(gameState, tile)) {
+            tile.setContent(PalmTree.INSTANCE);
         } else {
             tile.setContent(contentToPlace.getCopy());
         }
@@ -1088,6 +1280,42 @@ public class GameStateHelper {
         applyScenarioEvents(gameState);
     }
 
+    /**
+     * Applies the given player action to the given GameState and records how to undo it. If applying fails, the
+     * changes made up to then are undone.
+     *
+     * @param gameState GameState to act on
+     * @param move      move to apply
+     * @param journal   journal to record the changes in
+     * @see #undoPlayerMove(GameState, MoveJournal)
+     */
+    public static void applyPlayerMove(GameState gameState, PlayerMove move, MoveJournal journal) {
+        journal.beginMove(gameState);
+        try {
+            applyPlayerMove(gameState, move);
+        } catch (RuntimeException | Error e) {
+            journal.endMove();
+            try {
+                journal.undoMove(gameState);
+            } catch (RuntimeException | Error undoException) {
+                // the original failure is what went wrong in the first place
+                e.addSuppressed(undoException);
+            }
+            throw e;
+        }
+        journal.endMove();
+    }
+
+    /**
+     * Undoes the latest player action recorded in the journal, restoring the GameState exactly as it was before.
+     *
+     * @param gameState GameState the action was applied to
+     * @param journal   journal the action was recorded in
+     */
+    public static void undoPlayerMove(GameState gameState, MoveJournal journal) {
+        journal.undoMove(gameState);
+    }
+
     private static void applyScenarioEvents(GameState gameState) {
         switch (gameState.getScenarioMap()) {
             case TUTORIAL:
@@ -10,7 +10,6 @@ import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -46,6 +45,8 @@ public class GameStateSerializer implements Serializer<GameState> {
     private static final String OBJECTIVE_PROGRESS_NAME = "objective_progress";
     private static final String SCENARIO_MAP_FIELD_NAME = "scenarioMap";
     private static final String SCENARIO_MAP_NAME = "scenario_map";
+    private static final String RANDOM_VERSION_FIELD_NAME = "randomVersion";
+    private static final String RANDOM_VERSION_NAME = "random_version";
 
     Integer lastId = 0;
 
@@ -122,6 +123,7 @@ public class GameStateSerializer implements Serializer<GameState> {
         json.writeField(object, ROUND_FIELD_NAME, ROUND_NAME);
         json.writeField(object, OBJECTIVE_PROGRESS_FIELD_NAME, OBJECTIVE_PROGRESS_NAME);
         json.writeField(object, SCENARIO_MAP_FIELD_NAME, SCENARIO_MAP_NAME);
+        json.writeField(object, RANDOM_VERSION_FIELD_NAME, RANDOM_VERSION_NAME);
         json.writeObjectEnd();
     }
 
@@ -139,7 +141,7 @@ public class GameStateSerializer implements Serializer<GameState> {
             reverseIdMap.put(id, player);
             result.getPlayers().add(player);
         });
-        result.setMap(new LinkedHashMap<>());
+        result.setMap(new HexGrid());
         JsonValue tilesJson = jsonData.get(TILES_NAME);
         tilesJson.forEach(tileJson -> {
             final int id = tileJson.getInt(ID_NAME);
@@ -170,7 +172,7 @@ public class GameStateSerializer implements Serializer<GameState> {
             final int id = kingdomJson.getInt(ID_NAME);
             final int playerId = kingdomJson.getInt(PLAYER_ID_NAME);
             JsonValue tileIdsJson = kingdomJson.get(TILE_IDS_NAME);
-            ArrayList<HexTile> kingdomTiles = new ArrayList<>();
+            IndexedTileList kingdomTiles = new IndexedTileList();
             tileIdsJson.forEach(tileIdJson -> {
                 int tileId = tileIdJson.asInt();
                 kingdomTiles.add((HexTile) reverseIdMap.get(tileId));
@@ -206,6 +208,10 @@ public class GameStateSerializer implements Serializer<GameState> {
         result.setObjectiveProgress(objectiveProgessJson.asInt());
         JsonValue scenarioMapJson = jsonData.get(SCENARIO_MAP_NAME);
         result.setScenarioMap(ScenarioMap.valueOf(scenarioMapJson.asString()));
+        // games saved before there were versions use the first one
+        if (jsonData.has(RANDOM_VERSION_NAME)) {
+            result.setRandomVersion(RandomVersion.valueOf(jsonData.getString(RANDOM_VERSION_NAME)));
+        }
         if (jsonData.has(WINNER_ID_NAME)) {
             Integer winnerId = jsonData.getInt(WINNER_ID_NAME);
             Player winner = (Player) reverseIdMap.get(winnerId);
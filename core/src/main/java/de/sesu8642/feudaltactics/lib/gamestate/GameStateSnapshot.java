@@ -0,0 +1,197 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.gamestate;
+
+import com.badlogic.gdx.math.Vector2;
+import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only snapshot of a {@link GameState} that is cheap to take. The tiles are shared with the map via its copy on
+ * write storage (see {@link HexGrid}); only the small parts of the state like players and kingdom savings are copied
+ * right away. The full {@link GameState} is only created when {@link #getGameState()} is called for the first time,
+ * so code that takes a snapshot on every change but rarely looks at it doesn't have to deep copy the map every time.
+ *
+ * <p>Taking a snapshot relies on tile contents never being changed while they are on the map or held. Changes must
+ * replace the content object instead.
+ **/
+public final class GameStateSnapshot {
+
+    private final HexGrid.Snapshot tiles;
+    // originals are needed to look up the copies of the objects referenced by the tiles
+    private final Player[] originalPlayers;
+    private final List<Player> players;
+    private final Kingdom[] originalKingdoms;
+    private final Player[] kingdomPlayers;
+    private final int[] kingdomSavings;
+    private final boolean[] kingdomsDoneMoving;
+    private final boolean[] kingdomsWasActiveInCurrentTurn;
+    private final Kingdom activeKingdom;
+    private final Player winner;
+    private final TileContent heldObject;
+    private final Intelligence botIntelligence;
+    private final Long seed;
+    private final int playerTurn;
+    private final int round;
+    private final int objectiveProgress;
+    private final ScenarioMap scenarioMap;
+    private final RandomVersion randomVersion;
+
+    private GameState gameState;
+
+    /**
+     * Constructor. Takes the snapshot.
+     *
+     * @param original game state to take the snapshot of
+     */
+    GameStateSnapshot(GameState original) {
+        tiles = original.getMap().takeSnapshot();
+
+        originalPlayers = original.getPlayers().toArray(new Player[0]);
+        players = new ArrayList<>(originalPlayers.length);
+        for (Player originalPlayer : originalPlayers) {
+            players.add(Player.copyOf(originalPlayer));
+        }
+        winner = original.getWinner() == null ? null : findPlayerCopy(original.getWinner());
+
+        originalKingdoms = original.getKingdoms().toArray(new Kingdom[0]);
+        kingdomPlayers = new Player[originalKingdoms.length];
+        kingdomSavings = new int[originalKingdoms.length];
+        kingdomsDoneMoving = new boolean[originalKingdoms.length];
+        kingdomsWasActiveInCurrentTurn = new boolean[originalKingdoms.length];
+        for (int i = 0; i < originalKingdoms.length; i++) {
+            Kingdom originalKingdom = originalKingdoms[i];
+            kingdomPlayers[i] = findPlayerCopy(originalKingdom.getPlayer());
+            kingdomSavings[i] = originalKingdom.getSavings();
+            kingdomsDoneMoving[i] = originalKingdom.isDoneMoving();
+            kingdomsWasActiveInCurrentTurn[i] = originalKingdom.isWasActiveInCurrentTurn();
+        }
+        activeKingdom = original.getActiveKingdom();
+
+        heldObject = original.getHeldObject() == null ? null : original.getHeldObject().getCopy();
+        botIntelligence = original.getBotIntelligence();
+        seed = original.getSeed();
+        playerTurn = original.getPlayerTurn();
+        round = original.getRound();
+        objectiveProgress = original.getObjectiveProgress();
+        scenarioMap = original.getScenarioMap();
+        randomVersion = original.getRandomVersion();
+    }
+
+    /**
+     * Returns the game state as it was when the snapshot was taken. It is created on the first call and the same
+     * instance is returned afterwards, so it must not be changed.
+     *
+     * @return game state
+     */
+    public synchronized GameState getGameState() {
+        if (gameState == null) {
+            gameState = createGameState();
+        }
+        return gameState;
+    }
+
+    /**
+     * Returns the players. They are the same objects as the ones in {@link #getGameState()}.
+     */
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    /**
+     * Returns the winner. It is the same object as the one in {@link #getGameState()}.
+     */
+    public Player getWinner() {
+        return winner;
+    }
+
+    public Intelligence getBotIntelligence() {
+        return botIntelligence;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public int getPlayerTurn() {
+        return playerTurn;
+    }
+
+    public int getRound() {
+        return round;
+    }
+
+    public int getObjectiveProgress() {
+        return objectiveProgress;
+    }
+
+    public ScenarioMap getScenarioMap() {
+        return scenarioMap;
+    }
+
+    public RandomVersion getRandomVersion() {
+        return randomVersion;
+    }
+
+    private Player findPlayerCopy(Player originalPlayer) {
+        for (int i = 0; i < originalPlayers.length; i++) {
+            if (originalPlayers[i] == originalPlayer) {
+                return players.get(i);
+            }
+        }
+        return null;
+    }
+
+    private GameState createGameState() {
+        GameState result = new GameState();
+        result.setPlayers(players);
+        result.setWinner(winner);
+
+        List<Kingdom> copiedKingdoms = new ArrayList<>(originalKingdoms.length);
+        Map<Kingdom, Kingdom> kingdomCopies = new IdentityHashMap<>();
+        for (int i = 0; i < originalKingdoms.length; i++) {
+            Kingdom newKingdom = new Kingdom(kingdomPlayers[i]);
+            newKingdom.setSavings(kingdomSavings[i]);
+            newKingdom.setDoneMoving(kingdomsDoneMoving[i]);
+            newKingdom.setWasActiveInCurrentTurn(kingdomsWasActiveInCurrentTurn[i]);
+            copiedKingdoms.add(newKingdom);
+            kingdomCopies.put(originalKingdoms[i], newKingdom);
+        }
+        result.setKingdoms(copiedKingdoms);
+
+        HexGrid copiedMap = new HexGrid(tiles.getSlotCount());
+        for (int slot = 0; slot < tiles.getSlotCount(); slot++) {
+            Vector2 position = tiles.getKey(slot);
+            if (position == null) {
+                continue;
+            }
+            HexTile newTile = new HexTile(findPlayerCopy(tiles.getOwner(slot)), new Vector2(position));
+            Kingdom newKingdom = kingdomCopies.get(tiles.getKingdom(slot));
+            if (newKingdom != null) {
+                newTile.setKingdom(newKingdom);
+                newKingdom.getTiles().add(newTile);
+            }
+            if (tiles.getContent(slot) != null) {
+                newTile.setContent(tiles.getContent(slot).getCopy());
+            }
+            copiedMap.put(newTile.getPosition(), newTile);
+        }
+        result.setMap(copiedMap);
+
+        result.setActiveKingdom(kingdomCopies.get(activeKingdom));
+        result.setHeldObject(heldObject);
+        result.setBotIntelligence(botIntelligence);
+        result.setSeed(seed);
+        result.setPlayerTurn(playerTurn);
+        result.setRound(round);
+        result.setObjectiveProgress(objectiveProgress);
+        result.setScenarioMap(scenarioMap);
+        result.setRandomVersion(randomVersion);
+        return result;
+    }
+
+}
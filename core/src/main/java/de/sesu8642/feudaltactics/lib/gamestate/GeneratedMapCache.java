@@ -0,0 +1,218 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.gamestate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Cache of generated maps, so generating a map with the same parameters again (e.g. when retrying a game or picking
+ * a seed from the history) doesn't have to run the map generation. The least recently used maps are dropped once
+ * the cached maps have more tiles than allowed. Thread safe.
+ *
+ * <p>Every call returns a new copy of the cached map that can be changed freely (see
+ * {@link GameStateHelper#getExactCopy(GameState)}). The copies are identical to a freshly generated map, so games
+ * played on them progress the same way.
+ */
+public class GeneratedMapCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GeneratedMapCache.class);
+
+    private final int maxTiles;
+    // access order: the first entry is the least recently used one
+    private final LinkedHashMap<Key, GameState> maps = new LinkedHashMap<>(16, 0.75F, true);
+    private int cachedTiles = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param maxTiles maximum number of tiles of all the cached maps together; maps that are larger on their own are
+     *                 not cached
+     */
+    public GeneratedMapCache(int maxTiles) {
+        this.maxTiles = maxTiles;
+    }
+
+    /**
+     * Returns a map like {@link GameStateHelper#initializeMap(GameState, List, float, float, Float, Long,
+     * MapGeneratorVersion)} would generate it, taking it from the cache if possible.
+     *
+     * @param players           players that own tiles on the map; not changed, unlike when generating a map directly
+     * @param landMass          number of tiles to generate
+     * @param density           density of the map
+     * @param vegetationDensity share of empty tiles with trees; null for the default
+     * @param mapSeed           map seed to use for generating the map
+     * @param generatorVersion  version of the map generation
+     * @return new game state with the map; the bot intelligence is the default one
+     */
+    public GameState getMap(List<Player> players, float landMass, float density, Float vegetationDensity,
+                            long mapSeed, MapGeneratorVersion generatorVersion) {
+        Key key = new Key(players, landMass, density, vegetationDensity, mapSeed, generatorVersion);
+        GameState cached;
+        synchronized (this) {
+            cached = maps.get(key);
+            if (cached != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+        if (cached != null) {
+            LOGGER.debug("map cache hit; {}", this);
+            return GameStateHelper.getExactCopy(cached);
+        }
+        LOGGER.debug("map cache miss; {}", this);
+        return GameStateHelper.getExactCopy(generate(key));
+    }
+
+    /**
+     * Generates a map and caches it if it is not cached yet, so getting it later is fast. Doesn't count as a hit or
+     * miss. See {@link #getMap(List, float, float, Float, long, MapGeneratorVersion)} for the parameters.
+     */
+    public void prefetchMap(List<Player> players, float landMass, float density, Float vegetationDensity,
+                            long mapSeed, MapGeneratorVersion generatorVersion) {
+        Key key = new Key(players, landMass, density, vegetationDensity, mapSeed, generatorVersion);
+        synchronized (this) {
+            if (maps.containsKey(key)) {
+                return;
+            }
+        }
+        generate(key);
+    }
+
+    /**
+     * Returns whether a map is cached. See {@link #getMap(List, float, float, Float, long, MapGeneratorVersion)} for
+     * the parameters.
+     */
+    public synchronized boolean containsMap(List<Player> players, float landMass, float density,
+                                            Float vegetationDensity, long mapSeed,
+                                            MapGeneratorVersion generatorVersion) {
+        return maps.containsKey(new Key(players, landMass, density, vegetationDensity, mapSeed, generatorVersion));
+    }
+
+    private GameState generate(Key key) {
+        // generated outside the lock so other maps can be taken from the cache in the meantime; the players are
+        // copied so the cached map doesn't share anything with the caller
+        GameState generated = new GameState();
+        GameStateHelper.initializeMap(generated, copyPlayers(key.players), key.landMass, key.density,
+                key.vegetationDensity, key.mapSeed, key.generatorVersion);
+        put(key, generated);
+        return generated;
+    }
+
+    private synchronized void put(Key key, GameState gameState) {
+        int tiles = gameState.getMap().size();
+        if (tiles > maxTiles) {
+            return;
+        }
+        GameState replaced = maps.put(key, gameState);
+        if (replaced != null) {
+            // generated on two threads at the same time
+            cachedTiles -= replaced.getMap().size();
+        }
+        cachedTiles += tiles;
+        Iterator<GameState> iterator = maps.values().iterator();
+        while (cachedTiles > maxTiles) {
+            cachedTiles -= iterator.next().getMap().size();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Returns how many maps were taken from the cache.
+     *
+     * @return number of cache hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns how many maps had to be generated because they were not in the cache.
+     *
+     * @return number of cache misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns how many maps are cached at the moment.
+     *
+     * @return number of cached maps
+     */
+    public synchronized int getSize() {
+        return maps.size();
+    }
+
+    /**
+     * Removes all the cached maps. The hit and miss counts are kept.
+     */
+    public synchronized void clear() {
+        maps.clear();
+        cachedTiles = 0;
+    }
+
+    private static List<Player> copyPlayers(List<Player> players) {
+        List<Player> result = new ArrayList<>(players.size());
+        for (Player player : players) {
+            result.add(Player.copyOf(player));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("GeneratedMapCache [maps=%s, tiles=%s, maxTiles=%s, hits=%s, misses=%s]", maps.size(),
+                cachedTiles, maxTiles, hits, misses);
+    }
+
+    /**
+     * Parameters a map is generated with.
+     */
+    private static final class Key {
+
+        private final List<Player> players;
+        private final float landMass;
+        private final float density;
+        private final Float vegetationDensity;
+        private final long mapSeed;
+        private final MapGeneratorVersion generatorVersion;
+
+        private Key(List<Player> players, float landMass, float density, Float vegetationDensity, long mapSeed,
+                    MapGeneratorVersion generatorVersion) {
+            // copied since players are mutable
+            this.players = copyPlayers(players);
+            this.landMass = landMass;
+            this.density = density;
+            this.vegetationDensity = vegetationDensity;
+            this.mapSeed = mapSeed;
+            this.generatorVersion = generatorVersion;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(players, landMass, density, vegetationDensity, mapSeed, generatorVersion);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return Float.floatToIntBits(landMass) == Float.floatToIntBits(other.landMass)
+                    && Float.floatToIntBits(density) == Float.floatToIntBits(other.density)
+                    && mapSeed == other.mapSeed && generatorVersion == other.generatorVersion
+                    && Objects.equals(vegetationDensity, other.vegetationDensity) && players.equals(other.players);
+        }
+    }
+
+}
@@ -12,6 +12,11 @@ public class Gravestone implements TileContent, Blocking {
     public static final String SPRITE_NAME = "gravestone";
     private static final int STRENGTH = 0;
 
+    /**
+     * Shared instance. Gravestones have no state, so there is no need for more than one.
+     */
+    public static final Gravestone INSTANCE = new Gravestone();
+
     @Override
     public String getSpriteName() {
         return SPRITE_NAME;
@@ -24,7 +29,13 @@ public class Gravestone implements TileContent, Blocking {
 
     @Override
     public Gravestone getCopy() {
-        return new Gravestone();
+        // nothing that could change
+        return this;
+    }
+
+    @Override
+    public Kind getKind() {
+        return Kind.GRAVESTONE;
     }
 
     @Override
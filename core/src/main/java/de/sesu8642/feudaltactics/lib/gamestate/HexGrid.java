@@ -0,0 +1,1337 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.gamestate;
+
+import com.badlogic.gdx.math.Vector2;
+
+import java.util.*;
+
+/**
+ * The map of a game: all the {@link HexTile}s by their hex coordinates. The tiles are kept in dense arrays which are
+ * indexed by a slot number and found via a hash table keyed by packed integer coordinates (see
+ * {@link HexMapHelper#packHexCoords(int, int)}), so looking up a tile neither allocates nor hashes floats. The owner,
+ * content and kingdom of every tile are mirrored in parallel arrays for scans that don't need the tile objects.
+ *
+ * <p>The grid also maintains a neighbor index: the slots of the 6 neighbors and the 12 neighbors' neighbors of every
+ * tile in flat int arrays, with {@link #NO_SLOT} for water. Adding or removing a tile only updates the entries of the
+ * tiles around it.
+ *
+ * <p>The keys, owners, contents and kingdoms are stored in chunks of {@link #CHUNK_SIZE} slots that are copied on
+ * write: {@link #takeSnapshot()} only remembers the current chunks and the grid copies a chunk the first time it is
+ * written to afterwards. This way snapshots are cheap to take and only duplicate the parts of the map that changed.
+ *
+ * <p>The grid also keeps the parts of the game state fingerprint (see {@link GameState#getFingerprint()}) that
+ * depend on the tiles and on the kingdoms that own tiles up to date.
+ *
+ * <p>Iteration order is the insertion order, like the {@link LinkedHashMap} that was used before. Replacing the tile
+ * on an existing position keeps the position's place in that order. This class implements {@link Map} so existing
+ * code (serialization, rendering, tests) can keep treating the map as one.
+ **/
+public class HexGrid extends AbstractMap<Vector2, HexTile> {
+
+    /**
+     * Slot value used for positions without a tile (water).
+     */
+    public static final int NO_SLOT = -1;
+
+    /**
+     * Number of neighbors of a tile.
+     */
+    public static final int NEIGHBOR_COUNT = 6;
+
+    /**
+     * Number of tiles that are two tiles away from a tile.
+     */
+    public static final int NEIGHBORS_NEIGHBOR_COUNT = 12;
+
+    /**
+     * Number of slots per chunk of the copy on write storage.
+     */
+    static final int CHUNK_SIZE = 64;
+
+    private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(CHUNK_SIZE);
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int EMPTY_BUCKET = -1;
+
+    // open addressing hash table (linear probing) mapping packed coordinates to slots
+    private int[] bucketCoords;
+    private int[] bucketSlots;
+
+    // dense per-slot storage; slots of removed tiles stay empty until the next compaction
+    private int[] slotCoords;
+    private HexTile[] slotTiles;
+    // copy on write storage; a slot's entries are at [slot >>> CHUNK_SHIFT][slot & CHUNK_MASK]
+    private Vector2[][] keyChunks;
+    private Player[][] ownerChunks;
+    private TileContent[][] contentChunks;
+    private Kingdom[][] kingdomChunks;
+    // chunks and chunk tables created before the latest snapshot may be shared with it and must not be written to
+    private int snapshotVersion = 0;
+    private int chunkTablesVersion = 0;
+    private int[] chunkVersions;
+    // neighbor index; the entries of a slot start at slot * NEIGHBOR_COUNT or slot * NEIGHBORS_NEIGHBOR_COUNT
+    private int[] neighborSlots;
+    private int[] neighborsNeighborSlots;
+    // bit d of a slot's entry is set if there is water in direction d; only changes when tiles are added or removed
+    private byte[] waterMasks;
+    // slots with trees or palm trees and slots whose content changes at the start of the owner's turn
+    private SlotSet vegetationSlots;
+    private SlotSet progressingSlots;
+    // strength of the strongest object protecting the tile in a slot; only depends on the tile and its neighbors
+    private int[] protectionLevels;
+
+    // XOR of the keys of all tiles and sum of the keys of all kingdoms with tiles on this grid
+    private long tileFingerprint = 0;
+    private long kingdomFingerprint = 0;
+
+    private int slotCount = 0;
+    private int size = 0;
+    private int modCount = 0;
+
+    // number of kingdoms with tiles on this grid, in total and per player
+    private int kingdomCount = 0;
+    private final Map<Player, int[]> playerKingdomCounts = new IdentityHashMap<>();
+
+    private KingdomConnectivity kingdomConnectivity;
+    // journal recording the changes while a player move is applied; null otherwise
+    private MoveJournal moveJournal;
+    // listener that is told about changed slots, if any
+    private SlotChangeListener slotChangeListener;
+
+    private EntrySet entrySet;
+    private KeySet keySet;
+    private Values values;
+
+    /**
+     * Constructor.
+     */
+    public HexGrid() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param expectedTileCount number of tiles the map is expected to hold; the grid grows if needed
+     */
+    public HexGrid(int expectedTileCount) {
+        // the capacity is always a multiple of the chunk size
+        int capacity = (Math.max(INITIAL_CAPACITY, expectedTileCount) + CHUNK_MASK) & ~CHUNK_MASK;
+        initSlots(capacity);
+        initBuckets(bucketCapacityFor(capacity));
+    }
+
+    /**
+     * Returns the tile on the given hex coordinates, if any.
+     *
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return tile or null if there is no tile (water)
+     */
+    public HexTile getTile(int x, int y) {
+        if (!HexMapHelper.isPackable(x, y)) {
+            return null;
+        }
+        int slot = findSlot(HexMapHelper.packHexCoords(x, y));
+        return slot == NO_SLOT ? null : slotTiles[slot];
+    }
+
+    /**
+     * Returns the tile on the given packed hex coordinates, if any.
+     *
+     * @param packedCoords coordinates packed with {@link HexMapHelper#packHexCoords(int, int)}
+     * @return tile or null if there is no tile (water)
+     */
+    public HexTile getTile(int packedCoords) {
+        int slot = findSlot(packedCoords);
+        return slot == NO_SLOT ? null : slotTiles[slot];
+    }
+
+    /**
+     * Returns whether there is a tile on the given packed hex coordinates.
+     */
+    public boolean containsTile(int packedCoords) {
+        return findSlot(packedCoords) != NO_SLOT;
+    }
+
+    /**
+     * Returns the slot of the tile on the given packed hex coordinates.
+     *
+     * @param packedCoords coordinates packed with {@link HexMapHelper#packHexCoords(int, int)}
+     * @return slot or {@link #NO_SLOT} if there is no tile
+     */
+    public int getSlot(int packedCoords) {
+        return findSlot(packedCoords);
+    }
+
+    /**
+     * Returns the slot of a tile.
+     *
+     * @param tile tile to get the slot of
+     * @return slot or {@link #NO_SLOT} if the tile is not part of this grid
+     */
+    public int getSlot(HexTile tile) {
+        return tile.getGrid() == this ? tile.getGridSlot() : NO_SLOT;
+    }
+
+    /**
+     * Returns the number of slots. Every tile lives in a slot below this number, but some of the slots may be empty.
+     * Slots are ordered like the tiles were inserted.
+     */
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * Returns the tile in the given slot or null if the slot is empty.
+     */
+    public HexTile getTileInSlot(int slot) {
+        return slotTiles[slot];
+    }
+
+    /**
+     * Returns the owner of the tile in the given slot or null if the slot is empty.
+     */
+    public Player getOwnerInSlot(int slot) {
+        return ownerChunks[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+    }
+
+    /**
+     * Returns the content of the tile in the given slot.
+     */
+    public TileContent getContentInSlot(int slot) {
+        return contentChunks[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+    }
+
+    /**
+     * Returns the kingdom of the tile in the given slot.
+     */
+    public Kingdom getKingdomInSlot(int slot) {
+        return kingdomChunks[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+    }
+
+    /**
+     * Returns the packed coordinates of the given slot.
+     */
+    public int getCoordsInSlot(int slot) {
+        return slotCoords[slot];
+    }
+
+    /**
+     * Returns the first slot at or after the given one that contains a tree or palm tree. Iterating the trees this
+     * way visits them in the same order as iterating the map.
+     *
+     * @param fromSlot slot to start at
+     * @return slot or {@link #NO_SLOT} if there are no more trees
+     */
+    public int getNextVegetationSlot(int fromSlot) {
+        return vegetationSlots.next(fromSlot);
+    }
+
+    /**
+     * Returns the first slot at or after the given one whose content changes at the start of the owner's turn: a
+     * gravestone or a unit that doesn't belong to a kingdom.
+     *
+     * @param fromSlot slot to start at
+     * @return slot or {@link #NO_SLOT} if there are no more such slots
+     */
+    public int getNextProgressingSlot(int fromSlot) {
+        return progressingSlots.next(fromSlot);
+    }
+
+    /**
+     * Returns which sides of the tile in the given slot are next to water. Bit d is set if there is no tile in
+     * direction d (see {@link #getNeighborSlot(int, int)}).
+     */
+    public int getWaterMaskInSlot(int slot) {
+        return waterMasks[slot];
+    }
+
+    /**
+     * Returns the protection level of the tile in the given slot: the strength of the strongest object on the tile or
+     * on a neighbor tile of the same kingdom.
+     */
+    public int getProtectionLevelInSlot(int slot) {
+        return protectionLevels[slot];
+    }
+
+    /**
+     * Returns the slot of a neighbor of the tile in the given slot.
+     *
+     * @param slot      slot of the center tile
+     * @param direction index of the neighbor in the order of {@link HexMapHelper#getNeighborCoords(Vector2)}
+     * @return slot of the neighbor or {@link #NO_SLOT} if there is water
+     */
+    public int getNeighborSlot(int slot, int direction) {
+        return neighborSlots[slot * NEIGHBOR_COUNT + direction];
+    }
+
+    /**
+     * Returns the slot of a tile that is two tiles away from the tile in the given slot.
+     *
+     * @param slot  slot of the center tile
+     * @param index index of the tile in the order of {@link HexMapHelper#getNeighborsNeighborCoords(Vector2)}
+     * @return slot of the neighbor's neighbor or {@link #NO_SLOT} if there is water
+     */
+    public int getNeighborsNeighborSlot(int slot, int index) {
+        return neighborsNeighborSlots[slot * NEIGHBORS_NEIGHBOR_COUNT + index];
+    }
+
+    /**
+     * Returns the neighbor tiles of a tile that is part of this grid. The list is a read-only view on the neighbor
+     * index, so it is always up to date and is created only once per tile. It contains null for water.
+     */
+    List<HexTile> getNeighborTiles(HexTile tile) {
+        List<HexTile> view = tile.getNeighborTilesView();
+        if (view == null || ((NeighborTiles) view).grid != this) {
+            view = new NeighborTiles(this, tile, NEIGHBOR_COUNT, HexMapHelper.NEIGHBOR_OFFSETS_X,
+                    HexMapHelper.NEIGHBOR_OFFSETS_Y);
+            tile.setNeighborTilesView(view);
+        }
+        return view;
+    }
+
+    /**
+     * Returns the tiles that are two tiles away from a tile that is part of this grid. The list is a read-only view
+     * on the neighbor index, so it is always up to date and is created only once per tile. It contains null for
+     * water.
+     */
+    List<HexTile> getNeighborsNeighborTiles(HexTile tile) {
+        List<HexTile> view = tile.getNeighborsNeighborTilesView();
+        if (view == null || ((NeighborTiles) view).grid != this) {
+            view = new NeighborTiles(this, tile, NEIGHBORS_NEIGHBOR_COUNT, HexMapHelper.NEIGHBORS_NEIGHBOR_OFFSETS_X,
+                    HexMapHelper.NEIGHBORS_NEIGHBOR_OFFSETS_Y);
+            tile.setNeighborsNeighborTilesView(view);
+        }
+        return view;
+    }
+
+    /**
+     * Takes a snapshot of the positions, owners, contents and kingdoms of all the tiles. This doesn't copy anything;
+     * the grid copies the chunks it writes to afterwards instead.
+     *
+     * @return snapshot
+     */
+    Snapshot takeSnapshot() {
+        snapshotVersion++;
+        return new Snapshot(slotCount, keyChunks, ownerChunks, contentChunks, kingdomChunks);
+    }
+
+    /**
+     * Creates a grid with other tiles on the same positions as the ones of this grid. The hash table and the neighbor
+     * index are taken over instead of being built tile by tile like when putting the tiles, which makes this a lot
+     * faster. The iteration order and the slots are the same as in this grid.
+     *
+     * @param tiles tiles of the new grid by slot; every slot with a tile in this grid needs a tile on the same
+     *              position and the others must be empty. The tiles must not be on any grid yet.
+     * @return new grid
+     */
+    HexGrid copyWithTiles(HexTile[] tiles) {
+        HexGrid result = new HexGrid(slotTiles.length);
+        result.bucketCoords = bucketCoords.clone();
+        result.bucketSlots = bucketSlots.clone();
+        System.arraycopy(slotCoords, 0, result.slotCoords, 0, slotCount);
+        System.arraycopy(neighborSlots, 0, result.neighborSlots, 0, slotCount * NEIGHBOR_COUNT);
+        System.arraycopy(neighborsNeighborSlots, 0, result.neighborsNeighborSlots, 0,
+                slotCount * NEIGHBORS_NEIGHBOR_COUNT);
+        System.arraycopy(waterMasks, 0, result.waterMasks, 0, slotCount);
+        result.slotCount = slotCount;
+        for (int slot = 0; slot < slotCount; slot++) {
+            HexTile tile = tiles[slot];
+            if ((tile == null) != (slotTiles[slot] == null)
+                    || tile != null && !tile.getPosition().equals(getKeyInSlot(slot))) {
+                throw new IllegalArgumentException(String.format("Tile %s doesn't match slot %s", tile, slot));
+            }
+            if (tile == null) {
+                continue;
+            }
+            result.setKeyInSlot(slot, tile.getPosition());
+            result.slotTiles[slot] = tile;
+            result.tileFingerprint ^= StateFingerprint.ofTile(slotCoords[slot], null, null, false);
+            tile.attachToGrid(result, slot);
+            // the protection levels only depend on the contents and on which tiles share a kingdom, so they can be
+            // taken over as well
+            result.writeTileState(slot, tile.getPlayer(), tile.getContent(), tile.getKingdom(), false);
+            result.size++;
+        }
+        System.arraycopy(protectionLevels, 0, result.protectionLevels, 0, slotCount);
+        return result;
+    }
+
+    /**
+     * Returns the helper for finding out how the kingdoms on this map are connected.
+     */
+    KingdomConnectivity getKingdomConnectivity() {
+        if (kingdomConnectivity == null) {
+            kingdomConnectivity = new KingdomConnectivity(this);
+        }
+        return kingdomConnectivity;
+    }
+
+    /**
+     * Sets the journal that changes of the tiles and their kingdoms are reported to before they happen.
+     *
+     * @param moveJournal journal or null to stop reporting
+     */
+    void setMoveJournal(MoveJournal moveJournal) {
+        this.moveJournal = moveJournal;
+    }
+
+    /**
+     * Sets the listener that is told about every slot whose owner, content or kingdom changes. This allows updating
+     * information derived from the map after a change with far-reaching consequences, like conquering a tile, without
+     * knowing which tiles were affected. A reported slot stays the slot of its tile until the tile is removed or the
+     * listener is told that the slots moved, which happens when adding a tile compacts the slots or when the map is
+     * cleared.
+     *
+     * @param slotChangeListener listener or null to stop reporting
+     * @throws IllegalStateException if there is already a listener
+     */
+    public void setSlotChangeListener(SlotChangeListener slotChangeListener) {
+        if (slotChangeListener != null && this.slotChangeListener != null) {
+            // the one that was there would miss the changes
+            throw new IllegalStateException("There is already a slot change listener");
+        }
+        this.slotChangeListener = slotChangeListener;
+    }
+
+    /**
+     * Reports that a kingdom with tiles on this grid is about to change. Called by the kingdom.
+     *
+     * @param kingdom      kingdom that changes
+     * @param tilesChanged whether its tile list is replaced
+     */
+    void kingdomChanging(Kingdom kingdom, boolean tilesChanged) {
+        if (moveJournal != null) {
+            moveJournal.recordKingdom(kingdom, tilesChanged);
+        }
+    }
+
+    /**
+     * Reports that a kingdom was added to the list of kingdoms of the game state. Called by {@link GameStateHelper}.
+     *
+     * @param kingdoms list of kingdoms
+     * @param index    index the kingdom was added at
+     */
+    void kingdomAdded(List<Kingdom> kingdoms, int index) {
+        if (moveJournal != null) {
+            moveJournal.recordKingdomAdded(kingdoms, index);
+        }
+    }
+
+    /**
+     * Reports that a kingdom was removed from the list of kingdoms of the game state. Called by
+     * {@link GameStateHelper}.
+     *
+     * @param kingdoms list of kingdoms
+     * @param index    index the kingdom was removed from
+     * @param kingdom  kingdom that was removed
+     */
+    void kingdomRemoved(List<Kingdom> kingdoms, int index, Kingdom kingdom) {
+        if (moveJournal != null) {
+            moveJournal.recordKingdomRemoved(kingdoms, index, kingdom);
+        }
+    }
+
+    /**
+     * Returns the part of the game state fingerprint that depends on the tiles and their kingdoms.
+     */
+    long getFingerprint() {
+        return tileFingerprint ^ kingdomFingerprint;
+    }
+
+    /**
+     * Adjusts the kingdom part of the fingerprint. Called by kingdoms with tiles on this grid when they change.
+     */
+    void addToKingdomFingerprint(long delta) {
+        kingdomFingerprint += delta;
+    }
+
+    /**
+     * Returns the number of kingdoms with tiles on this grid.
+     */
+    public int getKingdomCount() {
+        return kingdomCount;
+    }
+
+    /**
+     * Returns the number of kingdoms of a player with tiles on this grid.
+     */
+    public int getKingdomCount(Player player) {
+        int[] playerKingdomCount = playerKingdomCounts.get(player);
+        return playerKingdomCount == null ? 0 : playerKingdomCount[0];
+    }
+
+    /**
+     * Adjusts the number of kingdoms of a player. Called by kingdoms when they get their first tile on this grid,
+     * lose their last one or change their player.
+     */
+    void addToKingdomCount(Player player, int delta) {
+        kingdomCount += delta;
+        playerKingdomCounts.computeIfAbsent(player, key -> new int[1])[0] += delta;
+    }
+
+    /**
+     * Updates the mirrored state of a tile. Called by the tile whenever its owner, content or kingdom changes.
+     */
+    void updateTileState(HexTile tile) {
+        writeTileState(tile.getGridSlot(), tile.getPlayer(), tile.getContent(), tile.getKingdom());
+    }
+
+    private void writeTileState(int slot, Player owner, TileContent content, Kingdom kingdom) {
+        writeTileState(slot, owner, content, kingdom, true);
+    }
+
+    private void writeTileState(int slot, Player owner, TileContent content, Kingdom kingdom,
+                                boolean updateProtectionLevels) {
+        int chunk = slot >>> CHUNK_SHIFT;
+        int index = slot & CHUNK_MASK;
+        Player oldOwner = ownerChunks[chunk][index];
+        TileContent oldContent = contentChunks[chunk][index];
+        Kingdom oldKingdom = kingdomChunks[chunk][index];
+        if (oldOwner == owner && oldContent == content && oldKingdom == kingdom) {
+            // avoid copying a shared chunk for nothing
+            return;
+        }
+        if (moveJournal != null) {
+            moveJournal.recordTileWrite(slotTiles[slot], oldOwner, oldContent, oldKingdom, kingdom);
+        }
+        tileFingerprint ^= StateFingerprint.ofTile(slotCoords[slot], oldOwner, oldContent, oldKingdom != null)
+                ^ StateFingerprint.ofTile(slotCoords[slot], owner, content, kingdom != null);
+        if (oldKingdom != kingdom) {
+            if (oldKingdom != null) {
+                oldKingdom.removeGridTile(slotCoords[slot], oldContent);
+            }
+            if (kingdom != null) {
+                kingdom.addGridTile(this, slotCoords[slot], content);
+            }
+        } else if (kingdom != null && oldContent != content) {
+            kingdom.replaceGridTileContent(oldContent, content);
+        }
+        prepareChunkForWriting(chunk);
+        ownerChunks[chunk][index] = owner;
+        contentChunks[chunk][index] = content;
+        kingdomChunks[chunk][index] = kingdom;
+        if (slotChangeListener != null) {
+            slotChangeListener.slotChanged(slot);
+        }
+        if (updateProtectionLevels && (oldContent != content || oldKingdom != kingdom)) {
+            updateProtectionLevels(slot);
+        }
+        if (oldContent != content) {
+            vegetationSlots.set(slot, content != null && content.getKind().isVegetation());
+        }
+        if (oldContent != content || oldKingdom != kingdom) {
+            progressingSlots.set(slot, content != null && (content.getKind() == TileContent.Kind.GRAVESTONE
+                    || content.getKind() == TileContent.Kind.UNIT && kingdom == null));
+        }
+    }
+
+    /**
+     * Recalculates the protection levels of a tile whose content or kingdom changed and of its neighbors.
+     */
+    private void updateProtectionLevels(int slot) {
+        protectionLevels[slot] = calculateProtectionLevel(slot);
+        for (int i = 0; i < NEIGHBOR_COUNT; i++) {
+            int neighborSlot = neighborSlots[slot * NEIGHBOR_COUNT + i];
+            if (neighborSlot != NO_SLOT) {
+                protectionLevels[neighborSlot] = calculateProtectionLevel(neighborSlot);
+            }
+        }
+    }
+
+    private int calculateProtectionLevel(int slot) {
+        TileContent content = getContentInSlot(slot);
+        int protectionLevel = content == null ? 0 : content.getStrength();
+        Kingdom kingdom = getKingdomInSlot(slot);
+        if (kingdom == null) {
+            return protectionLevel;
+        }
+        for (int i = 0; i < NEIGHBOR_COUNT; i++) {
+            int neighborSlot = neighborSlots[slot * NEIGHBOR_COUNT + i];
+            if (neighborSlot != NO_SLOT && getKingdomInSlot(neighborSlot) == kingdom) {
+                TileContent neighborContent = getContentInSlot(neighborSlot);
+                if (neighborContent != null && neighborContent.getStrength() > protectionLevel) {
+                    protectionLevel = neighborContent.getStrength();
+                }
+            }
+        }
+        return protectionLevel;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return findSlot(key) != NO_SLOT;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        if (value instanceof HexTile) {
+            HexTile tile = (HexTile) value;
+            if (tile.getGrid() == this) {
+                return true;
+            }
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slotTiles[slot] != null && slotTiles[slot].equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public HexTile get(Object key) {
+        int slot = findSlot(key);
+        return slot == NO_SLOT ? null : slotTiles[slot];
+    }
+
+    @Override
+    public HexTile put(Vector2 key, HexTile tile) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(tile);
+        int packedCoords = packKey(key);
+        int slot = findSlot(packedCoords);
+        if (tile.getGrid() != null && (tile.getGrid() != this || tile.getGridSlot() != slot)) {
+            // the map it is on would not notice its changes anymore
+            throw new IllegalStateException(String.format("Tile %s is already on a map", tile));
+        }
+        if (slot != NO_SLOT) {
+            // same as a LinkedHashMap: the position keeps its key and its place in the iteration order
+            HexTile oldTile = slotTiles[slot];
+            if (oldTile != tile) {
+                oldTile.detachFromGrid();
+                slotTiles[slot] = tile;
+                tile.attachToGrid(this, slot);
+                updateTileState(tile);
+            }
+            return oldTile;
+        }
+        if (slotCount == slotTiles.length) {
+            if (size < slotCount / 2) {
+                compact();
+            } else {
+                growSlots(slotTiles.length * 2);
+            }
+        }
+        if ((size + 1) * 2 > bucketCoords.length) {
+            rehash(bucketCoords.length * 2);
+        }
+        slot = slotCount++;
+        slotCoords[slot] = packedCoords;
+        setKeyInSlot(slot, key);
+        slotTiles[slot] = tile;
+        // the state of the new slot is empty until the tile's state is written
+        tileFingerprint ^= StateFingerprint.ofTile(packedCoords, null, null, false);
+        insertIntoBuckets(packedCoords, slot);
+        linkNeighbors(slot);
+        tile.attachToGrid(this, slot);
+        updateTileState(tile);
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    public HexTile remove(Object key) {
+        int slot = findSlot(key);
+        if (slot == NO_SLOT) {
+            return null;
+        }
+        HexTile tile = slotTiles[slot];
+        removeSlot(slot);
+        return tile;
+    }
+
+    @Override
+    public void clear() {
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slotTiles[slot] != null) {
+                slotTiles[slot].detachFromGrid();
+            }
+            Kingdom kingdom = getKingdomInSlot(slot);
+            if (kingdom != null) {
+                kingdom.removeGridTile(slotCoords[slot], getContentInSlot(slot));
+            }
+        }
+        // reset instead of subtracting in case a kingdom was changed in a way it couldn't report
+        tileFingerprint = 0;
+        kingdomFingerprint = 0;
+        kingdomCount = 0;
+        playerKingdomCounts.clear();
+        Arrays.fill(slotTiles, 0, slotCount, null);
+        Arrays.fill(protectionLevels, 0, slotCount, 0);
+        vegetationSlots.clear();
+        progressingSlots.clear();
+        // new chunks are cheaper than copying shared ones just to empty them
+        initChunks(slotTiles.length);
+        Arrays.fill(bucketCoords, 0);
+        Arrays.fill(bucketSlots, EMPTY_BUCKET);
+        slotCount = 0;
+        size = 0;
+        modCount++;
+        if (slotChangeListener != null) {
+            slotChangeListener.slotsMoved();
+        }
+    }
+
+    @Override
+    public Set<Entry<Vector2, HexTile>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    @Override
+    public Set<Vector2> keySet() {
+        if (keySet == null) {
+            keySet = new KeySet();
+        }
+        return keySet;
+    }
+
+    @Override
+    public Collection<HexTile> values() {
+        if (values == null) {
+            values = new Values();
+        }
+        return values;
+    }
+
+    @Override
+    public int hashCode() {
+        // same result as AbstractMap and LinkedHashMap but without creating entry objects
+        int hash = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slotTiles[slot] != null) {
+                hash += getKeyInSlot(slot).hashCode() ^ slotTiles[slot].hashCode();
+            }
+        }
+        return hash;
+    }
+
+    private int packKey(Vector2 key) {
+        int x = (int) key.x;
+        int y = (int) key.y;
+        if (x != key.x || y != key.y || !HexMapHelper.isPackable(x, y)) {
+            throw new IllegalArgumentException(String.format("Invalid hex coordinates: %s", key));
+        }
+        return HexMapHelper.packHexCoords(x, y);
+    }
+
+    private int findSlot(Object key) {
+        if (!(key instanceof Vector2)) {
+            return NO_SLOT;
+        }
+        Vector2 vector = (Vector2) key;
+        int x = (int) vector.x;
+        int y = (int) vector.y;
+        if (x != vector.x || y != vector.y || !HexMapHelper.isPackable(x, y)) {
+            // there can't be a tile on non-integer coordinates
+            return NO_SLOT;
+        }
+        return findSlot(HexMapHelper.packHexCoords(x, y));
+    }
+
+    private int findSlot(int packedCoords) {
+        int mask = bucketCoords.length - 1;
+        int bucket = mix(packedCoords) & mask;
+        while (bucketSlots[bucket] != EMPTY_BUCKET) {
+            if (bucketCoords[bucket] == packedCoords) {
+                return bucketSlots[bucket];
+            }
+            bucket = (bucket + 1) & mask;
+        }
+        return NO_SLOT;
+    }
+
+    private void insertIntoBuckets(int packedCoords, int slot) {
+        int mask = bucketCoords.length - 1;
+        int bucket = mix(packedCoords) & mask;
+        while (bucketSlots[bucket] != EMPTY_BUCKET) {
+            bucket = (bucket + 1) & mask;
+        }
+        bucketCoords[bucket] = packedCoords;
+        bucketSlots[bucket] = slot;
+    }
+
+    private void removeFromBuckets(int packedCoords) {
+        int mask = bucketCoords.length - 1;
+        int bucket = mix(packedCoords) & mask;
+        while (bucketCoords[bucket] != packedCoords || bucketSlots[bucket] == EMPTY_BUCKET) {
+            bucket = (bucket + 1) & mask;
+        }
+        // backward shift deletion keeps the probe sequences intact without tombstones
+        int gap = bucket;
+        int next = (gap + 1) & mask;
+        while (bucketSlots[next] != EMPTY_BUCKET) {
+            int home = mix(bucketCoords[next]) & mask;
+            // move the entry into the gap if its home bucket is not between the gap and its current bucket
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                bucketCoords[gap] = bucketCoords[next];
+                bucketSlots[gap] = bucketSlots[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        bucketSlots[gap] = EMPTY_BUCKET;
+        bucketCoords[gap] = 0;
+    }
+
+    private void removeSlot(int slot) {
+        HexTile tile = slotTiles[slot];
+        tile.detachFromGrid();
+        // emptying the slot first lets the neighbors know that they are no longer protected by it
+        writeTileState(slot, null, null, null);
+        removeFromBuckets(slotCoords[slot]);
+        unlinkNeighbors(slot);
+        tileFingerprint ^= StateFingerprint.ofTile(slotCoords[slot], null, null, false);
+        slotTiles[slot] = null;
+        clearSlotState(slot);
+        size--;
+        modCount++;
+        while (slotCount > 0 && slotTiles[slotCount - 1] == null) {
+            slotCount--;
+        }
+    }
+
+    /**
+     * Moves all tiles to the front of the slot arrays, keeping their order.
+     */
+    private void compact() {
+        int target = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            HexTile tile = slotTiles[slot];
+            if (tile == null) {
+                continue;
+            }
+            if (target != slot) {
+                // moving the state doesn't change the fingerprint or the kingdoms' tile counts
+                slotCoords[target] = slotCoords[slot];
+                protectionLevels[target] = protectionLevels[slot];
+                vegetationSlots.set(target, vegetationSlots.get(slot));
+                progressingSlots.set(target, progressingSlots.get(slot));
+                moveSlotState(slot, target);
+                slotTiles[target] = tile;
+                tile.attachToGrid(this, target);
+            }
+            target++;
+        }
+        for (int slot = target; slot < slotCount; slot++) {
+            slotTiles[slot] = null;
+            protectionLevels[slot] = 0;
+            waterMasks[slot] = 0;
+            vegetationSlots.set(slot, false);
+            progressingSlots.set(slot, false);
+            clearSlotState(slot);
+        }
+        slotCount = target;
+        rehash(bucketCoords.length);
+        for (int slot = 0; slot < slotCount; slot++) {
+            linkNeighbors(slot);
+        }
+        if (slotChangeListener != null) {
+            slotChangeListener.slotsMoved();
+        }
+    }
+
+    /**
+     * Fills the neighbor index of a new slot and makes the neighbors point back to it.
+     */
+    private void linkNeighbors(int slot) {
+        linkNeighbors(slot, neighborSlots, NEIGHBOR_COUNT, HexMapHelper.NEIGHBOR_OFFSETS_X,
+                HexMapHelper.NEIGHBOR_OFFSETS_Y);
+        linkNeighbors(slot, neighborsNeighborSlots, NEIGHBORS_NEIGHBOR_COUNT,
+                HexMapHelper.NEIGHBORS_NEIGHBOR_OFFSETS_X, HexMapHelper.NEIGHBORS_NEIGHBOR_OFFSETS_Y);
+        int waterMask = 0;
+        for (int i = 0; i < NEIGHBOR_COUNT; i++) {
+            int neighborSlot = neighborSlots[slot * NEIGHBOR_COUNT + i];
+            if (neighborSlot == NO_SLOT) {
+                waterMask |= 1 << i;
+            } else {
+                // the new tile fills the water on the neighbor's opposite side
+                waterMasks[neighborSlot] &= ~(1 << HexMapHelper.getOppositeDirection(i));
+            }
+        }
+        waterMasks[slot] = (byte) waterMask;
+    }
+
+    private void linkNeighbors(int slot, int[] index, int count, int[] offsetsX, int[] offsetsY) {
+        int x = HexMapHelper.unpackX(slotCoords[slot]);
+        int y = HexMapHelper.unpackY(slotCoords[slot]);
+        for (int i = 0; i < count; i++) {
+            int neighborX = x + offsetsX[i];
+            int neighborY = y + offsetsY[i];
+            int neighborSlot = NO_SLOT;
+            if (HexMapHelper.isPackable(neighborX, neighborY)) {
+                neighborSlot = findSlot(HexMapHelper.packHexCoords(neighborX, neighborY));
+            }
+            index[slot * count + i] = neighborSlot;
+            if (neighborSlot != NO_SLOT) {
+                // the offsets are ordered clockwise, so the opposite direction is half way around
+                index[neighborSlot * count + (i + count / 2) % count] = slot;
+            }
+        }
+    }
+
+    /**
+     * Removes the references of the neighbors to a slot that is being removed.
+     */
+    private void unlinkNeighbors(int slot) {
+        for (int i = 0; i < NEIGHBOR_COUNT; i++) {
+            int neighborSlot = neighborSlots[slot * NEIGHBOR_COUNT + i];
+            if (neighborSlot != NO_SLOT) {
+                waterMasks[neighborSlot] |= 1 << HexMapHelper.getOppositeDirection(i);
+            }
+        }
+        waterMasks[slot] = 0;
+        unlinkNeighbors(slot, neighborSlots, NEIGHBOR_COUNT);
+        unlinkNeighbors(slot, neighborsNeighborSlots, NEIGHBORS_NEIGHBOR_COUNT);
+    }
+
+    private void unlinkNeighbors(int slot, int[] index, int count) {
+        for (int i = 0; i < count; i++) {
+            int neighborSlot = index[slot * count + i];
+            if (neighborSlot != NO_SLOT) {
+                index[neighborSlot * count + (i + count / 2) % count] = NO_SLOT;
+            }
+            index[slot * count + i] = NO_SLOT;
+        }
+    }
+
+    private Vector2 getKeyInSlot(int slot) {
+        return keyChunks[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+    }
+
+    private void setKeyInSlot(int slot, Vector2 key) {
+        int chunk = slot >>> CHUNK_SHIFT;
+        prepareChunkForWriting(chunk);
+        keyChunks[chunk][slot & CHUNK_MASK] = key;
+    }
+
+    private void moveSlotState(int fromSlot, int toSlot) {
+        int fromChunk = fromSlot >>> CHUNK_SHIFT;
+        int fromIndex = fromSlot & CHUNK_MASK;
+        int toChunk = toSlot >>> CHUNK_SHIFT;
+        int toIndex = toSlot & CHUNK_MASK;
+        prepareChunkForWriting(toChunk);
+        keyChunks[toChunk][toIndex] = keyChunks[fromChunk][fromIndex];
+        ownerChunks[toChunk][toIndex] = ownerChunks[fromChunk][fromIndex];
+        contentChunks[toChunk][toIndex] = contentChunks[fromChunk][fromIndex];
+        kingdomChunks[toChunk][toIndex] = kingdomChunks[fromChunk][fromIndex];
+    }
+
+    private void clearSlotState(int slot) {
+        int chunk = slot >>> CHUNK_SHIFT;
+        int index = slot & CHUNK_MASK;
+        prepareChunkForWriting(chunk);
+        keyChunks[chunk][index] = null;
+        ownerChunks[chunk][index] = null;
+        contentChunks[chunk][index] = null;
+        kingdomChunks[chunk][index] = null;
+    }
+
+    /**
+     * Makes sure that a chunk is not shared with any snapshot by copying it if needed.
+     */
+    private void prepareChunkForWriting(int chunk) {
+        if (chunkVersions[chunk] == snapshotVersion) {
+            return;
+        }
+        if (chunkTablesVersion != snapshotVersion) {
+            keyChunks = keyChunks.clone();
+            ownerChunks = ownerChunks.clone();
+            contentChunks = contentChunks.clone();
+            kingdomChunks = kingdomChunks.clone();
+            chunkTablesVersion = snapshotVersion;
+        }
+        keyChunks[chunk] = keyChunks[chunk].clone();
+        ownerChunks[chunk] = ownerChunks[chunk].clone();
+        contentChunks[chunk] = contentChunks[chunk].clone();
+        kingdomChunks[chunk] = kingdomChunks[chunk].clone();
+        chunkVersions[chunk] = snapshotVersion;
+    }
+
+    private void initSlots(int capacity) {
+        slotCoords = new int[capacity];
+        slotTiles = new HexTile[capacity];
+        neighborSlots = new int[capacity * NEIGHBOR_COUNT];
+        neighborsNeighborSlots = new int[capacity * NEIGHBORS_NEIGHBOR_COUNT];
+        protectionLevels = new int[capacity];
+        waterMasks = new byte[capacity];
+        vegetationSlots = new SlotSet(capacity);
+        progressingSlots = new SlotSet(capacity);
+        initChunks(capacity);
+    }
+
+    private void initChunks(int capacity) {
+        int chunkCount = capacity >>> CHUNK_SHIFT;
+        keyChunks = new Vector2[chunkCount][CHUNK_SIZE];
+        ownerChunks = new Player[chunkCount][CHUNK_SIZE];
+        contentChunks = new TileContent[chunkCount][CHUNK_SIZE];
+        kingdomChunks = new Kingdom[chunkCount][CHUNK_SIZE];
+        chunkVersions = new int[chunkCount];
+        Arrays.fill(chunkVersions, snapshotVersion);
+        chunkTablesVersion = snapshotVersion;
+    }
+
+    private void growSlots(int capacity) {
+        slotCoords = Arrays.copyOf(slotCoords, capacity);
+        slotTiles = Arrays.copyOf(slotTiles, capacity);
+        neighborSlots = Arrays.copyOf(neighborSlots, capacity * NEIGHBOR_COUNT);
+        neighborsNeighborSlots = Arrays.copyOf(neighborsNeighborSlots, capacity * NEIGHBORS_NEIGHBOR_COUNT);
+        protectionLevels = Arrays.copyOf(protectionLevels, capacity);
+        waterMasks = Arrays.copyOf(waterMasks, capacity);
+        vegetationSlots.grow(capacity);
+        progressingSlots.grow(capacity);
+        // the existing chunks are kept; they are copied on write like before if they are shared
+        int oldChunkCount = keyChunks.length;
+        int chunkCount = capacity >>> CHUNK_SHIFT;
+        keyChunks = Arrays.copyOf(keyChunks, chunkCount);
+        ownerChunks = Arrays.copyOf(ownerChunks, chunkCount);
+        contentChunks = Arrays.copyOf(contentChunks, chunkCount);
+        kingdomChunks = Arrays.copyOf(kingdomChunks, chunkCount);
+        chunkVersions = Arrays.copyOf(chunkVersions, chunkCount);
+        for (int chunk = oldChunkCount; chunk < chunkCount; chunk++) {
+            keyChunks[chunk] = new Vector2[CHUNK_SIZE];
+            ownerChunks[chunk] = new Player[CHUNK_SIZE];
+            contentChunks[chunk] = new TileContent[CHUNK_SIZE];
+            kingdomChunks[chunk] = new Kingdom[CHUNK_SIZE];
+            chunkVersions[chunk] = snapshotVersion;
+        }
+        chunkTablesVersion = snapshotVersion;
+    }
+
+    private void initBuckets(int bucketCapacity) {
+        bucketCoords = new int[bucketCapacity];
+        bucketSlots = new int[bucketCapacity];
+        Arrays.fill(bucketSlots, EMPTY_BUCKET);
+    }
+
+    private void rehash(int bucketCapacity) {
+        initBuckets(bucketCapacity);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slotTiles[slot] != null) {
+                insertIntoBuckets(slotCoords[slot], slot);
+            }
+        }
+    }
+
+    private static int bucketCapacityFor(int tileCapacity) {
+        // keep the load factor at or below 0.5
+        return Integer.highestOneBit(tileCapacity * 2 - 1) << 1;
+    }
+
+    private static int mix(int packedCoords) {
+        int hash = packedCoords * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Gets told about the slots whose owner, content or kingdom changed.
+     */
+    public interface SlotChangeListener {
+
+        /**
+         * Called when the owner, content or kingdom of the tile in a slot changed.
+         *
+         * @param slot slot of the tile
+         */
+        void slotChanged(int slot);
+
+        /**
+         * Called when the tiles were moved to other slots, so none of the slots reported before are valid anymore.
+         */
+        void slotsMoved();
+    }
+
+    /**
+     * Iterates the occupied slots in order.
+     */
+    private abstract class SlotIterator<T> implements Iterator<T> {
+
+        private int nextSlot = 0;
+        private int lastSlot = NO_SLOT;
+        private int expectedModCount = modCount;
+
+        SlotIterator() {
+            skipEmptySlots();
+        }
+
+        private void skipEmptySlots() {
+            while (nextSlot < slotCount && slotTiles[nextSlot] == null) {
+                nextSlot++;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextSlot < slotCount;
+        }
+
+        int nextSlot() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (nextSlot >= slotCount) {
+                throw new NoSuchElementException();
+            }
+            lastSlot = nextSlot++;
+            skipEmptySlots();
+            return lastSlot;
+        }
+
+        @Override
+        public void remove() {
+            if (lastSlot == NO_SLOT) {
+                throw new IllegalStateException();
+            }
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeSlot(lastSlot);
+            lastSlot = NO_SLOT;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * Bit set of slots that can be iterated in slot order.
+     */
+    private static final class SlotSet {
+
+        private long[] words;
+
+        SlotSet(int capacity) {
+            words = new long[(capacity + 63) >>> 6];
+        }
+
+        boolean get(int slot) {
+            return (words[slot >>> 6] & (1L << slot)) != 0;
+        }
+
+        void set(int slot, boolean value) {
+            if (value) {
+                words[slot >>> 6] |= 1L << slot;
+            } else {
+                words[slot >>> 6] &= ~(1L << slot);
+            }
+        }
+
+        int next(int fromSlot) {
+            int word = fromSlot >>> 6;
+            if (word >= words.length) {
+                return NO_SLOT;
+            }
+            long bits = words[word] & (-1L << fromSlot);
+            while (bits == 0) {
+                if (++word == words.length) {
+                    return NO_SLOT;
+                }
+                bits = words[word];
+            }
+            return (word << 6) + Long.numberOfTrailingZeros(bits);
+        }
+
+        void grow(int capacity) {
+            words = Arrays.copyOf(words, (capacity + 63) >>> 6);
+        }
+
+        void clear() {
+            Arrays.fill(words, 0);
+        }
+    }
+
+    /**
+     * Read-only list of the neighbors of a tile backed by one of the neighbor indices.
+     */
+    private static final class NeighborTiles extends AbstractList<HexTile> implements RandomAccess {
+
+        private final HexGrid grid;
+        private final HexTile tile;
+        private final int count;
+        private final int[] offsetsX;
+        private final int[] offsetsY;
+
+        NeighborTiles(HexGrid grid, HexTile tile, int count, int[] offsetsX, int[] offsetsY) {
+            this.grid = grid;
+            this.tile = tile;
+            this.count = count;
+            this.offsetsX = offsetsX;
+            this.offsetsY = offsetsY;
+        }
+
+        @Override
+        public HexTile get(int i) {
+            if (i < 0 || i >= count) {
+                throw new IndexOutOfBoundsException("Index: " + i);
+            }
+            if (tile.getGrid() != grid) {
+                // the tile was removed from the map; look up what is around its position
+                return grid.getTile((int) tile.getPosition().x + offsetsX[i], (int) tile.getPosition().y + offsetsY[i]);
+            }
+            // the arrays are replaced when the grid grows
+            int[] currentIndex = count == NEIGHBOR_COUNT ? grid.neighborSlots : grid.neighborsNeighborSlots;
+            int neighborSlot = currentIndex[tile.getGridSlot() * count + i];
+            return neighborSlot == NO_SLOT ? null : grid.slotTiles[neighborSlot];
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            for (int i = 0; i < count; i++) {
+                if (Objects.equals(o, get(i))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return indexOf(o) >= 0;
+        }
+    }
+
+    /**
+     * Positions, owners, contents and kingdoms of the tiles of a grid at the time the snapshot was taken. Never
+     * changes because the grid doesn't write to chunks that were shared with a snapshot.
+     */
+    static final class Snapshot {
+
+        private final int slotCount;
+        private final Vector2[][] keyChunks;
+        private final Player[][] ownerChunks;
+        private final TileContent[][] contentChunks;
+        private final Kingdom[][] kingdomChunks;
+
+        private Snapshot(int slotCount, Vector2[][] keyChunks, Player[][] ownerChunks, TileContent[][] contentChunks,
+                         Kingdom[][] kingdomChunks) {
+            this.slotCount = slotCount;
+            this.keyChunks = keyChunks;
+            this.ownerChunks = ownerChunks;
+            this.contentChunks = contentChunks;
+            this.kingdomChunks = kingdomChunks;
+        }
+
+        int getSlotCount() {
+            return slotCount;
+        }
+
+        /**
+         * Returns the position of the tile in the given slot or null if the slot was empty.
+         */
+        Vector2 getKey(int slot) {
+            return keyChunks[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+        }
+
+        Player getOwner(int slot) {
+            return ownerChunks[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+        }
+
+        TileContent getContent(int slot) {
+            return contentChunks[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+        }
+
+        Kingdom getKingdom(int slot) {
+            return kingdomChunks[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<Vector2, HexTile>> {
+
+        @Override
+        public Iterator<Entry<Vector2, HexTile>> iterator() {
+            return new SlotIterator<Entry<Vector2, HexTile>>() {
+                @Override
+                public Entry<Vector2, HexTile> next() {
+                    int slot = nextSlot();
+                    return new SimpleImmutableEntry<>(getKeyInSlot(slot), slotTiles[slot]);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            HexGrid.this.clear();
+        }
+    }
+
+    private final class KeySet extends AbstractSet<Vector2> {
+
+        @Override
+        public Iterator<Vector2> iterator() {
+            return new SlotIterator<Vector2>() {
+                @Override
+                public Vector2 next() {
+                    return getKeyInSlot(nextSlot());
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return containsKey(key);
+        }
+
+        @Override
+        public void clear() {
+            HexGrid.this.clear();
+        }
+    }
+
+    private final class Values extends AbstractCollection<HexTile> {
+
+        @Override
+        public Iterator<HexTile> iterator() {
+            return new SlotIterator<HexTile>() {
+                @Override
+                public HexTile next() {
+                    return slotTiles[nextSlot()];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            return containsValue(value);
+        }
+
+        @Override
+        public void clear() {
+            HexGrid.this.clear();
+        }
+    }
+
+}
@@ -21,16 +21,108 @@ import java.util.Set;
  * x, y and z coordinate. The z coordinate can and is calculated from the other
  * ones; world coordinates - x and y coordinates on the world map, e.g. where a
  * player clicked.
+ *
+ * <p>Most functions exist in two variants: one working with {@link Vector2} and
+ * lists and one working with hex coordinates packed into a single int (see
+ * {@link #packHexCoords(int, int)}) that writes its results into arrays
+ * provided by the caller and does not allocate anything.
  **/
 public class HexMapHelper {
 
     public static final float HEX_OUTER_RADIUS = 5;
 
+    /**
+     * Square root of 3; appears in all the conversions between hex and world coordinates.
+     */
+    public static final double SQRT_3 = Math.sqrt(3);
+
+    /**
+     * Half of the square root of 3.
+     */
+    public static final double HALF_SQRT_3 = SQRT_3 / 2;
+
+    /**
+     * A third of the square root of 3.
+     */
+    public static final double THIRD_SQRT_3 = SQRT_3 / 3;
+
+    // offsets of the neighbors in the same order as getNeighborCoords
+    static final int[] NEIGHBOR_OFFSETS_X = {-1, 0, 1, 1, 0, -1};
+    static final int[] NEIGHBOR_OFFSETS_Y = {0, -1, -1, 0, 1, 1};
+    // offsets of the neighbors' neighbors in the same order as getNeighborsNeighborCoords
+    static final int[] NEIGHBORS_NEIGHBOR_OFFSETS_X = {0, 1, 2, 2, 2, 1, 0, -1, -2, -2, -2, -1};
+    static final int[] NEIGHBORS_NEIGHBOR_OFFSETS_Y = {-2, -2, -2, -1, 0, 1, 2, 2, 2, 1, 0, -1};
+
+    // range of coordinates that can be packed into an int (16 bits each)
+    private static final int MIN_PACKABLE_COORD = Short.MIN_VALUE;
+    private static final int MAX_PACKABLE_COORD = Short.MAX_VALUE;
+
     // prevent instantiation
     private HexMapHelper() {
         throw new AssertionError();
     }
 
+    /**
+     * Packs integer hex coordinates into a single int. Packed coordinates are equal if and only if the coordinates are
+     * equal which makes them usable as keys without creating any objects.
+     *
+     * @param x x coordinate; must be in the range of a short
+     * @param y y coordinate; must be in the range of a short
+     * @return packed coordinates
+     */
+    public static int packHexCoords(int x, int y) {
+        return (x << 16) | (y & 0xFFFF);
+    }
+
+    /**
+     * Returns whether the given coordinates can be packed with {@link #packHexCoords(int, int)}.
+     */
+    public static boolean isPackable(int x, int y) {
+        return x >= MIN_PACKABLE_COORD && x <= MAX_PACKABLE_COORD && y >= MIN_PACKABLE_COORD
+                && y <= MAX_PACKABLE_COORD;
+    }
+
+    /**
+     * Returns the x coordinate of packed hex coordinates.
+     */
+    public static int unpackX(int packedCoords) {
+        return packedCoords >> 16;
+    }
+
+    /**
+     * Returns the y coordinate of packed hex coordinates.
+     */
+    public static int unpackY(int packedCoords) {
+        return (short) packedCoords;
+    }
+
+    /**
+     * Returns the x offset of the neighbor in the given direction.
+     *
+     * @param direction index of the neighbor in the order of {@link #getNeighborCoords(Vector2)}
+     * @return x offset
+     */
+    public static int getNeighborOffsetX(int direction) {
+        return NEIGHBOR_OFFSETS_X[direction];
+    }
+
+    /**
+     * Returns the y offset of the neighbor in the given direction.
+     *
+     * @param direction index of the neighbor in the order of {@link #getNeighborCoords(Vector2)}
+     * @return y offset
+     */
+    public static int getNeighborOffsetY(int direction) {
+        return NEIGHBOR_OFFSETS_Y[direction];
+    }
+
+    /**
+     * Returns the direction pointing the opposite way of the given one.
+     */
+    public static int getOppositeDirection(int direction) {
+        return (direction + HexGrid.NEIGHBOR_COUNT / 2) % HexGrid.NEIGHBOR_COUNT;
+    }
+
     /**
      * Converts hex coordinates to world coordinates.
      *
@@ -38,13 +130,28 @@ public class HexMapHelper {
      * @return x and y coordinates of the center of the tile
      */
     public static Vector2 hexCoordsToWorldCoords(Vector2 hexCoords) {
+        return hexCoordsToWorldCoords(hexCoords.x, hexCoords.y, new Vector2());
+    }
+
+    /**
+     * Converts packed hex coordinates to world coordinates.
+     *
+     * @param packedCoords packed coordinates of the tile
+     * @param result       vector to write the x and y coordinates of the center of the tile into
+     * @return result vector
+     */
+    public static Vector2 hexCoordsToWorldCoords(int packedCoords, Vector2 result) {
+        return hexCoordsToWorldCoords(unpackX(packedCoords), unpackY(packedCoords), result);
+    }
+
+    private static Vector2 hexCoordsToWorldCoords(float hexX, float hexY, Vector2 result) {
         // https://www.redblobgames.com/grids/hexagons/#hex-to-pixel
         // get third coordinate
-        float cubeZ = -hexCoords.x - hexCoords.y;
+        float cubeZ = -hexX - hexY;
         // calculate world coordinates
-        float worldX = hexCoords.x * HEX_OUTER_RADIUS * 1.5F;
-        float worldY = (float) (HEX_OUTER_RADIUS * (Math.sqrt(3) / 2 * hexCoords.x + Math.sqrt(3) * cubeZ));
-        return new Vector2(worldX, worldY);
+        float worldX = hexX * HEX_OUTER_RADIUS * 1.5F;
+        float worldY = (float) (HEX_OUTER_RADIUS * (HALF_SQRT_3 * hexX + SQRT_3 * cubeZ));
+        return result.set(worldX, worldY);
     }
 
     /**
@@ -55,9 +162,28 @@ public class HexMapHelper {
      * there was one)
      */
     public static Vector2 worldCoordsToHexCoords(Vector2 worldCoords) {
-        float hexX = (2F / 3 * worldCoords.x) / HEX_OUTER_RADIUS;
-        float hexY = (float) ((-1F / 3 * worldCoords.x + Math.sqrt(3) / 3 * worldCoords.y) / HEX_OUTER_RADIUS);
-        return roundToHexCoords(new Vector2(hexX, hexY));
+        return toVector(roundToCubeCoords(getFractionalHexX(worldCoords.x),
+                getFractionalHexY(worldCoords.x, worldCoords.y)));
+    }
+
+    /**
+     * Converts world coordinates to packed hex coordinates.
+     *
+     * @param worldX x coordinate of a point in the world
+     * @param worldY y coordinate of a point in the world
+     * @return packed coordinates of the tile the point belongs to (or would if there was one)
+     * @throws IllegalArgumentException if the coordinates of that tile can't be packed
+     */
+    public static int worldCoordsToHexCoords(float worldX, float worldY) {
+        return toPackedCoords(roundToCubeCoords(getFractionalHexX(worldX), getFractionalHexY(worldX, worldY)));
+    }
+
+    private static float getFractionalHexX(float worldX) {
+        return (2F / 3 * worldX) / HEX_OUTER_RADIUS;
+    }
+
+    private static float getFractionalHexY(float worldX, float worldY) {
+        return (float) ((-1F / 3 * worldX + THIRD_SQRT_3 * worldY) / HEX_OUTER_RADIUS);
     }
 
     /**
@@ -68,16 +194,21 @@ public class HexMapHelper {
      * @return rounded hex coordinates
      */
     public static Vector2 roundToHexCoords(Vector2 coords) {
+        return toVector(roundToCubeCoords(coords.x, coords.y));
+    }
+
+    // returns the x and z coordinates of the tile in the upper and lower half of a long, so any int coordinates fit
+    private static long roundToCubeCoords(float fractionalX, float fractionalY) {
         // https://www.redblobgames.com/grids/hexagons/#rounding
         // get third coordinate
-        float cubeZ = -coords.x - coords.y;
+        float cubeZ = -fractionalX - fractionalY;
         // round
-        float x = Math.round(coords.x);
-        float y = Math.round(coords.y);
-        float z = Math.round(cubeZ);
+        int x = Math.round(fractionalX);
+        int y = Math.round(fractionalY);
+        int z = Math.round(cubeZ);
         // find greatest difference from rounding and re-calculate it from the others
-        float diffX = Math.abs(coords.x - x);
-        float diffY = Math.abs(coords.y - y);
+        float diffX = Math.abs(fractionalX - x);
+        float diffY = Math.abs(fractionalY - y);
         float diffZ = Math.abs(cubeZ - z);
 
         if (diffX > diffY && diffX > diffZ) {
@@ -85,7 +216,20 @@ public class HexMapHelper {
         } else if (diffY < diffZ) {
             z = -x - y;
         }
-        return new Vector2(x + 0.0F, z + 0.0F);
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    private static Vector2 toVector(long cubeCoords) {
+        return new Vector2((int) (cubeCoords >> 32), (int) cubeCoords);
+    }
+
+    private static int toPackedCoords(long cubeCoords) {
+        int x = (int) (cubeCoords >> 32);
+        int y = (int) cubeCoords;
+        if (!isPackable(x, y)) {
+            throw new IllegalArgumentException(String.format("Hex coordinates can't be packed: (%s, %s)", x, y));
+        }
+        return packHexCoords(x, y);
     }
 
     /**
@@ -106,6 +250,34 @@ public class HexMapHelper {
         return neighbors;
     }
 
+    /**
+     * Returns the packed coordinates of the neighbor in the given direction.
+     *
+     * @param packedCoords packed coordinates of the center tile
+     * @param direction    index of the neighbor in the order of {@link #getNeighborCoords(Vector2)}
+     * @return packed neighbor coordinates
+     */
+    public static int getNeighborCoords(int packedCoords, int direction) {
+        return packHexCoords(unpackX(packedCoords) + NEIGHBOR_OFFSETS_X[direction],
+                unpackY(packedCoords) + NEIGHBOR_OFFSETS_Y[direction]);
+    }
+
+    /**
+     * Writes the packed coordinates of all 6 neighbor tiles for the given tile coordinates into the given array, in
+     * the same order as {@link #getNeighborCoords(Vector2)}. Does not check if there are actually tiles on those
+     * positions.
+     *
+     * @param packedCoords packed coordinates of the center tile
+     * @param result       array with a length of at least {@link HexGrid#NEIGHBOR_COUNT} to write the coordinates into
+     */
+    public static void getNeighborCoords(int packedCoords, int[] result) {
+        int x = unpackX(packedCoords);
+        int y = unpackY(packedCoords);
+        for (int i = 0; i < HexGrid.NEIGHBOR_COUNT; i++) {
+            result[i] = packHexCoords(x + NEIGHBOR_OFFSETS_X[i], y + NEIGHBOR_OFFSETS_Y[i]);
+        }
+    }
+
     /**
      * Returns the coordinates of all 12 tiles that are 2 tiles away from the given
      * tile coordinates (neighbors' neighbors). Does not check if there are actually
@@ -131,29 +303,67 @@ public class HexMapHelper {
         return neighborsNeighbors;
     }
 
+    /**
+     * Writes the packed coordinates of all 12 tiles that are 2 tiles away from the given tile coordinates into the
+     * given array, in the same order as {@link #getNeighborsNeighborCoords(Vector2)}. Does not check if there are
+     * actually tiles on those positions.
+     *
+     * @param packedCoords packed coordinates of the center tile
+     * @param result       array with a length of at least {@link HexGrid#NEIGHBORS_NEIGHBOR_COUNT} to write the
+     *                     coordinates into
+     */
+    public static void getNeighborsNeighborCoords(int packedCoords, int[] result) {
+        int x = unpackX(packedCoords);
+        int y = unpackY(packedCoords);
+        for (int i = 0; i < HexGrid.NEIGHBORS_NEIGHBOR_COUNT; i++) {
+            result[i] = packHexCoords(x + NEIGHBORS_NEIGHBOR_OFFSETS_X[i], y + NEIGHBORS_NEIGHBOR_OFFSETS_Y[i]);
+        }
+    }
+
     /**
      * Returns all neighbor tiles for the given tile. May contain null if there are
-     * empty neighbor positions.
+     * empty neighbor positions. If the tile is part of the given map, the returned list
+     * is a read-only view on the map's neighbor index that is created only once.
      *
      * @param tile center tile
      * @return neighbor tiles
      */
     public static List<HexTile> getNeighborTiles(Map<Vector2, HexTile> map, HexTile tile) {
-        List<HexTile> cachedNeighbors = tile.getCachedNeighborTiles();
-        if (cachedNeighbors == null) {
-            cachedNeighbors = getNeighborTiles(map, tile.getPosition());
-            tile.setCachedNeighborTiles(cachedNeighbors);
+        if (tile.getGrid() == map) {
+            return tile.getGrid().getNeighborTiles(tile);
         }
-        return cachedNeighbors;
+        return getNeighborTiles(map, tile.getPosition());
     }
 
     /**
-     * Clears neighbor tile cache for the whole map.
+     * Returns which sides of a tile are next to water. Bit d is set if there is no tile in direction d (in the order of
+     * {@link #getNeighborCoords(Vector2)}). If the tile is part of the given map, the map already knows this.
+     *
+     * @param tile center tile
+     * @return bit mask of the sides next to water
      */
-    public static void clearNeighborTileCache(Map<Vector2, HexTile> map) {
-        for (HexTile tile : map.values()) {
-            tile.setCachedNeighborTiles(null);
+    public static int getWaterMask(Map<Vector2, HexTile> map, HexTile tile) {
+        if (tile.getGrid() == map) {
+            return tile.getGrid().getWaterMaskInSlot(tile.getGridSlot());
+        }
+        int waterMask = 0;
+        List<HexTile> neighborTiles = getNeighborTiles(map, tile.getPosition());
+        for (int i = 0; i < HexGrid.NEIGHBOR_COUNT; i++) {
+            if (neighborTiles.get(i) == null) {
+                waterMask |= 1 << i;
+            }
         }
+        return waterMask;
+    }
+
+    /**
+     * Returns whether a tile is a coast tile (= next to water).
+     *
+     * @param tile tile to check
+     * @return whether there is water next to the tile
+     */
+    public static boolean isCoastTile(Map<Vector2, HexTile> map, HexTile tile) {
+        return getWaterMask(map, tile) != 0;
     }
 
     /**
@@ -172,7 +382,18 @@ public class HexMapHelper {
         return neighborTiles;
     }
 
+    /**
+     * Returns all tiles that are 2 tiles away from the given tile (neighbors' neighbors). May contain null if there
+     * are empty positions. If the tile is part of the given map, the returned list is a read-only view on the map's
+     * neighbor index that is created only once.
+     *
+     * @param tile center tile
+     * @return neighbors' neighbor tiles
+     */
     public static List<HexTile> getNeighborsNeighborTiles(Map<Vector2, HexTile> map, HexTile tile) {
+        if (tile.getGrid() == map) {
+            return tile.getGrid().getNeighborsNeighborTiles(tile);
+        }
         return getNeighborsNeighborTiles(map, tile.getPosition());
     }
 
@@ -203,6 +424,47 @@ public class HexMapHelper {
         return unusedNeighbors;
     }
 
+    /**
+     * Writes the packed coordinates of all neighbor tile positions that are empty for the given tile coordinates into
+     * the given array.
+     *
+     * @param map          map to check
+     * @param packedCoords packed coordinates of the center tile
+     * @param result       array with a length of at least {@link HexGrid#NEIGHBOR_COUNT} to write the coordinates into
+     * @return number of empty neighbor positions written to the array
+     */
+    public static int getUnusedNeighborCoords(HexGrid map, int packedCoords, int[] result) {
+        int x = unpackX(packedCoords);
+        int y = unpackY(packedCoords);
+        int count = 0;
+        for (int i = 0; i < HexGrid.NEIGHBOR_COUNT; i++) {
+            int neighborCoords = packHexCoords(x + NEIGHBOR_OFFSETS_X[i], y + NEIGHBOR_OFFSETS_Y[i]);
+            if (!map.containsTile(neighborCoords)) {
+                result[count++] = neighborCoords;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the neighbor tile positions that are empty for the given tile coordinates.
+     *
+     * @param map          map to check
+     * @param packedCoords packed coordinates of the center tile
+     * @return number of empty neighbor positions
+     */
+    public static int countUnusedNeighbors(HexGrid map, int packedCoords) {
+        int x = unpackX(packedCoords);
+        int y = unpackY(packedCoords);
+        int count = 0;
+        for (int i = 0; i < HexGrid.NEIGHBOR_COUNT; i++) {
+            if (!map.containsTile(packHexCoords(x + NEIGHBOR_OFFSETS_X[i], y + NEIGHBOR_OFFSETS_Y[i]))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * Returns the dimensions of a map.
      *
@@ -216,8 +478,9 @@ public class HexMapHelper {
         float minWorldY = 0;
         float maxWorldY = 0;
         boolean firstTile = true;
+        Vector2 mapCoords = new Vector2();
         for (Vector2 hexCoords : tileCoords) {
-            Vector2 mapCoords = hexCoordsToWorldCoords(hexCoords);
+            hexCoordsToWorldCoords(hexCoords.x, hexCoords.y, mapCoords);
             if (firstTile || mapCoords.x < minWorldX) {
                 minWorldX = mapCoords.x;
             }
@@ -18,7 +18,12 @@ public class HexTile implements Comparable<HexTile> {
     private TileContent content;
     private Kingdom kingdom;
     private Vector2 position;
-    private List<HexTile> cachedNeighborTiles;
+    // map the tile is part of, if any; the tile keeps its state in sync with the map's arrays
+    private transient HexGrid grid;
+    private transient int gridSlot = HexGrid.NO_SLOT;
+    // views on the map's neighbor index; created once per map
+    private transient List<HexTile> neighborTiles;
+    private transient List<HexTile> neighborsNeighborTiles;
 
     public HexTile() {
     }
@@ -34,6 +39,9 @@ public class HexTile implements Comparable<HexTile> {
 
     public void setPlayer(Player player) {
         this.player = player;
+        if (grid != null) {
+            grid.updateTileState(this);
+        }
     }
 
     public TileContent getContent() {
@@ -42,6 +50,9 @@ public class HexTile implements Comparable<HexTile> {
 
     public void setContent(TileContent content) {
         this.content = content;
+        if (grid != null) {
+            grid.updateTileState(this);
+        }
     }
 
     public Kingdom getKingdom() {
@@ -56,18 +67,65 @@ public class HexTile implements Comparable<HexTile> {
         if (kingdom != null) {
             this.player = kingdom.getPlayer();
         }
+        if (grid != null) {
+            grid.updateTileState(this);
+        }
+    }
+
+    /**
+     * Sets the owner, content and kingdom at once, without setting the player to the kingdom's owner. Used for
+     * restoring a previous state.
+     */
+    void restoreState(Player player, TileContent content, Kingdom kingdom) {
+        this.player = player;
+        this.content = content;
+        this.kingdom = kingdom;
+        if (grid != null) {
+            grid.updateTileState(this);
+        }
     }
 
     public Vector2 getPosition() {
         return position;
     }
 
-    public List<HexTile> getCachedNeighborTiles() {
-        return cachedNeighborTiles;
+    /**
+     * Returns the map this tile is part of.
+     *
+     * @return map or null if the tile was not put on any map or has been removed from it
+     */
+    public HexGrid getGrid() {
+        return grid;
+    }
+
+    int getGridSlot() {
+        return gridSlot;
+    }
+
+    void attachToGrid(HexGrid grid, int slot) {
+        this.grid = grid;
+        this.gridSlot = slot;
+    }
+
+    void detachFromGrid() {
+        this.grid = null;
+        this.gridSlot = HexGrid.NO_SLOT;
+    }
+
+    List<HexTile> getNeighborTilesView() {
+        return neighborTiles;
+    }
+
+    void setNeighborTilesView(List<HexTile> neighborTiles) {
+        this.neighborTiles = neighborTiles;
+    }
+
+    List<HexTile> getNeighborsNeighborTilesView() {
+        return neighborsNeighborTiles;
     }
 
-    public void setCachedNeighborTiles(List<HexTile> neighborTiles) {
-        this.cachedNeighborTiles = neighborTiles;
+    void setNeighborsNeighborTilesView(List<HexTile> neighborsNeighborTiles) {
+        this.neighborsNeighborTiles = neighborsNeighborTiles;
     }
 
     @Override
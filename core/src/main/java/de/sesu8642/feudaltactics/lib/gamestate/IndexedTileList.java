@@ -0,0 +1,487 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.gamestate;
+
+import java.util.*;
+
+/**
+ * List of tiles that finds and removes tiles in constant time. Meant for the tiles of a {@link Kingdom}, which need
+ * the insertion order of a list to keep the game deterministic but are also checked for membership a lot.
+ *
+ * <p>Tiles are indexed by position. Since equal tiles have equal positions, {@link #contains(Object)} and
+ * {@link #remove(Object)} behave exactly like the ones of {@link ArrayList}, which use {@link HexTile#equals(Object)}
+ * as well. Removing a tile leaves a gap, so it doesn't move the following tiles. The gaps are closed by later
+ * structural modifications once they make up a quarter of the list, and by accessing an element by index behind a
+ * gap, so that takes constant amortized time. Iterators follow the tiles when the gaps are closed, so accessing
+ * elements by index while iterating is fine. Because of that, accessing elements by index must not be done from
+ * several threads at once, though. Null elements are not supported.
+ *
+ * <p>While a {@link MoveJournal} records the changes of the list, every change, including closing the gaps, is
+ * reported to it with what is needed to undo it. Undoing restores the elements at the same places, so the changes
+ * recorded before can be undone as well.
+ **/
+public final class IndexedTileList extends AbstractList<HexTile> {
+
+    // value of a position that more than one tile of the list has; only happens in inconsistent game states
+    private static final int SEVERAL = -1;
+
+    // the tiles in order, with gaps (null) where tiles were removed
+    private HexTile[] elements = new HexTile[8];
+    private int end = 0;
+    private int size = 0;
+    // index of the first gap; all the elements before it are at their list index
+    private int firstGap = 0;
+    // incremented whenever gaps are closed, so iterators know that the tiles were moved
+    private int gapClosings = 0;
+    // journal that records the changes so they can be undone, if any
+    private MoveJournal moveJournal;
+
+    // open addressing hash table: packed position -> index in elements (or SEVERAL) and number of tiles there
+    private int[] positionKeys = new int[16];
+    private int[] positionIndices = new int[16];
+    private int[] positionCounts = new int[16];
+    private int usedPositions = 0;
+
+    /**
+     * Constructor.
+     */
+    public IndexedTileList() {
+        super();
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param tiles tiles to add
+     */
+    public IndexedTileList(Collection<HexTile> tiles) {
+        super();
+        addAll(tiles);
+    }
+
+    @Override
+    public HexTile get(int index) {
+        checkIndex(index, size);
+        return elements[getElementIndex(index)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return findElement(o) >= 0;
+    }
+
+    @Override
+    public boolean add(HexTile tile) {
+        Objects.requireNonNull(tile);
+        if (end == elements.length) {
+            if (size < end / 2) {
+                closeGaps();
+            } else {
+                elements = Arrays.copyOf(elements, elements.length * 2);
+            }
+        }
+        int elementIndex = end;
+        elements[elementIndex] = tile;
+        addPosition(tile, elementIndex);
+        if (firstGap == elementIndex) {
+            firstGap++;
+        }
+        end++;
+        size++;
+        modCount++;
+        if (moveJournal != null) {
+            moveJournal.recordListChange(() -> clearElement(elementIndex));
+        }
+        return true;
+    }
+
+    @Override
+    public void add(int index, HexTile tile) {
+        checkIndex(index, size + 1);
+        if (index == size) {
+            add(tile);
+            return;
+        }
+        Objects.requireNonNull(tile);
+        closeGaps();
+        if (end == elements.length) {
+            elements = Arrays.copyOf(elements, elements.length * 2);
+        }
+        System.arraycopy(elements, index, elements, index + 1, end - index);
+        elements[index] = tile;
+        end++;
+        size++;
+        firstGap = end;
+        modCount++;
+        rebuildPositions();
+        if (moveJournal != null) {
+            moveJournal.recordListChange(() -> removeInsertedElement(index));
+        }
+    }
+
+    @Override
+    public HexTile set(int index, HexTile tile) {
+        checkIndex(index, size);
+        Objects.requireNonNull(tile);
+        int elementIndex = getElementIndex(index);
+        HexTile oldTile = elements[elementIndex];
+        replaceElement(elementIndex, tile);
+        if (moveJournal != null) {
+            moveJournal.recordListChange(() -> replaceElement(elementIndex, oldTile));
+        }
+        return oldTile;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int elementIndex = findElement(o);
+        if (elementIndex < 0) {
+            return false;
+        }
+        removeElement(elementIndex);
+        closeGapsIfSparse();
+        return true;
+    }
+
+    @Override
+    public HexTile remove(int index) {
+        checkIndex(index, size);
+        int elementIndex = getElementIndex(index);
+        HexTile tile = elements[elementIndex];
+        removeElement(elementIndex);
+        closeGapsIfSparse();
+        return tile;
+    }
+
+    @Override
+    public void clear() {
+        recordElements();
+        Arrays.fill(elements, 0, end, null);
+        Arrays.fill(positionCounts, 0);
+        end = 0;
+        size = 0;
+        firstGap = 0;
+        usedPositions = 0;
+        modCount++;
+    }
+
+    @Override
+    public Iterator<HexTile> iterator() {
+        return new Itr();
+    }
+
+    /**
+     * Returns the journal that records the changes of the list, if any.
+     */
+    MoveJournal getMoveJournal() {
+        return moveJournal;
+    }
+
+    /**
+     * Sets the journal that records the changes of the list.
+     *
+     * @param moveJournal journal or null to stop recording
+     */
+    void setMoveJournal(MoveJournal moveJournal) {
+        this.moveJournal = moveJournal;
+    }
+
+    private static void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + bound);
+        }
+    }
+
+    private int getElementIndex(int index) {
+        if (index >= firstGap) {
+            closeGaps();
+        }
+        return index;
+    }
+
+    private int findElement(Object o) {
+        if (!(o instanceof HexTile)) {
+            return -1;
+        }
+        HexTile tile = (HexTile) o;
+        int bucket = findBucket(getPositionKey(tile));
+        if (positionCounts[bucket] == 0) {
+            return -1;
+        }
+        int elementIndex = positionIndices[bucket];
+        if (elementIndex != SEVERAL) {
+            return elements[elementIndex].equals(tile) ? elementIndex : -1;
+        }
+        for (int i = 0; i < end; i++) {
+            if (elements[i] != null && elements[i].equals(tile)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeElement(int elementIndex) {
+        if (moveJournal != null) {
+            HexTile tile = elements[elementIndex];
+            int oldEnd = end;
+            int oldFirstGap = firstGap;
+            moveJournal.recordListChange(() -> restoreElement(elementIndex, tile, oldEnd, oldFirstGap));
+        }
+        clearElement(elementIndex);
+    }
+
+    // removes an element without recording it; the exact opposite of appending it
+    private void clearElement(int elementIndex) {
+        removePosition(elements[elementIndex], elementIndex);
+        elements[elementIndex] = null;
+        size--;
+        modCount++;
+        firstGap = Math.min(firstGap, elementIndex);
+        while (end > 0 && elements[end - 1] == null) {
+            end--;
+        }
+        if (end == size) {
+            firstGap = end;
+        }
+    }
+
+    private void closeGapsIfSparse() {
+        if ((end - size) * 4 > end) {
+            closeGaps();
+        }
+    }
+
+    private void closeGaps() {
+        if (end == size) {
+            return;
+        }
+        recordElements();
+        int newIndex = 0;
+        for (int i = 0; i < end; i++) {
+            HexTile tile = elements[i];
+            if (tile != null) {
+                if (i != newIndex) {
+                    elements[newIndex] = tile;
+                    int bucket = findBucket(getPositionKey(tile));
+                    if (positionIndices[bucket] != SEVERAL) {
+                        positionIndices[bucket] = newIndex;
+                    }
+                }
+                newIndex++;
+            }
+        }
+        Arrays.fill(elements, size, end, null);
+        end = size;
+        firstGap = end;
+        gapClosings++;
+    }
+
+    private void replaceElement(int elementIndex, HexTile tile) {
+        removePosition(elements[elementIndex], elementIndex);
+        elements[elementIndex] = tile;
+        addPosition(tile, elementIndex);
+    }
+
+    private void restoreElement(int elementIndex, HexTile tile, int oldEnd, int oldFirstGap) {
+        elements[elementIndex] = tile;
+        addPosition(tile, elementIndex);
+        end = oldEnd;
+        firstGap = oldFirstGap;
+        size++;
+        modCount++;
+    }
+
+    private void removeInsertedElement(int index) {
+        System.arraycopy(elements, index + 1, elements, index, end - index - 1);
+        end--;
+        elements[end] = null;
+        size--;
+        firstGap = end;
+        modCount++;
+        rebuildPositions();
+    }
+
+    // records all the elements before they are moved, which takes as long as moving them
+    private void recordElements() {
+        if (moveJournal != null) {
+            HexTile[] oldElements = Arrays.copyOf(elements, end);
+            int oldSize = size;
+            int oldFirstGap = firstGap;
+            moveJournal.recordListChange(() -> restoreElements(oldElements, oldSize, oldFirstGap));
+        }
+    }
+
+    private void restoreElements(HexTile[] oldElements, int oldSize, int oldFirstGap) {
+        Arrays.fill(elements, 0, end, null);
+        System.arraycopy(oldElements, 0, elements, 0, oldElements.length);
+        end = oldElements.length;
+        size = oldSize;
+        firstGap = oldFirstGap;
+        modCount++;
+        rebuildPositions();
+    }
+
+    private void rebuildPositions() {
+        Arrays.fill(positionCounts, 0);
+        usedPositions = 0;
+        for (int i = 0; i < end; i++) {
+            if (elements[i] != null) {
+                addPosition(elements[i], i);
+            }
+        }
+    }
+
+    private void addPosition(HexTile tile, int elementIndex) {
+        int key = getPositionKey(tile);
+        int bucket = findBucket(key);
+        if (positionCounts[bucket] > 0) {
+            positionCounts[bucket]++;
+            positionIndices[bucket] = SEVERAL;
+            return;
+        }
+        positionKeys[bucket] = key;
+        positionIndices[bucket] = elementIndex;
+        positionCounts[bucket] = 1;
+        usedPositions++;
+        if (usedPositions * 2 > positionKeys.length) {
+            growPositions();
+        }
+    }
+
+    private void removePosition(HexTile tile, int elementIndex) {
+        int key = getPositionKey(tile);
+        int bucket = findBucket(key);
+        positionCounts[bucket]--;
+        if (positionCounts[bucket] == 1) {
+            // find the one that is left
+            for (int i = 0; i < end; i++) {
+                if (i != elementIndex && elements[i] != null && getPositionKey(elements[i]) == key) {
+                    positionIndices[bucket] = i;
+                    return;
+                }
+            }
+        } else if (positionCounts[bucket] == 0) {
+            usedPositions--;
+            // move later entries of the same probe sequence into the gap so lookups don't stop early
+            int gap = bucket;
+            int mask = positionKeys.length - 1;
+            int next = (gap + 1) & mask;
+            while (positionCounts[next] != 0) {
+                int home = getHomeBucket(positionKeys[next]);
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    positionKeys[gap] = positionKeys[next];
+                    positionIndices[gap] = positionIndices[next];
+                    positionCounts[gap] = positionCounts[next];
+                    positionCounts[next] = 0;
+                    gap = next;
+                }
+                next = (next + 1) & mask;
+            }
+        }
+    }
+
+    private void growPositions() {
+        int[] oldKeys = positionKeys;
+        int[] oldIndices = positionIndices;
+        int[] oldCounts = positionCounts;
+        positionKeys = new int[oldKeys.length * 2];
+        positionIndices = new int[oldKeys.length * 2];
+        positionCounts = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldCounts[i] != 0) {
+                int bucket = findBucket(oldKeys[i]);
+                positionKeys[bucket] = oldKeys[i];
+                positionIndices[bucket] = oldIndices[i];
+                positionCounts[bucket] = oldCounts[i];
+            }
+        }
+    }
+
+    // returns the bucket of the key or the free one where it would go
+    private int findBucket(int key) {
+        int mask = positionKeys.length - 1;
+        int bucket = getHomeBucket(key);
+        while (positionCounts[bucket] != 0 && positionKeys[bucket] != key) {
+            bucket = (bucket + 1) & mask;
+        }
+        return bucket;
+    }
+
+    private int getHomeBucket(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (positionKeys.length - 1);
+    }
+
+    private static int getPositionKey(HexTile tile) {
+        return HexMapHelper.packHexCoords((int) tile.getPosition().x, (int) tile.getPosition().y);
+    }
+
+    /**
+     * Iterates the elements array directly, skipping the gaps, so removing while iterating doesn't move any tiles.
+     */
+    private final class Itr implements Iterator<HexTile> {
+
+        private int cursor = 0;
+        // list index of the element at the cursor
+        private int nextIndex = 0;
+        private int lastReturned = -1;
+        private int expectedModCount = modCount;
+        private int expectedGapClosings = gapClosings;
+
+        @Override
+        public boolean hasNext() {
+            checkForComodification();
+            followGapClosings();
+            while (cursor < end && elements[cursor] == null) {
+                cursor++;
+            }
+            return cursor < end;
+        }
+
+        @Override
+        public HexTile next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = cursor;
+            nextIndex++;
+            return elements[cursor++];
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned < 0) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            followGapClosings();
+            removeElement(lastReturned);
+            lastReturned = -1;
+            nextIndex--;
+            expectedModCount = modCount;
+        }
+
+        private void followGapClosings() {
+            if (gapClosings != expectedGapClosings) {
+                // the order didn't change, so every tile is at its list index now
+                cursor = nextIndex;
+                if (lastReturned >= 0) {
+                    lastReturned = nextIndex - 1;
+                }
+                expectedGapClosings = gapClosings;
+            }
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+}
@@ -3,8 +3,8 @@
 package de.sesu8642.feudaltactics.lib.gamestate;
 
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.utils.reflect.ClassReflection;
 import de.sesu8642.feudaltactics.ingame.AutoSaveRepository;
+import de.sesu8642.feudaltactics.lib.gamestate.TileContent.Kind;
 import de.sesu8642.feudaltactics.lib.gamestate.Unit.UnitTypes;
 import de.sesu8642.feudaltactics.lib.ingame.PlayerMove;
 
@@ -83,7 +83,7 @@ public class InputValidationHelper {
         if (tile.getPlayer() != player) {
             return false;
         }
-        if (!ClassReflection.isAssignableFrom(Unit.class, tile.getContent().getClass())) {
+        if (tile.getContent().getKind() != Kind.UNIT) {
             return false;
         }
         return ((Unit) tile.getContent()).isCanAct();
@@ -116,14 +116,14 @@ public class InputValidationHelper {
         if (gameState.getActiveKingdom() != tile.getKingdom()) {
             return false;
         }
-        if (tile.getContent() != null && ClassReflection.isAssignableFrom(Blocking.class, tile.getContent().getClass())
-                && !ClassReflection.isAssignableFrom(Unit.class, gameState.getHeldObject().getClass())) {
+        if (tile.getContent() != null && tile.getContent().getKind().isBlocking()
+                && gameState.getHeldObject().getKind() != Kind.UNIT) {
             // non-unit on blocking object
             return false;
         }
         // not empty or blocking object
         return tile.getContent() == null
-                || ClassReflection.isAssignableFrom(Blocking.class, tile.getContent().getClass());
+                || tile.getContent().getKind().isBlocking();
     }
 
     /**
@@ -155,7 +155,7 @@ public class InputValidationHelper {
         }
         // not empty or blocking object
         return tile.getContent() == null
-                || ClassReflection.isAssignableFrom(Blocking.class, tile.getContent().getClass());
+                || tile.getContent().getKind().isBlocking();
     }
 
     /**
@@ -226,10 +226,10 @@ public class InputValidationHelper {
         if (gameState.getActiveKingdom() != tile.getKingdom()) {
             return false;
         }
-        if (!ClassReflection.isAssignableFrom(Unit.class, gameState.getHeldObject().getClass())) {
+        if (gameState.getHeldObject().getKind() != Kind.UNIT) {
             return false;
         }
-        if (!ClassReflection.isAssignableFrom(Unit.class, tile.getContent().getClass())) {
+        if (tile.getContent().getKind() != Kind.UNIT) {
             return false;
         }
         int heldUnitStrength = gameState.getHeldObject().getStrength();
@@ -259,12 +259,12 @@ public class InputValidationHelper {
         if (tile.getPlayer() == player) {
             return false;
         }
-        if (!ClassReflection.isAssignableFrom(Unit.class, gameState.getHeldObject().getClass())) {
+        if (gameState.getHeldObject().getKind() != Kind.UNIT) {
             // not a unit
             return false;
         }
-        if (tile.getContent() != null && tile.getContent().getStrength() >= gameState.getHeldObject().getStrength()) {
-            // too strong object on the tile
+        if (GameStateHelper.getProtectionLevel(gameState, tile) >= gameState.getHeldObject().getStrength()) {
+            // too strong object on the tile or next to it protecting it
             return false;
         }
         boolean isNextoToOwnKingdom = false;
@@ -277,12 +277,6 @@ public class InputValidationHelper {
             if (neighborTile.getKingdom() == gameState.getActiveKingdom()) {
                 isNextoToOwnKingdom = true;
             }
-            TileContent neighborContent = neighborTile.getContent();
-            // check if there is no stronger object next to it protecting it
-            if (tile.getKingdom() != null && neighborTile.getKingdom() == tile.getKingdom() && neighborContent != null
-                    && neighborContent.getStrength() >= gameState.getHeldObject().getStrength()) {
-                return false;
-            }
         }
         // not next to the unit's kingdom
         return isNextoToOwnKingdom;
@@ -330,7 +324,7 @@ public class InputValidationHelper {
             return false;
         }
         // allow upgrading a held unit
-        return gameState.getHeldObject() == null || (Unit.class.isAssignableFrom(gameState.getHeldObject().getClass())
+        return gameState.getHeldObject() == null || (gameState.getHeldObject().getKind() == Kind.UNIT
                 && gameState.getHeldObject().getStrength() < UnitTypes.strongest().strength()
                 && Unit.class.isAssignableFrom(targetClass));
     }
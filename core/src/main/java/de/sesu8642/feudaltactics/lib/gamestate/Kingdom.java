@@ -2,7 +2,8 @@
 
 package de.sesu8642.feudaltactics.lib.gamestate;
 
-import java.util.ArrayList;
+import de.sesu8642.feudaltactics.lib.gamestate.TileContent.Kind;
+
 import java.util.List;
 import java.util.Objects;
 
@@ -12,14 +13,25 @@ import java.util.Objects;
 public class Kingdom {
 
     // need a list to have consistent iteration order; LinkedHashSet doesn't work
-    // because the tiles can change
-    private List<HexTile> tiles = new ArrayList<>();
+    // because the tiles can change; the indexed list can find tiles quickly anyway
+    private List<HexTile> tiles = new IndexedTileList();
     private Player player;
     private int savings = 0;
     // only used by ai
     private boolean doneMoving = false;
     // for displaying a hint when the player forgets the kingdom
     private boolean wasActiveInCurrentTurn = false;
+    // map that has tiles of this kingdom and how many; the map's fingerprint and kingdom counts include this kingdom
+    // while there are any
+    private transient HexGrid grid;
+    private transient int gridTileCount = 0;
+    // sum of the fingerprint keys of the positions of those tiles, so the kingdom's fingerprint key depends on where
+    // it is
+    private transient long gridTileKey = 0;
+    // aggregates over the contents of those tiles, so they don't have to be counted on every call
+    private transient int gridTreeCount = 0;
+    private transient int gridUnitSalaries = 0;
+    private transient int[] gridUnitCounts = new int[Unit.UnitTypes.values().length];
 
     public Kingdom() {
     }
@@ -32,7 +44,11 @@ public class Kingdom {
         return tiles;
     }
 
+    /**
+     * Sets the tiles. Should be an {@link IndexedTileList} because the tiles are checked for membership a lot.
+     */
     public void setTiles(List<HexTile> tiles) {
+        reportChange(true);
         this.tiles = tiles;
     }
 
@@ -41,7 +57,14 @@ public class Kingdom {
     }
 
     public void setPlayer(Player player) {
+        reportChange(false);
+        long oldFingerprint = getFingerprint();
+        if (grid != null) {
+            grid.addToKingdomCount(this.player, -1);
+            grid.addToKingdomCount(player, 1);
+        }
         this.player = player;
+        fingerprintChanged(oldFingerprint);
     }
 
     public int getSavings() {
@@ -49,7 +72,10 @@ public class Kingdom {
     }
 
     public void setSavings(int savings) {
+        reportChange(false);
+        long oldFingerprint = getFingerprint();
         this.savings = savings;
+        fingerprintChanged(oldFingerprint);
     }
 
     public boolean isDoneMoving() {
@@ -57,7 +83,10 @@ public class Kingdom {
     }
 
     public void setDoneMoving(boolean doneMoving) {
+        reportChange(false);
+        long oldFingerprint = getFingerprint();
         this.doneMoving = doneMoving;
+        fingerprintChanged(oldFingerprint);
     }
 
     public boolean isWasActiveInCurrentTurn() {
@@ -65,7 +94,143 @@ public class Kingdom {
     }
 
     public void setWasActiveInCurrentTurn(boolean wasActiveInCurrentTurn) {
+        reportChange(false);
+        long oldFingerprint = getFingerprint();
         this.wasActiveInCurrentTurn = wasActiveInCurrentTurn;
+        fingerprintChanged(oldFingerprint);
+    }
+
+    /**
+     * Returns the number of trees and palm trees on the tiles of this kingdom.
+     */
+    public int getTreeCount() {
+        if (!hasGridAggregates()) {
+            return (int) tiles.stream().filter(tile -> isTree(tile.getContent())).count();
+        }
+        return gridTreeCount;
+    }
+
+    /**
+     * Returns the sum of the salaries of the units on the tiles of this kingdom. Doesn't include a held unit.
+     */
+    public int getUnitSalaries() {
+        if (!hasGridAggregates()) {
+            return tiles.stream().filter(tile -> isUnit(tile.getContent()))
+                    .mapToInt(tile -> ((Unit) tile.getContent()).getUnitType().salary()).sum();
+        }
+        return gridUnitSalaries;
+    }
+
+    /**
+     * Returns the number of units of a type on the tiles of this kingdom. Doesn't include a held unit.
+     */
+    public int getUnitCount(Unit.UnitTypes unitType) {
+        if (!hasGridAggregates()) {
+            return (int) tiles.stream().filter(tile -> isUnit(tile.getContent())
+                    && ((Unit) tile.getContent()).getUnitType() == unitType).count();
+        }
+        return gridUnitCounts[unitType.ordinal()];
+    }
+
+    // the aggregates only cover tiles on a map; kingdoms that were put together without a map are counted instead;
+    // the tiles on the map must be the ones in the list, so if the numbers differ, something changed one without the
+    // other
+    private boolean hasGridAggregates() {
+        if (grid == null) {
+            return false;
+        }
+        if (gridTileCount != tiles.size()) {
+            throw new IllegalStateException(String.format(
+                    "Kingdom has %s tiles in its list but %s tiles on the map", tiles.size(), gridTileCount));
+        }
+        return true;
+    }
+
+    /**
+     * Returns this kingdom's key for the game state fingerprint.
+     */
+    long getFingerprint() {
+        return StateFingerprint.ofKingdom(this);
+    }
+
+    /**
+     * Returns the sum of the fingerprint keys of the positions of the tiles of this kingdom on the map.
+     */
+    long getGridTileKey() {
+        return gridTileKey;
+    }
+
+    /**
+     * Called by the map when one of its tiles joins this kingdom.
+     */
+    void addGridTile(HexGrid grid, int packedCoords, TileContent content) {
+        if (gridTileCount++ == 0) {
+            this.grid = grid;
+            gridTileKey = StateFingerprint.ofKingdomTile(packedCoords);
+            grid.addToKingdomFingerprint(getFingerprint());
+            grid.addToKingdomCount(player, 1);
+        } else {
+            long oldFingerprint = getFingerprint();
+            gridTileKey += StateFingerprint.ofKingdomTile(packedCoords);
+            fingerprintChanged(oldFingerprint);
+        }
+        addToGridAggregates(content, 1);
+    }
+
+    /**
+     * Called by the map when one of its tiles leaves this kingdom.
+     */
+    void removeGridTile(int packedCoords, TileContent content) {
+        addToGridAggregates(content, -1);
+        if (--gridTileCount == 0 && grid != null) {
+            grid.addToKingdomFingerprint(-getFingerprint());
+            grid.addToKingdomCount(player, -1);
+            grid = null;
+            gridTileKey = 0;
+        } else {
+            long oldFingerprint = getFingerprint();
+            gridTileKey -= StateFingerprint.ofKingdomTile(packedCoords);
+            fingerprintChanged(oldFingerprint);
+        }
+    }
+
+    /**
+     * Called by the map when the content of one of its tiles in this kingdom changes.
+     */
+    void replaceGridTileContent(TileContent oldContent, TileContent newContent) {
+        addToGridAggregates(oldContent, -1);
+        addToGridAggregates(newContent, 1);
+    }
+
+    private void addToGridAggregates(TileContent content, int amount) {
+        if (isTree(content)) {
+            gridTreeCount += amount;
+        } else if (isUnit(content)) {
+            Unit.UnitTypes unitType = ((Unit) content).getUnitType();
+            gridUnitCounts[unitType.ordinal()] += amount;
+            gridUnitSalaries += amount * unitType.salary();
+        }
+    }
+
+    private static boolean isTree(TileContent content) {
+        return content != null && content.getKind().isVegetation();
+    }
+
+    private static boolean isUnit(TileContent content) {
+        return content != null && content.getKind() == Kind.UNIT;
+    }
+
+    // lets a journal on the map record the kingdom before it changes
+    private void reportChange(boolean tilesChanged) {
+        if (grid != null) {
+            grid.kingdomChanging(this, tilesChanged);
+        }
+    }
+
+    private void fingerprintChanged(long oldFingerprint) {
+        if (grid != null) {
+            grid.addToKingdomFingerprint(getFingerprint() - oldFingerprint);
+        }
     }
 
     @Override
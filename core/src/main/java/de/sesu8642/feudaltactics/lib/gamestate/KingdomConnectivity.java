@@ -0,0 +1,117 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.gamestate;
+
+import java.util.*;
+
+/**
+ * Finds out which tiles of a kingdom are connected and which tiles two kingdoms share. Used by
+ * {@link GameStateHelper} to split and combine kingdoms when tiles change hands.
+ *
+ * <p>Visited tiles are marked in an array indexed by the slots of the map (see {@link HexGrid}) that is reused for
+ * every search. Starting a new search only increments the mark, so every operation takes time proportional to the
+ * number of tiles it looks at, without hashing and without clearing anything.
+ **/
+final class KingdomConnectivity {
+
+    private final HexGrid map;
+    // a tile is marked if the entry for its slot equals the current mark
+    private int[] slotMarks = new int[0];
+    private int currentMark = 0;
+    // tiles that are not part of the map; should only happen in inconsistent game states
+    private final Set<HexTile> markedDetachedTiles = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Constructor.
+     *
+     * @param map map containing the tiles to work with
+     */
+    KingdomConnectivity(HexGrid map) {
+        this.map = map;
+    }
+
+    /**
+     * Collects the start tile and all tiles of the kingdom that are connected to it, in breadth first order. The
+     * order of the neighbors is the one of {@link HexMapHelper#getNeighborTiles(Map, HexTile)}. Afterwards, exactly
+     * the collected tiles are marked (see {@link #isMarked(HexTile)}).
+     *
+     * @param startTile tile to start from; does not need to be part of the kingdom itself
+     * @param kingdom   kingdom whose tiles to collect
+     * @param result    list to add the tiles to; must be empty and is used as the queue of the search
+     */
+    void collectConnectedTiles(HexTile startTile, Kingdom kingdom, List<HexTile> result) {
+        startMarking();
+        mark(startTile);
+        result.add(startTile);
+        for (int i = 0; i < result.size(); i++) {
+            List<HexTile> neighborTiles = HexMapHelper.getNeighborTiles(map, result.get(i));
+            for (int j = 0; j < neighborTiles.size(); j++) {
+                HexTile neighborTile = neighborTiles.get(j);
+                if (neighborTile != null && neighborTile.getKingdom() == kingdom && mark(neighborTile)) {
+                    result.add(neighborTile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds all tiles of the source kingdom that are not in the target kingdom yet to the target kingdom's tile list.
+     * Doesn't change the tiles themselves.
+     *
+     * @param source kingdom whose tiles to add
+     * @param target kingdom to add the tiles to
+     */
+    void addMissingTiles(Kingdom source, Kingdom target) {
+        startMarking();
+        List<HexTile> targetTiles = target.getTiles();
+        for (HexTile targetTile : targetTiles) {
+            mark(targetTile);
+        }
+        for (HexTile sourceTile : source.getTiles()) {
+            if (mark(sourceTile)) {
+                targetTiles.add(sourceTile);
+            }
+        }
+    }
+
+    /**
+     * Returns whether a tile was marked by the latest operation.
+     */
+    boolean isMarked(HexTile tile) {
+        if (tile.getGrid() == map) {
+            return slotMarks[tile.getGridSlot()] == currentMark;
+        }
+        return markedDetachedTiles.contains(tile);
+    }
+
+    private void startMarking() {
+        if (slotMarks.length < map.getSlotCount()) {
+            slotMarks = Arrays.copyOf(slotMarks, Math.max(map.getSlotCount(), slotMarks.length * 2));
+        }
+        currentMark++;
+        if (currentMark == 0) {
+            // wrapped around; old marks could be mistaken for new ones
+            Arrays.fill(slotMarks, 0);
+            currentMark = 1;
+        }
+        markedDetachedTiles.clear();
+    }
+
+    /**
+     * Marks a tile.
+     *
+     * @return false if it was already marked
+     */
+    private boolean mark(HexTile tile) {
+        if (tile.getGrid() == map) {
+            int slot = tile.getGridSlot();
+            if (slotMarks[slot] == currentMark) {
+                return false;
+            }
+            slotMarks[slot] = currentMark;
+            return true;
+        }
+        return markedDetachedTiles.add(tile);
+    }
+
+}
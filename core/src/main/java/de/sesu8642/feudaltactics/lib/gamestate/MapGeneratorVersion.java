@@ -0,0 +1,42 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.gamestate;
+
+/**
+ * Versions of the map generation. The same seed and parameters always generate the same map with the same version,
+ * so older versions are kept to be able to reproduce maps from seeds that were shared or played before.
+ */
+public enum MapGeneratorVersion {
+
+    /**
+     * Generates the whole map again until every player has a kingdom. May take long for small maps with many
+     * players.
+     */
+    V1,
+
+    /**
+     * Generates the map once and reassigns a few tiles if some player doesn't have a kingdom. Maps in which every
+     * player has a kingdom right away are the same as with {@link #V1}.
+     */
+    V2,
+
+    /**
+     * Like {@link #V2}, but the order of the players, the tiles and the trees are taken from independent
+     * {@link RandomStream}s, and every tile gets its own stream to decide whether there is a tree. Games on these maps
+     * use {@link RandomVersion#V2}.
+     */
+    V3;
+
+    /**
+     * Version to use for new seeds.
+     */
+    public static final MapGeneratorVersion LATEST = V3;
+
+    /**
+     * Returns the version of the random decisions during games on maps generated with this version.
+     */
+    public RandomVersion getRandomVersion() {
+        return this == V1 || this == V2 ? RandomVersion.V1 : RandomVersion.V2;
+    }
+
+}
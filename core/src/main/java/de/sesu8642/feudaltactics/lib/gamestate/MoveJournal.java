@@ -0,0 +1,337 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.gamestate;
+
+import de.sesu8642.feudaltactics.lib.ingame.PlayerMove;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records the changes that player moves make to a game state, so they can be undone without copying the whole game
+ * state beforehand. Meant for looking ahead: apply a move with
+ * {@link GameStateHelper#applyPlayerMove(GameState, PlayerMove, MoveJournal)}, look at the result and undo it with
+ * {@link GameStateHelper#undoPlayerMove(GameState, MoveJournal)}. Several moves can be applied in a row; they are
+ * undone the latest one first.
+ *
+ * <p>While a move is applied, the map reports every change of its tiles and of the kingdoms on it before it happens.
+ * For a tile, the previous owner, content and kingdom are recorded. For a kingdom, the savings and flags are recorded
+ * the first time it changes during the move. From then on, its {@link IndexedTileList} reports every tile that is
+ * added or removed with its place in the list, and the kingdoms that are added to or removed from the list of kingdoms
+ * are reported with their index as well. Undoing replays these changes backwards, so it takes about as long as the
+ * move did, no matter how large the kingdoms are. It restores all of it, including the order of the tiles, so the game
+ * state is equal to the one before the move and has the same hash code and fingerprint.
+ *
+ * <p>The tile lists keep reporting to the journal until their changes are undone or the journal is cleared, because
+ * even reading them by index may move their tiles. So a journal must be cleared before it is dropped, and only one
+ * journal can record the changes of a game state at a time.
+ *
+ * <p>Only changes made by moves applied through the journal can be undone. After changing the game state in other
+ * ways, e.g. by ending the turn, {@link #clear()} must be called.
+ */
+public class MoveJournal {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // game state the recorded moves were applied to
+    private GameState gameState;
+    private final List<MoveRecord> moves = new ArrayList<>();
+    // move that is being applied, if any
+    private MoveRecord currentMove;
+
+    // changes of the tiles in the order they happened; the ones of a move start at its firstTileChange
+    private HexTile[] changedTiles = new HexTile[INITIAL_CAPACITY];
+    private Player[] oldOwners = new Player[INITIAL_CAPACITY];
+    private TileContent[] oldContents = new TileContent[INITIAL_CAPACITY];
+    private Kingdom[] oldKingdoms = new Kingdom[INITIAL_CAPACITY];
+    private int tileChangeCount = 0;
+
+    // kingdoms as they were before they changed; the ones of a move start at its firstKingdomRecord
+    private final List<KingdomRecord> kingdomRecords = new ArrayList<>();
+
+    // changes of the tile lists and of the list of kingdoms in the order they happened; the ones of a move start at
+    // its firstListChange
+    private final List<ListChange> listChanges = new ArrayList<>();
+    // tile lists that report their changes to this journal, in the order they started
+    private final List<IndexedTileList> recordedTileLists = new ArrayList<>();
+
+    /**
+     * Returns the number of moves that can be undone.
+     */
+    public int size() {
+        return moves.size();
+    }
+
+    public boolean isEmpty() {
+        return moves.isEmpty();
+    }
+
+    /**
+     * Forgets all recorded moves. They can't be undone afterwards.
+     */
+    public void clear() {
+        if (currentMove != null) {
+            throw new IllegalStateException("Cannot clear the journal while a move is being applied.");
+        }
+        moves.clear();
+        kingdomRecords.clear();
+        listChanges.clear();
+        for (IndexedTileList tileList : recordedTileLists) {
+            tileList.setMoveJournal(null);
+        }
+        recordedTileLists.clear();
+        releaseTileChanges(0);
+        gameState = null;
+    }
+
+    /**
+     * Starts recording a move.
+     */
+    void beginMove(GameState gameState) {
+        if (currentMove != null) {
+            throw new IllegalStateException("Another move is being applied.");
+        }
+        if (!moves.isEmpty() && gameState != this.gameState) {
+            throw new IllegalArgumentException("The journal contains moves applied to a different game state.");
+        }
+        this.gameState = gameState;
+        currentMove = new MoveRecord(tileChangeCount, kingdomRecords.size(), listChanges.size(), gameState);
+        gameState.getMap().setMoveJournal(this);
+    }
+
+    /**
+     * Stops recording the current move.
+     */
+    void endMove() {
+        gameState.getMap().setMoveJournal(null);
+        moves.add(currentMove);
+        currentMove = null;
+    }
+
+    /**
+     * Undoes the latest recorded move.
+     */
+    void undoMove(GameState gameState) {
+        if (currentMove != null) {
+            throw new IllegalStateException("Cannot undo while a move is being applied.");
+        }
+        if (moves.isEmpty()) {
+            throw new IllegalStateException("There is no move to undo.");
+        }
+        if (gameState != this.gameState) {
+            throw new IllegalArgumentException("The journal contains moves applied to a different game state.");
+        }
+        MoveRecord move = moves.remove(moves.size() - 1);
+        // latest change first, so every tile ends up with the state it had before the first change
+        for (int i = tileChangeCount - 1; i >= move.firstTileChange; i--) {
+            changedTiles[i].restoreState(oldOwners[i], oldContents[i], oldKingdoms[i]);
+        }
+        releaseTileChanges(move.firstTileChange);
+        for (int i = listChanges.size() - 1; i >= move.firstListChange; i--) {
+            listChanges.remove(i).undo();
+        }
+        for (int i = kingdomRecords.size() - 1; i >= move.firstKingdomRecord; i--) {
+            kingdomRecords.remove(i).restore();
+        }
+        if (gameState.getKingdoms().size() != move.kingdomCount) {
+            throw new IllegalStateException(String.format(
+                    "The game state had %s kingdoms before the move but has %s after undoing it; the list of kingdoms "
+                            + "was changed without reporting it", move.kingdomCount, gameState.getKingdoms().size()));
+        }
+        gameState.setActiveKingdom(move.activeKingdom);
+        gameState.setHeldObject(move.heldObject);
+        gameState.setObjectiveProgress(move.objectiveProgress);
+    }
+
+    /**
+     * Records the state of a tile before it changes. Called by the map.
+     */
+    void recordTileWrite(HexTile tile, Player oldOwner, TileContent oldContent, Kingdom oldKingdom,
+                         Kingdom newKingdom) {
+        if (tileChangeCount == changedTiles.length) {
+            int capacity = changedTiles.length * 2;
+            changedTiles = Arrays.copyOf(changedTiles, capacity);
+            oldOwners = Arrays.copyOf(oldOwners, capacity);
+            oldContents = Arrays.copyOf(oldContents, capacity);
+            oldKingdoms = Arrays.copyOf(oldKingdoms, capacity);
+        }
+        changedTiles[tileChangeCount] = tile;
+        oldOwners[tileChangeCount] = oldOwner;
+        oldContents[tileChangeCount] = oldContent;
+        oldKingdoms[tileChangeCount] = oldKingdom;
+        tileChangeCount++;
+        if (oldKingdom != newKingdom) {
+            // the tile lists are changed right after this
+            if (oldKingdom != null) {
+                recordKingdom(oldKingdom, true);
+            }
+            if (newKingdom != null) {
+                recordKingdom(newKingdom, true);
+            }
+        }
+    }
+
+    /**
+     * Records the state of a kingdom before it changes, unless that was already done during the current move. Called
+     * by the map.
+     *
+     * @param kingdom     kingdom that changes
+     * @param recordTiles whether its tiles are about to change; only matters if they are not in an
+     *                    {@link IndexedTileList}, which reports its changes itself
+     */
+    void recordKingdom(Kingdom kingdom, boolean recordTiles) {
+        for (int i = currentMove.firstKingdomRecord; i < kingdomRecords.size(); i++) {
+            KingdomRecord record = kingdomRecords.get(i);
+            if (record.kingdom == kingdom) {
+                if (recordTiles && record.tiles == null && !record.tilesReported) {
+                    record.recordTiles();
+                }
+                return;
+            }
+        }
+        KingdomRecord record = new KingdomRecord(kingdom);
+        if (record.tileList instanceof IndexedTileList) {
+            recordTileListChanges((IndexedTileList) record.tileList);
+            record.tilesReported = true;
+        } else if (recordTiles) {
+            record.recordTiles();
+        }
+        kingdomRecords.add(record);
+    }
+
+    /**
+     * Records that a kingdom was added to the list of kingdoms. Called by the map.
+     *
+     * @param kingdoms list of kingdoms
+     * @param index    index the kingdom was added at
+     */
+    void recordKingdomAdded(List<Kingdom> kingdoms, int index) {
+        listChanges.add(() -> kingdoms.remove(index));
+    }
+
+    /**
+     * Records that a kingdom was removed from the list of kingdoms. Called by the map.
+     *
+     * @param kingdoms list of kingdoms
+     * @param index    index the kingdom was removed from
+     * @param kingdom  kingdom that was removed
+     */
+    void recordKingdomRemoved(List<Kingdom> kingdoms, int index, Kingdom kingdom) {
+        listChanges.add(() -> kingdoms.add(index, kingdom));
+    }
+
+    /**
+     * Records how to undo a change of a tile list. Called by the list.
+     */
+    void recordListChange(ListChange listChange) {
+        listChanges.add(listChange);
+    }
+
+    // lets the list report its changes until this is undone
+    private void recordTileListChanges(IndexedTileList tileList) {
+        if (tileList.getMoveJournal() == this) {
+            return;
+        }
+        if (tileList.getMoveJournal() != null) {
+            throw new IllegalStateException("The tiles of a kingdom are recorded by another journal.");
+        }
+        tileList.setMoveJournal(this);
+        recordedTileLists.add(tileList);
+        listChanges.add(() -> {
+            tileList.setMoveJournal(null);
+            recordedTileLists.remove(recordedTileLists.size() - 1);
+        });
+    }
+
+    // drops the references to the tile changes from the given index on, so they don't keep anything from being
+    // garbage collected
+    private void releaseTileChanges(int fromIndex) {
+        Arrays.fill(changedTiles, fromIndex, tileChangeCount, null);
+        Arrays.fill(oldOwners, fromIndex, tileChangeCount, null);
+        Arrays.fill(oldContents, fromIndex, tileChangeCount, null);
+        Arrays.fill(oldKingdoms, fromIndex, tileChangeCount, null);
+        tileChangeCount = fromIndex;
+    }
+
+    /**
+     * Undoes a change of a tile list or of the list of kingdoms.
+     */
+    interface ListChange {
+
+        void undo();
+    }
+
+    /**
+     * What is needed to undo a move apart from the tile, kingdom and list changes.
+     */
+    private static final class MoveRecord {
+
+        private final int firstTileChange;
+        private final int firstKingdomRecord;
+        private final int firstListChange;
+        private final Kingdom activeKingdom;
+        private final TileContent heldObject;
+        private final int objectiveProgress;
+        // to notice changes of the list of kingdoms that were not reported
+        private final int kingdomCount;
+
+        MoveRecord(int firstTileChange, int firstKingdomRecord, int firstListChange, GameState gameState) {
+            this.firstTileChange = firstTileChange;
+            this.firstKingdomRecord = firstKingdomRecord;
+            this.firstListChange = firstListChange;
+            kingdomCount = gameState.getKingdoms().size();
+            activeKingdom = gameState.getActiveKingdom();
+            heldObject = gameState.getHeldObject();
+            objectiveProgress = gameState.getObjectiveProgress();
+        }
+    }
+
+    /**
+     * State of a kingdom before it was changed by a move.
+     */
+    private static final class KingdomRecord {
+
+        private final Kingdom kingdom;
+        private final Player player;
+        private final int savings;
+        private final boolean doneMoving;
+        private final boolean wasActiveInCurrentTurn;
+        // the list object is restored because it may have been replaced
+        private final List<HexTile> tileList;
+        // whether the list reports its changes itself; if not, its tiles are copied before they change
+        private boolean tilesReported = false;
+        private HexTile[] tiles;
+
+        KingdomRecord(Kingdom kingdom) {
+            this.kingdom = kingdom;
+            tileList = kingdom.getTiles();
+            player = kingdom.getPlayer();
+            savings = kingdom.getSavings();
+            doneMoving = kingdom.isDoneMoving();
+            wasActiveInCurrentTurn = kingdom.isWasActiveInCurrentTurn();
+        }
+
+        void recordTiles() {
+            tiles = tileList.toArray(new HexTile[0]);
+        }
+
+        void restore() {
+            if (kingdom.getTiles() != tileList) {
+                kingdom.setTiles(tileList);
+            }
+            if (tiles != null) {
+                tileList.clear();
+                Collections.addAll(tileList, tiles);
+            }
+            if (kingdom.getPlayer() != player) {
+                kingdom.setPlayer(player);
+            }
+            kingdom.setSavings(savings);
+            kingdom.setDoneMoving(doneMoving);
+            kingdom.setWasActiveInCurrentTurn(wasActiveInCurrentTurn);
+        }
+    }
+
+}
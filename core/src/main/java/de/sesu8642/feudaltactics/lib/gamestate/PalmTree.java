@@ -12,6 +12,11 @@ public class PalmTree implements TileContent, Blocking {
     public static final String SPRITE_NAME = "palm_tree";
     private static final int STRENGTH = 0;
 
+    /**
+     * Shared instance. Palm trees have no state, so there is no need for more than one.
+     */
+    public static final PalmTree INSTANCE = new PalmTree();
+
     @Override
     public String getSpriteName() {
         return SPRITE_NAME;
@@ -24,7 +29,13 @@ public class PalmTree implements TileContent, Blocking {
 
     @Override
     public PalmTree getCopy() {
-        return new PalmTree();
+        // nothing that could change
+        return this;
+    }
+
+    @Override
+    public Kind getKind() {
+        return Kind.PALM_TREE;
     }
 
     @Override
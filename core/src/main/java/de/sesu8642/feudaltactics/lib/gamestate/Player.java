@@ -63,6 +63,10 @@ public class Player {
         return type;
     }
 
+    public void setType(Type type) {
+        this.type = type;
+    }
+
     @Override
     public int hashCode() {
         // calculating with enum strings because the hashcode must be consistent across
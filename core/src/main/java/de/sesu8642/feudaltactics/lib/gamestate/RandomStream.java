@@ -0,0 +1,119 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.gamestate;
+
+import java.util.Random;
+
+/**
+ * Reproducible stream of random numbers (SplitMix64) that can derive independent streams for different purposes.
+ *
+ * <p>A derived stream only depends on the seed of the stream it is derived from and on its key, not on how many
+ * numbers were taken from any stream. Parts of the game that get their own stream, e.g. the moves of every bot
+ * kingdom, therefore don't influence each other's random numbers and can be computed in any order or in parallel
+ * without changing the results. The numbers are the same on every JVM.
+ */
+public final class RandomStream {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    // makes sure that a derived stream doesn't start like the stream it is derived from
+    private static final long SPLIT_SALT = 0x632BE59BD9B4E019L;
+
+    private final long seed;
+    private long state;
+
+    private RandomStream(long seed) {
+        this.seed = seed;
+        state = seed;
+    }
+
+    /**
+     * Creates a stream.
+     *
+     * @param seed seed of the stream
+     * @return new stream
+     */
+    public static RandomStream of(long seed) {
+        return new RandomStream(seed);
+    }
+
+    /**
+     * Derives an independent stream for a purpose.
+     *
+     * @param purpose purpose of the stream
+     * @return new stream
+     */
+    public RandomStream split(Purpose purpose) {
+        return split(purpose.key);
+    }
+
+    /**
+     * Derives an independent stream for a key, e.g. a number of a kingdom or of a tile.
+     *
+     * @param key key of the stream; different keys result in independent streams
+     * @return new stream
+     */
+    public RandomStream split(long key) {
+        return new RandomStream(mix(seed ^ mix(key ^ SPLIT_SALT)));
+    }
+
+    /**
+     * Returns the next random long.
+     */
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    /**
+     * Returns the next random int between 0 (inclusive) and bound (exclusive).
+     *
+     * @param bound upper bound; must be positive
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException(String.format("bound must be positive but is %s", bound));
+        }
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * Returns the next random float between 0 (inclusive) and 1 (exclusive).
+     */
+    public float nextFloat() {
+        return (nextLong() >>> 40) * 0x1.0p-24F;
+    }
+
+    /**
+     * Creates a {@link Random} seeded with the next number of this stream, for code that needs one, like
+     * {@link java.util.Collections#shuffle(java.util.List, Random)}.
+     *
+     * @return new random number generator
+     */
+    public Random toRandom() {
+        return new Random(nextLong());
+    }
+
+    private static long mix(long value) {
+        long result = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        result = (result ^ (result >>> 27)) * 0x94D049BB133111EBL;
+        return result ^ (result >>> 31);
+    }
+
+    /**
+     * Purposes that get their own streams. The keys must never change because they determine the random numbers.
+     */
+    public enum Purpose {
+        MAP_PLAYER_ORDER(1),
+        MAP_TILES(2),
+        MAP_TREES(3),
+        TREE_SPREADING(4),
+        BOT_TURN(5);
+
+        private final long key;
+
+        Purpose(long key) {
+            this.key = key;
+        }
+    }
+
+}
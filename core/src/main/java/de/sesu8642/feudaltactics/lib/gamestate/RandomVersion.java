@@ -0,0 +1,23 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.gamestate;
+
+/**
+ * Versions of how the random decisions during a game (bot turns, spreading trees) are made. A game keeps its version,
+ * so games that were started before a new version was added continue the same way.
+ */
+public enum RandomVersion {
+
+    /**
+     * Every random decision of a bot turn or of spreading the trees takes the next number from one
+     * {@link java.util.Random} that is seeded with {@link GameState#hashCode()}.
+     */
+    V1,
+
+    /**
+     * Every bot kingdom and every spreading tree gets its own {@link RandomStream}, derived from
+     * {@link GameState#getFingerprint()}. The decisions therefore don't depend on each other.
+     */
+    V2
+
+}
@@ -1,7 +1,7 @@
 package de.sesu8642.feudaltactics.lib.gamestate;
 
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.utils.reflect.ClassReflection;
+import de.sesu8642.feudaltactics.lib.gamestate.TileContent.Kind;
 
 /**
  * Checks for completed objectives during the tutorial and progresses the
@@ -89,8 +89,7 @@ public class ScenarioRuleEnforcerTutorial {
     }
 
     private static void updateObjectiveProgressFrom5(GameState gameState) {
-        if (gameState.getHeldObject() != null && ClassReflection.isAssignableFrom(Unit.class,
-                gameState.getHeldObject().getClass())
+        if (gameState.getHeldObject() != null && gameState.getHeldObject().getKind() == Kind.UNIT
                 && gameState.getHeldObject().getStrength() == Unit.UnitTypes.SPEARMAN.strength()) {
             incrementObjectiveProgress(gameState);
             return;
@@ -98,7 +97,7 @@ public class ScenarioRuleEnforcerTutorial {
         for (HexTile tile : gameState.getMap().values()) {
             if (tile.getPlayer().getType() == Player.Type.LOCAL_PLAYER
                     && tile.getContent() != null
-                    && ClassReflection.isAssignableFrom(Unit.class, tile.getContent().getClass())
+                    && tile.getContent().getKind() == Kind.UNIT
                     && tile.getContent().getStrength() == Unit.UnitTypes.SPEARMAN.strength()) {
                 incrementObjectiveProgress(gameState);
                 return;
@@ -113,8 +112,7 @@ public class ScenarioRuleEnforcerTutorial {
     }
 
     private static void updateObjectiveProgressFrom7(GameState gameState) {
-        if (!ClassReflection.isAssignableFrom(PalmTree.class,
-                gameState.getMap().get(new Vector2(8, -2)).getContent().getClass())) {
+        if (gameState.getMap().get(new Vector2(8, -2)).getContent().getKind() != Kind.PALM_TREE) {
             incrementObjectiveProgress(gameState);
         }
     }
@@ -122,8 +120,7 @@ public class ScenarioRuleEnforcerTutorial {
     private static void updateObjectiveProgressFrom8(GameState gameState) {
         for (HexTile tile : gameState.getMap().values()) {
             if (tile.getPlayer().getType() == Player.Type.LOCAL_PLAYER
-                    && tile.getContent() != null && ClassReflection.isAssignableFrom(Castle.class,
-                    tile.getContent().getClass())) {
+                    && tile.getContent() != null && tile.getContent().getKind() == Kind.CASTLE) {
                 incrementObjectiveProgress(gameState);
                 return;
             }
@@ -0,0 +1,85 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.gamestate;
+
+/**
+ * Hash functions for the 64 bit fingerprint of a {@link GameState} (see {@link GameState#getFingerprint()}). Every
+ * tile and every kingdom gets a pseudo random 64 bit key derived from its state, Zobrist style. The keys of the tiles
+ * are combined with XOR and the ones of the kingdoms are summed up, so the fingerprint can be updated in constant time
+ * whenever a single tile or kingdom changes. The key of a kingdom includes the sum of keys of the positions of its
+ * tiles, so two kingdoms of a player can't swap their state without changing the fingerprint. Everything is derived from numbers and strings only, so the result is
+ * the same across runs and JVMs.
+ **/
+final class StateFingerprint {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    // prevent instantiation
+    private StateFingerprint() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Returns the key of a tile.
+     *
+     * @param packedCoords packed coordinates of the tile
+     * @param owner        owner of the tile
+     * @param content      content of the tile
+     * @param inKingdom    whether the tile is part of a kingdom
+     * @return key
+     */
+    static long ofTile(int packedCoords, Player owner, TileContent content, boolean inKingdom) {
+        long key = mix(packedCoords + GOLDEN_GAMMA);
+        key = combine(key, owner == null ? -1 : owner.getPlayerIndex());
+        key = combine(key, ofContent(content));
+        return combine(key, inKingdom ? 1 : 0);
+    }
+
+    /**
+     * Returns the key of the position of a tile that is part of a kingdom. The kingdom's key includes the sum of the
+     * ones of its tiles.
+     *
+     * @param packedCoords packed coordinates of the tile
+     * @return key
+     */
+    static long ofKingdomTile(int packedCoords) {
+        return mix(packedCoords - GOLDEN_GAMMA);
+    }
+
+    /**
+     * Returns the key of a kingdom, including the positions but not the states of its tiles.
+     */
+    static long ofKingdom(Kingdom kingdom) {
+        long key = mix(kingdom.getSavings() + GOLDEN_GAMMA);
+        key = combine(key, kingdom.getGridTileKey());
+        key = combine(key, kingdom.getPlayer() == null ? -1 : kingdom.getPlayer().getPlayerIndex());
+        key = combine(key, kingdom.isDoneMoving() ? 1 : 0);
+        return combine(key, kingdom.isWasActiveInCurrentTurn() ? 1 : 0);
+    }
+
+    /**
+     * Returns the key of a tile content or of no content.
+     */
+    static long ofContent(TileContent content) {
+        if (content == null) {
+            return 0;
+        }
+        // the hash codes of the contents are consistent across runs but the same for all classes without state
+        return combine(content.getSpriteName().hashCode(), content.hashCode());
+    }
+
+    /**
+     * Combines a hash with another value.
+     */
+    static long combine(long hash, long value) {
+        return mix(hash ^ mix(value + GOLDEN_GAMMA));
+    }
+
+    // finalizer of the SplitMix64 generator; spreads every input bit over the whole result
+    private static long mix(long value) {
+        long result = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        result = (result ^ (result >>> 27)) * 0x94D049BB133111EBL;
+        return result ^ (result >>> 31);
+    }
+
+}
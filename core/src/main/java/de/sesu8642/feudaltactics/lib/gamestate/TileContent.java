@@ -21,8 +21,43 @@ public interface TileContent {
     int getStrength();
 
     /**
-     * Returns a copy of this object.
+     * Returns a copy of this object. Objects that cannot change may return themselves or another shared instance.
      */
     TileContent getCopy();
 
+    /**
+     * Returns the kind of this object. Comparing it is a lot cheaper than checking the class.
+     */
+    Kind getKind();
+
+    /**
+     * Kinds of tile contents, one per class.
+     */
+    enum Kind {
+        UNIT(false, false), TREE(true, true), PALM_TREE(true, true), GRAVESTONE(true, false), CAPITAL(false, false),
+        CASTLE(false, false);
+
+        private final boolean blocking;
+        private final boolean vegetation;
+
+        Kind(boolean blocking, boolean vegetation) {
+            this.blocking = blocking;
+            this.vegetation = vegetation;
+        }
+
+        /**
+         * Whether objects of this kind are {@link Blocking}.
+         */
+        public boolean isBlocking() {
+            return blocking;
+        }
+
+        /**
+         * Whether objects of this kind are trees or palm trees, which prevent the tile from generating income.
+         */
+        public boolean isVegetation() {
+            return vegetation;
+        }
+    }
+
 }
@@ -0,0 +1,602 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.gamestate;
+
+import com.badlogic.gdx.math.Vector2;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates the tiles of a new map with a random walk. Used by {@link GameStateHelper} when initializing a map.
+ *
+ * <p>The walk places a tile, then moves to a random empty neighbor position, backtracking whenever the current
+ * position has no empty neighbors left. Neighbor positions that leave more room are preferred for dense maps and
+ * avoided for loose ones. The positions and owners are kept in a hash table of packed coordinates that also counts
+ * the placed neighbors of every position touched so far, so scoring a candidate takes a single lookup. Attempts in
+ * which a player doesn't end up with a kingdom are thrown away without ever creating tiles, or repaired by
+ * reassigning a few tiles (see {@link #repair}).
+ **/
+final class TileGenerator {
+
+    private static final int FREE = -1;
+
+    private final float landMass;
+    // the score of a candidate position depending on its number of empty neighbors
+    private final float[] weights = new float[HexGrid.NEIGHBOR_COUNT + 1];
+
+    // open addressing hash table of all positions that have a tile or are next to one; a bucket is in use if its
+    // mark equals the current attempt, so nothing needs to be cleared between attempts
+    private int[] bucketCoords;
+    private int[] bucketOwners;
+    private int[] bucketPlacedNeighbors;
+    private int[] bucketMarks;
+    private int[] bucketTiles;
+    private int usedBuckets = 0;
+    private int attempt = 0;
+
+    // the tiles in the order they were placed
+    private int[] tileCoords;
+    private Player[] tilePlayers;
+    private int[] tileOwners;
+    // the tile the walk came from when placing a tile, -1 for the first one
+    private int[] tileParents;
+    private int tileCount = 0;
+
+    // positions of the walk so far, for backtracking
+    private int[] history;
+    private int historySize = 0;
+
+    // only used for repairing: neighbors of every tile, number of neighbors with the same owner for every tile,
+    // number of tiles that have such a neighbor for every player and number of tiles the walk placed from every tile
+    private int[] neighborTiles;
+    private int[] sameOwnerNeighborCounts;
+    private int[] pairedTileCounts;
+    private int[] childCounts;
+
+    private final int[] usableCoords = new int[HexGrid.NEIGHBOR_COUNT];
+    private final float[] scores = new float[HexGrid.NEIGHBOR_COUNT];
+
+    /**
+     * Constructor.
+     *
+     * @param landMass number of tiles to generate
+     * @param density  density of the map; see {@link GameStateHelper#initializeMap}
+     */
+    TileGenerator(float landMass, float density) {
+        this.landMass = landMass;
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (float) Math.pow(i, density);
+        }
+        int expectedTileCount = Math.max(1, (int) landMass);
+        tileCoords = new int[expectedTileCount];
+        tilePlayers = new Player[expectedTileCount];
+        tileOwners = new int[expectedTileCount];
+        tileParents = new int[expectedTileCount];
+        history = new int[expectedTileCount];
+        int bucketCapacity = Integer.highestOneBit(expectedTileCount * 4 - 1) << 1;
+        bucketCoords = new int[bucketCapacity];
+        bucketOwners = new int[bucketCapacity];
+        bucketPlacedNeighbors = new int[bucketCapacity];
+        bucketMarks = new int[bucketCapacity];
+        bucketTiles = new int[bucketCapacity];
+    }
+
+    /**
+     * Generates the positions and owners of the tiles. Replaces the ones of any previous attempt.
+     *
+     * @param players           players that own tiles on the map; the list is shuffled
+     * @param playerOrderRandom random generator to shuffle the players with
+     * @param random            random generator for the tiles; may be the same as the other one
+     * @return whether every player has at least two neighboring tiles, i.e. will have a kingdom
+     */
+    boolean generate(List<Player> players, Random playerOrderRandom, Random random) {
+        attempt++;
+        usedBuckets = 0;
+        tileCount = 0;
+        historySize = 0;
+        // distribute the land mass evenly to all players
+        // if there are tiles left, distribute them to random players
+        Collections.shuffle(players, playerOrderRandom);
+        int playerCount = players.size();
+        int[] tileAmountsToGenerate = new int[playerCount];
+        int remainingLandMass = (int) (landMass % playerCount);
+        for (int i = 0; i < playerCount; i++) {
+            int additionalTiles = 0;
+            if (remainingLandMass > 0) {
+                additionalTiles = 1;
+                remainingLandMass--;
+            }
+            tileAmountsToGenerate[i] = (int) (landMass / playerCount + additionalTiles);
+        }
+        // keep track of the players that still have tiles left to generate (because a random one can be selected)
+        int[] remainingPlayers = new int[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            remainingPlayers[i] = i;
+        }
+        int remainingPlayerCount = playerCount;
+        boolean[] hasKingdom = new boolean[playerCount];
+        int playersWithKingdomCount = 0;
+        int nextTilePos = HexMapHelper.packHexCoords(0, 0);
+        int parentTile = -1;
+        while (remainingPlayerCount > 0) {
+            int currentTilePos = nextTilePos;
+            // place tile
+            int remainingPlayerIndex = random.nextInt(remainingPlayerCount);
+            int owner = remainingPlayers[remainingPlayerIndex];
+            playersWithKingdomCount += placeTile(currentTilePos, owner, players.get(owner), hasKingdom);
+            tileParents[tileCount - 1] = parentTile;
+            // remove player if no tiles are left
+            if (tileAmountsToGenerate[owner] == 1) {
+                remainingPlayerCount--;
+                System.arraycopy(remainingPlayers, remainingPlayerIndex + 1, remainingPlayers, remainingPlayerIndex,
+                        remainingPlayerCount - remainingPlayerIndex);
+            } else {
+                tileAmountsToGenerate[owner]--;
+            }
+            // add to history
+            pushHistory(currentTilePos);
+            // get next tile position with empty neighboring tiles
+            int usableCoordsCount = getUnusedNeighborCoords(currentTilePos);
+            while (usableCoordsCount == 0) {
+                // backtrack until able to place a tile again
+                historySize--;
+                currentTilePos = history[historySize - 1];
+                usableCoordsCount = getUnusedNeighborCoords(currentTilePos);
+            }
+            parentTile = bucketTiles[findBucket(currentTilePos)];
+            // calculate a score for each neighboring tile for choosing the next one
+            float scoreSum = 0;
+            for (int i = 0; i < usableCoordsCount; i++) {
+                // factor in density
+                int placedNeighbors = bucketPlacedNeighbors[findBucket(usableCoords[i])];
+                float score = weights[HexGrid.NEIGHBOR_COUNT - placedNeighbors];
+                scores[i] = score;
+                scoreSum += score;
+            }
+            // select tile based on score and random
+            float randomScore = random.nextFloat() * scoreSum;
+            int index = 0;
+            float countedScore = scores[0];
+            while (countedScore < randomScore) {
+                index++;
+                countedScore += scores[index];
+            }
+            nextTilePos = usableCoords[index];
+        }
+        return playersWithKingdomCount == playerCount;
+    }
+
+    /**
+     * Gives every player of the latest attempt that doesn't have two neighboring tiles a pair by reassigning tiles
+     * locally. For such a player, a neighboring tile of another player is taken if that player keeps a pair anyway.
+     * If there is none, such a tile is swapped for one of the player's other tiles that gives the other player a
+     * pair instead. If that isn't possible either, a tile that can be spared is moved from the edge of the map next to
+     * one of the player's tiles. The walk placed every tile next to the one it came from and only tiles it never came
+     * from are moved, so the map stays connected. Players that already had a pair keep one. No randomness is involved
+     * and the work is bounded by the number of tiles times the number of tiles per player.
+     *
+     * <p>If a player can't get a pair like that, which only happens on very tight maps, the tiles are paired up
+     * anew: along the walk, along other neighbors and by moving tiles. As a last resort, the tiles are put in a row.
+     * After that, every player has a pair.
+     *
+     * @param players players that were passed to {@link #generate}; there need to be at least two tiles for each one
+     */
+    void repair(List<Player> players) {
+        int playerCount = players.size();
+        // -1 for water
+        neighborTiles = new int[tileCount * HexGrid.NEIGHBOR_COUNT];
+        sameOwnerNeighborCounts = new int[tileCount];
+        pairedTileCounts = new int[playerCount];
+        childCounts = new int[tileCount];
+        for (int tile = 0; tile < tileCount; tile++) {
+            updateNeighborTiles(tile);
+            for (int i = 0; i < HexGrid.NEIGHBOR_COUNT; i++) {
+                int neighborTile = neighborTiles[tile * HexGrid.NEIGHBOR_COUNT + i];
+                if (neighborTile != -1 && tileOwners[neighborTile] == tileOwners[tile]) {
+                    sameOwnerNeighborCounts[tile]++;
+                }
+            }
+            if (sameOwnerNeighborCounts[tile] > 0) {
+                pairedTileCounts[tileOwners[tile]]++;
+            }
+            if (tileParents[tile] != -1) {
+                childCounts[tileParents[tile]]++;
+            }
+        }
+        boolean everyPlayerHasKingdom = true;
+        for (int owner = 0; owner < playerCount; owner++) {
+            if (pairedTileCounts[owner] == 0 && !takeNeighborTile(owner, players) && !swapTiles(owner, players)
+                    && !moveTile(owner, players)) {
+                everyPlayerHasKingdom = false;
+            }
+        }
+        if (!everyPlayerHasKingdom && !assignMatchedPairs(players)) {
+            // only happens for the smallest maps with some shapes
+            arrangeInRow(players);
+        }
+    }
+
+    private void arrangeInRow(List<Player> players) {
+        for (int tile = 0; tile < tileCount; tile++) {
+            tileCoords[tile] = HexMapHelper.packHexCoords(tile, 0);
+            if (tile < players.size() * 2) {
+                tileOwners[tile] = tile / 2;
+                tilePlayers[tile] = players.get(tile / 2);
+            }
+        }
+    }
+
+    // gives every player one of a set of disjoint pairs of neighboring tiles; used when the map is too tight for the
+    // other ways
+    private boolean assignMatchedPairs(List<Player> players) {
+        // the tiles and the ones the walk came from form a tree; matching from the leaves up finds the most pairs
+        // there
+        int[] mates = new int[tileCount];
+        Arrays.fill(mates, -1);
+        int pairCount = 0;
+        for (int tile = tileCount - 1; tile > 0; tile--) {
+            int parentTile = tileParents[tile];
+            if (mates[tile] == -1 && mates[parentTile] == -1) {
+                mates[tile] = parentTile;
+                mates[parentTile] = tile;
+                pairCount++;
+            }
+        }
+        // other neighbors can make more pairs by pairing the tiles differently along a path
+        int[] visitMarks = new int[tileCount];
+        for (int tile = 0; tile < tileCount && pairCount < players.size(); tile++) {
+            if (mates[tile] == -1) {
+                visitMarks[tile] = tile + 1;
+                if (findAlternatingPath(tile, mates, visitMarks, tile + 1)) {
+                    pairCount++;
+                }
+            }
+        }
+        // if that isn't enough, unpaired tiles the walk never came from are moved next to other unpaired ones
+        while (pairCount < players.size()) {
+            if (!moveUnpairedTile(mates, players)) {
+                return false;
+            }
+            pairCount++;
+        }
+        int owner = 0;
+        for (int tile = 0; tile < tileCount && owner < players.size(); tile++) {
+            if (mates[tile] > tile) {
+                setTileOwner(tile, owner, players);
+                setTileOwner(mates[tile], owner, players);
+                owner++;
+            }
+        }
+        return true;
+    }
+
+    private boolean moveUnpairedTile(int[] mates, List<Player> players) {
+        for (int tile = 0; tile < tileCount; tile++) {
+            if (mates[tile] != -1) {
+                continue;
+            }
+            int x = HexMapHelper.unpackX(tileCoords[tile]);
+            int y = HexMapHelper.unpackY(tileCoords[tile]);
+            for (int i = 0; i < HexGrid.NEIGHBOR_COUNT; i++) {
+                if (neighborTiles[tile * HexGrid.NEIGHBOR_COUNT + i] != -1) {
+                    continue;
+                }
+                for (int movedTile = tileCount - 1; movedTile >= 0; movedTile--) {
+                    if (movedTile != tile && mates[movedTile] == -1 && childCounts[movedTile] == 0) {
+                        moveTile(movedTile, HexMapHelper.packHexCoords(x + HexMapHelper.NEIGHBOR_OFFSETS_X[i],
+                                y + HexMapHelper.NEIGHBOR_OFFSETS_Y[i]), tile, tileOwners[movedTile], players);
+                        mates[tile] = movedTile;
+                        mates[movedTile] = tile;
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // looks for a path that alternates between unpaired and paired neighbors and ends at an unpaired tile; if there
+    // is one, the tiles along it are paired the other way round, which makes one pair more
+    private boolean findAlternatingPath(int tile, int[] mates, int[] visitMarks, int visitMark) {
+        for (int i = 0; i < HexGrid.NEIGHBOR_COUNT; i++) {
+            int neighborTile = neighborTiles[tile * HexGrid.NEIGHBOR_COUNT + i];
+            if (neighborTile == -1 || visitMarks[neighborTile] == visitMark) {
+                continue;
+            }
+            visitMarks[neighborTile] = visitMark;
+            int neighborMate = mates[neighborTile];
+            if (neighborMate == -1 || visitMarks[neighborMate] != visitMark) {
+                if (neighborMate != -1) {
+                    visitMarks[neighborMate] = visitMark;
+                }
+                if (neighborMate == -1 || findAlternatingPath(neighborMate, mates, visitMarks, visitMark)) {
+                    mates[tile] = neighborTile;
+                    mates[neighborTile] = tile;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the tiles of the latest attempt to a map, in the order they were generated.
+     *
+     * @param map map to add the tiles to
+     */
+    void addTilesTo(HexGrid map) {
+        for (int i = 0; i < tileCount; i++) {
+            Vector2 position = new Vector2(HexMapHelper.unpackX(tileCoords[i]), HexMapHelper.unpackY(tileCoords[i]));
+            map.put(position, new HexTile(tilePlayers[i], position));
+        }
+    }
+
+    private boolean takeNeighborTile(int owner, List<Player> players) {
+        for (int tile = 0; tile < tileCount; tile++) {
+            if (tileOwners[tile] != owner) {
+                continue;
+            }
+            for (int i = 0; i < HexGrid.NEIGHBOR_COUNT; i++) {
+                int neighborTile = neighborTiles[tile * HexGrid.NEIGHBOR_COUNT + i];
+                if (neighborTile != -1 && tileOwners[neighborTile] != owner && canBeTakenAway(neighborTile)) {
+                    setTileOwner(neighborTile, owner, players);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // whether the owner of the tile still has two neighboring tiles without it
+    private boolean canBeTakenAway(int tile) {
+        int owner = tileOwners[tile];
+        int lostPairedTiles = sameOwnerNeighborCounts[tile] > 0 ? 1 : 0;
+        for (int i = 0; i < HexGrid.NEIGHBOR_COUNT; i++) {
+            int neighborTile = neighborTiles[tile * HexGrid.NEIGHBOR_COUNT + i];
+            if (neighborTile != -1 && tileOwners[neighborTile] == owner && sameOwnerNeighborCounts[neighborTile] == 1) {
+                lostPairedTiles++;
+            }
+        }
+        return pairedTileCounts[owner] > lostPairedTiles;
+    }
+
+    private boolean swapTiles(int owner, List<Player> players) {
+        for (int tile = 0; tile < tileCount; tile++) {
+            if (tileOwners[tile] != owner) {
+                continue;
+            }
+            for (int i = 0; i < HexGrid.NEIGHBOR_COUNT; i++) {
+                int neighborTile = neighborTiles[tile * HexGrid.NEIGHBOR_COUNT + i];
+                if (neighborTile == -1 || tileOwners[neighborTile] == owner) {
+                    continue;
+                }
+                // the other player gets one of the player's other tiles that is next to one of its own
+                int otherOwner = tileOwners[neighborTile];
+                for (int otherTile = 0; otherTile < tileCount; otherTile++) {
+                    if (otherTile != tile && tileOwners[otherTile] == owner
+                            && hasNeighborOfOwner(otherTile, otherOwner, neighborTile)) {
+                        setTileOwner(neighborTile, owner, players);
+                        setTileOwner(otherTile, otherOwner, players);
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean moveTile(int owner, List<Player> players) {
+        for (int tile = 0; tile < tileCount; tile++) {
+            if (tileOwners[tile] != owner) {
+                continue;
+            }
+            int x = HexMapHelper.unpackX(tileCoords[tile]);
+            int y = HexMapHelper.unpackY(tileCoords[tile]);
+            for (int i = 0; i < HexGrid.NEIGHBOR_COUNT; i++) {
+                if (neighborTiles[tile * HexGrid.NEIGHBOR_COUNT + i] != -1) {
+                    continue;
+                }
+                // free position next to the tile; take the latest placed tile that the walk never came from and that
+                // can be spared
+                for (int movedTile = tileCount - 1; movedTile >= 0; movedTile--) {
+                    if (movedTile != tile && childCounts[movedTile] == 0
+                            && (tileOwners[movedTile] == owner || canBeTakenAway(movedTile))) {
+                        moveTile(movedTile, HexMapHelper.packHexCoords(x + HexMapHelper.NEIGHBOR_OFFSETS_X[i],
+                                y + HexMapHelper.NEIGHBOR_OFFSETS_Y[i]), tile, owner, players);
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private void moveTile(int tile, int packedCoords, int parentTile, int owner, List<Player> players) {
+        updateSameOwnerNeighborCounts(tile, -1);
+        bucketOwners[findBucket(tileCoords[tile])] = FREE;
+        updateNeighborTilesAround(tile);
+        // might not be in the table if the free position is next to a tile that was moved before
+        int bucket = findOrAddBucket(packedCoords);
+        bucketOwners[bucket] = owner;
+        bucketTiles[bucket] = tile;
+        tileCoords[tile] = packedCoords;
+        tileOwners[tile] = owner;
+        tilePlayers[tile] = players.get(owner);
+        updateNeighborTiles(tile);
+        updateNeighborTilesAround(tile);
+        updateSameOwnerNeighborCounts(tile, 1);
+        if (tileParents[tile] != -1) {
+            childCounts[tileParents[tile]]--;
+        }
+        tileParents[tile] = parentTile;
+        childCounts[parentTile]++;
+    }
+
+    private void updateNeighborTilesAround(int tile) {
+        for (int i = 0; i < HexGrid.NEIGHBOR_COUNT; i++) {
+            int neighborTile = neighborTiles[tile * HexGrid.NEIGHBOR_COUNT + i];
+            if (neighborTile != -1) {
+                updateNeighborTiles(neighborTile);
+            }
+        }
+    }
+
+    private void updateNeighborTiles(int tile) {
+        int x = HexMapHelper.unpackX(tileCoords[tile]);
+        int y = HexMapHelper.unpackY(tileCoords[tile]);
+        for (int i = 0; i < HexGrid.NEIGHBOR_COUNT; i++) {
+            int bucket = findBucket(HexMapHelper.packHexCoords(x + HexMapHelper.NEIGHBOR_OFFSETS_X[i],
+                    y + HexMapHelper.NEIGHBOR_OFFSETS_Y[i]));
+            neighborTiles[tile * HexGrid.NEIGHBOR_COUNT + i] =
+                    bucketMarks[bucket] == attempt && bucketOwners[bucket] != FREE ? bucketTiles[bucket] : -1;
+        }
+    }
+
+    private boolean hasNeighborOfOwner(int tile, int owner, int excludedTile) {
+        for (int i = 0; i < HexGrid.NEIGHBOR_COUNT; i++) {
+            int neighborTile = neighborTiles[tile * HexGrid.NEIGHBOR_COUNT + i];
+            if (neighborTile != -1 && neighborTile != excludedTile && tileOwners[neighborTile] == owner) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void setTileOwner(int tile, int owner, List<Player> players) {
+        updateSameOwnerNeighborCounts(tile, -1);
+        tileOwners[tile] = owner;
+        tilePlayers[tile] = players.get(owner);
+        bucketOwners[findBucket(tileCoords[tile])] = owner;
+        updateSameOwnerNeighborCounts(tile, 1);
+    }
+
+    // adds or removes the tile to or from the counts of its owner
+    private void updateSameOwnerNeighborCounts(int tile, int amount) {
+        int owner = tileOwners[tile];
+        boolean wasPaired = sameOwnerNeighborCounts[tile] > 0;
+        for (int i = 0; i < HexGrid.NEIGHBOR_COUNT; i++) {
+            int neighborTile = neighborTiles[tile * HexGrid.NEIGHBOR_COUNT + i];
+            if (neighborTile == -1 || tileOwners[neighborTile] != owner) {
+                continue;
+            }
+            boolean neighborWasPaired = sameOwnerNeighborCounts[neighborTile] > 0;
+            sameOwnerNeighborCounts[neighborTile] += amount;
+            sameOwnerNeighborCounts[tile] += amount;
+            if (neighborWasPaired != sameOwnerNeighborCounts[neighborTile] > 0) {
+                pairedTileCounts[owner] += amount;
+            }
+        }
+        if (wasPaired != sameOwnerNeighborCounts[tile] > 0) {
+            pairedTileCounts[owner] += amount;
+        }
+    }
+
+    // places a tile and returns the number of players that got their first kingdom by it
+    private int placeTile(int packedCoords, int owner, Player player, boolean[] hasKingdom) {
+        if (tileCount == tileCoords.length) {
+            tileCoords = Arrays.copyOf(tileCoords, tileCount * 2);
+            tilePlayers = Arrays.copyOf(tilePlayers, tileCount * 2);
+            tileOwners = Arrays.copyOf(tileOwners, tileCount * 2);
+            tileParents = Arrays.copyOf(tileParents, tileCount * 2);
+        }
+        tileCoords[tileCount] = packedCoords;
+        tilePlayers[tileCount] = player;
+        tileOwners[tileCount] = owner;
+        int bucket = findOrAddBucket(packedCoords);
+        bucketOwners[bucket] = owner;
+        bucketTiles[bucket] = tileCount;
+        tileCount++;
+        boolean hasNeighborOfSameOwner = false;
+        int x = HexMapHelper.unpackX(packedCoords);
+        int y = HexMapHelper.unpackY(packedCoords);
+        for (int i = 0; i < HexGrid.NEIGHBOR_COUNT; i++) {
+            int neighborBucket = findOrAddBucket(HexMapHelper.packHexCoords(x + HexMapHelper.NEIGHBOR_OFFSETS_X[i],
+                    y + HexMapHelper.NEIGHBOR_OFFSETS_Y[i]));
+            bucketPlacedNeighbors[neighborBucket]++;
+            if (bucketOwners[neighborBucket] == owner) {
+                hasNeighborOfSameOwner = true;
+            }
+        }
+        if (hasNeighborOfSameOwner && !hasKingdom[owner]) {
+            hasKingdom[owner] = true;
+            return 1;
+        }
+        return 0;
+    }
+
+    private int getUnusedNeighborCoords(int packedCoords) {
+        int x = HexMapHelper.unpackX(packedCoords);
+        int y = HexMapHelper.unpackY(packedCoords);
+        int count = 0;
+        for (int i = 0; i < HexGrid.NEIGHBOR_COUNT; i++) {
+            int neighborCoords = HexMapHelper.packHexCoords(x + HexMapHelper.NEIGHBOR_OFFSETS_X[i],
+                    y + HexMapHelper.NEIGHBOR_OFFSETS_Y[i]);
+            // every neighbor of a placed tile is in the table already
+            if (bucketOwners[findBucket(neighborCoords)] == FREE) {
+                usableCoords[count++] = neighborCoords;
+            }
+        }
+        return count;
+    }
+
+    private void pushHistory(int packedCoords) {
+        if (historySize == history.length) {
+            history = Arrays.copyOf(history, historySize * 2);
+        }
+        history[historySize++] = packedCoords;
+    }
+
+    private int findOrAddBucket(int packedCoords) {
+        int bucket = findBucket(packedCoords);
+        if (bucketMarks[bucket] != attempt) {
+            bucketMarks[bucket] = attempt;
+            bucketCoords[bucket] = packedCoords;
+            bucketOwners[bucket] = FREE;
+            bucketPlacedNeighbors[bucket] = 0;
+            usedBuckets++;
+            if (usedBuckets * 2 > bucketCoords.length) {
+                growBuckets();
+                bucket = findBucket(packedCoords);
+            }
+        }
+        return bucket;
+    }
+
+    // returns the bucket of the position or the free one where it would go
+    private int findBucket(int packedCoords) {
+        int mask = bucketCoords.length - 1;
+        int hash = packedCoords * 0x9E3779B9;
+        int bucket = (hash ^ (hash >>> 16)) & mask;
+        while (bucketMarks[bucket] == attempt && bucketCoords[bucket] != packedCoords) {
+            bucket = (bucket + 1) & mask;
+        }
+        return bucket;
+    }
+
+    private void growBuckets() {
+        int[] oldCoords = bucketCoords;
+        int[] oldOwners = bucketOwners;
+        int[] oldPlacedNeighbors = bucketPlacedNeighbors;
+        int[] oldMarks = bucketMarks;
+        int[] oldTiles = bucketTiles;
+        bucketCoords = new int[oldCoords.length * 2];
+        bucketOwners = new int[oldCoords.length * 2];
+        bucketPlacedNeighbors = new int[oldCoords.length * 2];
+        bucketMarks = new int[oldCoords.length * 2];
+        bucketTiles = new int[oldCoords.length * 2];
+        for (int i = 0; i < oldCoords.length; i++) {
+            if (oldMarks[i] == attempt) {
+                int bucket = findBucket(oldCoords[i]);
+                bucketMarks[bucket] = attempt;
+                bucketCoords[bucket] = oldCoords[i];
+                bucketOwners[bucket] = oldOwners[i];
+                bucketPlacedNeighbors[bucket] = oldPlacedNeighbors[i];
+                bucketTiles[bucket] = oldTiles[i];
+            }
+        }
+    }
+
+}
@@ -11,6 +11,11 @@ public class Tree implements TileContent, Blocking {
     public static final String SPRITE_NAME = "tree";
     private static final int STRENGTH = 0;
 
+    /**
+     * Shared instance. Trees have no state, so there is no need for more than one.
+     */
+    public static final Tree INSTANCE = new Tree();
+
     @Override
     public String getSpriteName() {
         return SPRITE_NAME;
@@ -23,7 +28,13 @@ public class Tree implements TileContent, Blocking {
 
     @Override
     public Tree getCopy() {
-        return new Tree();
+        // nothing that could change
+        return this;
+    }
+
+    @Override
+    public Kind getKind() {
+        return Kind.TREE;
     }
 
     @Override
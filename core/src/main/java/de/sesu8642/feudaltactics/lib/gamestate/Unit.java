@@ -3,7 +3,6 @@
 package de.sesu8642.feudaltactics.lib.gamestate;
 
 import java.util.Arrays;
-import java.util.Objects;
 
 /**
  * Map object representing a unit. Units are used to conquer enemy tiles. They
@@ -14,6 +13,16 @@ public class Unit implements TileContent {
 
     public static final int COST = 10;
 
+    // one shared instance per type and canAct state; index is ordinal * 2 + (canAct ? 1 : 0)
+    private static final Unit[] SHARED_UNITS = new Unit[UnitTypes.values().length * 2];
+
+    static {
+        for (UnitTypes unitType : UnitTypes.values()) {
+            SHARED_UNITS[unitType.ordinal() * 2] = new Unit(unitType, false);
+            SHARED_UNITS[unitType.ordinal() * 2 + 1] = new Unit(unitType, true);
+        }
+    }
+
     private boolean canAct = true;
     private UnitTypes unitType;
 
@@ -23,9 +32,33 @@ public class Unit implements TileContent {
         super();
     }
 
-    public Unit(UnitTypes unitType) {
+    // units are only created for the shared instances, so they never change
+    private Unit(UnitTypes unitType, boolean canAct) {
         super();
         this.unitType = unitType;
+        this.canAct = canAct;
+    }
+
+    /**
+     * Returns the shared instance of a unit that can act. Units cannot be changed, which is not a problem because
+     * units must not be changed anyway once they are on the map or held (see {@link GameStateSnapshot}).
+     *
+     * @param unitType type of the unit
+     * @return shared unit
+     */
+    public static Unit of(UnitTypes unitType) {
+        return of(unitType, true);
+    }
+
+    /**
+     * Returns the shared instance of a unit.
+     *
+     * @param unitType type of the unit
+     * @param canAct   whether the unit can act
+     * @return shared unit
+     */
+    public static Unit of(UnitTypes unitType, boolean canAct) {
+        return SHARED_UNITS[unitType.ordinal() * 2 + (canAct ? 1 : 0)];
     }
 
     @Override
@@ -46,15 +79,15 @@ public class Unit implements TileContent {
         return canAct;
     }
 
-    public void setCanAct(boolean canAct) {
-        this.canAct = canAct;
+    @Override
+    public Unit getCopy() {
+        // units in a game state are not changed, so the shared unit can stand in for any copy
+        return of(unitType, canAct);
     }
 
     @Override
-    public Unit getCopy() {
-        Unit newUnit = new Unit(this.getUnitType());
-        newUnit.setCanAct(this.canAct);
-        return newUnit;
+    public Kind getKind() {
+        return Kind.UNIT;
     }
 
     @Override
@@ -66,8 +99,8 @@ public class Unit implements TileContent {
     @Override
     public int hashCode() {
         // calculating with enum strings because the hashcode must be consistent across
-        // runs
-        return Objects.hash(canAct, unitType.toString());
+        // runs; same result as Objects.hash(canAct, unitType.toString()) without allocating
+        return 31 * (31 + Boolean.hashCode(canAct)) + unitType.toString().hashCode();
     }
 
     @Override
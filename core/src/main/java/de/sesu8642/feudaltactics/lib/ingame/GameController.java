@@ -9,6 +9,7 @@ import de.sesu8642.feudaltactics.ingame.AutoSaveRepository;
 import de.sesu8642.feudaltactics.ingame.GameParameters;
 import de.sesu8642.feudaltactics.lib.gamestate.GameState;
 import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.GeneratedMapCache;
 import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
 import de.sesu8642.feudaltactics.lib.gamestate.ScenarioGameStateLoader;
 import de.sesu8642.feudaltactics.lib.gamestate.ScenarioMap;
@@ -25,6 +26,9 @@ import java.util.concurrent.Future;
  */
 public class GameController {
 
+    // enough for 20 maps of the largest size that can be selected
+    private static final int MAX_CACHED_MAP_TILES = 20000;
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
 
     private final EventBus eventBus;
@@ -32,6 +36,7 @@ public class GameController {
     private final BotAi botAi;
     private final AutoSaveRepository autoSaveRepo;
     private final ScenarioGameStateLoader scenarioGameStateLoader;
+    private final GeneratedMapCache generatedMapCache = new GeneratedMapCache(MAX_CACHED_MAP_TILES);
     private Future<?> botTurnFuture;
 
     /**
@@ -88,11 +93,52 @@ public class GameController {
      */
     public void generateGameState(GameParameters gameParams) {
         logger.info("generating a new game state with {}", gameParams);
-        gameState = new GameState();
-        gameState.setBotIntelligence(gameParams.getBotIntelligence());
+        showGeneratedGameState(createGameState(gameParams));
+    }
 
-        GameStateHelper.initializeMap(gameState, gameParams.getPlayers(), gameParams.getLandMass(),
-                gameParams.getDensity(), null, gameParams.getSeed());
+    /**
+     * Generates a map without making it the current game state. Maps that were generated with the same parameters
+     * before are taken from a cache. Doesn't access anything else, so it can be called from any thread.
+     *
+     * @param gameParams parameters to generate the map with
+     * @return generated game state
+     */
+    public GameState createGameState(GameParameters gameParams) {
+        GameState generatedGameState = generatedMapCache.getMap(gameParams.getPlayers(), gameParams.getLandMass(),
+                gameParams.getDensity(), null, gameParams.getSeed(), gameParams.getMapGeneratorVersion());
+        generatedGameState.setBotIntelligence(gameParams.getBotIntelligence());
+        return generatedGameState;
+    }
+
+    /**
+     * Generates a map in advance, so {@link #createGameState} returns it right away when it is called with the same
+     * parameters later. Can be called from any thread.
+     *
+     * @param gameParams parameters to generate the map with
+     */
+    public void prefetchGameState(GameParameters gameParams) {
+        generatedMapCache.prefetchMap(gameParams.getPlayers(), gameParams.getLandMass(), gameParams.getDensity(),
+                null, gameParams.getSeed(), gameParams.getMapGeneratorVersion());
+    }
+
+    /**
+     * Returns whether {@link #createGameState} can return the map for the given parameters without generating it.
+     *
+     * @param gameParams parameters to generate the map with
+     * @return whether the map is cached
+     */
+    public boolean isGameStateCached(GameParameters gameParams) {
+        return generatedMapCache.containsMap(gameParams.getPlayers(), gameParams.getLandMass(),
+                gameParams.getDensity(), null, gameParams.getSeed(), gameParams.getMapGeneratorVersion());
+    }
+
+    /**
+     * Makes a game state generated with {@link #createGameState} the current one.
+     *
+     * @param generatedGameState game state to show
+     */
+    public void showGeneratedGameState(GameState generatedGameState) {
+        gameState = generatedGameState;
         eventBus.post(new GameStateChangeEvent(gameState));
     }
 
@@ -2,20 +2,18 @@
 
 package de.sesu8642.feudaltactics.lib.ingame.botai;
 
-import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.utils.reflect.ClassReflection;
 import com.google.common.eventbus.EventBus;
 import de.sesu8642.feudaltactics.events.BotTurnFinishedEvent;
 import de.sesu8642.feudaltactics.events.GameStateChangeEvent;
 import de.sesu8642.feudaltactics.lib.gamestate.*;
 import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.gamestate.TileContent.Kind;
 import de.sesu8642.feudaltactics.lib.gamestate.Unit.UnitTypes;
 import de.sesu8642.feudaltactics.menu.preferences.MainPreferencesDao;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -27,6 +25,7 @@ public class BotAi {
 
     private final EventBus eventBus;
     private final MainPreferencesDao mainPrefsDao;
+    private final ScoringScheduler scoringScheduler;
 
     /**
      * Current speed.
@@ -38,9 +37,17 @@ public class BotAi {
      */
     private boolean skipDisplayingTurn = false;
 
-    public BotAi(EventBus eventBus, MainPreferencesDao mainPrefsDao) {
+    /**
+     * Constructor.
+     *
+     * @param eventBus         event bus
+     * @param mainPrefsDao     DAO for the main preferences
+     * @param scoringScheduler scheduler to score the tiles with
+     */
+    public BotAi(EventBus eventBus, MainPreferencesDao mainPrefsDao, ScoringScheduler scoringScheduler) {
         this.eventBus = eventBus;
         this.mainPrefsDao = mainPrefsDao;
+        this.scoringScheduler = scoringScheduler;
     }
 
     /**
@@ -53,12 +60,23 @@ public class BotAi {
     public void doTurn(GameState gameState, Intelligence intelligence) throws InterruptedException {
         logger.debug("doing the turn for bot player '{}' with intelligence level '{}'", gameState.getActivePlayer(),
                 intelligence);
-        Random random = new Random(gameState.hashCode());
+        // see RandomVersion: either one generator for the whole turn or an own stream for every kingdom in the order
+        // they move
+        Random turnRandom = null;
+        RandomStream turnRandomStream = null;
+        if (gameState.getRandomVersion() == RandomVersion.V1) {
+            turnRandom = new Random(gameState.hashCode());
+        } else {
+            turnRandomStream = RandomStream.of(gameState.getFingerprint()).split(RandomStream.Purpose.BOT_TURN);
+        }
+        int movedKingdoms = 0;
         Optional<Kingdom> nextKingdomOptional = getNextKingdom(gameState);
         while (nextKingdomOptional.isPresent()) {
             Kingdom nextKingdom = nextKingdomOptional.get();
             nextKingdom.setDoneMoving(true);
+            Random random = turnRandom != null ? turnRandom : turnRandomStream.split(movedKingdoms).toRandom();
             doKingdomMove(gameState, nextKingdom, intelligence, random);
+            movedKingdoms++;
             nextKingdomOptional = getNextKingdom(gameState);
         }
         // reset kingdom done moving state
@@ -127,7 +145,7 @@ public class BotAi {
     private void pickUpAllAvailableUnits(Kingdom kingdom, PickedUpUnits pickedUpUnits) {
         logger.debug("picking up all available units");
         for (HexTile tile : kingdom.getTiles()) {
-            if (tile.getContent() != null && ClassReflection.isAssignableFrom(Unit.class, tile.getContent().getClass())
+            if (tile.getContent() != null && tile.getContent().getKind() == Kind.UNIT
                     && ((Unit) tile.getContent()).isCanAct()) {
                 int strength = tile.getContent().getStrength();
                 pickedUpUnits.addUnitOfStrength(strength);
@@ -147,23 +165,23 @@ public class BotAi {
     private void removeBlockingObjects(GameState gameState, PickedUpUnits pickedUpUnits,
                                        int minimumRemovalScoreTreshold) {
         logger.debug("removing blocking objects");
-        // not using a hashset because the tiles are changed in this function which
-        // changes their hashcode as well
-        Map<Vector2, HexTile> tilesWithBlockingObjects = gameState.getActiveKingdom().getTiles().stream().filter(
-                        tile -> tile.getContent() != null && Blocking.class.isAssignableFrom(tile.getContent().getClass()))
-                .collect(Collectors.toMap(HexTile::getPosition, tile -> tile));
-        TileScoreInfo bestRemovalCandidate = getBestBlockingObjectRemovalScore(gameState,
-                tilesWithBlockingObjects.values());
+        List<HexTile> tilesWithBlockingObjects = gameState.getActiveKingdom().getTiles().stream().filter(
+                        tile -> tile.getContent() != null && tile.getContent().getKind().isBlocking())
+                .collect(Collectors.toList());
+        TileScoreQueue removalCandidates = new TileScoreQueue(gameState.getMap(), tilesWithBlockingObjects,
+                tile -> getBlockingObjectRemovalScore(gameState, tile), scoringScheduler);
+        TileScoreInfo bestRemovalCandidate = removalCandidates.peek();
         while (bestRemovalCandidate.score >= minimumRemovalScoreTreshold) {
             if (pickedUpUnits.ofType(UnitTypes.PEASANT) >= 1 || acquireUnit(gameState, gameState.getActiveKingdom(),
                     pickedUpUnits, UnitTypes.PEASANT.strength())) {
                 logger.debug("removing blocking object with score {} from tile {}", bestRemovalCandidate.score,
                         bestRemovalCandidate.tile);
                 pickedUpUnits.removeUnit(UnitTypes.PEASANT);
-                gameState.setHeldObject(new Unit(UnitTypes.PEASANT));
+                gameState.setHeldObject(Unit.of(UnitTypes.PEASANT));
                 GameStateHelper.placeOwn(gameState, bestRemovalCandidate.tile);
-                tilesWithBlockingObjects.remove(bestRemovalCandidate.tile.getPosition());
-                bestRemovalCandidate = getBestBlockingObjectRemovalScore(gameState, tilesWithBlockingObjects.values());
+                removalCandidates.remove(bestRemovalCandidate.tile);
+                removalCandidates.updateScoresAround(bestRemovalCandidate.tile);
+                bestRemovalCandidate = removalCandidates.peek();
             } else {
                 return;
             }
@@ -173,9 +191,8 @@ public class BotAi {
     private void defendMostImportantTiles(GameState gameState, Intelligence intelligence, PickedUpUnits pickedUpUnits,
                                           Set<HexTile> placedCastleTiles) {
         logger.debug("defending most important tiles");
-        Set<HexTile> interestingProtectionTiles = getInterestingProtectionTiles(gameState);
-        TileScoreInfo bestProtectionCandidate = getBestDefenseTileScore(gameState, intelligence,
-                interestingProtectionTiles);
+        TileScoreQueue protectionCandidates = createProtectionCandidateQueue(gameState, intelligence);
+        TileScoreInfo bestProtectionCandidate = protectionCandidates.peek();
         while (bestProtectionCandidate.score >= intelligence.protectWithCastleScoreTreshold) {
             // if enough money buy castle
             if (InputValidationHelper.checkBuyObject(gameState, gameState.getActivePlayer(), Castle.class)) {
@@ -185,7 +202,7 @@ public class BotAi {
             } else if (pickedUpUnits.ofType(UnitTypes.PEASANT) > 0) {
                 // protect with existing peasant
                 pickedUpUnits.removeUnit(UnitTypes.PEASANT);
-                gameState.setHeldObject(new Unit(UnitTypes.PEASANT));
+                gameState.setHeldObject(Unit.of(UnitTypes.PEASANT));
                 GameStateHelper.placeOwn(gameState, bestProtectionCandidate.tile);
             } else if (InputValidationHelper.checkBuyObject(gameState, gameState.getActivePlayer(), Unit.class)) {
                 // protect with new peasant
@@ -194,85 +211,54 @@ public class BotAi {
             } else {
                 break;
             }
-            bestProtectionCandidate = getBestDefenseTileScore(gameState, intelligence, interestingProtectionTiles);
+            protectionCandidates.updateScoresAround(bestProtectionCandidate.tile);
+            bestProtectionCandidate = protectionCandidates.peek();
         }
         while (bestProtectionCandidate.score >= intelligence.protectWithUnitScoreTreshold) {
             if (pickedUpUnits.ofType(UnitTypes.PEASANT) > 0 || acquireUnit(gameState, gameState.getActiveKingdom(),
                     pickedUpUnits, UnitTypes.PEASANT.strength())) {
                 // protect with existing peasant
                 pickedUpUnits.removeUnit(UnitTypes.PEASANT);
-                gameState.setHeldObject(new Unit(UnitTypes.PEASANT));
+                gameState.setHeldObject(Unit.of(UnitTypes.PEASANT));
                 GameStateHelper.placeOwn(gameState, bestProtectionCandidate.tile);
             } else {
                 break;
             }
-            bestProtectionCandidate = getBestDefenseTileScore(gameState, intelligence, interestingProtectionTiles);
+            protectionCandidates.updateScoresAround(bestProtectionCandidate.tile);
+            bestProtectionCandidate = protectionCandidates.peek();
         }
     }
 
     private void conquerAsMuchAsPossible(GameState gameState, Intelligence intelligence, PickedUpUnits pickedUpUnits) {
         logger.debug("conquering as much as possible");
-        boolean unableToConquerAnyMore = false;
-        whileloop:
-        while (!unableToConquerAnyMore) {
-            // need a list here to be deterministic
-            List<HexTile> possibleConquerTiles = determineNeighboringEnemyTiles(gameState);
-            if (possibleConquerTiles.isEmpty()) {
-                // the bot actually won the game
-                break;
-            }
-
-            // determine how "valuable" the tiles are for conquering
-            Set<OffenseTileScoreInfo> offenseTileScoreInfoSet = Collections
-                    .newSetFromMap(new ConcurrentHashMap<OffenseTileScoreInfo, Boolean>());
-            possibleConquerTiles.parallelStream().forEach(conquerTile -> offenseTileScoreInfoSet
-                    .add(getOffenseTileScoreInfo(gameState, intelligence, conquerTile)));
-            List<OffenseTileScoreInfo> offenseTileScoreInfos = new ArrayList<>(offenseTileScoreInfoSet);
-            offenseTileScoreInfos.sort((OffenseTileScoreInfo o1, OffenseTileScoreInfo o2) -> {
-                int result = Integer.compare(o2.score, o1.score);
-                // if the score is the same, use the coordinates to eliminate randomness
-                if (result == 0) {
-                    result = o1.tile.compareTo(o2.tile);
-                }
-                return result;
-            });
-
-            for (OffenseTileScoreInfo offenseTileScoreInfo : offenseTileScoreInfos) {
-                if (pickedUpUnits.getTotalNoOfUnits() == 0) {
-                    break;
-                }
-                for (int i = offenseTileScoreInfo.requiredStrength; i <= UnitTypes.strongest().strength(); i++) {
-                    if (conquerTileWithStoredUnit(gameState, offenseTileScoreInfo.tile, UnitTypes.ofStrength(i),
-                            pickedUpUnits.ofStrength(i))) {
-                        pickedUpUnits.removeUnitOfStrength(i);
-                        continue whileloop;
+        // determine how "valuable" the tiles are for conquering; after conquering a tile, only the tiles around the
+        // ones that changed are looked at again
+        try (ConquerCandidates conquerCandidates = new ConquerCandidates(gameState,
+                conquerTile -> getOffenseTileScoreInfo(gameState, intelligence, conquerTile), scoringScheduler)) {
+            // if there are no candidates, the bot actually won the game
+            while (!conquerCandidates.isEmpty()) {
+                OffenseTileScoreInfo offenseTileScoreInfo = conquerCandidates.getBest(
+                        pickedUpUnits.getStrongestStrength());
+                if (offenseTileScoreInfo != null) {
+                    // use the weakest unit that is strong enough
+                    for (int i = offenseTileScoreInfo.requiredStrength; i <= UnitTypes.strongest().strength(); i++) {
+                        if (conquerTileWithStoredUnit(gameState, offenseTileScoreInfo.tile, UnitTypes.ofStrength(i),
+                                pickedUpUnits.ofStrength(i))) {
+                            pickedUpUnits.removeUnitOfStrength(i);
+                            break;
+                        }
                     }
+                    conquerCandidates.update();
+                    continue;
                 }
-            }
-            // at this point no more tiles can be conquered with the existing units --> buy
-            // some more or combine
-            int minimumRequiredStrengthForConquering = offenseTileScoreInfos
-                    .stream().min((OffenseTileScoreInfo t1, OffenseTileScoreInfo t2) -> Integer
-                            .compare(t1.requiredStrength, t2.requiredStrength))
-                    .orElse(new OffenseTileScoreInfo(null, -1, -1)).requiredStrength;
-            if (!acquireUnit(gameState, gameState.getActiveKingdom(), pickedUpUnits,
-                    minimumRequiredStrengthForConquering)) {
-                unableToConquerAnyMore = true;
-            }
-        }
-    }
-
-    private List<HexTile> determineNeighboringEnemyTiles(GameState gameState) {
-        List<HexTile> result = new ArrayList<>();
-        for (HexTile tile : gameState.getActiveKingdom().getTiles()) {
-            List<HexTile> neighborTiles = HexMapHelper.getNeighborTiles(gameState.getMap(), tile);
-            for (HexTile neighborTile : neighborTiles) {
-                if (neighborTile != null && neighborTile.getKingdom() != tile.getKingdom()) {
-                    result.add(neighborTile);
+                // at this point no more tiles can be conquered with the existing units --> buy
+                // some more or combine
+                if (!acquireUnit(gameState, gameState.getActiveKingdom(), pickedUpUnits,
+                        conquerCandidates.getMinimumRequiredStrength())) {
+                    break;
                 }
             }
         }
-        return result;
     }
 
     private boolean acquireUnit(GameState gameState, Kingdom kingdom, PickedUpUnits pickedUpUnits, int strength) {
@@ -409,9 +395,8 @@ public class BotAi {
 
     private void protectWithLeftoverUnits(GameState gameState, Intelligence intelligence, PickedUpUnits pickedUpUnits) {
         logger.debug("protecting the kingdom with leftover units");
-        Set<HexTile> interestingProtectionTiles = getInterestingProtectionTiles(gameState);
-        TileScoreInfo bestDefenseTileScore = getBestDefenseTileScore(gameState, intelligence,
-                interestingProtectionTiles);
+        TileScoreQueue protectionCandidates = createProtectionCandidateQueue(gameState, intelligence);
+        TileScoreInfo bestDefenseTileScore = protectionCandidates.peek();
         while (bestDefenseTileScore.score >= 0) {
             if (pickedUpUnits.getTotalNoOfUnits() == 0) {
                 break;
@@ -422,13 +407,14 @@ public class BotAi {
                     .sorted(Comparator.comparingInt(type -> type.strength() * -1)).collect(Collectors.toList());
             for (UnitTypes type : orderedUnitTypes) {
                 if (pickedUpUnits.ofType(type) > 0) {
-                    gameState.setHeldObject(new Unit(type));
+                    gameState.setHeldObject(Unit.of(type));
                     GameStateHelper.placeOwn(gameState, bestDefenseTileScore.tile);
                     pickedUpUnits.removeUnit(type);
                     break;
                 }
             }
-            bestDefenseTileScore = getBestDefenseTileScore(gameState, intelligence, interestingProtectionTiles);
+            protectionCandidates.updateScoresAround(bestDefenseTileScore.tile);
+            bestDefenseTileScore = protectionCandidates.peek();
         }
         placeLeftOverUnitsSomeWhere(gameState, pickedUpUnits);
     }
@@ -438,7 +424,7 @@ public class BotAi {
             for (int i = 0; i < pickedUpUnits.ofType(type); i++) {
                 Optional<HexTile> emptyOrTreeTileOptional = findEmptyOrTreeTileInActiveKingdom(gameState);
                 if (emptyOrTreeTileOptional.isPresent()) {
-                    gameState.setHeldObject(new Unit(type));
+                    gameState.setHeldObject(Unit.of(type));
                     GameStateHelper.placeOwn(gameState, emptyOrTreeTileOptional.get());
                 } else {
                     logger.error("Unable to place leftover unit because there are no available spaces.");
@@ -449,7 +435,7 @@ public class BotAi {
 
     private Optional<HexTile> findEmptyOrTreeTileInActiveKingdom(GameState gameState) {
         return gameState.getActiveKingdom().getTiles().stream().filter(tile -> tile.getContent() == null
-                || ClassReflection.isAssignableFrom(Tree.class, tile.getContent().getClass())).findFirst();
+                || tile.getContent().getKind() == Kind.TREE).findFirst();
     }
 
     private void sellCastles(Kingdom kingdom, Set<HexTile> placedCastleTiles) {
@@ -484,27 +470,12 @@ public class BotAi {
         return interestingPlacementTiles;
     }
 
-    private TileScoreInfo getBestBlockingObjectRemovalScore(GameState gameState,
-                                                            Collection<HexTile> tilesWithBlockingObjects) {
-        Set<TileScoreInfo> scores = Collections.newSetFromMap(new ConcurrentHashMap<TileScoreInfo, Boolean>());
-        tilesWithBlockingObjects.parallelStream()
-                .forEach(tile -> scores.add(new TileScoreInfo(tile, getBlockingObjectRemovalScore(gameState, tile))));
-        return scores.stream().max((TileScoreInfo t1, TileScoreInfo t2) -> {
-            int result = Integer.compare(t1.score, t2.score);
-            // if the score is the same, use the coordinates to eliminate randomness
-            if (result == 0) {
-                result = t1.tile.compareTo(t2.tile);
-            }
-            return result;
-        }).orElse(new TileScoreInfo(null, -1));
-    }
-
     private int getBlockingObjectRemovalScore(GameState gameState, HexTile tile) {
-        if (PalmTree.class.isAssignableFrom(tile.getContent().getClass())) {
+        if (tile.getContent().getKind() == Kind.PALM_TREE) {
             return getPalmTreeRemovalScore(gameState, tile);
-        } else if (Tree.class.isAssignableFrom(tile.getContent().getClass())) {
+        } else if (tile.getContent().getKind() == Kind.TREE) {
             return getRegularTreeRemovalScore(gameState, tile);
-        } else if (Gravestone.class.isAssignableFrom(tile.getContent().getClass())) {
+        } else if (tile.getContent().getKind() == Kind.GRAVESTONE) {
             return getGraveStoneRemovalScore(gameState, tile);
         } else {
             throw new IllegalStateException("Tile content is unexpected class " + tile.getContent().getClass());
@@ -532,7 +503,7 @@ public class BotAi {
                     hasSpaceToSpread = true;
                 }
                 if (neighborTile.getContent() != null
-                        && Tree.class.isAssignableFrom(neighborTile.getContent().getClass())) {
+                        && neighborTile.getContent().getKind() == Kind.TREE) {
                     hasPartnerTree = true;
                 }
             }
@@ -556,7 +527,7 @@ public class BotAi {
     }
 
     private boolean isBeachTile(GameState gameState, HexTile tile) {
-        return HexMapHelper.getNeighborTiles(gameState.getMap(), tile).contains(null);
+        return HexMapHelper.isCoastTile(gameState.getMap(), tile);
     }
 
     private boolean areTilesInTheSameKingdom(HexTile tile1, HexTile tile2) {
@@ -567,19 +538,9 @@ public class BotAi {
         return tile.getContent() != null;
     }
 
-    private TileScoreInfo getBestDefenseTileScore(GameState gameState, Intelligence intelligence,
-                                                  Set<HexTile> interestingProtectionTiles) {
-        Set<TileScoreInfo> results = Collections.newSetFromMap(new ConcurrentHashMap<TileScoreInfo, Boolean>());
-        interestingProtectionTiles.parallelStream().forEach(
-                tile -> results.add(new TileScoreInfo(tile, getTileDefenseScore(gameState, intelligence, tile))));
-        return results.stream().max((TileScoreInfo t1, TileScoreInfo t2) -> {
-            int result = Integer.compare(t1.score, t2.score);
-            // if the score is the same, use the coordinates to eliminate randomness
-            if (result == 0) {
-                result = t1.tile.compareTo(t2.tile);
-            }
-            return result;
-        }).orElse(new TileScoreInfo(null, -1));
+    private TileScoreQueue createProtectionCandidateQueue(GameState gameState, Intelligence intelligence) {
+        return new TileScoreQueue(gameState.getMap(), getInterestingProtectionTiles(gameState),
+                tile -> getTileDefenseScore(gameState, intelligence, tile), scoringScheduler);
     }
 
     /**
@@ -661,7 +622,7 @@ public class BotAi {
             }
         } else {
             if (tile.getContent() != null) {
-                if (!ClassReflection.isAssignableFrom(Capital.class, tile.getContent().getClass())) {
+                if (tile.getContent().getKind() != Kind.CAPITAL) {
                     // destroying units or castles is better than conquering empty tiles
                     score = tile.getContent().getStrength() + 2;
                 } else {
@@ -671,16 +632,11 @@ public class BotAi {
             } else {
                 score = 2;
             }
-            // find out required strength and add some bonus for tiles next to multiple
-            // tiles of the own kingdom
-            ArrayList<HexTile> neighborTiles = new ArrayList<>(HexMapHelper.getNeighborTiles(gameState.getMap(), tile));
-            neighborTiles.add(tile);
-            for (HexTile neighborTile : neighborTiles) {
-                if (neighborTile != null && neighborTile.getKingdom() == tile.getKingdom()
-                        && neighborTile.getContent() != null
-                        && neighborTile.getContent().getStrength() >= requiredStrength) {
-                    requiredStrength = neighborTile.getContent().getStrength() + 1;
-                } else if (neighborTile != null && neighborTile.getKingdom() == gameState.getActiveKingdom()) {
+            // the map knows the strongest object protecting the tile
+            requiredStrength = GameStateHelper.getProtectionLevel(gameState, tile) + 1;
+            // add some bonus for tiles next to multiple tiles of the own kingdom
+            for (HexTile neighborTile : HexMapHelper.getNeighborTiles(gameState.getMap(), tile)) {
+                if (neighborTile != null && neighborTile.getKingdom() == gameState.getActiveKingdom()) {
                     score++;
                 }
             }
@@ -699,7 +655,7 @@ public class BotAi {
                                               Integer nrAvailableUnits) {
         logger.debug("conquering tile '{}' with stored unit '{}'", tile, unitType);
         if (nrAvailableUnits > 0) {
-            gameState.setHeldObject(new Unit(unitType));
+            gameState.setHeldObject(Unit.of(unitType));
             GameStateHelper.conquer(gameState, tile);
             return true;
         }
@@ -0,0 +1,234 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.HexGrid;
+import de.sesu8642.feudaltactics.lib.gamestate.HexTile;
+import de.sesu8642.feudaltactics.lib.gamestate.Kingdom;
+import de.sesu8642.feudaltactics.lib.gamestate.Unit.UnitTypes;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * The tiles the active kingdom could conquer, i.e. the tiles next to it that belong to something else, ordered by
+ * their offense scores. After a conquest, only the candidates next to the tiles that were changed by it are updated
+ * instead of scoring all of them again.
+ *
+ * <p>The candidates are ordered by score and, if the scores are the same, by their coordinates to eliminate
+ * randomness. They are kept separately by the strength required to conquer them, so the best candidate that can be
+ * conquered with the available units is found without looking at the ones that can't.
+ *
+ * <p>The changed tiles are reported by the map while the candidates exist, so they must be closed afterwards.
+ */
+class ConquerCandidates implements AutoCloseable {
+
+    private static final Comparator<OffenseTileScoreInfo> ORDER = (OffenseTileScoreInfo o1,
+                                                                   OffenseTileScoreInfo o2) -> {
+        int result = Integer.compare(o2.score, o1.score);
+        if (result == 0) {
+            result = o1.tile.compareTo(o2.tile);
+        }
+        return result;
+    };
+
+    // candidates that require more strength than the strongest unit has are kept together
+    private static final int MAX_REQUIRED_STRENGTH = UnitTypes.strongest().strength() + 1;
+
+    private final GameState gameState;
+    private final Function<HexTile, OffenseTileScoreInfo> scoreFunction;
+    private final ScoringScheduler scoringScheduler;
+    private final HexGrid map;
+    // index = required strength
+    private final TreeSet<OffenseTileScoreInfo>[] candidatesByRequiredStrength;
+    private OffenseTileScoreInfo[] candidateBySlot;
+    private int[] updateRoundBySlot;
+    private int updateRound = 0;
+    private Kingdom kingdom;
+    private int size;
+    // slots that changed since the candidates were last updated and whether the tiles were moved to other slots
+    private final BitSet changedSlots = new BitSet();
+    private boolean slotsMoved = false;
+
+    /**
+     * Constructor.
+     *
+     * @param gameState        game state; the candidates are the ones of its active kingdom
+     * @param scoreFunction    function calculating the offense score of a tile; must only depend on the tile and
+     *                         its neighbors
+     * @param scoringScheduler scheduler to calculate the scores with
+     */
+    @SuppressWarnings("unchecked")
+    ConquerCandidates(GameState gameState, Function<HexTile, OffenseTileScoreInfo> scoreFunction,
+                      ScoringScheduler scoringScheduler) {
+        this.gameState = gameState;
+        this.scoreFunction = scoreFunction;
+        this.scoringScheduler = scoringScheduler;
+        map = gameState.getMap();
+        candidatesByRequiredStrength = new TreeSet[MAX_REQUIRED_STRENGTH + 1];
+        for (int i = 0; i < candidatesByRequiredStrength.length; i++) {
+            candidatesByRequiredStrength[i] = new TreeSet<>(ORDER);
+        }
+        map.setSlotChangeListener(new HexGrid.SlotChangeListener() {
+            @Override
+            public void slotChanged(int slot) {
+                changedSlots.set(slot);
+            }
+
+            @Override
+            public void slotsMoved() {
+                slotsMoved = true;
+            }
+        });
+        determineAllCandidates();
+    }
+
+    /**
+     * Returns whether there is nothing to conquer, which means the bot won the game.
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the best candidate that can be conquered with a unit of the given strength.
+     *
+     * @param strength strength of the strongest available unit
+     * @return best candidate or null if none of them can be conquered
+     */
+    OffenseTileScoreInfo getBest(int strength) {
+        OffenseTileScoreInfo best = null;
+        for (int i = 1; i <= Math.min(strength, MAX_REQUIRED_STRENGTH); i++) {
+            if (!candidatesByRequiredStrength[i].isEmpty()) {
+                OffenseTileScoreInfo first = candidatesByRequiredStrength[i].first();
+                if (best == null || ORDER.compare(first, best) < 0) {
+                    best = first;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the minimum strength required to conquer any of the candidates.
+     *
+     * @return minimum required strength or -1 if there are no candidates
+     */
+    int getMinimumRequiredStrength() {
+        for (int i = 1; i < MAX_REQUIRED_STRENGTH; i++) {
+            if (!candidatesByRequiredStrength[i].isEmpty()) {
+                return i;
+            }
+        }
+        return candidatesByRequiredStrength[MAX_REQUIRED_STRENGTH].stream()
+                .mapToInt(candidate -> candidate.requiredStrength).min().orElse(-1);
+    }
+
+    /**
+     * Updates the candidates after the map was changed, e.g. by conquering a tile.
+     */
+    void update() {
+        if (gameState.getActiveKingdom() != kingdom || slotsMoved || changedSlots.length() > candidateBySlot.length) {
+            // the active kingdom was merged into another one or the slots don't match the ones of the candidates
+            determineAllCandidates();
+            return;
+        }
+        updateRound++;
+        List<HexTile> newCandidateTiles = new ArrayList<>();
+        for (int slot = changedSlots.nextSetBit(0); slot >= 0; slot = changedSlots.nextSetBit(slot + 1)) {
+            // both whether a tile is a candidate and its score only depend on the tile and its neighbors
+            invalidateCandidate(slot, newCandidateTiles);
+            for (int i = 0; i < HexGrid.NEIGHBOR_COUNT; i++) {
+                int neighborSlot = map.getNeighborSlot(slot, i);
+                if (neighborSlot != HexGrid.NO_SLOT) {
+                    invalidateCandidate(neighborSlot, newCandidateTiles);
+                }
+            }
+        }
+        addCandidates(newCandidateTiles);
+        changedSlots.clear();
+    }
+
+    /**
+     * Stops the map from reporting the changed tiles.
+     */
+    @Override
+    public void close() {
+        map.setSlotChangeListener(null);
+    }
+
+    private void determineAllCandidates() {
+        kingdom = gameState.getActiveKingdom();
+        for (TreeSet<OffenseTileScoreInfo> candidates : candidatesByRequiredStrength) {
+            candidates.clear();
+        }
+        candidateBySlot = new OffenseTileScoreInfo[map.getSlotCount()];
+        updateRoundBySlot = new int[map.getSlotCount()];
+        updateRound = 1;
+        size = 0;
+        List<HexTile> newCandidateTiles = new ArrayList<>();
+        for (HexTile tile : kingdom.getTiles()) {
+            int slot = map.getSlot(tile);
+            for (int i = 0; i < HexGrid.NEIGHBOR_COUNT; i++) {
+                int neighborSlot = map.getNeighborSlot(slot, i);
+                if (neighborSlot != HexGrid.NO_SLOT) {
+                    invalidateCandidate(neighborSlot, newCandidateTiles);
+                }
+            }
+        }
+        addCandidates(newCandidateTiles);
+        changedSlots.clear();
+        slotsMoved = false;
+    }
+
+    /**
+     * Removes the candidate in a slot, if any, and remembers the tile in the slot if it is a candidate now, so it is
+     * scored and added again. Does nothing if this was already done in the current update.
+     */
+    private void invalidateCandidate(int slot, List<HexTile> newCandidateTiles) {
+        if (updateRoundBySlot[slot] == updateRound) {
+            return;
+        }
+        updateRoundBySlot[slot] = updateRound;
+        OffenseTileScoreInfo oldCandidate = candidateBySlot[slot];
+        if (oldCandidate != null) {
+            getCandidates(oldCandidate.requiredStrength).remove(oldCandidate);
+            candidateBySlot[slot] = null;
+            size--;
+        }
+        if (isCandidate(slot)) {
+            newCandidateTiles.add(map.getTileInSlot(slot));
+        }
+    }
+
+    private void addCandidates(List<HexTile> newCandidateTiles) {
+        for (OffenseTileScoreInfo candidate : scoringScheduler.scoreAll(newCandidateTiles, scoreFunction)) {
+            getCandidates(candidate.requiredStrength).add(candidate);
+            candidateBySlot[map.getSlot(candidate.tile)] = candidate;
+            size++;
+        }
+    }
+
+    private boolean isCandidate(int slot) {
+        if (map.getKingdomInSlot(slot) == kingdom) {
+            return false;
+        }
+        for (int i = 0; i < HexGrid.NEIGHBOR_COUNT; i++) {
+            int neighborSlot = map.getNeighborSlot(slot, i);
+            if (neighborSlot != HexGrid.NO_SLOT && map.getKingdomInSlot(neighborSlot) == kingdom) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private TreeSet<OffenseTileScoreInfo> getCandidates(int requiredStrength) {
+        return candidatesByRequiredStrength[Math.min(requiredStrength, MAX_REQUIRED_STRENGTH)];
+    }
+
+}
@@ -56,6 +56,20 @@ class PickedUpUnits {
         internalPickedUpUnits.put(strength, internalPickedUpUnits.get(strength) - amount);
     }
 
+    /**
+     * Returns the strength of the strongest picked up unit.
+     *
+     * @return strength or 0 if there are no units
+     */
+    public int getStrongestStrength() {
+        for (int strength = UnitTypes.strongest().strength(); strength > 0; strength--) {
+            if (internalPickedUpUnits.get(strength) > 0) {
+                return strength;
+            }
+        }
+        return 0;
+    }
+
     public int getTotalNoOfUnits() {
         return internalPickedUpUnits.values().stream().mapToInt(Integer::intValue).sum();
     }
@@ -0,0 +1,140 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+import de.sesu8642.feudaltactics.lib.gamestate.HexTile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * Scores tiles for the bots, either sequentially or in parallel on a pool of its own. Only large numbers of tiles are
+ * scored in parallel because for a few tiles, splitting up the work costs more than it saves. The results are in the
+ * order of the tiles no matter which thread scored which tile, so the bots' decisions don't depend on the threads.
+ */
+public class ScoringScheduler {
+
+    // number of parts per thread the work is split into to balance it if some parts take longer
+    private static final int PARTS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    /**
+     * Constructor.
+     *
+     * @param pool              pool to score in; null to always score sequentially
+     * @param parallelThreshold minimum number of tiles to score in parallel
+     */
+    public ScoringScheduler(ForkJoinPool pool, int parallelThreshold) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException(
+                    String.format("parallel threshold must be positive but is %s", parallelThreshold));
+        }
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Creates a scheduler that scores everything in the calling thread.
+     *
+     * @return new scheduler
+     */
+    public static ScoringScheduler sequential() {
+        return new ScoringScheduler(null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Scores tiles.
+     *
+     * @param tiles         tiles to score
+     * @param scoreFunction function calculating the score of a tile; must not change anything because it may be
+     *                      called from different threads at the same time
+     * @param <T>           type of the score
+     * @return scores in the order of the tiles
+     */
+    public <T> List<T> scoreAll(List<HexTile> tiles, Function<HexTile, T> scoreFunction) {
+        if (pool == null || tiles.size() < parallelThreshold) {
+            List<T> results = new ArrayList<>(tiles.size());
+            for (HexTile tile : tiles) {
+                results.add(scoreFunction.apply(tile));
+            }
+            return results;
+        }
+        // the threads read from an array of their own, so they don't depend on how the list handles concurrent reads
+        HexTile[] tileArray = tiles.toArray(new HexTile[0]);
+        Object[] results = new Object[tileArray.length];
+        int partSize = Math.max(1, tileArray.length / (pool.getParallelism() * PARTS_PER_THREAD));
+        pool.invoke(new ScoringTask<>(tileArray, scoreFunction, results, 0, tileArray.length, partSize));
+        @SuppressWarnings("unchecked")
+        List<T> resultList = (List<T>) Arrays.asList(results);
+        return resultList;
+    }
+
+    /**
+     * Shuts down the pool, if any. Tiles can't be scored in parallel anymore afterwards.
+     */
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    public int getThreadCount() {
+        return pool == null ? 1 : pool.getParallelism();
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ScoringScheduler [threadCount=%s, parallelThreshold=%s]", getThreadCount(),
+                parallelThreshold);
+    }
+
+    /**
+     * Task scoring a range of the tiles; splits itself up until the ranges are small enough.
+     */
+    private static final class ScoringTask<T> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient HexTile[] tiles;
+        private final transient Function<HexTile, T> scoreFunction;
+        private final transient Object[] results;
+        private final int from;
+        private final int to;
+        private final int partSize;
+
+        ScoringTask(HexTile[] tiles, Function<HexTile, T> scoreFunction, Object[] results, int from, int to,
+                    int partSize) {
+            this.tiles = tiles;
+            this.scoreFunction = scoreFunction;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.partSize = partSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= partSize) {
+                for (int i = from; i < to; i++) {
+                    // every task writes to its own range, so no synchronization is needed
+                    results[i] = scoreFunction.apply(tiles[i]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ScoringTask<>(tiles, scoreFunction, results, from, middle, partSize),
+                    new ScoringTask<>(tiles, scoreFunction, results, middle, to, partSize));
+        }
+    }
+
+}
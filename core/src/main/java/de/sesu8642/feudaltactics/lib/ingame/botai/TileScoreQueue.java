@@ -0,0 +1,196 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.lib.ingame.botai;
+
+import de.sesu8642.feudaltactics.lib.gamestate.HexGrid;
+import de.sesu8642.feudaltactics.lib.gamestate.HexTile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Priority queue of the tiles of a map by score. The scores are kept up to date by rescoring only the tiles near a
+ * changed tile instead of all of them. The tile with the highest score comes first; if the scores are the same, the
+ * greater tile according to {@link HexTile#compareTo(HexTile)} comes first, so the order doesn't depend on the order
+ * the tiles were added in.
+ *
+ * <p>The tiles are identified by their slots in the map, so the map must not get any new tiles or lose any while the
+ * queue is used.
+ */
+class TileScoreQueue {
+
+    private static final int NOT_QUEUED = -1;
+
+    private final HexGrid map;
+    private final ToIntFunction<HexTile> scoreFunction;
+    // binary heap of slots
+    private final int[] heap;
+    private int size = 0;
+    // position of every slot in the heap
+    private final int[] heapIndexBySlot;
+    private final int[] scoreBySlot;
+
+    /**
+     * Constructor.
+     *
+     * @param map              map the tiles are on
+     * @param tiles            tiles to put into the queue
+     * @param scoreFunction    function calculating the score of a tile; must only depend on the tile and the tiles
+     *                         at most two tiles away from it
+     * @param scoringScheduler scheduler to calculate the initial scores with
+     */
+    TileScoreQueue(HexGrid map, Collection<HexTile> tiles, ToIntFunction<HexTile> scoreFunction,
+                   ScoringScheduler scoringScheduler) {
+        this.map = map;
+        this.scoreFunction = scoreFunction;
+        heapIndexBySlot = new int[map.getSlotCount()];
+        Arrays.fill(heapIndexBySlot, NOT_QUEUED);
+        scoreBySlot = new int[map.getSlotCount()];
+        List<HexTile> uniqueTiles = new ArrayList<>(tiles.size());
+        for (HexTile tile : tiles) {
+            int slot = getSlot(tile);
+            if (heapIndexBySlot[slot] == NOT_QUEUED) {
+                heapIndexBySlot[slot] = uniqueTiles.size();
+                uniqueTiles.add(tile);
+            }
+        }
+        List<Integer> scores = scoringScheduler.scoreAll(uniqueTiles, scoreFunction::applyAsInt);
+        heap = new int[uniqueTiles.size()];
+        for (HexTile tile : uniqueTiles) {
+            int slot = getSlot(tile);
+            scoreBySlot[slot] = scores.get(size);
+            heap[size] = slot;
+            size++;
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    /**
+     * Returns the tile with the highest score.
+     *
+     * @return tile and score or a score info without a tile and a score of -1 if the queue is empty
+     */
+    TileScoreInfo peek() {
+        if (size == 0) {
+            return new TileScoreInfo(null, -1);
+        }
+        return new TileScoreInfo(map.getTileInSlot(heap[0]), scoreBySlot[heap[0]]);
+    }
+
+    /**
+     * Removes a tile from the queue if it is in there.
+     */
+    void remove(HexTile tile) {
+        int slot = getSlot(tile);
+        int index = heapIndexBySlot[slot];
+        if (index == NOT_QUEUED) {
+            return;
+        }
+        size--;
+        heapIndexBySlot[slot] = NOT_QUEUED;
+        if (index == size) {
+            return;
+        }
+        // fill the gap with the last slot and move that one to where it belongs
+        int movedSlot = heap[size];
+        heap[index] = movedSlot;
+        heapIndexBySlot[movedSlot] = index;
+        siftUp(index);
+        siftDown(heapIndexBySlot[movedSlot]);
+    }
+
+    /**
+     * Recalculates the scores of the queued tiles that can have changed because the given tile was changed: the tile
+     * itself and the ones at most two tiles away.
+     *
+     * @param changedTile tile that was changed
+     */
+    void updateScoresAround(HexTile changedTile) {
+        int slot = getSlot(changedTile);
+        updateScore(slot);
+        for (int i = 0; i < HexGrid.NEIGHBOR_COUNT; i++) {
+            updateScore(map.getNeighborSlot(slot, i));
+        }
+        for (int i = 0; i < HexGrid.NEIGHBORS_NEIGHBOR_COUNT; i++) {
+            updateScore(map.getNeighborsNeighborSlot(slot, i));
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void updateScore(int slot) {
+        if (slot == HexGrid.NO_SLOT || heapIndexBySlot[slot] == NOT_QUEUED) {
+            return;
+        }
+        int oldScore = scoreBySlot[slot];
+        scoreBySlot[slot] = scoreFunction.applyAsInt(map.getTileInSlot(slot));
+        if (scoreBySlot[slot] > oldScore) {
+            siftUp(heapIndexBySlot[slot]);
+        } else if (scoreBySlot[slot] < oldScore) {
+            siftDown(heapIndexBySlot[slot]);
+        }
+    }
+
+    private int getSlot(HexTile tile) {
+        int slot = map.getSlot(tile);
+        if (slot == HexGrid.NO_SLOT) {
+            throw new IllegalArgumentException(String.format("Tile %s is not on the map.", tile));
+        }
+        return slot;
+    }
+
+    private boolean isBefore(int slot1, int slot2) {
+        int result = Integer.compare(scoreBySlot[slot1], scoreBySlot[slot2]);
+        if (result == 0) {
+            // if the score is the same, use the coordinates to eliminate randomness
+            result = map.getTileInSlot(slot1).compareTo(map.getTileInSlot(slot2));
+        }
+        return result > 0;
+    }
+
+    private void siftUp(int index) {
+        int slot = heap[index];
+        while (index > 0) {
+            int parentIndex = (index - 1) / 2;
+            int parentSlot = heap[parentIndex];
+            if (!isBefore(slot, parentSlot)) {
+                break;
+            }
+            heap[index] = parentSlot;
+            heapIndexBySlot[parentSlot] = index;
+            index = parentIndex;
+        }
+        heap[index] = slot;
+        heapIndexBySlot[slot] = index;
+    }
+
+    private void siftDown(int index) {
+        int slot = heap[index];
+        while (true) {
+            int childIndex = 2 * index + 1;
+            if (childIndex >= size) {
+                break;
+            }
+            if (childIndex + 1 < size && isBefore(heap[childIndex + 1], heap[childIndex])) {
+                childIndex++;
+            }
+            int childSlot = heap[childIndex];
+            if (!isBefore(childSlot, slot)) {
+                break;
+            }
+            heap[index] = childSlot;
+            heapIndexBySlot[childSlot] = index;
+            index = childIndex;
+        }
+        heap[index] = slot;
+        heapIndexBySlot[slot] = index;
+    }
+
+}
@@ -13,10 +13,10 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
-import com.badlogic.gdx.utils.reflect.ClassReflection;
 import com.google.common.collect.ImmutableList;
 import de.sesu8642.feudaltactics.lib.gamestate.*;
 import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.gamestate.TileContent.Kind;
 
 import java.util.*;
 import java.util.Map.Entry;
@@ -134,31 +134,19 @@ public class MapRenderer {
             drawTile.mapCoords = mapCoords;
             drawTile.color = PLAYER_COLOR_PALETTE.get(tile.getPlayer().getPlayerIndex());
             // create beaches on the edges
-            List<HexTile> neighbors = HexMapHelper.getNeighborTiles(gameState.getMap(), tile);
-            if (neighbors.get(0) == null) {
-                // top left
-                drawTile.topLeftBeach = true;
-            }
-            if (neighbors.get(1) == null) {
-                // top
-                drawTile.topBeach = true;
-            }
-            if (neighbors.get(2) == null) {
-                // top right
-                drawTile.topRightBeach = true;
-            }
-            if (neighbors.get(3) == null) {
-                // bottom right
-                drawTile.bottomRightBeach = true;
-            }
-            if (neighbors.get(4) == null) {
-                // bottom
-                drawTile.bottomBeach = true;
-            }
-            if (neighbors.get(5) == null) {
-                // bottom left
-                drawTile.bottomLeftBeach = true;
-            }
+            int waterMask = HexMapHelper.getWaterMask(gameState.getMap(), tile);
+            // top left
+            drawTile.topLeftBeach = (waterMask & 1) != 0;
+            // top
+            drawTile.topBeach = (waterMask & 1 << 1) != 0;
+            // top right
+            drawTile.topRightBeach = (waterMask & 1 << 2) != 0;
+            // bottom right
+            drawTile.bottomRightBeach = (waterMask & 1 << 3) != 0;
+            // bottom
+            drawTile.bottomBeach = (waterMask & 1 << 4) != 0;
+            // bottom left
+            drawTile.bottomLeftBeach = (waterMask & 1 << 5) != 0;
 
             // create lines for highlighting active kingdom
             if (gameState.getActiveKingdom() != null && tile.getKingdom() != null
@@ -210,11 +198,10 @@ public class MapRenderer {
             if (tileContent != null) {
                 boolean animate = false;
                 if (tile.getKingdom() != null && tile.getKingdom().getPlayer() == gameState.getActivePlayer()) {
-                    if (ClassReflection.isAssignableFrom(Unit.class, tileContent.getClass())
-                            && ((Unit) tileContent).isCanAct()) {
+                    if (tileContent.getKind() == Kind.UNIT && ((Unit) tileContent).isCanAct()) {
                         // animate units that can act
                         animate = true;
-                    } else if (ClassReflection.isAssignableFrom(Capital.class, tileContent.getClass())
+                    } else if (tileContent.getKind() == Kind.CAPITAL
                             && gameState.getActivePlayer() == tile.getKingdom().getPlayer()
                             && tile.getKingdom().getSavings() > Unit.COST) {
                         // animate capitals if they can buy something
@@ -239,7 +226,7 @@ public class MapRenderer {
                             // darken own units that have already acted
                             || (tile.getPlayer() == gameState.getActivePlayer() && gameState.getHeldObject() == null
                             && tile.getContent() != null
-                            && ClassReflection.isAssignableFrom(Unit.class, tileContent.getClass())
+                            && tileContent.getKind() == Kind.UNIT
                             && !((Unit) tile.getContent()).isCanAct())) {
                         // darkened content
                         darkenedNonAnimatedContents.put(
@@ -37,8 +37,7 @@ class GameStateHelperKingdomSplitTest {
     }
 
     static Stream<Arguments> provideMapContents() {
-        Unit conqueringUnit = new Unit(UnitTypes.BARON);
-        conqueringUnit.setCanAct(false);
+        Unit conqueringUnit = Unit.of(UnitTypes.BARON, false);
         return Stream.of(
                 // capital and empty tile, conquering capital --> capital destroyed
                 Arguments.of(Arrays.asList(new Capital(), null), 0, Arrays.asList(conqueringUnit, null)),
@@ -48,8 +47,8 @@ class GameStateHelperKingdomSplitTest {
 
                 // capital and unit, conquering capital --> unit stays (turns into gravestone
                 // later)
-                Arguments.of(Arrays.asList(new Capital(), new Unit(UnitTypes.PEASANT)), 0,
-                        Arrays.asList(conqueringUnit, new Unit(UnitTypes.PEASANT))),
+                Arguments.of(Arrays.asList(new Capital(), Unit.of(UnitTypes.PEASANT)), 0,
+                        Arrays.asList(conqueringUnit, Unit.of(UnitTypes.PEASANT))),
 
                 // capital and tree, conquering capital --> tree stays
                 Arguments.of(Arrays.asList(new Capital(), new Tree()), 0, Arrays.asList(conqueringUnit, new Tree())),
@@ -72,12 +71,12 @@ class GameStateHelperKingdomSplitTest {
 
                 // capital, unit, empty tile, conquering capital --> capital moves to the right
                 // tile
-                Arguments.of(Arrays.asList(new Capital(), new Unit(UnitTypes.SPEARMAN), null), 0,
-                        Arrays.asList(conqueringUnit, new Unit(UnitTypes.SPEARMAN), new Capital())),
+                Arguments.of(Arrays.asList(new Capital(), Unit.of(UnitTypes.SPEARMAN), null), 0,
+                        Arrays.asList(conqueringUnit, Unit.of(UnitTypes.SPEARMAN), new Capital())),
 
                 // capital, unit, tree, conquering capital --> capital moves to where the unit
                 // was
-                Arguments.of(Arrays.asList(new Capital(), new Unit(UnitTypes.SPEARMAN), new Tree()), 0,
+                Arguments.of(Arrays.asList(new Capital(), Unit.of(UnitTypes.SPEARMAN), new Tree()), 0,
                         Arrays.asList(conqueringUnit, new Capital(), new Tree())),
 
                 // capital, empty tile, empty tile, conquering empty tile in the middle -->
@@ -124,7 +123,7 @@ class GameStateHelperKingdomSplitTest {
         gameState.setKingdoms(Stream.of(attackedKingdom, attackingKingdom).collect(Collectors.toList()));
 
         // prepare a baron for conquering
-        Unit conqueringUnit = new Unit(UnitTypes.BARON);
+        Unit conqueringUnit = Unit.of(UnitTypes.BARON);
         gameState.setHeldObject(conqueringUnit);
         gameState.setActiveKingdom(attackingKingdom);
 
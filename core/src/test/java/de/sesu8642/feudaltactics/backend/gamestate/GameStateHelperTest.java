@@ -2,9 +2,10 @@
 
 package de.sesu8642.feudaltactics.backend.gamestate;
 
-import de.sesu8642.feudaltactics.lib.gamestate.GameState;
-import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
-import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import com.badlogic.gdx.math.Vector2;
+import de.sesu8642.feudaltactics.ingame.NewGamePreferences.Densities;
+import de.sesu8642.feudaltactics.ingame.NewGamePreferences.MapSizes;
+import de.sesu8642.feudaltactics.lib.gamestate.*;
 import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,11 +15,22 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -47,6 +59,18 @@ class GameStateHelperTest {
         return Stream.of(1L, 42L, 69L, 360L, 420L, 1024L, 9999L);
     }
 
+    static Stream<Arguments> provideSeedsMapSizesAndDensities() {
+        List<Arguments> result = new ArrayList<>();
+        provideSeeds().forEach(seed -> {
+            for (MapSizes mapSize : MapSizes.values()) {
+                for (Densities density : Densities.values()) {
+                    result.add(Arguments.of(seed, mapSize, density));
+                }
+            }
+        });
+        return result.stream();
+    }
+
     @BeforeEach
     void init() {
         players = new ArrayList<>();
@@ -66,6 +90,364 @@ class GameStateHelperTest {
         assertEquals(original, copy);
     }
 
+    @Test
+    void copiedGameStateSharesContents() {
+        GameState original = new GameState();
+        GameStateHelper.initializeMap(original, players, 500, 2, 0.2F, 12345L);
+        original.getMap().values().iterator().next().setContent(Unit.of(Unit.UnitTypes.KNIGHT, false));
+
+        GameState copy = GameStateHelper.getCopy(original);
+
+        for (HexTile tile : original.getMap().values()) {
+            assertSame(tile.getContent(), copy.getMap().get(tile.getPosition()).getContent());
+        }
+    }
+
+    @Test
+    void gameStateCopiedIntoOtherGameStateEqualsOriginal() {
+        GameState original = new GameState();
+        GameStateHelper.initializeMap(original, players, 500, 2, 0.2F, 12345L);
+        original.setActiveKingdom(original.getKingdoms().get(0));
+        GameState target = new GameState();
+        List<Player> otherPlayers = new ArrayList<>();
+        otherPlayers.add(new Player(0, Type.LOCAL_PLAYER));
+        otherPlayers.add(new Player(1, Type.LOCAL_BOT));
+        GameStateHelper.initializeMap(target, otherPlayers, 300, -2, 0.2F, 42L);
+        HexTile reusableTile = target.getMap().get(new Vector2(0, 0));
+
+        GameStateHelper.copyInto(original, target);
+
+        assertEquals(original, target);
+        assertEquals(new ArrayList<>(original.getMap().keySet()), new ArrayList<>(target.getMap().keySet()));
+        assertSame(reusableTile, target.getMap().get(new Vector2(0, 0)));
+
+        // copying again after some changes
+        GameStateHelper.endTurn(original);
+        GameStateHelper.copyInto(original, target);
+
+        assertEquals(original, target);
+    }
+
+    @Test
+    void exactCopyIsIdenticalToOriginal() {
+        GameState original = new GameState();
+        GameStateHelper.initializeMap(original, players, 500, 2, 0.2F, 12345L);
+        // leaves an empty slot in the map
+        GameStateHelper.deleteTile(original, original.getMap().values().iterator().next());
+        GameStateHelper.endTurn(original);
+
+        GameState copy = GameStateHelper.getExactCopy(original);
+
+        assertEquals(original, copy);
+        assertEquals(original.hashCode(), copy.hashCode());
+        assertEquals(original.getFingerprint(), copy.getFingerprint());
+        assertEquals(new ArrayList<>(original.getMap().keySet()), new ArrayList<>(copy.getMap().keySet()));
+        for (int i = 0; i < original.getKingdoms().size(); i++) {
+            assertEquals(new ArrayList<>(original.getKingdoms().get(i).getTiles()),
+                    new ArrayList<>(copy.getKingdoms().get(i).getTiles()));
+        }
+        assertProtectionLevelsAreUpToDate(copy);
+        assertKingdomAggregatesAreUpToDate(copy);
+        assertKingdomCountsAndProgressingSlotsAreUpToDate(copy);
+
+        // the game continues the same way on both
+        for (int i = 0; i < 10; i++) {
+            GameStateHelper.endTurn(original);
+            GameStateHelper.endTurn(copy);
+        }
+        assertEquals(original, copy);
+    }
+
+    @Test
+    void snapshotIsNotAffectedByLaterChanges() {
+        GameState original = new GameState();
+        GameStateHelper.initializeMap(original, players, 500, 2, 0.2F, 12345L);
+        original.setActiveKingdom(original.getKingdoms().get(0));
+        GameState expected = GameStateHelper.getCopy(original);
+
+        GameStateSnapshot snapshot = GameStateHelper.getSnapshot(original);
+        for (int i = 0; i < 10; i++) {
+            GameStateHelper.endTurn(original);
+        }
+        Vector2 firstPosition = original.getMap().keySet().iterator().next();
+        GameStateHelper.deleteTile(original, original.getMap().get(firstPosition));
+        for (HexTile tile : original.getMap().values()) {
+            tile.setContent(new Gravestone());
+        }
+
+        assertEquals(expected, snapshot.getGameState());
+        assertEquals(500, snapshot.getGameState().getMap().size());
+        assertNotEquals(original, snapshot.getGameState());
+    }
+
+    @Test
+    void fingerprintIsKeptUpToDate() {
+        GameState gameState = new GameState();
+        GameStateHelper.initializeMap(gameState, players, 500, 2, 0.2F, 12345L);
+        // map generation shuffles the players, so the other game state needs its own ones
+        List<Player> samePlayers = new ArrayList<>();
+        samePlayers.add(new Player(0, Type.LOCAL_BOT));
+        samePlayers.add(new Player(1, Type.LOCAL_BOT));
+        samePlayers.add(new Player(2, Type.LOCAL_PLAYER));
+        GameState sameGameState = new GameState();
+        GameStateHelper.initializeMap(sameGameState, samePlayers, 500, 2, 0.2F, 12345L);
+        assertEquals(gameState.getFingerprint(), sameGameState.getFingerprint());
+
+        for (int i = 0; i < 10; i++) {
+            long fingerprintBefore = gameState.getFingerprint();
+            GameStateHelper.endTurn(gameState);
+            assertNotEquals(fingerprintBefore, gameState.getFingerprint());
+            // the copy's fingerprint is built from scratch
+            assertEquals(GameStateHelper.getCopy(gameState).getFingerprint(), gameState.getFingerprint());
+        }
+        HexTile tile = gameState.getMap().values().iterator().next();
+        GameStateHelper.deleteTile(gameState, tile);
+        assertEquals(GameStateHelper.getCopy(gameState).getFingerprint(), gameState.getFingerprint());
+        gameState.getKingdoms().get(0).setSavings(1234);
+        assertEquals(GameStateHelper.getCopy(gameState).getFingerprint(), gameState.getFingerprint());
+    }
+
+    @Test
+    void fingerprintDependsOnWhichKingdomHasWhichState() {
+        GameState gameState = new GameState();
+        GameStateHelper.initializeMap(gameState, players, 500, 2, 0.2F, 12345L);
+        Kingdom kingdom = null;
+        Kingdom otherKingdom = null;
+        for (Kingdom candidate : gameState.getKingdoms()) {
+            kingdom = gameState.getKingdoms().stream()
+                    .filter(other -> other != candidate && other.getPlayer() == candidate.getPlayer()).findFirst()
+                    .orElse(null);
+            if (kingdom != null) {
+                otherKingdom = candidate;
+                break;
+            }
+        }
+        assertNotNull(kingdom);
+        gameState.setActiveKingdom(null);
+        kingdom.setSavings(10);
+        otherKingdom.setSavings(20);
+        long fingerprint = gameState.getFingerprint();
+
+        kingdom.setSavings(20);
+        otherKingdom.setSavings(10);
+        assertNotEquals(fingerprint, gameState.getFingerprint());
+        assertEquals(GameStateHelper.getCopy(gameState).getFingerprint(), gameState.getFingerprint());
+
+        // kingdoms in the same state
+        kingdom.setSavings(10);
+        otherKingdom.setSavings(10);
+        kingdom.setWasActiveInCurrentTurn(true);
+        otherKingdom.setWasActiveInCurrentTurn(true);
+        gameState.setActiveKingdom(kingdom);
+        fingerprint = gameState.getFingerprint();
+        gameState.setActiveKingdom(otherKingdom);
+        assertNotEquals(fingerprint, gameState.getFingerprint());
+    }
+
+    @Test
+    void kingdomAggregatesAreKeptUpToDate() {
+        GameState gameState = new GameState();
+        GameStateHelper.initializeMap(gameState, players, 500, 2, 0.2F, 12345L);
+        HexTile[] tiles = gameState.getMap().values().toArray(new HexTile[0]);
+        Random random = new Random(42);
+        assertKingdomAggregatesAreUpToDate(gameState);
+
+        for (int i = 0; i < 500; i++) {
+            if (i % 50 == 49) {
+                GameStateHelper.endTurn(gameState);
+            } else {
+                // conquer a random tile next to another player's kingdom
+                HexTile tile = tiles[random.nextInt(tiles.length)];
+                HexTile neighborTile = HexMapHelper.getNeighborTiles(gameState.getMap(), tile).get(random.nextInt(6));
+                if (neighborTile == null || neighborTile.getPlayer() == tile.getPlayer()
+                        || neighborTile.getKingdom() == null) {
+                    continue;
+                }
+                gameState.setActiveKingdom(neighborTile.getKingdom());
+                gameState.setHeldObject(Unit.of(Unit.UnitTypes.values()[random.nextInt(4)]));
+                GameStateHelper.conquer(gameState, tile);
+            }
+            assertKingdomAggregatesAreUpToDate(gameState);
+        }
+    }
+
+    @Test
+    void kingdomCountsAndProgressingSlotsAreKeptUpToDate() {
+        GameState gameState = new GameState();
+        GameStateHelper.initializeMap(gameState, players, 500, 2, 0.2F, 12345L);
+        HexTile[] tiles = gameState.getMap().values().toArray(new HexTile[0]);
+        Random random = new Random(42);
+        assertKingdomCountsAndProgressingSlotsAreUpToDate(gameState);
+
+        for (int i = 0; i < 1000; i++) {
+            if (i % 20 == 19) {
+                GameStateHelper.endTurn(gameState);
+            } else {
+                // conquer a random tile next to another player's kingdom, potentially cutting off units
+                HexTile tile = tiles[random.nextInt(tiles.length)];
+                HexTile neighborTile = HexMapHelper.getNeighborTiles(gameState.getMap(), tile).get(random.nextInt(6));
+                if (neighborTile == null || neighborTile.getPlayer() == tile.getPlayer()
+                        || neighborTile.getKingdom() == null) {
+                    continue;
+                }
+                gameState.setActiveKingdom(neighborTile.getKingdom());
+                gameState.setHeldObject(Unit.of(Unit.UnitTypes.values()[random.nextInt(4)]));
+                GameStateHelper.conquer(gameState, tile);
+            }
+            assertKingdomCountsAndProgressingSlotsAreUpToDate(gameState);
+        }
+    }
+
+    @Test
+    void protectionLevelsAreKeptUpToDate() {
+        GameState gameState = new GameState();
+        GameStateHelper.initializeMap(gameState, players, 500, 2, 0.2F, 12345L);
+        Random random = new Random(42);
+        assertProtectionLevelsAreUpToDate(gameState);
+
+        for (int i = 0; i < 1000; i++) {
+            HexTile[] tiles = gameState.getMap().values().toArray(new HexTile[0]);
+            HexTile tile = tiles[random.nextInt(tiles.length)];
+            HexTile neighborTile = HexMapHelper.getNeighborTiles(gameState.getMap(), tile).get(random.nextInt(6));
+            if (i % 50 == 49) {
+                GameStateHelper.endTurn(gameState);
+            } else if (i % 10 == 0) {
+                // change the map like the editor does
+                if (neighborTile == null) {
+                    Vector2 waterPosition = HexMapHelper.getNeighborCoords(tile.getPosition()).get(random.nextInt(6));
+                    GameStateHelper.placeTile(gameState, waterPosition, tile.getPlayer());
+                } else {
+                    GameStateHelper.deleteTile(gameState, tile);
+                }
+            } else if (neighborTile == null || neighborTile.getKingdom() == null) {
+                continue;
+            } else if (neighborTile.getPlayer() != tile.getPlayer()) {
+                // conquer with a random unit
+                gameState.setActiveKingdom(neighborTile.getKingdom());
+                gameState.setHeldObject(Unit.of(Unit.UnitTypes.values()[random.nextInt(4)]));
+                GameStateHelper.conquer(gameState, tile);
+            } else if (neighborTile.getKingdom() == tile.getKingdom()
+                    && neighborTile.getContent() instanceof Unit) {
+                // move a unit within its kingdom
+                gameState.setActiveKingdom(neighborTile.getKingdom());
+                GameStateHelper.pickupObject(gameState, neighborTile);
+                GameStateHelper.placeOwn(gameState, tile);
+            } else if (neighborTile.getKingdom() == tile.getKingdom() && tile.getContent() == null) {
+                // place a castle
+                gameState.setActiveKingdom(tile.getKingdom());
+                gameState.setHeldObject(Castle.INSTANCE);
+                GameStateHelper.placeOwn(gameState, tile);
+            }
+            assertProtectionLevelsAreUpToDate(gameState);
+        }
+        assertProtectionLevelsAreUpToDate(GameStateHelper.getCopy(gameState));
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideSeeds")
+    void treesSpreadLikeBefore(long seed) {
+        // two identical game states; the seed for spreading the trees is derived from the game state
+        GameState gameState = new GameState();
+        GameStateHelper.initializeMap(gameState, new ArrayList<>(players), 500, 2, 0.2F, seed);
+        GameState expectedGameState = new GameState();
+        GameStateHelper.initializeMap(expectedGameState, new ArrayList<>(players), 500, 2, 0.2F, seed);
+        HexTile[] tiles = gameState.getMap().values().toArray(new HexTile[0]);
+        HexTile[] expectedTiles = expectedGameState.getMap().values().toArray(new HexTile[0]);
+        Random random = new Random(seed);
+
+        for (int round = 0; round < 3000; round++) {
+            assertEquals(expectedGameState.hashCode(), gameState.hashCode());
+            spreadTreesLikeBefore(expectedGameState);
+            GameStateHelper.spreadTrees(gameState);
+            assertEquals(expectedGameState.getMap(), gameState.getMap());
+
+            // cut down some trees so that they keep spreading
+            for (int i = 0; i < 20; i++) {
+                int index = random.nextInt(tiles.length);
+                if (tiles[index].getContent() instanceof Tree || tiles[index].getContent() instanceof PalmTree) {
+                    tiles[index].setContent(null);
+                    expectedTiles[index].setContent(null);
+                }
+            }
+            gameState.setRound(round);
+            expectedGameState.setRound(round);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideSeedsMapSizesAndDensities")
+    void mapIsGeneratedLikeBefore(long seed, MapSizes mapSize, Densities density) {
+        GameState gameState = new GameState();
+        GameStateHelper.initializeMap(gameState, new ArrayList<>(players), mapSize.getAmountOfTiles(),
+                density.getDensityFloat(), 0.2F, seed);
+        GameState expectedGameState = new GameState();
+        initializeMapLikeBefore(expectedGameState, new ArrayList<>(players), mapSize.getAmountOfTiles(),
+                density.getDensityFloat(), 0.2F, seed);
+
+        assertEquals(expectedGameState, gameState);
+        assertEquals(expectedGameState.hashCode(), gameState.hashCode());
+        assertEquals(getPositions(expectedGameState.getMap().values()), getPositions(gameState.getMap().values()));
+        assertEquals(expectedGameState.getPlayers(), gameState.getPlayers());
+        assertEquals(expectedGameState.getKingdoms().size(), gameState.getKingdoms().size());
+        for (int i = 0; i < gameState.getKingdoms().size(); i++) {
+            assertEquals(getPositions(expectedGameState.getKingdoms().get(i).getTiles()),
+                    getPositions(gameState.getKingdoms().get(i).getTiles()));
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideSeeds")
+    void kingdomsAreSplitAndCombinedLikeBefore(long seed) {
+        GameState gameState = new GameState();
+        GameStateHelper.initializeMap(gameState, new ArrayList<>(players), 500, 2, 0.2F, seed);
+        GameState expectedGameState = new GameState();
+        GameStateHelper.initializeMap(expectedGameState, new ArrayList<>(players), 500, 2, 0.2F, seed);
+        HexTile[] tiles = gameState.getMap().values().toArray(new HexTile[0]);
+        HexTile[] expectedTiles = expectedGameState.getMap().values().toArray(new HexTile[0]);
+        Random random = new Random(seed);
+
+        int conquerCount = 0;
+        for (int i = 0; i < 2000 && gameState.getKingdoms().size() > 1; i++) {
+            // conquer a random tile next to a random kingdom
+            int kingdomIndex = random.nextInt(gameState.getKingdoms().size());
+            Kingdom kingdom = gameState.getKingdoms().get(kingdomIndex);
+            List<Integer> candidates = new ArrayList<>();
+            for (int j = 0; j < tiles.length; j++) {
+                if (tiles[j].getPlayer() != kingdom.getPlayer() && HexMapHelper
+                        .getNeighborTiles(gameState.getMap(), tiles[j]).stream()
+                        .anyMatch(neighbor -> neighbor != null && neighbor.getKingdom() == kingdom)) {
+                    candidates.add(j);
+                }
+            }
+            if (candidates.isEmpty()) {
+                continue;
+            }
+            int tileIndex = candidates.get(random.nextInt(candidates.size()));
+            gameState.setActiveKingdom(kingdom);
+            gameState.setHeldObject(Unit.of(Unit.UnitTypes.KNIGHT));
+            expectedGameState.setActiveKingdom(expectedGameState.getKingdoms().get(kingdomIndex));
+            expectedGameState.setHeldObject(Unit.of(Unit.UnitTypes.KNIGHT));
+
+            GameStateHelper.conquer(gameState, tiles[tileIndex]);
+            conquerLikeBefore(expectedGameState, expectedTiles[tileIndex]);
+            conquerCount++;
+
+            assertEquals(expectedGameState.getMap(), gameState.getMap());
+            assertEquals(expectedGameState.getKingdoms().size(), gameState.getKingdoms().size());
+            for (int j = 0; j < gameState.getKingdoms().size(); j++) {
+                Kingdom expectedKingdom = expectedGameState.getKingdoms().get(j);
+                Kingdom actualKingdom = gameState.getKingdoms().get(j);
+                assertEquals(expectedKingdom.getPlayer(), actualKingdom.getPlayer());
+                assertEquals(expectedKingdom.getSavings(), actualKingdom.getSavings());
+                assertEquals(getPositions(expectedKingdom.getTiles()), getPositions(actualKingdom.getTiles()));
+            }
+            assertEquals(expectedGameState.getKingdoms().indexOf(expectedGameState.getActiveKingdom()),
+                    gameState.getKingdoms().indexOf(gameState.getActiveKingdom()));
+            assertEquals(expectedGameState.hashCode(), gameState.hashCode());
+        }
+        assertTrue(conquerCount > 100, "too few conquers: " + conquerCount);
+    }
+
     @ParameterizedTest
     @MethodSource("provideMapSizesAndSeeds")
     void initializedMapHasCorrectLandMass(int landMass, long seed) {
@@ -90,6 +472,100 @@ class GameStateHelperTest {
         });
     }
 
+    @ParameterizedTest
+    @MethodSource("provideSeeds")
+    void repairedMapHasAtLeastOneKingdomPerPlayer(long seed) {
+        // the smallest possible map for many players needs repairing most often
+        List<Player> manyPlayers = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            manyPlayers.add(new Player(i, Type.LOCAL_BOT));
+        }
+        for (MapGeneratorVersion version : new MapGeneratorVersion[]{MapGeneratorVersion.V2,
+                MapGeneratorVersion.V3}) {
+            for (float density : new float[]{-3, 0, 3}) {
+                for (int attempt = 0; attempt < 20; attempt++) {
+                    GameState gameState = new GameState();
+
+                    GameStateHelper.initializeMap(gameState, new ArrayList<>(manyPlayers), 12, density, 0.2F,
+                            seed * 20 + attempt, version);
+
+                    assertEquals(12, gameState.getMap().size());
+                    manyPlayers.forEach(player -> assertTrue(gameState.getKingdoms().stream()
+                            .anyMatch(kingdom -> kingdom.getPlayer().equals(player))));
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideSeeds")
+    void mapIsTheSameWithV1AndV2IfNoRepairIsNeeded(long seed) {
+        GameState gameState = new GameState();
+        GameState expectedGameState = new GameState();
+
+        // with few players on a big map, every player gets a kingdom right away
+        GameStateHelper.initializeMap(gameState, new ArrayList<>(players), 500, 2, 0.2F, seed,
+                MapGeneratorVersion.V2);
+        GameStateHelper.initializeMap(expectedGameState, new ArrayList<>(players), 500, 2, 0.2F, seed,
+                MapGeneratorVersion.V1);
+
+        assertEquals(expectedGameState, gameState);
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideSeeds")
+    void mapIsReproducibleWithV3(long seed) {
+        GameState gameState = new GameState();
+        GameState expectedGameState = new GameState();
+
+        GameStateHelper.initializeMap(gameState, new ArrayList<>(players), 500, 2, 0.2F, seed,
+                MapGeneratorVersion.V3);
+        GameStateHelper.initializeMap(expectedGameState, new ArrayList<>(players), 500, 2, 0.2F, seed,
+                MapGeneratorVersion.V3);
+
+        assertEquals(expectedGameState, gameState);
+        assertEquals(expectedGameState.hashCode(), gameState.hashCode());
+        assertEquals(RandomVersion.V2, gameState.getRandomVersion());
+    }
+
+    @Test
+    void gamesKeepTheRandomVersionOfTheirGeneratorVersion() {
+        for (MapGeneratorVersion version : MapGeneratorVersion.values()) {
+            GameState gameState = new GameState();
+
+            GameStateHelper.initializeMap(gameState, new ArrayList<>(players), 100, 0, 0.2F, 42L, version);
+
+            assertEquals(version.getRandomVersion(), gameState.getRandomVersion());
+            assertEquals(version.getRandomVersion(), GameStateHelper.getCopy(gameState).getRandomVersion());
+            assertEquals(version.getRandomVersion(),
+                    GameStateHelper.getSnapshot(gameState).getGameState().getRandomVersion());
+        }
+    }
+
+    @Test
+    void treesSpreadIndependentlyOfKingdomTileOrderWithRandomVersionV2() {
+        GameState gameState = new GameState();
+        GameStateHelper.initializeMap(gameState, new ArrayList<>(players), 500, 2, 0.5F, 12345L,
+                MapGeneratorVersion.V3);
+        // the copy has the same tiles but the kingdoms' tiles in a different order, so a different hash code
+        GameState copy = GameStateHelper.getCopy(gameState);
+
+        for (int i = 0; i < 5; i++) {
+            GameStateHelper.spreadTrees(gameState);
+            GameStateHelper.spreadTrees(copy);
+        }
+
+        assertEquals(gameState.getMap(), copy.getMap());
+    }
+
+    @Test
+    void initializeMapThrowsIfThereIsNoKingdomForEveryPlayer() {
+        GameState gameState = new GameState();
+
+        assertThrows(IllegalArgumentException.class, () -> GameStateHelper.initializeMap(gameState, players, 5, 2,
+                0.2F, 42L, MapGeneratorVersion.V2));
+    }
+
     @ParameterizedTest
     @MethodSource("provideMapSizesAndSeeds")
     void initializedMapHasTilesEvenlyDistributedAcrossPlayers(int mapSize, long seed) {
@@ -131,4 +607,424 @@ class GameStateHelperTest {
         }
     }
 
-}
\ No newline at end of file
+    // the algorithm for spreading trees before they were indexed; uses the same random numbers
+    private static void spreadTreesLikeBefore(GameState gameState) {
+        Random random = new Random(gameState.hashCode());
+        HashSet<HexTile> tileBlackList = new HashSet<>();
+        for (HexTile tile : gameState.getMap().values()) {
+            if (tileBlackList.contains(tile)) {
+                continue;
+            }
+            if (tile.getContent() instanceof Tree) {
+                ArrayList<HexTile> candidates = new ArrayList<>();
+                HexTile neighborTreeTile = null;
+                for (HexTile neighbor : HexMapHelper.getNeighborTiles(gameState.getMap(), tile)) {
+                    if (neighbor == null) {
+                        continue;
+                    }
+                    if (neighbor.getContent() == null && !HexMapHelper.isCoastTile(gameState.getMap(), neighbor)) {
+                        candidates.add(neighbor);
+                    } else if (neighbor.getContent() instanceof Tree && !tileBlackList.contains(neighbor)) {
+                        neighborTreeTile = neighbor;
+                    }
+                }
+                if (neighborTreeTile != null && !candidates.isEmpty()) {
+                    HexTile newTreeTile = candidates.get(random.nextInt(candidates.size()));
+                    newTreeTile.setContent(Tree.INSTANCE);
+                    tileBlackList.add(tile);
+                    tileBlackList.add(newTreeTile);
+                    tileBlackList.add(neighborTreeTile);
+                }
+            } else if (tile.getContent() instanceof PalmTree) {
+                HexMapHelper.getNeighborTiles(gameState.getMap(), tile).stream().filter(neighbor -> neighbor != null
+                                && neighbor.getContent() == null
+                                && HexMapHelper.isCoastTile(gameState.getMap(), neighbor))
+                        .limit(1).forEach(newTreeTile -> {
+                            newTreeTile.setContent(PalmTree.INSTANCE);
+                            tileBlackList.add(newTreeTile);
+                        });
+            }
+        }
+    }
+
+    private static List<Vector2> getPositions(Collection<HexTile> tiles) {
+        List<Vector2> result = new ArrayList<>();
+        for (HexTile tile : tiles) {
+            result.add(tile.getPosition());
+        }
+        return result;
+    }
+
+    // the way maps were generated before TileGenerator, on a map of Vector2 positions and with kingdom objects
+    private static void initializeMapLikeBefore(GameState gameState, List<Player> players, float landMass,
+                                                float density, float vegetationDensity, long mapSeed) {
+        GameStateHelper.initializeMap(gameState, players, 0, density, vegetationDensity, mapSeed);
+        gameState.setMap(new HexGrid((int) landMass));
+        Random random = new Random(mapSeed);
+        do {
+            generateTilesLikeBefore(gameState, players, landMass, density, random);
+            createInitialKingdomsLikeBefore(gameState);
+        } while (!players.stream().allMatch(player -> gameState.getKingdoms().stream()
+                .anyMatch(kingdom -> kingdom.getPlayer() == player)));
+        for (HexTile tile : gameState.getMap().values()) {
+            if (random.nextFloat() <= vegetationDensity) {
+                tile.setContent(HexMapHelper.isCoastTile(gameState.getMap(), tile) ? PalmTree.INSTANCE
+                        : Tree.INSTANCE);
+            }
+        }
+        for (Kingdom kingdom : gameState.getKingdoms()) {
+            createCapitalLikeBefore(kingdom);
+        }
+        gameState.getPlayers().sort((a, b) -> {
+            int incomeA = gameState.getKingdoms().stream().filter(kingdom -> kingdom.getPlayer() == a)
+                    .mapToInt(GameStateHelper::getKingdomIncome).sum();
+            int incomeB = gameState.getKingdoms().stream().filter(kingdom -> kingdom.getPlayer() == b)
+                    .mapToInt(GameStateHelper::getKingdomIncome).sum();
+            return incomeA > incomeB ? 1 : -1;
+        });
+        for (Kingdom kingdom : gameState.getKingdoms()) {
+            int savings = Math.min(kingdom.getTiles().size() * 5, 20);
+            if (gameState.getActivePlayer() != kingdom.getPlayer()) {
+                savings -= GameStateHelper.getKingdomIncome(kingdom);
+            }
+            kingdom.setSavings(savings);
+        }
+    }
+
+    private static void generateTilesLikeBefore(GameState gameState, List<Player> players, float landMass,
+                                                float density, Random random) {
+        Map<Player, Integer> tileAmountsToGenerate = new HashMap<>();
+        Collections.shuffle(players, random);
+        int remainingLandMass = (int) (landMass % players.size());
+        for (Player player : players) {
+            int additionalTiles = 0;
+            if (remainingLandMass > 0) {
+                additionalTiles = 1;
+                remainingLandMass--;
+            }
+            tileAmountsToGenerate.put(player, (int) (landMass / players.size() + additionalTiles));
+        }
+        ArrayList<Player> remainingPlayers = new ArrayList<>(players);
+        Map<Vector2, HexTile> map = new LinkedHashMap<>();
+        Vector2 nextTilePos = new Vector2(0, 0);
+        ArrayList<Vector2> positionHistory = new ArrayList<>();
+        while (!remainingPlayers.isEmpty()) {
+            Vector2 currentTilePos = nextTilePos;
+            Player player = remainingPlayers.get(random.nextInt(remainingPlayers.size()));
+            map.put(currentTilePos, new HexTile(player, currentTilePos));
+            if (tileAmountsToGenerate.get(player) == 1) {
+                remainingPlayers.remove(player);
+            } else {
+                tileAmountsToGenerate.put(player, tileAmountsToGenerate.get(player) - 1);
+            }
+            positionHistory.add(currentTilePos);
+            List<Vector2> usableCoords = HexMapHelper.getUnusedNeighborCoords(map, currentTilePos);
+            while (usableCoords.isEmpty()) {
+                positionHistory.remove(positionHistory.size() - 1);
+                currentTilePos = positionHistory.get(positionHistory.size() - 1);
+                usableCoords = HexMapHelper.getUnusedNeighborCoords(map, currentTilePos);
+            }
+            ArrayList<Float> scores = new ArrayList<>();
+            float scoreSum = 0;
+            for (Vector2 candidate : usableCoords) {
+                float score = (float) Math.pow(HexMapHelper.getUnusedNeighborCoords(map, candidate).size(), density);
+                scores.add(score);
+                scoreSum += score;
+            }
+            float randomScore = random.nextFloat() * scoreSum;
+            int index = 0;
+            float countedScore = scores.get(0);
+            while (countedScore < randomScore) {
+                index++;
+                countedScore += scores.get(index);
+            }
+            nextTilePos = usableCoords.get(index);
+        }
+        gameState.getMap().clear();
+        gameState.getMap().putAll(map);
+    }
+
+    private static void createInitialKingdomsLikeBefore(GameState gameState) {
+        gameState.getKingdoms().clear();
+        for (HexTile tile : gameState.getMap().values()) {
+            for (HexTile neighborTile : HexMapHelper.getNeighborTiles(gameState.getMap(), tile)) {
+                if (neighborTile == null || neighborTile.getPlayer() != tile.getPlayer()) {
+                    continue;
+                }
+                if (tile.getKingdom() == null && neighborTile.getKingdom() == null) {
+                    Kingdom newKingdom = new Kingdom(tile.getPlayer());
+                    gameState.getKingdoms().add(newKingdom);
+                    newKingdom.getTiles().add(tile);
+                    newKingdom.getTiles().add(neighborTile);
+                    tile.setKingdom(newKingdom);
+                    neighborTile.setKingdom(newKingdom);
+                } else if (tile.getKingdom() != null && neighborTile.getKingdom() == null) {
+                    tile.getKingdom().getTiles().add(neighborTile);
+                    neighborTile.setKingdom(tile.getKingdom());
+                } else if (tile.getKingdom() == null) {
+                    neighborTile.getKingdom().getTiles().add(tile);
+                    tile.setKingdom(neighborTile.getKingdom());
+                } else if (tile.getKingdom() != neighborTile.getKingdom()) {
+                    gameState.getKingdoms().remove(neighborTile.getKingdom());
+                    for (HexTile neighborKingdomTile : neighborTile.getKingdom().getTiles()) {
+                        neighborKingdomTile.setKingdom(tile.getKingdom());
+                        tile.getKingdom().getTiles().add(neighborKingdomTile);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void createCapitalLikeBefore(Kingdom kingdom) {
+        HexTile newCapitalTile = kingdom.getTiles().stream().filter(tile -> tile.getContent() == null).findFirst()
+                .orElse(kingdom.getTiles().get(0));
+        newCapitalTile.setContent(Capital.INSTANCE);
+    }
+
+    // the way conquering a tile worked before the kingdoms were split with KingdomConnectivity
+    private static void conquerLikeBefore(GameState gameState, HexTile tile) {
+        gameState.setHeldObject(Unit.of(((Unit) gameState.getHeldObject()).getUnitType(), false));
+        Kingdom kingdom = tile.getKingdom();
+        if (kingdom != null) {
+            tile.setKingdom(null);
+            kingdom.getTiles().remove(tile);
+            if (tile.getContent() instanceof Capital && kingdom.getTiles().size() >= 2) {
+                kingdom.setSavings(0);
+                createCapitalLikeBefore(gameState, tile, kingdom);
+            }
+            ArrayList<HexTile> oldKingdomNeighborTiles = new ArrayList<>();
+            for (HexTile neighborTile : HexMapHelper.getNeighborTiles(gameState.getMap(), tile)) {
+                if (neighborTile == null) {
+                    continue;
+                }
+                if (neighborTile.getKingdom() == null) {
+                    if (neighborTile.getPlayer() == tile.getPlayer()) {
+                        neighborTile.setKingdom(kingdom);
+                        kingdom.getTiles().add(neighborTile);
+                    }
+                } else if (neighborTile.getPlayer() == tile.getPlayer() && neighborTile.getKingdom() != kingdom) {
+                    combineKingdomsLikeBefore(gameState, kingdom, neighborTile.getKingdom());
+                    gameState.setActiveKingdom(neighborTile.getKingdom());
+                    neighborTile.getKingdom().setWasActiveInCurrentTurn(true);
+                } else if (neighborTile.getKingdom() == kingdom) {
+                    oldKingdomNeighborTiles.add(neighborTile);
+                }
+            }
+            if (wasKingdomPotentiallySplitLikeBefore(gameState, tile, oldKingdomNeighborTiles)
+                    || kingdom.getTiles().size() < 2) {
+                updateSplitKingdomLikeBefore(gameState, kingdom.getTiles());
+            }
+        }
+        tile.setKingdom(gameState.getActiveKingdom());
+        tile.getKingdom().getTiles().add(tile);
+        for (HexTile neighborTile : HexMapHelper.getNeighborTiles(gameState.getMap(), tile)) {
+            if (neighborTile == null || neighborTile.getPlayer() != tile.getPlayer()) {
+                continue;
+            }
+            if (neighborTile.getKingdom() == null) {
+                neighborTile.setKingdom(tile.getKingdom());
+                tile.getKingdom().getTiles().add(neighborTile);
+            } else if (neighborTile.getKingdom() != tile.getKingdom()) {
+                combineKingdomsLikeBefore(gameState, tile.getKingdom(), neighborTile.getKingdom());
+                gameState.setActiveKingdom(neighborTile.getKingdom());
+                neighborTile.getKingdom().setWasActiveInCurrentTurn(true);
+            }
+        }
+        tile.setContent(gameState.getHeldObject());
+        gameState.setHeldObject(null);
+    }
+
+    private static void combineKingdomsLikeBefore(GameState gameState, Kingdom masterKingdom, Kingdom slaveKingdom) {
+        masterKingdom.setSavings(masterKingdom.getSavings() + slaveKingdom.getSavings());
+        if (!slaveKingdom.isDoneMoving()) {
+            masterKingdom.setDoneMoving(false);
+        }
+        for (HexTile slaveKingdomTile : slaveKingdom.getTiles()) {
+            if (!masterKingdom.getTiles().contains(slaveKingdomTile)) {
+                masterKingdom.getTiles().add(slaveKingdomTile);
+            }
+            slaveKingdomTile.setKingdom(masterKingdom);
+            if (slaveKingdomTile.getContent() instanceof Capital) {
+                slaveKingdomTile.setContent(null);
+            }
+        }
+        gameState.getKingdoms().remove(slaveKingdom);
+    }
+
+    // recursive flood fill with a LinkedList and a HashSet
+    private static void updateSplitKingdomLikeBefore(GameState gameState, List<HexTile> tiles) {
+        if (tiles.isEmpty()) {
+            return;
+        }
+        Kingdom oldKingdom = tiles.get(0).getKingdom();
+        HexTile capitalTile = tiles.stream().filter(tile -> tile.getContent() instanceof Capital).findFirst()
+                .orElse(null);
+        HexTile startTile;
+        Kingdom newKingdom;
+        if (capitalTile != null) {
+            startTile = capitalTile;
+            newKingdom = startTile.getKingdom();
+            newKingdom.setTiles(new ArrayList<>());
+        } else {
+            startTile = tiles.get(0);
+            newKingdom = new Kingdom(startTile.getPlayer());
+            gameState.getKingdoms().add(newKingdom);
+        }
+        LinkedList<HexTile> todoTiles = new LinkedList<>();
+        todoTiles.add(startTile);
+        HashSet<HexTile> doneTiles = new HashSet<>();
+        while (!todoTiles.isEmpty()) {
+            HexTile currentTile = todoTiles.removeFirst();
+            newKingdom.getTiles().add(currentTile);
+            currentTile.setKingdom(newKingdom);
+            doneTiles.add(currentTile);
+            for (HexTile neighborTile : HexMapHelper.getNeighborTiles(gameState.getMap(), currentTile)) {
+                if (neighborTile != null && !doneTiles.contains(neighborTile) && !todoTiles.contains(neighborTile)
+                        && neighborTile.getKingdom() == oldKingdom) {
+                    todoTiles.add(neighborTile);
+                }
+            }
+        }
+        tiles.removeAll(newKingdom.getTiles());
+        if (newKingdom.getTiles().size() < 2) {
+            if (startTile.getContent() instanceof Capital) {
+                startTile.setContent(HexMapHelper.isCoastTile(gameState.getMap(), startTile) ? PalmTree.INSTANCE
+                        : Tree.INSTANCE);
+            } else if (startTile.getContent() instanceof Castle) {
+                startTile.setContent(null);
+            }
+            startTile.setKingdom(null);
+            gameState.getKingdoms().remove(newKingdom);
+        } else if (capitalTile == null) {
+            createCapitalLikeBefore(newKingdom);
+        }
+        updateSplitKingdomLikeBefore(gameState, tiles);
+        if (oldKingdom.getTiles().isEmpty()) {
+            gameState.getKingdoms().remove(oldKingdom);
+        }
+    }
+
+    private static boolean wasKingdomPotentiallySplitLikeBefore(GameState gameState, HexTile tile,
+                                                                List<HexTile> oldKingdomNeighborTiles) {
+        HexGrid map = gameState.getMap();
+        switch (oldKingdomNeighborTiles.size()) {
+            case 2:
+                return !HexMapHelper.getNeighborTiles(map, oldKingdomNeighborTiles.get(0))
+                        .contains(oldKingdomNeighborTiles.get(1));
+            case 3:
+                List<HexTile> firstNeighbors = HexMapHelper.getNeighborTiles(map, oldKingdomNeighborTiles.get(0));
+                List<HexTile> secondNeighbors = HexMapHelper.getNeighborTiles(map, oldKingdomNeighborTiles.get(1));
+                return !(firstNeighbors.contains(oldKingdomNeighborTiles.get(1))
+                        && firstNeighbors.contains(oldKingdomNeighborTiles.get(2))
+                        || secondNeighbors.contains(oldKingdomNeighborTiles.get(0))
+                        && secondNeighbors.contains(oldKingdomNeighborTiles.get(2)));
+            case 4:
+                List<HexTile> notOldKingdomNeighborTiles = new ArrayList<>(HexMapHelper.getNeighborTiles(map, tile));
+                notOldKingdomNeighborTiles.removeAll(oldKingdomNeighborTiles);
+                return notOldKingdomNeighborTiles.get(0) == null || notOldKingdomNeighborTiles.get(1) == null
+                        || !HexMapHelper.getNeighborTiles(map, notOldKingdomNeighborTiles.get(0))
+                        .contains(notOldKingdomNeighborTiles.get(1));
+            default:
+                return false;
+        }
+    }
+
+    private static void createCapitalLikeBefore(GameState gameState, HexTile oldCapitalTile, Kingdom oldKingdom) {
+        List<HexTile> neighborTiles = HexMapHelper.getNeighborTiles(gameState.getMap(), oldCapitalTile);
+        HexTile newCapitalTile = null;
+        // the last suitable empty neighbor, like the loop overriding the stream result did
+        for (HexTile neighborTile : neighborTiles) {
+            if (neighborTile != null && neighborTile.getKingdom() == oldKingdom && neighborTile.getContent() == null
+                    && !isCapitalCandidateDisconnectedLikeBefore(gameState, oldCapitalTile, oldKingdom,
+                    neighborTile)) {
+                newCapitalTile = neighborTile;
+            }
+        }
+        if (newCapitalTile == null) {
+            newCapitalTile = oldKingdom.getTiles().stream().filter(kingdomTile -> kingdomTile.getContent() == null
+                            && !isCapitalCandidateDisconnectedLikeBefore(gameState, oldCapitalTile, oldKingdom,
+                            kingdomTile))
+                    .findFirst().orElse(null);
+        }
+        if (newCapitalTile == null) {
+            newCapitalTile = neighborTiles.stream().filter(neighborTile -> neighborTile != null
+                            && neighborTile.getKingdom() == oldKingdom
+                            && !isCapitalCandidateDisconnectedLikeBefore(gameState, oldCapitalTile, oldKingdom,
+                            neighborTile))
+                    .findFirst().orElse(null);
+        }
+        if (newCapitalTile != null) {
+            newCapitalTile.setContent(Capital.INSTANCE);
+        }
+    }
+
+    private static boolean isCapitalCandidateDisconnectedLikeBefore(GameState gameState, HexTile oldCapitalTile,
+                                                                    Kingdom oldKingdom, HexTile candidate) {
+        return HexMapHelper.getNeighborTiles(gameState.getMap(), candidate).stream().noneMatch(
+                neighborsNeighbor -> neighborsNeighbor != null && neighborsNeighbor != oldCapitalTile
+                        && neighborsNeighbor.getKingdom() == oldKingdom);
+    }
+
+    // compares the kingdom counts and the slots whose content changes at the start of a turn to the game state
+    private static void assertKingdomCountsAndProgressingSlotsAreUpToDate(GameState gameState) {
+        HexGrid map = gameState.getMap();
+        assertEquals(gameState.getKingdoms().size(), map.getKingdomCount());
+        for (Player player : gameState.getPlayers()) {
+            long kingdomCount = gameState.getKingdoms().stream().filter(kingdom -> kingdom.getPlayer() == player)
+                    .count();
+            assertEquals(kingdomCount, map.getKingdomCount(player));
+        }
+        List<Integer> progressingSlots = new ArrayList<>();
+        for (int slot = 0; slot < map.getSlotCount(); slot++) {
+            HexTile tile = map.getTileInSlot(slot);
+            if (tile != null && (tile.getContent() instanceof Gravestone
+                    || tile.getContent() instanceof Unit && tile.getKingdom() == null)) {
+                progressingSlots.add(slot);
+            }
+        }
+        List<Integer> indexedSlots = new ArrayList<>();
+        for (int slot = map.getNextProgressingSlot(0); slot != HexGrid.NO_SLOT;
+             slot = map.getNextProgressingSlot(slot + 1)) {
+            indexedSlots.add(slot);
+        }
+        assertEquals(progressingSlots, indexedSlots);
+    }
+
+    // recomputes the protection levels from scratch and compares them to the ones the map keeps up to date
+    private static void assertProtectionLevelsAreUpToDate(GameState gameState) {
+        for (HexTile tile : gameState.getMap().values()) {
+            int protectionLevel = tile.getContent() == null ? 0 : tile.getContent().getStrength();
+            for (HexTile neighborTile : HexMapHelper.getNeighborTiles(gameState.getMap(), tile)) {
+                if (neighborTile != null && tile.getKingdom() != null && neighborTile.getKingdom() == tile.getKingdom()
+                        && neighborTile.getContent() != null) {
+                    protectionLevel = Math.max(protectionLevel, neighborTile.getContent().getStrength());
+                }
+            }
+            assertEquals(protectionLevel, GameStateHelper.getProtectionLevel(gameState, tile), tile.toString());
+        }
+    }
+
+    // recomputes the aggregates from scratch and compares them to the ones the kingdoms keep up to date
+    private static void assertKingdomAggregatesAreUpToDate(GameState gameState) {
+        for (Kingdom kingdom : gameState.getKingdoms()) {
+            int treeCount = 0;
+            int unitSalaries = 0;
+            int[] unitCounts = new int[Unit.UnitTypes.values().length];
+            for (HexTile tile : kingdom.getTiles()) {
+                if (tile.getContent() instanceof Tree || tile.getContent() instanceof PalmTree) {
+                    treeCount++;
+                } else if (tile.getContent() instanceof Unit) {
+                    Unit.UnitTypes unitType = ((Unit) tile.getContent()).getUnitType();
+                    unitSalaries += unitType.salary();
+                    unitCounts[unitType.ordinal()]++;
+                }
+            }
+            assertEquals(treeCount, kingdom.getTreeCount());
+            assertEquals(unitSalaries, kingdom.getUnitSalaries());
+            for (Unit.UnitTypes unitType : Unit.UnitTypes.values()) {
+                assertEquals(unitCounts[unitType.ordinal()], kingdom.getUnitCount(unitType));
+            }
+        }
+    }
+
+}
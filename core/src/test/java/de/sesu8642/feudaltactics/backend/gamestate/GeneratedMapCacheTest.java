@@ -0,0 +1,115 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.gamestate;
+
+import de.sesu8642.feudaltactics.lib.gamestate.*;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for GeneratedMapCache class.
+ */
+class GeneratedMapCacheTest {
+
+    private static List<Player> createPlayers() {
+        List<Player> players = new ArrayList<>();
+        players.add(new Player(0, Type.LOCAL_PLAYER));
+        for (int i = 1; i < 6; i++) {
+            players.add(new Player(i, Type.LOCAL_BOT));
+        }
+        return players;
+    }
+
+    private static GameState generateMap(int landMass, long seed) {
+        GameState gameState = new GameState();
+        GameStateHelper.initializeMap(gameState, createPlayers(), landMass, 0, null, seed,
+                MapGeneratorVersion.LATEST);
+        return gameState;
+    }
+
+    private static GameState getMap(GeneratedMapCache cache, int landMass, long seed) {
+        return cache.getMap(createPlayers(), landMass, 0, null, seed, MapGeneratorVersion.LATEST);
+    }
+
+    @Test
+    void cachedMapIsIdenticalToGeneratedMap() {
+        GeneratedMapCache cache = new GeneratedMapCache(10000);
+        for (long seed = 0; seed < 20; seed++) {
+            GameState generated = generateMap(150, seed);
+            // the first one is generated by the cache, the second one is taken from it
+            for (int i = 0; i < 2; i++) {
+                GameState fromCache = getMap(cache, 150, seed);
+                assertEquals(generated, fromCache);
+                // the hash code seeds the random generators used during the game
+                assertEquals(generated.hashCode(), fromCache.hashCode());
+                for (int j = 0; j < generated.getKingdoms().size(); j++) {
+                    assertEquals(new ArrayList<>(generated.getKingdoms().get(j).getTiles()),
+                            new ArrayList<>(fromCache.getKingdoms().get(j).getTiles()));
+                }
+            }
+        }
+        assertEquals(20, cache.getHits());
+        assertEquals(20, cache.getMisses());
+    }
+
+    @Test
+    void cachedMapIsNotChangedByChangingReturnedMap() {
+        GeneratedMapCache cache = new GeneratedMapCache(10000);
+        GameState generated = generateMap(150, 12345L);
+        GameState changed = getMap(cache, 150, 12345L);
+        for (int i = 0; i < changed.getPlayers().size(); i++) {
+            changed = GameStateHelper.endTurn(changed);
+        }
+        assertNotEquals(generated, changed);
+        assertEquals(generated, getMap(cache, 150, 12345L));
+    }
+
+    @Test
+    void leastRecentlyUsedMapIsDroppedWhenFull() {
+        GeneratedMapCache cache = new GeneratedMapCache(100);
+        getMap(cache, 50, 1L);
+        getMap(cache, 50, 2L);
+        // now the map with seed 2 was used least recently
+        getMap(cache, 50, 1L);
+        getMap(cache, 50, 3L);
+        assertEquals(2, cache.getSize());
+        assertEquals(1, cache.getHits());
+        getMap(cache, 50, 1L);
+        assertEquals(2, cache.getHits());
+        getMap(cache, 50, 2L);
+        assertEquals(2, cache.getHits());
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    void prefetchedMapIsTakenFromCache() {
+        GeneratedMapCache cache = new GeneratedMapCache(10000);
+        assertFalse(cache.containsMap(createPlayers(), 150, 0, null, 7L, MapGeneratorVersion.LATEST));
+
+        cache.prefetchMap(createPlayers(), 150, 0, null, 7L, MapGeneratorVersion.LATEST);
+
+        assertTrue(cache.containsMap(createPlayers(), 150, 0, null, 7L, MapGeneratorVersion.LATEST));
+        assertEquals(0, cache.getMisses());
+        GameState fromCache = getMap(cache, 150, 7L);
+        assertEquals(generateMap(150, 7L), fromCache);
+        assertEquals(generateMap(150, 7L).hashCode(), fromCache.hashCode());
+        assertEquals(1, cache.getHits());
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    void mapLargerThanCacheIsNotCached() {
+        GeneratedMapCache cache = new GeneratedMapCache(100);
+        getMap(cache, 150, 1L);
+        getMap(cache, 150, 1L);
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+}
@@ -0,0 +1,342 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.gamestate;
+
+import com.badlogic.gdx.math.Vector2;
+import de.sesu8642.feudaltactics.lib.gamestate.*;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.gamestate.Unit.UnitTypes;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for HexGrid class.
+ */
+class HexGridTest {
+
+    Player player = new Player(0, Type.LOCAL_PLAYER);
+
+    @Test
+    void gridBehavesLikeLinkedHashMap() {
+        HexGrid grid = new HexGrid();
+        LinkedHashMap<Vector2, HexTile> linkedHashMap = new LinkedHashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            Vector2 position = new Vector2(random.nextInt(40) - 20, random.nextInt(40) - 20);
+            if (random.nextInt(3) == 0) {
+                assertEquals(linkedHashMap.remove(position), grid.remove(position));
+            } else {
+                HexTile tile = new HexTile(player, position);
+                assertEquals(linkedHashMap.put(position, tile), grid.put(position, tile));
+            }
+            assertEquals(linkedHashMap.size(), grid.size());
+        }
+        assertEquals(new ArrayList<>(linkedHashMap.keySet()), new ArrayList<>(grid.keySet()));
+        assertEquals(new ArrayList<>(linkedHashMap.values()), new ArrayList<>(grid.values()));
+        assertEquals(linkedHashMap, grid);
+        assertEquals(linkedHashMap.hashCode(), grid.hashCode());
+        for (HexTile tile : grid.values()) {
+            assertSame(tile, grid.get(new Vector2(tile.getPosition())));
+            assertSame(grid, tile.getGrid());
+        }
+    }
+
+    @Test
+    void neighborIndexFollowsAddedAndRemovedTiles() {
+        HexGrid grid = new HexGrid();
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            Vector2 position = new Vector2(random.nextInt(16) - 8, random.nextInt(16) - 8);
+            if (random.nextInt(3) == 0) {
+                grid.remove(position);
+            } else {
+                grid.put(position, new HexTile(player, position));
+            }
+            // compare the neighbor index with coordinate lookups
+            for (HexTile tile : grid.values()) {
+                List<HexTile> expectedNeighbors = new ArrayList<>();
+                for (Vector2 neighborPosition : HexMapHelper.getNeighborCoords(tile.getPosition())) {
+                    expectedNeighbors.add(grid.get(neighborPosition));
+                }
+                List<HexTile> expectedNeighborsNeighbors = new ArrayList<>();
+                for (Vector2 neighborPosition : HexMapHelper.getNeighborsNeighborCoords(tile.getPosition())) {
+                    expectedNeighborsNeighbors.add(grid.get(neighborPosition));
+                }
+                assertEquals(expectedNeighbors, HexMapHelper.getNeighborTiles(grid, tile));
+                assertEquals(expectedNeighborsNeighbors, HexMapHelper.getNeighborsNeighborTiles(grid, tile));
+            }
+        }
+    }
+
+    @Test
+    void waterMasksFollowAddedAndRemovedTiles() {
+        HexGrid grid = new HexGrid();
+        Random random = new Random(11);
+        for (int i = 0; i < 1000; i++) {
+            Vector2 position = new Vector2(random.nextInt(16) - 8, random.nextInt(16) - 8);
+            if (random.nextInt(3) == 0) {
+                grid.remove(position);
+            } else {
+                grid.put(position, new HexTile(player, position));
+            }
+            // compare the water masks with coordinate lookups
+            for (HexTile tile : grid.values()) {
+                List<Vector2> neighborPositions = HexMapHelper.getNeighborCoords(tile.getPosition());
+                int expectedWaterMask = 0;
+                for (int direction = 0; direction < neighborPositions.size(); direction++) {
+                    if (!grid.containsKey(neighborPositions.get(direction))) {
+                        expectedWaterMask |= 1 << direction;
+                    }
+                }
+                assertEquals(expectedWaterMask, HexMapHelper.getWaterMask(grid, tile));
+                assertEquals(expectedWaterMask != 0, HexMapHelper.isCoastTile(grid, tile));
+            }
+        }
+    }
+
+    @Test
+    void replacingTileKeepsIterationOrder() {
+        HexGrid grid = new HexGrid();
+        List<Vector2> positions = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Vector2 position = new Vector2(i, -i);
+            positions.add(position);
+            grid.put(position, new HexTile(player, position));
+        }
+        HexTile oldTile = grid.get(positions.get(2));
+        HexTile newTile = new HexTile(player, new Vector2(positions.get(2)));
+        grid.put(newTile.getPosition(), newTile);
+
+        assertEquals(positions, new ArrayList<>(grid.keySet()));
+        assertSame(newTile, grid.getTile(2, -2));
+        assertNull(oldTile.getGrid());
+    }
+
+    @Test
+    void tileCannotBeOnTwoMaps() {
+        HexGrid grid = new HexGrid();
+        HexGrid otherGrid = new HexGrid();
+        Vector2 position = new Vector2(1, 2);
+        HexTile tile = new HexTile(player, position);
+        grid.put(position, tile);
+
+        assertThrows(IllegalStateException.class, () -> otherGrid.put(position, tile));
+        assertThrows(IllegalStateException.class, () -> grid.put(new Vector2(2, 2), tile));
+        assertSame(tile, grid.put(position, tile));
+        assertTrue(otherGrid.isEmpty());
+        assertEquals(1, grid.size());
+        assertSame(grid, tile.getGrid());
+
+        // a removed tile can be put on another map
+        grid.remove(position);
+        otherGrid.put(position, tile);
+        assertSame(otherGrid, tile.getGrid());
+    }
+
+    @Test
+    void mirroredStateFollowsTile() {
+        HexGrid grid = new HexGrid();
+        Vector2 position = new Vector2(3, 7);
+        HexTile tile = new HexTile(null, position);
+        grid.put(position, tile);
+        Kingdom kingdom = new Kingdom(player);
+        Tree tree = new Tree();
+        tile.setKingdom(kingdom);
+        tile.setContent(tree);
+
+        int slot = grid.getSlot(HexMapHelper.packHexCoords(3, 7));
+        assertSame(player, grid.getOwnerInSlot(slot));
+        assertSame(kingdom, grid.getKingdomInSlot(slot));
+        assertSame(tree, grid.getContentInSlot(slot));
+        assertNull(grid.get(new Vector2(3.5F, 7)));
+    }
+
+    @Test
+    void kingdomAggregatesAreOnlyUsedForTheTilesOfTheKingdom() {
+        HexGrid grid = new HexGrid();
+        List<HexTile> tiles = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Vector2 position = new Vector2(i, 0);
+            HexTile tile = new HexTile(player, position);
+            grid.put(position, tile);
+            tiles.add(tile);
+        }
+        Kingdom kingdom = new Kingdom(player);
+        tiles.get(0).setKingdom(kingdom);
+        tiles.get(0).setContent(new Tree());
+        tiles.get(1).setKingdom(kingdom);
+        kingdom.getTiles().add(tiles.get(0));
+        kingdom.getTiles().add(tiles.get(1));
+        tiles.get(2).setContent(Unit.of(UnitTypes.KNIGHT));
+        assertEquals(1, kingdom.getTreeCount());
+        assertEquals(0, kingdom.getUnitSalaries());
+
+        // one of the tiles doesn't belong to the kingdom on the map
+        kingdom.setTiles(new IndexedTileList(tiles));
+        assertThrows(IllegalStateException.class, kingdom::getTreeCount);
+        assertThrows(IllegalStateException.class, kingdom::getUnitSalaries);
+        assertThrows(IllegalStateException.class, () -> kingdom.getUnitCount(UnitTypes.KNIGHT));
+
+        tiles.get(2).setKingdom(kingdom);
+        tiles.get(2).setContent(Unit.of(UnitTypes.PEASANT));
+        assertEquals(1, kingdom.getTreeCount());
+        assertEquals(UnitTypes.PEASANT.salary(), kingdom.getUnitSalaries());
+        assertEquals(0, kingdom.getUnitCount(UnitTypes.KNIGHT));
+
+        // kingdoms that are not on a map are counted
+        Kingdom kingdomWithoutMap = new Kingdom(player);
+        kingdomWithoutMap.getTiles().add(new HexTile(player, new Vector2(5, 5)));
+        kingdomWithoutMap.getTiles().get(0).setContent(new Tree());
+        assertEquals(1, kingdomWithoutMap.getTreeCount());
+    }
+
+    @Test
+    void changedSlotsAreReported() {
+        HexGrid grid = new HexGrid();
+        List<HexTile> tiles = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Vector2 position = new Vector2(i, 0);
+            HexTile tile = new HexTile(player, position);
+            grid.put(position, tile);
+            tiles.add(tile);
+        }
+        RecordingSlotChangeListener listener = new RecordingSlotChangeListener();
+        grid.setSlotChangeListener(listener);
+
+        tiles.get(70).setContent(new Tree());
+        tiles.get(3).setKingdom(new Kingdom(player));
+        // setting the same content again is no change
+        tiles.get(5).setContent(null);
+
+        assertEquals(Arrays.asList(grid.getSlot(tiles.get(70)), grid.getSlot(tiles.get(3))), listener.changedSlots);
+        grid.setSlotChangeListener(null);
+        tiles.get(4).setContent(new Tree());
+        assertEquals(2, listener.changedSlots.size());
+        assertEquals(HexGrid.NO_SLOT, new HexGrid().getSlot(tiles.get(3)));
+    }
+
+    @Test
+    void movedSlotsAreReported() {
+        HexGrid grid = new HexGrid();
+        RecordingSlotChangeListener listener = new RecordingSlotChangeListener();
+        grid.setSlotChangeListener(listener);
+        HexTile previousTile = null;
+
+        // removed tiles leave empty slots in front of the last one until adding a tile moves the others together
+        for (int i = 0; listener.slotMoves == 0; i++) {
+            assertTrue(i < 10000, "The slots were never compacted.");
+            Vector2 position = new Vector2(i, 0);
+            HexTile tile = new HexTile(player, position);
+            grid.put(position, tile);
+            if (previousTile != null) {
+                grid.remove(previousTile.getPosition());
+            }
+            previousTile = tile;
+        }
+
+        assertEquals(1, grid.getSlot(previousTile));
+        grid.clear();
+        assertEquals(2, listener.slotMoves);
+    }
+
+    @Test
+    void slotChangeListenerIsNotReplaced() {
+        HexGrid grid = new HexGrid();
+        grid.setSlotChangeListener(new RecordingSlotChangeListener());
+
+        assertThrows(IllegalStateException.class,
+                () -> grid.setSlotChangeListener(new RecordingSlotChangeListener()));
+        grid.setSlotChangeListener(null);
+        assertDoesNotThrow(() -> grid.setSlotChangeListener(new RecordingSlotChangeListener()));
+    }
+
+    @Test
+    void packedCoordsCanBeUnpacked() {
+        int[] coords = {0, 1, -1, 42, -42, Short.MAX_VALUE, Short.MIN_VALUE};
+        for (int x : coords) {
+            for (int y : coords) {
+                int packed = HexMapHelper.packHexCoords(x, y);
+                assertEquals(x, HexMapHelper.unpackX(packed));
+                assertEquals(y, HexMapHelper.unpackY(packed));
+            }
+        }
+    }
+
+    @Test
+    void packedCoordsFunctionsMatchVectorFunctions() {
+        HexGrid grid = new HexGrid();
+        for (int i = 0; i < 3; i++) {
+            Vector2 position = new Vector2(i, 1);
+            grid.put(position, new HexTile(player, position));
+        }
+        int[] neighborCoords = new int[HexGrid.NEIGHBOR_COUNT];
+        int[] neighborsNeighborCoords = new int[HexGrid.NEIGHBORS_NEIGHBOR_COUNT];
+        int[] unusedNeighborCoords = new int[HexGrid.NEIGHBOR_COUNT];
+        Vector2 worldCoords = new Vector2();
+        for (int x = -3; x <= 3; x++) {
+            for (int y = -3; y <= 3; y++) {
+                Vector2 position = new Vector2(x, y);
+                int packed = HexMapHelper.packHexCoords(x, y);
+
+                HexMapHelper.getNeighborCoords(packed, neighborCoords);
+                assertEquals(HexMapHelper.getNeighborCoords(position), unpack(neighborCoords,
+                        HexGrid.NEIGHBOR_COUNT));
+                HexMapHelper.getNeighborsNeighborCoords(packed, neighborsNeighborCoords);
+                assertEquals(HexMapHelper.getNeighborsNeighborCoords(position), unpack(neighborsNeighborCoords,
+                        HexGrid.NEIGHBORS_NEIGHBOR_COUNT));
+                int unusedCount = HexMapHelper.getUnusedNeighborCoords(grid, packed, unusedNeighborCoords);
+                assertEquals(HexMapHelper.getUnusedNeighborCoords(grid, position), unpack(unusedNeighborCoords,
+                        unusedCount));
+                assertEquals(unusedCount, HexMapHelper.countUnusedNeighbors(grid, packed));
+
+                Vector2 expectedWorldCoords = HexMapHelper.hexCoordsToWorldCoords(position);
+                assertEquals(expectedWorldCoords, HexMapHelper.hexCoordsToWorldCoords(packed, worldCoords));
+                assertEquals(packed, HexMapHelper.worldCoordsToHexCoords(expectedWorldCoords.x + 1,
+                        expectedWorldCoords.y - 1));
+            }
+        }
+    }
+
+    @Test
+    void coordsOutsideOfPackableRangeAreNotWrapped() {
+        Vector2 position = new Vector2(40000, 30000);
+        Vector2 worldCoords = HexMapHelper.hexCoordsToWorldCoords(position);
+
+        assertEquals(position, HexMapHelper.roundToHexCoords(new Vector2(40000.2F, -70000.4F)));
+        assertEquals(position, HexMapHelper.worldCoordsToHexCoords(worldCoords));
+        assertThrows(IllegalArgumentException.class,
+                () -> HexMapHelper.worldCoordsToHexCoords(worldCoords.x, worldCoords.y));
+    }
+
+    private List<Vector2> unpack(int[] packedCoords, int count) {
+        List<Vector2> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            result.add(new Vector2(HexMapHelper.unpackX(packedCoords[i]), HexMapHelper.unpackY(packedCoords[i])));
+        }
+        return result;
+    }
+
+    private static class RecordingSlotChangeListener implements HexGrid.SlotChangeListener {
+
+        private final List<Integer> changedSlots = new ArrayList<>();
+        private int slotMoves = 0;
+
+        @Override
+        public void slotChanged(int slot) {
+            changedSlots.add(slot);
+        }
+
+        @Override
+        public void slotsMoved() {
+            slotMoves++;
+        }
+    }
+
+}
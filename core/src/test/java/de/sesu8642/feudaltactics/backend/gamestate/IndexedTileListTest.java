@@ -0,0 +1,116 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.gamestate;
+
+import com.badlogic.gdx.math.Vector2;
+import de.sesu8642.feudaltactics.lib.gamestate.HexTile;
+import de.sesu8642.feudaltactics.lib.gamestate.IndexedTileList;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for IndexedTileList class.
+ */
+class IndexedTileListTest {
+
+    Player player = new Player(0, Type.LOCAL_PLAYER);
+
+    @Test
+    void listBehavesLikeArrayList() {
+        IndexedTileList indexedTileList = new IndexedTileList();
+        List<HexTile> arrayList = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            // tiles at the same position are equal, so there can be duplicates
+            HexTile tile = new HexTile(player, new Vector2(random.nextInt(20) - 10, random.nextInt(20) - 10));
+            int operation = random.nextInt(10);
+            if (operation < 4) {
+                assertEquals(arrayList.add(tile), indexedTileList.add(tile));
+            } else if (operation < 7) {
+                assertEquals(arrayList.remove(tile), indexedTileList.remove(tile));
+            } else if (operation < 8 && !arrayList.isEmpty()) {
+                int index = random.nextInt(arrayList.size());
+                assertEquals(arrayList.remove(index), indexedTileList.remove(index));
+            } else if (operation < 9 && !arrayList.isEmpty()) {
+                int index = random.nextInt(arrayList.size());
+                assertEquals(arrayList.get(index), indexedTileList.get(index));
+            } else {
+                // remove via iterator
+                Iterator<HexTile> arrayListIterator = arrayList.iterator();
+                Iterator<HexTile> indexedTileListIterator = indexedTileList.iterator();
+                while (arrayListIterator.hasNext()) {
+                    assertEquals(arrayListIterator.next(), indexedTileListIterator.next());
+                    if (random.nextInt(8) == 0) {
+                        arrayListIterator.remove();
+                        indexedTileListIterator.remove();
+                    }
+                }
+            }
+            assertEquals(arrayList.size(), indexedTileList.size());
+            assertEquals(arrayList.contains(tile), indexedTileList.contains(tile));
+        }
+        assertEquals(arrayList, indexedTileList);
+        assertEquals(arrayList.hashCode(), indexedTileList.hashCode());
+        assertEquals(arrayList, new ArrayList<>(indexedTileList));
+    }
+
+    @Test
+    void readingDoesNotInterruptIteration() {
+        IndexedTileList indexedTileList = new IndexedTileList();
+        List<HexTile> arrayList = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            HexTile tile = new HexTile(player, new Vector2(i, 0));
+            indexedTileList.add(tile);
+            arrayList.add(tile);
+        }
+        // leave gaps at the start and in the middle
+        indexedTileList.remove(arrayList.remove(0));
+        indexedTileList.remove(arrayList.remove(4));
+
+        List<HexTile> iteratedTiles = new ArrayList<>();
+        for (HexTile tile : indexedTileList) {
+            iteratedTiles.add(tile);
+            assertEquals(arrayList.get(0), indexedTileList.get(0));
+            for (int i = 0; i < arrayList.size(); i++) {
+                assertEquals(arrayList.get(i), indexedTileList.get(i));
+            }
+            indexedTileList.set(3, arrayList.get(3));
+        }
+        assertEquals(arrayList, iteratedTiles);
+    }
+
+    @Test
+    void iteratorRemovalFollowsReadingByIndex() {
+        IndexedTileList indexedTileList = new IndexedTileList();
+        List<HexTile> arrayList = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            HexTile tile = new HexTile(player, new Vector2(i, 0));
+            indexedTileList.add(tile);
+            arrayList.add(tile);
+        }
+
+        Iterator<HexTile> iterator = indexedTileList.iterator();
+        int count = 0;
+        while (iterator.hasNext()) {
+            HexTile tile = iterator.next();
+            if (count++ % 3 == 0) {
+                // closes the gap an earlier removal left before removing the current tile
+                assertEquals(arrayList.get(arrayList.size() - 1), indexedTileList.get(indexedTileList.size() - 1));
+                iterator.remove();
+                arrayList.remove(tile);
+                // closes the gap this removal left
+                assertEquals(arrayList.get(arrayList.size() - 1), indexedTileList.get(indexedTileList.size() - 1));
+            }
+        }
+        assertEquals(arrayList, indexedTileList);
+    }
+
+}
@@ -0,0 +1,212 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.gamestate;
+
+import com.badlogic.gdx.math.Vector2;
+import de.sesu8642.feudaltactics.lib.gamestate.*;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.ingame.PlayerMove;
+import de.sesu8642.feudaltactics.lib.ingame.PlayerMove.PlayerMoveType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for MoveJournal class.
+ */
+class MoveJournalTest {
+
+    @Test
+    void undoingMovesRestoresGameState() {
+        GameState gameState = createGameState();
+        MoveJournal journal = new MoveJournal();
+        // copies of the game state before each of the moves in the journal
+        Deque<GameState> copies = new ArrayDeque<>();
+        Random random = new Random(3);
+        int conquerCount = 0;
+        for (int i = 0; i < 1500 && gameState.getWinner() == null; i++) {
+            List<PlayerMove> moves = determineValidMoves(gameState);
+            if (moves.isEmpty() || random.nextInt(15) == 0) {
+                // undo some of the moves, keep the others and go on with the next turn
+                int undoCount = random.nextInt(copies.size() + 1);
+                for (int j = 0; j < undoCount; j++) {
+                    undoAndCompare(gameState, journal, copies);
+                }
+                journal.clear();
+                copies.clear();
+                if (gameState.getHeldObject() == null) {
+                    GameStateHelper.endTurn(gameState);
+                    continue;
+                }
+                moves = determineValidMoves(gameState);
+                if (moves.isEmpty()) {
+                    break;
+                }
+            }
+            if (!copies.isEmpty() && random.nextInt(4) == 0) {
+                undoAndCompare(gameState, journal, copies);
+                continue;
+            }
+            PlayerMove move = pickMove(moves, random);
+            if (move.getPlayerActionType() == PlayerMoveType.CONQUER) {
+                conquerCount++;
+            }
+            copies.push(GameStateHelper.getExactCopy(gameState));
+            GameStateHelper.applyPlayerMove(gameState, move, journal);
+            assertEquals(copies.size(), journal.size());
+            if (i % 2 == 0) {
+                // reading by index closes the gaps removed tiles left in the lists, which must not break undoing
+                for (Kingdom kingdom : gameState.getKingdoms()) {
+                    if (!kingdom.getTiles().isEmpty()) {
+                        kingdom.getTiles().get(kingdom.getTiles().size() - 1);
+                    }
+                }
+            }
+        }
+        // make sure splitting and combining kingdoms was covered
+        assertTrue(conquerCount > 100, "too few conquers: " + conquerCount);
+    }
+
+    @Test
+    void failedMoveIsUndone() {
+        GameState gameState = createGameState();
+        MoveJournal journal = new MoveJournal();
+        GameState copy = GameStateHelper.getExactCopy(gameState);
+
+        assertThrows(IllegalStateException.class,
+                () -> GameStateHelper.applyPlayerMove(gameState, PlayerMove.endTurn(), journal));
+
+        assertTrue(journal.isEmpty());
+        assertSameState(copy, gameState);
+    }
+
+    @Test
+    void journalOnlyUndoesMovesOfItsGameState() {
+        GameState gameState = createGameState();
+        GameState otherGameState = GameStateHelper.getExactCopy(gameState);
+        MoveJournal journal = new MoveJournal();
+        GameStateHelper.applyPlayerMove(gameState, determineValidMoves(gameState).get(0), journal);
+
+        assertThrows(IllegalArgumentException.class, () -> GameStateHelper.undoPlayerMove(otherGameState, journal));
+        journal.clear();
+        assertThrows(IllegalStateException.class, () -> GameStateHelper.undoPlayerMove(gameState, journal));
+    }
+
+    private static GameState createGameState() {
+        GameState gameState = new GameState();
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            players.add(new Player(i, Type.LOCAL_PLAYER));
+        }
+        GameStateHelper.initializeMap(gameState, players, 150, 0, 0.2F, 12L);
+        return gameState;
+    }
+
+    private static void undoAndCompare(GameState gameState, MoveJournal journal, Deque<GameState> copies) {
+        GameStateHelper.undoPlayerMove(gameState, journal);
+        assertSameState(copies.pop(), gameState);
+        assertEquals(copies.size(), journal.size());
+    }
+
+    private static void assertSameState(GameState expected, GameState actual) {
+        assertEquals(expected, actual);
+        assertEquals(expected.hashCode(), actual.hashCode());
+        assertEquals(expected.getFingerprint(), actual.getFingerprint());
+        assertEquals(expected.getKingdoms().indexOf(expected.getActiveKingdom()),
+                actual.getKingdoms().indexOf(actual.getActiveKingdom()));
+        for (int i = 0; i < expected.getKingdoms().size(); i++) {
+            Kingdom expectedKingdom = expected.getKingdoms().get(i);
+            Kingdom actualKingdom = actual.getKingdoms().get(i);
+            // equals ignores the order of the tiles
+            assertEquals(getPositions(expectedKingdom.getTiles()), getPositions(actualKingdom.getTiles()));
+            assertEquals(expectedKingdom.getTreeCount(), actualKingdom.getTreeCount());
+            assertEquals(expectedKingdom.getUnitSalaries(), actualKingdom.getUnitSalaries());
+        }
+        HexGrid map = actual.getMap();
+        for (HexTile tile : map.values()) {
+            HexTile expectedTile = expected.getMap().get(tile.getPosition());
+            assertEquals(expected.getKingdoms().indexOf(expectedTile.getKingdom()),
+                    actual.getKingdoms().indexOf(tile.getKingdom()));
+            int slot = map.getSlot(tile);
+            assertSame(tile.getKingdom(), map.getKingdomInSlot(slot));
+            assertSame(tile.getContent(), map.getContentInSlot(slot));
+            assertSame(tile.getPlayer(), map.getOwnerInSlot(slot));
+        }
+    }
+
+    private static List<Vector2> getPositions(List<HexTile> tiles) {
+        List<Vector2> result = new ArrayList<>();
+        for (HexTile tile : tiles) {
+            result.add(tile.getPosition());
+        }
+        return result;
+    }
+
+    private static PlayerMove pickMove(List<PlayerMove> moves, Random random) {
+        // prefer conquering because it changes the most, and buying units to conquer with
+        List<PlayerMove> preferredMoves = new ArrayList<>();
+        for (PlayerMove move : moves) {
+            if (move.getPlayerActionType() == PlayerMoveType.CONQUER) {
+                preferredMoves.add(move);
+            }
+        }
+        if (preferredMoves.isEmpty()) {
+            for (PlayerMove move : moves) {
+                if (move.getPlayerActionType() == PlayerMoveType.BUY_PEASANT) {
+                    preferredMoves.add(move);
+                }
+            }
+        }
+        if (!preferredMoves.isEmpty() && random.nextInt(4) != 0) {
+            return preferredMoves.get(random.nextInt(preferredMoves.size()));
+        }
+        return moves.get(random.nextInt(moves.size()));
+    }
+
+    private static List<PlayerMove> determineValidMoves(GameState gameState) {
+        Player player = gameState.getActivePlayer();
+        List<PlayerMove> moves = new ArrayList<>();
+        for (HexTile tile : gameState.getMap().values()) {
+            Vector2 position = tile.getPosition();
+            if (InputValidationHelper.checkChangeActiveKingdom(gameState, player, tile)) {
+                moves.add(PlayerMove.activateKingdom(position));
+            }
+            if (InputValidationHelper.checkConquer(gameState, player, tile)) {
+                moves.add(PlayerMove.conquer(position));
+            }
+            if (gameState.getActiveKingdom() == null || tile.getKingdom() != gameState.getActiveKingdom()) {
+                // the UI activates the tile's kingdom before doing anything else with it
+                continue;
+            }
+            if (InputValidationHelper.checkPickupObject(gameState, player, tile)) {
+                moves.add(PlayerMove.pickUp(position));
+            }
+            if (InputValidationHelper.checkPlaceOwn(gameState, player, tile)) {
+                moves.add(PlayerMove.placeOwn(position));
+            }
+            if (InputValidationHelper.checkCombineUnits(gameState, player, tile)) {
+                moves.add(PlayerMove.combineUnits(position));
+            }
+            if (InputValidationHelper.checkBuyAndPlaceUnitInstantly(gameState, player, tile)) {
+                moves.add(PlayerMove.buyAndPlacePeasant(position));
+            }
+            if (InputValidationHelper.checkBuyAndPlaceCastleInstantly(gameState, player, tile)) {
+                moves.add(PlayerMove.buyAndPlaceCastle(position));
+            }
+        }
+        if (InputValidationHelper.checkBuyObject(gameState, player, Unit.class)) {
+            moves.add(PlayerMove.buyPeasant());
+        }
+        if (InputValidationHelper.checkBuyObject(gameState, player, Castle.class)) {
+            moves.add(PlayerMove.buyCastle());
+        }
+        return moves;
+    }
+
+}
@@ -0,0 +1,61 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.gamestate;
+
+import de.sesu8642.feudaltactics.lib.gamestate.RandomStream;
+import de.sesu8642.feudaltactics.lib.gamestate.RandomStream.Purpose;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for RandomStream class.
+ */
+class RandomStreamTest {
+
+    @Test
+    void sameSeedResultsInSameNumbers() {
+        RandomStream randomStream = RandomStream.of(42L);
+        RandomStream sameRandomStream = RandomStream.of(42L);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(randomStream.nextLong(), sameRandomStream.nextLong());
+        }
+        // known values, so the numbers don't change by accident
+        assertEquals(-2152535657050944081L, RandomStream.of(0L).nextLong());
+        assertEquals(7046401276594693853L, RandomStream.of(0L).split(Purpose.MAP_TILES).nextLong());
+    }
+
+    @Test
+    void derivedStreamDoesNotDependOnTakenNumbers() {
+        RandomStream randomStream = RandomStream.of(42L);
+        long expected = randomStream.split(Purpose.BOT_TURN).split(3).nextLong();
+        for (int i = 0; i < 10; i++) {
+            randomStream.nextLong();
+        }
+        assertEquals(expected, randomStream.split(Purpose.BOT_TURN).split(3).nextLong());
+    }
+
+    @Test
+    void derivedStreamsAreDifferent() {
+        RandomStream randomStream = RandomStream.of(42L);
+        assertNotEquals(randomStream.split(1).nextLong(), randomStream.split(2).nextLong());
+        assertNotEquals(randomStream.split(1).nextLong(), randomStream.split(1).split(1).nextLong());
+        assertNotEquals(RandomStream.of(42L).nextLong(), randomStream.split(0).nextLong());
+    }
+
+    @Test
+    void numbersAreInRange() {
+        RandomStream randomStream = RandomStream.of(12345L);
+        int[] counts = new int[6];
+        for (int i = 0; i < 60000; i++) {
+            counts[randomStream.nextInt(6)]++;
+            float nextFloat = randomStream.nextFloat();
+            assertTrue(nextFloat >= 0 && nextFloat < 1);
+        }
+        for (int count : counts) {
+            assertTrue(count > 9500 && count < 10500);
+        }
+        assertThrows(IllegalArgumentException.class, () -> randomStream.nextInt(0));
+    }
+
+}
@@ -12,8 +12,10 @@ import de.sesu8642.feudaltactics.lib.gamestate.*;
 import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
 import de.sesu8642.feudaltactics.lib.ingame.botai.BotAi;
 import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
+import de.sesu8642.feudaltactics.lib.ingame.botai.ScoringScheduler;
 import de.sesu8642.feudaltactics.menu.preferences.MainGamePreferences;
 import de.sesu8642.feudaltactics.menu.preferences.MainPreferencesDao;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -22,12 +24,14 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.stubbing.Answer;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -47,6 +51,10 @@ class BotAiIntegrationTest {
     @Mock
     MainPreferencesDao prefsDaoStub;
 
+    // scores everything in parallel to make sure that this doesn't change the bots' decisions
+    @Spy
+    ScoringScheduler scoringScheduler = new ScoringScheduler(new ForkJoinPool(2), 1);
+
     // do not wait in tests
     MainGamePreferences stubPreferences = new MainGamePreferences(false, false);
 
@@ -73,6 +81,38 @@ class BotAiIntegrationTest {
                 Arguments.of(Intelligence.LEVEL_4, 250F, -3F, 15L));
     }
 
+    // hash codes of the game states after the bots played for 100 turns, recorded on commit e3cd366, before the bots'
+    // scores were kept in queues; the bots must keep making the same decisions
+    static Stream<Arguments> provideMapParametersAndHashCodes() {
+        return Stream.of(Arguments.of(Intelligence.LEVEL_1, 12F, 0F, 1L, -534184722),
+                Arguments.of(Intelligence.LEVEL_1, 100F, -3F, 2L, -873568932),
+                Arguments.of(Intelligence.LEVEL_1, 200F, 3F, 3L, 1543225387),
+                Arguments.of(Intelligence.LEVEL_1, 250F, 1F, 4L, -1389666734),
+                Arguments.of(Intelligence.LEVEL_1, 250F, -3F, 5L, 1856106593),
+                Arguments.of(Intelligence.LEVEL_2, 12F, 0F, 6L, -753783041),
+                Arguments.of(Intelligence.LEVEL_2, 100F, -3F, 7L, 173718485),
+                Arguments.of(Intelligence.LEVEL_2, 200F, 3F, 8L, 1314585303),
+                Arguments.of(Intelligence.LEVEL_2, 250F, 1F, 9L, -487052636),
+                Arguments.of(Intelligence.LEVEL_2, 250F, -3F, 10L, 879570011),
+                Arguments.of(Intelligence.LEVEL_4, 12F, 0F, 11L, -1293153231),
+                Arguments.of(Intelligence.LEVEL_4, 100F, -3F, 12L, 1483658865),
+                Arguments.of(Intelligence.LEVEL_4, 200F, 3F, 13L, -1911012447),
+                Arguments.of(Intelligence.LEVEL_4, 250F, 1F, 14L, -571059037),
+                Arguments.of(Intelligence.LEVEL_4, 250F, -3F, 15L, 2045210671));
+    }
+
+    // like provideMapParametersAndHashCodes, also recorded on commit e3cd366, before the offense scores were only
+    // updated around conquered tiles; bots that attack a lot on larger maps, so that many kingdoms are merged and many
+    // capitals are moved
+    static Stream<Arguments> provideOffensiveMapParametersAndHashCodes() {
+        return Stream.of(Arguments.of(Intelligence.LEVEL_3, 500F, 0F, 21L, -1416448458),
+                Arguments.of(Intelligence.LEVEL_3, 500F, 3F, 22L, 1990385245),
+                Arguments.of(Intelligence.LEVEL_4, 500F, 0F, 23L, -1941380095),
+                Arguments.of(Intelligence.LEVEL_4, 500F, 3F, 24L, 1213796156),
+                Arguments.of(Intelligence.LEVEL_4, 1000F, -1F, 25L, -20522022),
+                Arguments.of(Intelligence.LEVEL_3, 1000F, 1F, 26L, -1516649414));
+    }
+
     static void assertIntegreKingdomTileLinks(GameState gameState) {
         // the kingdom of each tile contains the tile
         gameState.getMap().values().stream().filter(tile -> tile.getKingdom() != null)
@@ -107,6 +147,11 @@ class BotAiIntegrationTest {
         }).when(eventBusStub).post(any(BotTurnFinishedEvent.class));
     }
 
+    @AfterEach
+    void tearDown() {
+        scoringScheduler.shutdown();
+    }
+
     @ParameterizedTest
     @MethodSource("provideMapParameters")
     void botsDoNotGainOrLoseValueDuringTurn(Intelligence botIntelligence, Float landMass, Float density, Long seed)
@@ -183,6 +228,23 @@ class BotAiIntegrationTest {
         }
     }
 
+    @ParameterizedTest
+    @MethodSource({"provideMapParametersAndHashCodes", "provideOffensiveMapParametersAndHashCodes"})
+    void botsActLikeBefore(Intelligence botIntelligence, Float landMass, Float density, Long seed,
+                           int expectedHashCode) throws Exception {
+        GameState gameState = createGameState(landMass, density, seed);
+
+        for (int i = 1; i <= 100; i++) {
+            if (gameState.getKingdoms().size() == 1) {
+                break;
+            }
+            systemUnderTest.doTurn(gameState, botIntelligence);
+            gameState = resultingGameState;
+            GameStateHelper.endTurn(gameState);
+        }
+        assertEquals(expectedHashCode, gameState.hashCode());
+    }
+
     private String gameStateToJson(GameState gameState) {
         Json json = new Json(OutputType.json);
         json.setSerializer(GameState.class, new GameStateSerializer());
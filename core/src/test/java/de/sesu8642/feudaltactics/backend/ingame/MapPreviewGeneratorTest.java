@@ -0,0 +1,214 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.ingame;
+
+import com.badlogic.gdx.Gdx;
+import com.google.common.eventbus.EventBus;
+import de.sesu8642.feudaltactics.ApplicationStub;
+import de.sesu8642.feudaltactics.events.CenterMapUIEvent;
+import de.sesu8642.feudaltactics.ingame.GameParameters;
+import de.sesu8642.feudaltactics.ingame.MapPreviewGenerator;
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.MapGeneratorVersion;
+import de.sesu8642.feudaltactics.lib.ingame.GameController;
+import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for MapPreviewGenerator class.
+ */
+@ExtendWith(MockitoExtension.class)
+class MapPreviewGeneratorTest {
+
+    // longer than the debounce delay, so a request that is not dropped is generated in this time
+    private static final long NOTHING_POSTED_TIMEOUT_MS = 500;
+    private static final long POSTED_TIMEOUT_MS = 5000;
+
+    private final GameParameters gameParams1 = new GameParameters(0, 1L, 12, 0, Intelligence.LEVEL_1, 5,
+            MapGeneratorVersion.LATEST);
+    private final GameParameters gameParams2 = new GameParameters(0, 2L, 12, 0, Intelligence.LEVEL_1, 5,
+            MapGeneratorVersion.LATEST);
+    private final GameState gameState1 = new GameState();
+    private final GameState gameState2 = new GameState();
+
+    // runnables posted to the render thread; the tests run them
+    private final BlockingQueue<Runnable> postedRunnables = new LinkedBlockingQueue<>();
+
+    @Mock
+    GameController gameController;
+
+    @Mock
+    EventBus eventBus;
+
+    @InjectMocks
+    private MapPreviewGenerator systemUnderTest;
+
+    @BeforeEach
+    void init() {
+        Gdx.app = new ApplicationStub() {
+            @Override
+            public void postRunnable(Runnable runnable) {
+                postedRunnables.add(runnable);
+            }
+        };
+    }
+
+    @Test
+    void onlyLatestRequestIsShown() throws InterruptedException {
+        when(gameController.createGameState(gameParams1)).thenReturn(gameState1);
+        when(gameController.createGameState(gameParams2)).thenReturn(gameState2);
+
+        systemUnderTest.requestPreview(gameParams1, false);
+        // the first map is generated but the render thread is busy until the second one is requested
+        Runnable postedRunnable1 = takePostedRunnable();
+        systemUnderTest.requestPreview(gameParams2, false);
+        Runnable postedRunnable2 = takePostedRunnable();
+        postedRunnable1.run();
+        postedRunnable2.run();
+
+        verify(gameController, never()).showGeneratedGameState(same(gameState1));
+        verify(gameController).showGeneratedGameState(same(gameState2));
+    }
+
+    @Test
+    void cancelledRequestIsNeverShown() throws InterruptedException {
+        systemUnderTest.requestPreview(gameParams1, true);
+        systemUnderTest.cancelPendingPreview();
+        assertNothingPosted();
+
+        verify(gameController, never()).createGameState(any());
+        verify(gameController, never()).showGeneratedGameState(any());
+        verify(eventBus, never()).post(any());
+    }
+
+    @Test
+    void requestCancelledAfterGenerationIsNeverShown() throws InterruptedException {
+        when(gameController.createGameState(gameParams1)).thenReturn(gameState1);
+
+        systemUnderTest.requestPreview(gameParams1, true);
+        Runnable postedRunnable = takePostedRunnable();
+        systemUnderTest.cancelPendingPreview();
+        postedRunnable.run();
+
+        verify(gameController, never()).showGeneratedGameState(any());
+        verify(eventBus, never()).post(any());
+    }
+
+    @Test
+    void mapIsCenteredIfCenteringRequestIsReplaced() throws InterruptedException {
+        when(gameController.createGameState(gameParams2)).thenReturn(gameState2);
+
+        systemUnderTest.requestPreview(gameParams1, true);
+        systemUnderTest.requestPreview(gameParams2, false);
+        takePostedRunnable().run();
+
+        verify(gameController).showGeneratedGameState(same(gameState2));
+        verify(eventBus).post(any(CenterMapUIEvent.class));
+    }
+
+    @Test
+    void mapIsNotCenteredAgainAfterCenteringRequestWasShown() throws InterruptedException {
+        when(gameController.createGameState(gameParams1)).thenReturn(gameState1);
+        when(gameController.createGameState(gameParams2)).thenReturn(gameState2);
+
+        systemUnderTest.requestPreview(gameParams1, true);
+        takePostedRunnable().run();
+        systemUnderTest.requestPreview(gameParams2, false);
+        takePostedRunnable().run();
+
+        verify(gameController).showGeneratedGameState(same(gameState2));
+        verify(eventBus, times(1)).post(any(CenterMapUIEvent.class));
+    }
+
+    @Test
+    void finishedPendingPreviewIsShownOnce() throws InterruptedException {
+        when(gameController.createGameState(gameParams1)).thenReturn(gameState1);
+
+        systemUnderTest.requestPreview(gameParams1, true);
+        systemUnderTest.finishPendingPreview();
+        systemUnderTest.finishPendingPreview();
+        assertNothingPosted();
+
+        verify(gameController, times(1)).showGeneratedGameState(same(gameState1));
+        verify(eventBus, times(1)).post(any(CenterMapUIEvent.class));
+    }
+
+    @Test
+    void finishedPendingPreviewIsShownOnceIfAlreadyGenerated() throws InterruptedException {
+        when(gameController.createGameState(gameParams1)).thenReturn(gameState1);
+
+        systemUnderTest.requestPreview(gameParams1, true);
+        Runnable postedRunnable = takePostedRunnable();
+        systemUnderTest.finishPendingPreview();
+        postedRunnable.run();
+
+        verify(gameController, times(1)).showGeneratedGameState(same(gameState1));
+        verify(eventBus, times(1)).post(any(CenterMapUIEvent.class));
+    }
+
+    @Test
+    void runningPrefetchDoesNotDelayPreview() throws InterruptedException {
+        when(gameController.createGameState(gameParams1)).thenReturn(gameState1);
+        when(gameController.createGameState(gameParams2)).thenReturn(gameState2);
+        CountDownLatch prefetchStarted = new CountDownLatch(1);
+        CountDownLatch prefetchMayFinish = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            prefetchStarted.countDown();
+            prefetchMayFinish.await();
+            return null;
+        }).when(gameController).prefetchGameState(any());
+
+        try {
+            systemUnderTest.requestPreview(gameParams1, false);
+            takePostedRunnable().run();
+            assertTrue(prefetchStarted.await(POSTED_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+            systemUnderTest.requestPreview(gameParams2, false);
+            takePostedRunnable().run();
+        } finally {
+            prefetchMayFinish.countDown();
+        }
+
+        verify(gameController).showGeneratedGameState(same(gameState2));
+    }
+
+    @Test
+    void finishingWithoutPendingPreviewShowsNothing() {
+        systemUnderTest.finishPendingPreview();
+
+        verify(gameController, never()).createGameState(any());
+        verify(gameController, never()).showGeneratedGameState(any());
+    }
+
+    private Runnable takePostedRunnable() throws InterruptedException {
+        Runnable runnable = postedRunnables.poll(POSTED_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull(runnable, "Nothing was posted to the render thread.");
+        return runnable;
+    }
+
+    private void assertNothingPosted() throws InterruptedException {
+        assertNull(postedRunnables.poll(NOTHING_POSTED_TIMEOUT_MS, TimeUnit.MILLISECONDS),
+                "Something was posted to the render thread.");
+    }
+
+}
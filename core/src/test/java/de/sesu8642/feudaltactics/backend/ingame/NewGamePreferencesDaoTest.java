@@ -0,0 +1,67 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.ingame;
+
+import com.badlogic.gdx.Preferences;
+import de.sesu8642.feudaltactics.PreferencesStub;
+import de.sesu8642.feudaltactics.ingame.NewGamePreferences;
+import de.sesu8642.feudaltactics.ingame.NewGamePreferences.Densities;
+import de.sesu8642.feudaltactics.ingame.NewGamePreferences.MapSizes;
+import de.sesu8642.feudaltactics.ingame.NewGamePreferencesDao;
+import de.sesu8642.feudaltactics.lib.gamestate.MapGeneratorVersion;
+import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for NewGamePreferencesDao class.
+ */
+class NewGamePreferencesDaoTest {
+
+    private Preferences prefStore;
+    private NewGamePreferencesDao systemUnderTest;
+
+    @BeforeEach
+    void init() {
+        prefStore = new PreferencesStub();
+        systemUnderTest = new NewGamePreferencesDao(prefStore);
+    }
+
+    @ParameterizedTest
+    @EnumSource(MapGeneratorVersion.class)
+    void savedMapGeneratorVersionIsLoaded(MapGeneratorVersion mapGeneratorVersion) {
+        NewGamePreferences preferences = new NewGamePreferences(42L, Intelligence.LEVEL_2, MapSizes.LARGE,
+                Densities.LOOSE, 1);
+        preferences.setMapGeneratorVersion(mapGeneratorVersion);
+
+        systemUnderTest.saveNewGamePreferences(preferences);
+        NewGamePreferences result = systemUnderTest.getNewGamePreferences();
+
+        assertEquals(mapGeneratorVersion, result.getMapGeneratorVersion());
+        assertEquals(42L, result.getSeed());
+        assertEquals(MapSizes.LARGE, result.getMapSize());
+    }
+
+    @Test
+    void seedSavedWithoutMapGeneratorVersionUsesFirstVersion() {
+        // saved before there were versions
+        prefStore.putLong("seed", 42L);
+
+        NewGamePreferences result = systemUnderTest.getNewGamePreferences();
+
+        assertEquals(MapGeneratorVersion.V1, result.getMapGeneratorVersion());
+        assertEquals(42L, result.getSeed());
+    }
+
+    @Test
+    void nothingSavedUsesLatestMapGeneratorVersion() {
+        NewGamePreferences result = systemUnderTest.getNewGamePreferences();
+
+        assertEquals(MapGeneratorVersion.LATEST, result.getMapGeneratorVersion());
+    }
+
+}
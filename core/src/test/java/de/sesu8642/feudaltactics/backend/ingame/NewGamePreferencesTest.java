@@ -0,0 +1,67 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.backend.ingame;
+
+import de.sesu8642.feudaltactics.ingame.NewGamePreferences;
+import de.sesu8642.feudaltactics.ingame.NewGamePreferences.Densities;
+import de.sesu8642.feudaltactics.ingame.NewGamePreferences.MapSizes;
+import de.sesu8642.feudaltactics.lib.gamestate.MapGeneratorVersion;
+import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for NewGamePreferences class.
+ */
+class NewGamePreferencesTest {
+
+    @Test
+    void newPreferencesUseLatestMapGeneratorVersion() {
+        NewGamePreferences preferences = new NewGamePreferences(42L, Intelligence.LEVEL_2, MapSizes.LARGE,
+                Densities.LOOSE, 1);
+
+        assertEquals(MapGeneratorVersion.LATEST, preferences.getMapGeneratorVersion());
+        assertEquals(MapGeneratorVersion.LATEST, preferences.toGameParameters().getMapGeneratorVersion());
+    }
+
+    @ParameterizedTest
+    @EnumSource(MapGeneratorVersion.class)
+    void sharableStringKeepsMapGeneratorVersion(MapGeneratorVersion mapGeneratorVersion) {
+        NewGamePreferences preferences = new NewGamePreferences(42L, Intelligence.LEVEL_2, MapSizes.LARGE,
+                Densities.LOOSE, 1);
+        preferences.setMapGeneratorVersion(mapGeneratorVersion);
+
+        NewGamePreferences result = NewGamePreferences.fromSharableString(preferences.toSharableString());
+
+        assertEquals(mapGeneratorVersion, result.getMapGeneratorVersion());
+        assertEquals(mapGeneratorVersion, result.toGameParameters().getMapGeneratorVersion());
+        assertEquals(42L, result.getSeed());
+        assertEquals(MapSizes.LARGE, result.getMapSize());
+    }
+
+    @Test
+    void sharableStringWithoutMapGeneratorVersionUsesFirstVersion() {
+        // shared before there were versions
+        String sharedString = "Seed: 42\nStarting Position: 2\nCPU Difficulty: Medium\nMap Size: Large\n"
+                + "Map Density: Loose";
+
+        NewGamePreferences result = NewGamePreferences.fromSharableString(sharedString);
+
+        assertEquals(MapGeneratorVersion.V1, result.getMapGeneratorVersion());
+        assertEquals(42L, result.getSeed());
+    }
+
+    @Test
+    void unknownMapGeneratorVersionInSharableStringIsIgnored() {
+        String sharedString = "Seed: 42\nMap Generator: " + (MapGeneratorVersion.values().length + 1);
+
+        NewGamePreferences result = NewGamePreferences.fromSharableString(sharedString);
+
+        assertEquals(MapGeneratorVersion.V1, result.getMapGeneratorVersion());
+        assertEquals(42L, result.getSeed());
+    }
+
+}
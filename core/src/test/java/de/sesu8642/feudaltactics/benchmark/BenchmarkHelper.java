@@ -0,0 +1,54 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.benchmark;
+
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * Minimal harness for the micro benchmarks in this package. The benchmarks are plain main classes that are started
+ * manually (e.g. via the core:benchmark Gradle task) and not part of the regular test run.
+ */
+final class BenchmarkHelper {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    // results are accumulated here so the JIT cannot eliminate the measured code
+    private static long sink;
+
+    // prevent instantiation
+    private BenchmarkHelper() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Runs the operation a number of times per round and prints the average time per operation of the fastest round.
+     *
+     * @param name               name to print
+     * @param operationsPerRound how often the operation is executed per round
+     * @param operation          operation to measure; its result is consumed to keep it from being optimized away
+     */
+    static void measure(String name, int operationsPerRound, LongSupplier operation) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < operationsPerRound; i++) {
+                sink += operation.getAsLong();
+            }
+            long duration = System.nanoTime() - start;
+            if (round >= WARMUP_ROUNDS) {
+                best = Math.min(best, duration);
+            }
+        }
+        System.out.printf(Locale.ROOT, "%-60s %12.1f ns/op%n", name, (double) best / operationsPerRound);
+    }
+
+    /**
+     * Prints the sink so the results are used.
+     */
+    static void finish() {
+        System.out.println("(checksum " + sink + ")");
+    }
+
+}
@@ -0,0 +1,70 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.benchmark;
+
+import de.sesu8642.feudaltactics.lib.gamestate.*;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.ingame.botai.ScoringScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures scoring tiles sequentially and in parallel for different numbers of tiles to find out from how many tiles
+ * on parallel scoring pays off (see bot_parallel_scoring_threshold in gameconfig.properties). The score function
+ * looks at the neighbors and their neighbors like the bots' defense score does.
+ */
+public class BotScoringBenchmark {
+
+    private static final int[] TILE_COUNTS = {8, 32, 128, 512, 2048};
+
+    /**
+     * Runs the benchmark.
+     */
+    public static void main(String[] args) {
+        GameState gameState = new GameState();
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            players.add(new Player(i, Type.LOCAL_BOT));
+        }
+        GameStateHelper.initializeMap(gameState, players, 5000, 0, 0.2F, 1L);
+        List<HexTile> allTiles = new ArrayList<>(gameState.getMap().values());
+        int threadCount = Math.max(2, Runtime.getRuntime().availableProcessors());
+        ScoringScheduler sequentialScheduler = ScoringScheduler.sequential();
+        ScoringScheduler parallelScheduler = new ScoringScheduler(new ForkJoinPool(threadCount), 1);
+        System.out.println(Runtime.getRuntime().availableProcessors() + " processors");
+        for (int tileCount : TILE_COUNTS) {
+            List<HexTile> tiles = allTiles.subList(0, tileCount);
+            BenchmarkHelper.measure(String.format("score %s tiles sequentially", tileCount), 20000 / tileCount + 1,
+                    () -> sum(sequentialScheduler.scoreAll(tiles, tile -> score(gameState, tile))));
+            BenchmarkHelper.measure(String.format("score %s tiles with %s threads", tileCount, threadCount),
+                    20000 / tileCount + 1,
+                    () -> sum(parallelScheduler.scoreAll(tiles, tile -> score(gameState, tile))));
+        }
+        BenchmarkHelper.finish();
+    }
+
+    private static int score(GameState gameState, HexTile tile) {
+        int score = 0;
+        for (HexTile neighborTile : HexMapHelper.getNeighborTiles(gameState.getMap(), tile)) {
+            if (neighborTile != null && neighborTile.getKingdom() == tile.getKingdom()) {
+                for (HexTile neighborsNeighbor : HexMapHelper.getNeighborTiles(gameState.getMap(), neighborTile)) {
+                    if (neighborsNeighbor != null && neighborsNeighbor.getKingdom() != tile.getKingdom()) {
+                        score++;
+                    }
+                }
+            }
+        }
+        return score;
+    }
+
+    private static long sum(List<Integer> scores) {
+        long sum = 0;
+        for (int score : scores) {
+            sum += score;
+        }
+        return sum;
+    }
+
+}
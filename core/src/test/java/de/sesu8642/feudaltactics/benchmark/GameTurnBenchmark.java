@@ -0,0 +1,97 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.benchmark;
+
+import com.google.common.eventbus.EventBus;
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.ingame.botai.BotAi;
+import de.sesu8642.feudaltactics.lib.ingame.botai.Intelligence;
+import de.sesu8642.feudaltactics.lib.ingame.botai.ScoringScheduler;
+import de.sesu8642.feudaltactics.menu.preferences.MainGamePreferences;
+import de.sesu8642.feudaltactics.menu.preferences.MainPreferencesDao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Measures whole turns: ending a turn and a bot doing its turn. Both mostly consist of checking the contents of many
+ * tiles.
+ */
+public class GameTurnBenchmark {
+
+    private static final int[] LAND_MASSES = {250, 1000, 5000};
+
+    /**
+     * Runs the benchmark.
+     */
+    public static void main(String[] args) {
+        // do not wait between the bot's moves
+        MainPreferencesDao mainPrefsDao = new MainPreferencesDao(null) {
+            @Override
+            public MainGamePreferences getMainPreferences() {
+                return new MainGamePreferences(false, false);
+            }
+        };
+        BotAi botAi = new BotAi(new EventBus(), mainPrefsDao, ScoringScheduler.sequential());
+        for (int landMass : LAND_MASSES) {
+            GameState initialGameState = new GameState();
+            List<Player> players = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                players.add(new Player(i, Type.LOCAL_BOT));
+            }
+            GameStateHelper.initializeMap(initialGameState, players, landMass, 0, 0.2F, 1L);
+            System.out.println("Land mass " + landMass);
+
+            BenchmarkHelper.measure("end turn", 100, new TurnOperation(initialGameState) {
+                @Override
+                void doTurn(GameState gameState) {
+                    GameStateHelper.endTurn(gameState);
+                }
+            });
+            BenchmarkHelper.measure("bot turn (level 4) and end turn", 20, new TurnOperation(initialGameState) {
+                @Override
+                void doTurn(GameState gameState) throws InterruptedException {
+                    botAi.doTurn(gameState, Intelligence.LEVEL_4);
+                    GameStateHelper.endTurn(gameState);
+                }
+            });
+        }
+        BenchmarkHelper.finish();
+    }
+
+    /**
+     * Plays one turn every time it is called. Starts over with a copy of the initial game state when the game is
+     * over.
+     */
+    private abstract static class TurnOperation implements LongSupplier {
+
+        private final GameState initialGameState;
+        private GameState gameState;
+
+        TurnOperation(GameState initialGameState) {
+            this.initialGameState = initialGameState;
+            gameState = GameStateHelper.getCopy(initialGameState);
+        }
+
+        abstract void doTurn(GameState gameState) throws InterruptedException;
+
+        @Override
+        public long getAsLong() {
+            if (gameState.getWinner() != null || gameState.getKingdoms().size() < 2) {
+                gameState = GameStateHelper.getCopy(initialGameState);
+            }
+            try {
+                doTurn(gameState);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            return gameState.getKingdoms().size();
+        }
+    }
+
+}
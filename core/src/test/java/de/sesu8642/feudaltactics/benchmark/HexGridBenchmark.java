@@ -0,0 +1,125 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.benchmark;
+
+import com.badlogic.gdx.math.Vector2;
+import de.sesu8642.feudaltactics.lib.gamestate.*;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Compares tile lookup and iteration on {@link HexGrid} with the {@link LinkedHashMap} that was used for the map
+ * before.
+ */
+public class HexGridBenchmark {
+
+    private static final int[] LAND_MASSES = {50, 150, 250, 500, 1000, 20000};
+
+    /**
+     * Runs the benchmark.
+     */
+    public static void main(String[] args) {
+        for (int landMass : LAND_MASSES) {
+            GameState gameState = new GameState();
+            List<Player> players = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                players.add(new Player(i, Type.LOCAL_BOT));
+            }
+            GameStateHelper.initializeMap(gameState, players, landMass, 0, null, 1L);
+            HexGrid grid = gameState.getMap();
+            LinkedHashMap<Vector2, HexTile> linkedHashMap = new LinkedHashMap<>(grid);
+            Vector2[] positions = grid.keySet().toArray(new Vector2[0]);
+            int tileCount = positions.length;
+            System.out.println("Land mass " + landMass + " (" + tileCount + " tiles)");
+
+            BenchmarkHelper.measure("LinkedHashMap: get every tile", tileCount, new LookupOperation(positions) {
+                @Override
+                long lookup(Vector2 position) {
+                    return linkedHashMap.get(position) != null ? 1 : 0;
+                }
+            });
+            BenchmarkHelper.measure("HexGrid: get every tile", tileCount, new LookupOperation(positions) {
+                @Override
+                long lookup(Vector2 position) {
+                    return grid.get(position) != null ? 1 : 0;
+                }
+            });
+            BenchmarkHelper.measure("LinkedHashMap: 6 neighbors of every tile (new Vector2s)", tileCount,
+                    new LookupOperation(positions) {
+                        @Override
+                        long lookup(Vector2 position) {
+                            long found = 0;
+                            for (Vector2 neighborPosition : HexMapHelper.getNeighborCoords(position)) {
+                                found += linkedHashMap.get(neighborPosition) != null ? 1 : 0;
+                            }
+                            return found;
+                        }
+                    });
+            BenchmarkHelper.measure("HexGrid: 6 neighbors of every tile (int coordinates)", tileCount,
+                    new LookupOperation(positions) {
+                        @Override
+                        long lookup(Vector2 position) {
+                            int x = (int) position.x;
+                            int y = (int) position.y;
+                            long found = 0;
+                            found += grid.getTile(x - 1, y) != null ? 1 : 0;
+                            found += grid.getTile(x, y - 1) != null ? 1 : 0;
+                            found += grid.getTile(x + 1, y - 1) != null ? 1 : 0;
+                            found += grid.getTile(x + 1, y) != null ? 1 : 0;
+                            found += grid.getTile(x, y + 1) != null ? 1 : 0;
+                            found += grid.getTile(x - 1, y + 1) != null ? 1 : 0;
+                            return found;
+                        }
+                    });
+            BenchmarkHelper.measure("LinkedHashMap: iterate values", 100, () -> {
+                long contents = 0;
+                for (HexTile tile : linkedHashMap.values()) {
+                    contents += tile.getContent() != null ? 1 : 0;
+                }
+                return contents;
+            });
+            BenchmarkHelper.measure("HexGrid: iterate values", 100, () -> {
+                long contents = 0;
+                for (HexTile tile : grid.values()) {
+                    contents += tile.getContent() != null ? 1 : 0;
+                }
+                return contents;
+            });
+            BenchmarkHelper.measure("HexGrid: scan content array", 100, () -> {
+                long contents = 0;
+                for (int slot = 0; slot < grid.getSlotCount(); slot++) {
+                    contents += grid.getContentInSlot(slot) != null ? 1 : 0;
+                }
+                return contents;
+            });
+        }
+        BenchmarkHelper.finish();
+    }
+
+    /**
+     * Looks up a different position every time it is called, cycling through all of them.
+     */
+    private abstract static class LookupOperation implements LongSupplier {
+
+        private final Vector2[] positions;
+        private int next = 0;
+
+        LookupOperation(Vector2[] positions) {
+            this.positions = positions;
+        }
+
+        abstract long lookup(Vector2 position);
+
+        @Override
+        public long getAsLong() {
+            Vector2 position = positions[next];
+            next = (next + 1) % positions.length;
+            return lookup(position);
+        }
+    }
+
+}
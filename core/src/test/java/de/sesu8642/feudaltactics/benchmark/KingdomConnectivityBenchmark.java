@@ -0,0 +1,74 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.benchmark;
+
+import de.sesu8642.feudaltactics.lib.gamestate.*;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Stress test for splitting and combining kingdoms: conquers random tiles on large maps. Every conquest removes a tile
+ * from its kingdom, potentially splitting it, and combines the kingdoms it connects.
+ */
+public class KingdomConnectivityBenchmark {
+
+    private static final int[] LAND_MASSES = {1000, 5000, 20000};
+    private static final int[] PLAYER_COUNTS = {2, 6};
+
+    /**
+     * Runs the benchmark.
+     */
+    public static void main(String[] args) {
+        for (int landMass : LAND_MASSES) {
+            for (int playerCount : PLAYER_COUNTS) {
+                GameState gameState = new GameState();
+                List<Player> players = new ArrayList<>();
+                for (int i = 0; i < playerCount; i++) {
+                    players.add(new Player(i, Type.LOCAL_BOT));
+                }
+                GameStateHelper.initializeMap(gameState, players, landMass, 0, null, 1L);
+                System.out.println("Land mass " + landMass + " (" + gameState.getMap().size() + " tiles), "
+                        + playerCount + " players, " + gameState.getKingdoms().size() + " kingdoms");
+                BenchmarkHelper.measure("random conquest", 1000, new ConquerOperation(gameState));
+            }
+        }
+        BenchmarkHelper.finish();
+    }
+
+    /**
+     * Conquers a random tile next to a kingdom of another player every time it is called.
+     */
+    private static class ConquerOperation implements LongSupplier {
+
+        private final GameState gameState;
+        private final HexTile[] tiles;
+        private final Random random = new Random(42);
+
+        ConquerOperation(GameState gameState) {
+            this.gameState = gameState;
+            tiles = gameState.getMap().values().toArray(new HexTile[0]);
+        }
+
+        @Override
+        public long getAsLong() {
+            while (true) {
+                HexTile tile = tiles[random.nextInt(tiles.length)];
+                List<HexTile> neighborTiles = HexMapHelper.getNeighborTiles(gameState.getMap(), tile);
+                HexTile neighborTile = neighborTiles.get(random.nextInt(neighborTiles.size()));
+                if (neighborTile == null || neighborTile.getPlayer() == tile.getPlayer()
+                        || neighborTile.getKingdom() == null) {
+                    continue;
+                }
+                gameState.setActiveKingdom(neighborTile.getKingdom());
+                gameState.setHeldObject(Unit.of(Unit.UnitTypes.PEASANT));
+                GameStateHelper.conquer(gameState, tile);
+                return gameState.getKingdoms().size();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.benchmark;
+
+import de.sesu8642.feudaltactics.ingame.NewGamePreferences.Densities;
+import de.sesu8642.feudaltactics.ingame.NewGamePreferences.MapSizes;
+import de.sesu8642.feudaltactics.lib.gamestate.GameState;
+import de.sesu8642.feudaltactics.lib.gamestate.GameStateHelper;
+import de.sesu8642.feudaltactics.lib.gamestate.GeneratedMapCache;
+import de.sesu8642.feudaltactics.lib.gamestate.MapGeneratorVersion;
+import de.sesu8642.feudaltactics.lib.gamestate.Player;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Measures generating maps of all the sizes and densities that can be selected, plus some very large ones and the
+ * smallest possible one with every generator version. Also measures taking a map from the cache.
+ */
+public class MapGenerationBenchmark {
+
+    private static final int[] LARGE_LAND_MASSES = {5000, 20000};
+    // two tiles per player; often needs repairing
+    private static final int SMALLEST_LAND_MASS = 12;
+
+    /**
+     * Runs the benchmark.
+     */
+    public static void main(String[] args) {
+        for (MapSizes mapSize : MapSizes.values()) {
+            for (Densities density : Densities.values()) {
+                BenchmarkHelper.measure(String.format("generate %s map (%s)", mapSize, density), 20,
+                        new GenerateOperation(mapSize.getAmountOfTiles(), density.getDensityFloat(),
+                                MapGeneratorVersion.LATEST));
+            }
+        }
+        for (int landMass : LARGE_LAND_MASSES) {
+            for (Densities density : Densities.values()) {
+                BenchmarkHelper.measure(String.format("generate map with %s tiles (%s)", landMass, density), 1,
+                        new GenerateOperation(landMass, density.getDensityFloat(), MapGeneratorVersion.LATEST));
+            }
+        }
+        for (MapGeneratorVersion version : MapGeneratorVersion.values()) {
+            BenchmarkHelper.measure(String.format("generate map with %s tiles (%s)", SMALLEST_LAND_MASS, version),
+                    20, new GenerateOperation(SMALLEST_LAND_MASS, Densities.MEDIUM.getDensityFloat(), version));
+        }
+        GeneratedMapCache cache = new GeneratedMapCache(MapSizes.XXLARGE.getAmountOfTiles());
+        BenchmarkHelper.measure(String.format("get cached %s map", MapSizes.XXLARGE), 20, () -> {
+            GameState gameState = cache.getMap(createPlayers(), MapSizes.XXLARGE.getAmountOfTiles(),
+                    Densities.MEDIUM.getDensityFloat(), null, 0, MapGeneratorVersion.LATEST);
+            return gameState.getKingdoms().size();
+        });
+        BenchmarkHelper.finish();
+    }
+
+    private static List<Player> createPlayers() {
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            players.add(new Player(i, Type.LOCAL_BOT));
+        }
+        return players;
+    }
+
+    /**
+     * Generates a map with a new seed every time it is called.
+     */
+    private static class GenerateOperation implements LongSupplier {
+
+        private final int landMass;
+        private final float density;
+        private final MapGeneratorVersion version;
+        private long seed = 0;
+
+        GenerateOperation(int landMass, float density, MapGeneratorVersion version) {
+            this.landMass = landMass;
+            this.density = density;
+            this.version = version;
+        }
+
+        @Override
+        public long getAsLong() {
+            GameState gameState = new GameState();
+            GameStateHelper.initializeMap(gameState, createPlayers(), landMass, density, null, seed++, version);
+            return gameState.getKingdoms().size();
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package de.sesu8642.feudaltactics.benchmark;
+
+import de.sesu8642.feudaltactics.lib.gamestate.*;
+import de.sesu8642.feudaltactics.lib.gamestate.Player.Type;
+import de.sesu8642.feudaltactics.lib.ingame.PlayerMove;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Measures trying out a move the way a search would: either on a copy of the game state or by applying it to the game
+ * state itself and undoing it with a {@link MoveJournal}. The move is conquering a tile, which changes the most.
+ */
+public class MoveJournalBenchmark {
+
+    private static final int[] LAND_MASSES = {250, 1000, 5000};
+
+    /**
+     * Runs the benchmark.
+     */
+    public static void main(String[] args) {
+        for (int landMass : LAND_MASSES) {
+            GameState gameState = new GameState();
+            List<Player> players = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                players.add(new Player(i, Type.LOCAL_BOT));
+            }
+            GameStateHelper.initializeMap(gameState, players, landMass, 0, 0.2F, 1L);
+            List<PlayerMove> conquerMoves = prepareConquering(gameState);
+            System.out.println("Land mass " + landMass + ", " + conquerMoves.size() + " tiles to conquer");
+
+            BenchmarkHelper.measure("copy and conquer", 200, new MoveOperation(conquerMoves) {
+                @Override
+                long tryMove(PlayerMove move) {
+                    GameState copy = GameStateHelper.getCopy(gameState);
+                    GameStateHelper.applyPlayerMove(copy, move);
+                    return copy.getFingerprint();
+                }
+            });
+            MoveJournal journal = new MoveJournal();
+            BenchmarkHelper.measure("conquer and undo", 200, new MoveOperation(conquerMoves) {
+                @Override
+                long tryMove(PlayerMove move) {
+                    GameStateHelper.applyPlayerMove(gameState, move, journal);
+                    long fingerprint = gameState.getFingerprint();
+                    GameStateHelper.undoPlayerMove(gameState, journal);
+                    return fingerprint;
+                }
+            });
+        }
+        BenchmarkHelper.finish();
+    }
+
+    // lets the first player's biggest kingdom hold a knight and returns the moves conquering the tiles it can
+    private static List<PlayerMove> prepareConquering(GameState gameState) {
+        Player player = gameState.getActivePlayer();
+        Kingdom kingdom = gameState.getKingdoms().stream().filter(candidate -> candidate.getPlayer() == player)
+                .max((kingdom1, kingdom2) -> Integer.compare(kingdom1.getTiles().size(),
+                        kingdom2.getTiles().size()))
+                .orElseThrow(IllegalStateException::new);
+        kingdom.setSavings(1000);
+        GameStateHelper.activateKingdom(gameState, kingdom);
+        for (int i = 0; i < 3; i++) {
+            GameStateHelper.buyPeasant(gameState);
+        }
+        List<PlayerMove> moves = new ArrayList<>();
+        for (HexTile tile : gameState.getMap().values()) {
+            if (InputValidationHelper.checkConquer(gameState, player, tile)) {
+                moves.add(PlayerMove.conquer(tile.getPosition()));
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Tries one move after the other every time it is called.
+     */
+    private abstract static class MoveOperation implements LongSupplier {
+
+        private final List<PlayerMove> moves;
+        private int nextMove = 0;
+
+        MoveOperation(List<PlayerMove> moves) {
+            this.moves = moves;
+        }
+
+        abstract long tryMove(PlayerMove move);
+
+        @Override
+        public long getAsLong() {
+            PlayerMove move = moves.get(nextMove);
+            nextMove = (nextMove + 1) % moves.size();
+            return tryMove(move);
+        }
+    }
+
+}